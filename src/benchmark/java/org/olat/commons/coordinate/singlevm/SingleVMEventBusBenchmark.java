@@ -0,0 +1,122 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.singlevm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.event.MultiUserEvent;
+import org.olat.core.util.resource.OresHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of the registry of the event bus: every operation registers
+ * a listener, fires an event to the listeners of the resource and
+ * deregisters the listener. The main method runs it with 1 to 64 threads,
+ * the JMH runner with the threads given by -t.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleVMEventBusBenchmark {
+
+	public static void main(String[] args) throws RunnerException {
+		for(int numOfThreads=1; numOfThreads<=64; numOfThreads *= 2) {
+			Options options = new OptionsBuilder()
+					.include(SingleVMEventBusBenchmark.class.getSimpleName())
+					.threads(numOfThreads)
+					.build();
+			new Runner(options).run();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class BusState {
+
+		private final SingleVMEventBus bus = new SingleVMEventBus();
+		private final OLATResourceable[] resources = new OLATResourceable[16];
+
+		@Setup
+		public void setup() {
+			for(int i=0; i<resources.length; i++) {
+				resources[i] = OresHelper.createOLATResourceableInstance("bus-benchmark", Long.valueOf(i));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ListenerState {
+
+		private BlackholeListener listener;
+		private int index;
+
+		@Setup
+		public void setup(Blackhole blackhole, ThreadParams threadParams) {
+			listener = new BlackholeListener(blackhole);
+			index = threadParams.getThreadIndex();
+		}
+	}
+
+	@Benchmark
+	public void registerFireDeregister(BusState state, ListenerState listenerState) {
+		OLATResourceable[] resources = state.resources;
+		listenerState.index = (listenerState.index + 1) % resources.length;
+		OLATResourceable ores = resources[listenerState.index];
+		state.bus.registerFor(listenerState.listener, null, ores);
+		state.bus.fireEventToListenersOf(new MultiUserEvent("benchmark"), ores);
+		state.bus.deregisterFor(listenerState.listener, ores);
+	}
+
+	private static class BlackholeListener implements GenericEventListener {
+
+		private final Blackhole blackhole;
+
+		public BlackholeListener(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void event(Event event) {
+			blackhole.consume(event);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.media;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.olat.core.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Compare the delivery of a file of 32 MB with the file channel and with
+ * the input stream, the whole file or a range from the first MB to the
+ * end. The response discards the bytes, only the path to the servlet
+ * output stream is measured.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServletUtilBenchmark {
+
+	@Param({ "none", "bytes=1048576-" })
+	private String range;
+
+	private File file;
+	private FileMediaResource fileResource;
+	private MediaResource streamResource;
+
+	@Setup
+	public void createFile() throws IOException {
+		byte[] content = new byte[256 * 1024];
+		new Random(42l).nextBytes(content);
+		file = File.createTempFile("servlet_util_benchmark", ".mp4");
+		try(OutputStream out = Files.newOutputStream(file.toPath())) {
+			for(int i=0; i<128; i++) {
+				out.write(content);// 32 MB
+			}
+		}
+		fileResource = new FileMediaResource(file);
+		streamResource = new StreamedMediaResource(fileResource);
+	}
+
+	@TearDown
+	public void deleteFile() {
+		FileUtils.deleteFile(file);
+	}
+
+	@Benchmark
+	public long fileChannel() {
+		return serveDiscard(fileResource);
+	}
+
+	@Benchmark
+	public long inputStream() {
+		return serveDiscard(streamResource);
+	}
+
+	private long serveDiscard(MediaResource resource) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		if(!"none".equals(range)) {
+			request.addHeader("Range", range);
+		}
+		DiscardHttpServletResponse response = new DiscardHttpServletResponse();
+		ServletUtil.serveResource(request, response, resource);
+		if(response.getContentLengthLong() != response.getWritten()) {
+			throw new IllegalStateException("Written " + response.getWritten() + " of " + response.getContentLengthLong() + " bytes");
+		}
+		return response.getWritten();
+	}
+
+	/**
+	 * Hide the file to use the delivery with the input stream.
+	 */
+	private static class StreamedMediaResource implements MediaResource {
+
+		private final FileMediaResource delegate;
+
+		public StreamedMediaResource(FileMediaResource delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean acceptRanges() {
+			return delegate.acceptRanges();
+		}
+
+		@Override
+		public String getContentType() {
+			return delegate.getContentType();
+		}
+
+		@Override
+		public Long getSize() {
+			return delegate.getSize();
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return delegate.getInputStream();
+		}
+
+		@Override
+		public Long getLastModified() {
+			return delegate.getLastModified();
+		}
+
+		@Override
+		public long getCacheControlDuration() {
+			return delegate.getCacheControlDuration();
+		}
+
+		@Override
+		public void prepare(HttpServletResponse hres) {
+			delegate.prepare(hres);
+		}
+
+		@Override
+		public void release() {
+			delegate.release();
+		}
+	}
+
+	private static class DiscardHttpServletResponse extends MockHttpServletResponse {
+
+		private long written = 0l;
+		private final ServletOutputStream out = new ServletOutputStream() {
+			@Override
+			public void write(int b) {
+				written++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				written += len;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+				//
+			}
+		};
+
+		public long getWritten() {
+			return written;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return out;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.render;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the thread local pool of StringOutput with the old pool,
+ * two global pools behind a lock, under concurrent rendering. Every
+ * operation renders a window with ten components in small buffers.
+ * The number of threads can be changed with -t.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StringOutputPoolBenchmark {
+
+	@Benchmark
+	public String threadLocalPool() {
+		return render(StringOutputPool::allocStringBuilder, StringOutputPool::freePop);
+	}
+
+	@Benchmark
+	public String synchronizedPool() {
+		return render(SynchronizedPool::allocStringBuilder, SynchronizedPool::freePop);
+	}
+
+	private static String render(IntFunction<StringOutput> alloc, Function<StringOutput,String> free) {
+		StringOutput window = alloc.apply(100000);
+		for(int k=0; k<10; k++) {
+			StringOutput component = alloc.apply(2048);
+			for(int l=0; l<20; l++) {
+				component.append("<div class='o_component'>").append(l).append("</div>");
+			}
+			window.append(free.apply(component));
+		}
+		return free.apply(window);
+	}
+
+	/**
+	 * The old implementation of the pool with two global synchronized pools.
+	 */
+	private static class SynchronizedPool {
+
+		private static final int MAX_STR_BUILDER_POOL_SIZE = 50;
+		private static final List<Reference<StringOutput>> stringBuilders = new ArrayList<>(MAX_STR_BUILDER_POOL_SIZE + 1);
+		private static final StringOutput[] auxStringBuilders = new StringOutput[10];
+
+		public static StringOutput allocStringBuilder(final int size) {
+			if(size < 4096) {
+				synchronized(auxStringBuilders) {
+					for(int index=0; index < auxStringBuilders.length; index++) {
+						if(auxStringBuilders[index] != null && auxStringBuilders[index].capacity() >= size) {
+							StringOutput res = auxStringBuilders[index];
+							auxStringBuilders[index] = null;
+							return res;
+						}
+					}
+				}
+			} else {
+				synchronized(stringBuilders) {
+					for(Iterator<Reference<StringOutput>> seq=stringBuilders.iterator(); seq.hasNext(); ) {
+						StringOutput res = seq.next().get();
+						if(res == null) {
+							seq.remove();
+						} else if(res.capacity() >= size) {
+							seq.remove();
+							return res;
+						}
+					}
+				}
+			}
+			return new StringOutput(size);
+		}
+
+		public static String freePop(final StringOutput obj) {
+			String res = obj.toString();
+			if(obj.capacity() < 4096) {
+				synchronized(auxStringBuilders) {
+					int minIndex = -1, minSize = Integer.MAX_VALUE, size = 0;
+					for(int index=0; index < auxStringBuilders.length; index++) {
+						if(auxStringBuilders[index] == null) {
+							obj.setLength(0);
+							auxStringBuilders[index] = obj;
+							return res;
+						}
+						if((size = auxStringBuilders[index].capacity()) < minSize) {
+							minIndex = index;
+							minSize = size;
+						}
+					}
+					if(minSize < obj.capacity()) {
+						obj.setLength(0);
+						auxStringBuilders[minIndex] = obj;
+					}
+				}
+			} else if(obj.capacity() < 250000) {
+				synchronized(stringBuilders) {
+					obj.setLength(0);
+					stringBuilders.add(0, new SoftReference<>(obj));
+					if(stringBuilders.size() > MAX_STR_BUILDER_POOL_SIZE) {
+						stringBuilders.remove(MAX_STR_BUILDER_POOL_SIZE);
+					}
+				}
+			}
+			return res;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.openxml;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.olat.core.util.openxml.OpenXMLWorksheet.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Write 1'000'000 cells, half strings with a lot of duplicates, half numbers.
+ * The table of shared strings is limited to 10'000 strings. Run it with
+ * -prof gc to see the memory allocated by the export.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx256m" })
+public class OpenXmlWorkbookBenchmark {
+
+	@Benchmark
+	public long writeOneMillionCells() throws IOException {
+		CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
+		OpenXMLWorkbook workbook = new OpenXMLWorkbook(out, 1, 10000);
+		OpenXMLWorksheet sheet = workbook.nextWorksheet();
+		for(int i=0; i<10000; i++) {
+			Row row = sheet.newRow();
+			for(int j=0; j<50; j++) {
+				row.addCell(j, "Value " + ((i * 50 + j) % 20000), null);
+			}
+			for(int j=50; j<100; j++) {
+				row.addCell(j, i * j, null);
+			}
+		}
+		workbook.close();
+		if(workbook.getSharedStrings().size() != 10000) {
+			throw new IllegalStateException("Shared strings not limited: " + workbook.getSharedStrings().size());
+		}
+		return out.getByteCount();
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.olat.core.util.xml.XStreamHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Compare the time to load the run structures of the test courses from
+ * the XML files with XStream and from the binary snapshots. At the end
+ * of every trial, the heap retained by the structures loaded both ways
+ * is printed.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseBinarySnapshotBenchmark {
+
+	private static final String RUNSTRUCTURE_XML = "runstructure.xml";
+	private static final int RETAINED_COPIES = 50;
+
+	@Param({ "runstructure_allinone.xml", "runstructure_checklist.xml" })
+	private String course;
+
+	private File courseDir;
+	private File xmlFile;
+	private XStream xstream;
+	private CourseBinarySnapshot snapshot;
+
+	@Setup
+	public void setup() throws IOException {
+		courseDir = Files.createTempDirectory("course-snapshot-benchmark").toFile();
+		xmlFile = new File(courseDir, RUNSTRUCTURE_XML);
+		try(InputStream in = CourseBinarySnapshotBenchmark.class.getResourceAsStream(course)) {
+			Files.copy(in, xmlFile.toPath());
+		}
+		xstream = CourseXStreamAliases.getReadCourseXStream();
+		snapshot = new CourseBinarySnapshot(courseDir, RUNSTRUCTURE_XML);
+		if(!snapshot.write(loadXml()) || snapshot.read() == null) {
+			throw new IllegalStateException("Cannot write the snapshot of " + course);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		long xmlHeap = retainedHeap(true);
+		long snapshotHeap = retainedHeap(false);
+		System.out.println(course + " (" + xmlFile.length() + " bytes XML, " + snapshot.getSnapshotFile().length()
+				+ " bytes snapshot): retained heap XStream ~" + xmlHeap + " bytes, snapshot ~" + snapshotHeap + " bytes");
+		FileUtils.deleteQuietly(courseDir);
+	}
+
+	@Benchmark
+	public Object loadXml() {
+		return XStreamHelper.readObject(xstream, xmlFile);
+	}
+
+	@Benchmark
+	public Object loadSnapshot() {
+		return snapshot.read();
+	}
+
+	/**
+	 * @return The average heap retained by one loaded structure
+	 */
+	private long retainedHeap(boolean xml) {
+		Object[] structures = new Object[RETAINED_COPIES];
+		long before = usedHeap();
+		for(int i=0; i<RETAINED_COPIES; i++) {
+			structures[i] = xml ? loadXml() : loadSnapshot();
+		}
+		long retained = (usedHeap() - before) / RETAINED_COPIES;
+		if(structures[RETAINED_COPIES - 1] == null) {
+			throw new IllegalStateException("Cannot load " + course);
+		}
+		return retained;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i=0; i<3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.condition;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.olat.core.id.IdentityEnvironment;
+import org.olat.core.id.Roles;
+import org.olat.course.Structure;
+import org.olat.course.condition.interpreter.ConditionInterpreter;
+import org.olat.course.run.environment.CourseEnvironment;
+import org.olat.course.run.userview.UserCourseEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluate the visibility and the access conditions of a course with 300
+ * nodes for a user, as the evaluation of the tree of the course does, with
+ * the expressions compiled once for the course and with the expressions
+ * parsed for every user. Every operation builds the interpreter of a new
+ * visit of the course.
+ * <p>
+ * The course environment is a mock, the functions of the conditions (now,
+ * date and isGuest) don't need the database.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ConditionInterpreterBenchmark {
+
+	private static final int NUM_OF_NODES = 300;
+
+	@State(Scope.Benchmark)
+	public static class CourseState {
+
+		private final List<Condition> conditions = new ArrayList<>(2 * NUM_OF_NODES);
+		private UserCourseEnvironment compiledUserCourseEnv;
+		private UserCourseEnvironment parsedUserCourseEnv;
+
+		@Setup
+		public void setup() {
+			for(int i=0; i<NUM_OF_NODES; i++) {
+				String begin = String.format("%02d.%02d.2020 08:00", (i % 28) + 1, (i % 12) + 1);
+				String end = String.format("%02d.%02d.2099 18:00", (i % 28) + 1, (i % 12) + 1);
+				conditions.add(condition("(now >= date(\"" + begin + "\")) & (now <= date(\"" + end + "\"))"));
+				conditions.add(condition("(isGuest(0) <= 0) & (now >= date(\"" + begin + "\"))"));
+			}
+			compiledUserCourseEnv = userCourseEnvironment(new Structure());
+			// without run structure, the interpreter parses the expressions with its own environment
+			parsedUserCourseEnv = userCourseEnvironment(null);
+		}
+
+		private static Condition condition(String expression) {
+			Condition condition = new Condition();
+			condition.setConditionExpression(expression);
+			return condition;
+		}
+
+		private static UserCourseEnvironment userCourseEnvironment(Structure runStructure) {
+			CourseEnvironment courseEnv = mock(CourseEnvironment.class, withSettings().stubOnly());
+			when(courseEnv.getCurrentTimeMillis()).thenReturn(System.currentTimeMillis());
+			when(courseEnv.getRunStructure()).thenReturn(runStructure);
+
+			UserCourseEnvironment userCourseEnv = mock(UserCourseEnvironment.class, withSettings().stubOnly());
+			when(userCourseEnv.getCourseEnvironment()).thenReturn(courseEnv);
+			when(userCourseEnv.getIdentityEnvironment()).thenReturn(new IdentityEnvironment(null, Roles.userRoles()));
+			return userCourseEnv;
+		}
+	}
+
+	@Benchmark
+	public int compiledExpressions(CourseState state) {
+		return evaluate(state.conditions, state.compiledUserCourseEnv);
+	}
+
+	@Benchmark
+	public int parsedExpressions(CourseState state) {
+		return evaluate(state.conditions, state.parsedUserCourseEnv);
+	}
+
+	private static int evaluate(List<Condition> conditions, UserCourseEnvironment userCourseEnv) {
+		ConditionInterpreter interpreter = new ConditionInterpreter(userCourseEnv);
+		int accessible = 0;
+		for(Condition condition:conditions) {
+			if(interpreter.evaluateCondition(condition)) {
+				accessible++;
+			}
+		}
+		if(accessible != conditions.size()) {
+			throw new IllegalStateException("Conditions not fulfilled: " + (conditions.size() - accessible));
+		}
+		return accessible;
+	}
+}
@@ -43,6 +43,7 @@ import org.olat.basesecurity.BaseSecurity;
 import org.olat.basesecurity.IdentityImpl;
 import org.olat.basesecurity.OrganisationRoles;
 import org.olat.basesecurity.manager.GroupDAO;
+import org.olat.basesecurity.manager.RolesCache;
 import org.olat.commons.lifecycle.LifeCycleEntry;
 import org.olat.commons.lifecycle.LifeCycleManager;
 import org.olat.core.CoreSpringFactory;
@@ -105,6 +106,8 @@ public class UserDeletionManager {
 	@Autowired
 	private GroupDAO groupDao;
 	@Autowired
+	private RolesCache rolesCache;
+	@Autowired
 	private DB dbInstance;
 
 
@@ -314,6 +317,7 @@ public class UserDeletionManager {
 		// Remove identity from all remaining groups and remove roles
 		int count = groupDao.removeMemberships(identity);
 		log.info("Delete " + count + " group memberships/roles for identity::" + identity.getKey());
+		rolesCache.invalidate(identity);
 
 		// Cleanup lifecycle data
 		LifeCycleManager.createInstanceFor(identity).markTimestampFor(USER_DELETED_ACTION, null);
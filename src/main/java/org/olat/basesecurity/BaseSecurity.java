@@ -56,6 +56,15 @@ public interface BaseSecurity {
 	
 	public Roles getRoles(IdentityRef identity, boolean withInherited);
 	
+	/**
+	 * Get the roles (with the inherited ones) of many identities. The roles
+	 * which are not cached are loaded in batches, one query per batch.
+	 * 
+	 * @param identities A collection of identities
+	 * @return A map identity key to the roles of the identity
+	 */
+	public Map<Long,Roles> getRoles(Collection<? extends IdentityRef> identities);
+	
 	/**
 	 * Get the list of roles as string without inheritance (an admin
 	 * has only admin role and not the user manager role...).
@@ -46,6 +46,8 @@ import javax.persistence.TypedQuery;
 
 import org.olat.basesecurity.events.NewIdentityCreatedEvent;
 import org.olat.basesecurity.manager.AuthenticationHistoryDAO;
+import org.olat.basesecurity.manager.IdentityAutocompleteIndex;
+import org.olat.basesecurity.manager.RolesCache;
 import org.olat.basesecurity.model.OrganisationRefImpl;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.persistence.PersistenceHelper;
@@ -99,9 +101,14 @@ public class BaseSecurityManager implements BaseSecurity, UserDataDeletable {
 	private AuthenticationHistoryDAO authenticationHistoryDao;
 	@Autowired
 	private IdentityPowerSearchQueries identityPowerSearchQueries;
+	@Autowired
+	private RolesCache rolesCache;
+	@Autowired
+	private IdentityAutocompleteIndex identityAutocompleteIndex;
 	
 	private static BaseSecurityManager INSTANCE;
 	private static final String GUEST_USERNAME_PREFIX = "guest_";
+	private static final int ROLES_BATCH_SIZE = 1000;
 	public static final OLATResourceable IDENTITY_EVENT_CHANNEL = OresHelper.lookupType(Identity.class);
 	
 	/**
@@ -143,39 +150,104 @@ public class BaseSecurityManager implements BaseSecurity, UserDataDeletable {
 
 	@Override
 	public Roles getRoles(IdentityRef identity, boolean withInherited) {
+		if(withInherited) {
+			Roles roles = rolesCache.get(identity);
+			if(roles == null) {
+				roles = loadRoles(Collections.singletonList(identity.getKey()), true).get(identity.getKey());
+				rolesCache.put(identity.getKey(), roles);
+			}
+			return roles;
+		}
+		return loadRoles(Collections.singletonList(identity.getKey()), false).get(identity.getKey());
+	}
+	
+	@Override
+	public Map<Long,Roles> getRoles(Collection<? extends IdentityRef> identities) {
+		Map<Long,Roles> roles = new HashMap<>();
+		List<Long> identityKeysToLoad = new ArrayList<>();
+		for(IdentityRef identity:identities) {
+			Roles cachedRoles = rolesCache.get(identity);
+			if(cachedRoles == null) {
+				identityKeysToLoad.add(identity.getKey());
+			} else {
+				roles.put(identity.getKey(), cachedRoles);
+			}
+		}
+		
+		for(int i=0; i<identityKeysToLoad.size(); i+=ROLES_BATCH_SIZE) {
+			List<Long> batchKeys = identityKeysToLoad.subList(i, Math.min(i + ROLES_BATCH_SIZE, identityKeysToLoad.size()));
+			Map<Long,Roles> loadedRoles = loadRoles(batchKeys, true);
+			for(Map.Entry<Long,Roles> loadedRole:loadedRoles.entrySet()) {
+				rolesCache.put(loadedRole.getKey(), loadedRole.getValue());
+			}
+			roles.putAll(loadedRoles);
+		}
+		return roles;
+	}
+	
+	/**
+	 * Load the roles of the identities in one query.
+	 * 
+	 * @param identityKeys The keys of the identities
+	 * @param withInherited Include the roles inherited from the parent organisations
+	 * @return A map identity key to roles with an entry for every identity
+	 */
+	private Map<Long,Roles> loadRoles(List<Long> identityKeys, boolean withInherited) {
 		StringBuilder sb = new StringBuilder(512);
-		sb.append("select org.key, org.identifier, membership.role from organisation as org ")
+		sb.append("select membership.identity.key, org.key, membership.role from organisation as org ")
 		  .append(" inner join org.group baseGroup")
-		  .append(" inner join baseGroup.members membership")
-		  .append(" where membership.identity.key=:identityKey");
+		  .append(" inner join baseGroup.members membership");
+		if(identityKeys.size() == 1) {
+			sb.append(" where membership.identity.key=:identityKey");
+		} else {
+			sb.append(" where membership.identity.key in (:identityKeys)");
+		}
 		if(!withInherited) {
 			sb.append(" and membership.inheritanceModeString in ('").append(GroupMembershipInheritance.none.name()).append("','").append(GroupMembershipInheritance.root.name()).append("')");
 		}
 		
-		List<Object[]> rawObjects = dbInstance.getCurrentEntityManager()
-				.createQuery(sb.toString(), Object[].class)
-				.setParameter("identityKey", identity.getKey())
-				.getResultList();
-		Map<OrganisationRef, List<OrganisationRoles>> orgToRoles = new HashMap<>();
-
-		Set<String> rolesStr = new HashSet<>();
+		TypedQuery<Object[]> query = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class);
+		if(identityKeys.size() == 1) {
+			query.setParameter("identityKey", identityKeys.get(0));
+		} else {
+			query.setParameter("identityKeys", identityKeys);
+		}
+		List<Object[]> rawObjects = query.getResultList();
+		
+		Map<Long,Map<OrganisationRef, List<OrganisationRoles>>> identityToOrgToRoles = new HashMap<>();
 		for(Object[] rawObject:rawObjects) {
-			Long organisationKey = (Long)rawObject[0];
+			Long identityKey = (Long)rawObject[0];
+			Long organisationKey = (Long)rawObject[1];
 			String role = (String)rawObject[2];
 			if(!OrganisationRoles.isValue(role)) {
 				continue;
 			}
-			rolesStr.add(role);
 
-			List<OrganisationRoles> roleList = orgToRoles
+			List<OrganisationRoles> roleList = identityToOrgToRoles
+					.computeIfAbsent(identityKey, key -> new HashMap<>())
 					.computeIfAbsent(new OrganisationRefImpl(organisationKey), key -> new ArrayList<>());
 			roleList.add(OrganisationRoles.valueOf(role));
 		}
+		
+		Map<Long,Roles> identityToRoles = new HashMap<>();
+		for(Long identityKey:identityKeys) {
+			Map<OrganisationRef, List<OrganisationRoles>> orgToRoles = identityToOrgToRoles.get(identityKey);
+			identityToRoles.put(identityKey, toRoles(orgToRoles == null ? Collections.emptyMap() : orgToRoles));
+		}
+		return identityToRoles;
+	}
+	
+	private Roles toRoles(Map<OrganisationRef, List<OrganisationRoles>> orgToRoles) {
+		Set<OrganisationRoles> rolesSet = new HashSet<>();
+		for(List<OrganisationRoles> roleList:orgToRoles.values()) {
+			rolesSet.addAll(roleList);
+		}
 
-		boolean isInvitee = rolesStr.contains(OrganisationRoles.invitee.name());
+		boolean isInvitee = rolesSet.contains(OrganisationRoles.invitee);
 		boolean isGuestOnly = false;
-		if(!rolesStr.contains(OrganisationRoles.user.name())) {
-			isGuestOnly = rolesStr.contains(OrganisationRoles.guest.name());
+		if(!rolesSet.contains(OrganisationRoles.user)) {
+			isGuestOnly = rolesSet.contains(OrganisationRoles.guest);
 		}
 		
 		List<RolesByOrganisation> rolesByOrganisations = new ArrayList<>();
@@ -243,6 +315,8 @@ public class BaseSecurityManager implements BaseSecurity, UserDataDeletable {
 		updateRoles(organisation, roles, currentRoles, OrganisationRoles.principal, actingIdentity, updatedIdentity);
 		updateRoles(organisation, roles, currentRoles, OrganisationRoles.administrator, actingIdentity, updatedIdentity);
 		updateRoles(organisation, roles, currentRoles, OrganisationRoles.sysadmin, actingIdentity, updatedIdentity);
+		// invalidated in the cluster after the commit
+		rolesCache.invalidate(updatedIdentity);
 	}
 	
 	/**
@@ -665,6 +739,29 @@ public class BaseSecurityManager implements BaseSecurity, UserDataDeletable {
 	public List<IdentityShort> searchIdentityShort(String search,
 			List<? extends OrganisationRef> searcheableOrgnisations, GroupRoles repositoryEntryRole, int maxResults) {
 		String[] searchArr = search.split(" ");
+		if(repositoryEntryRole == null && identityAutocompleteIndex.isReady()) {
+			List<Long> identityKeys = identityAutocompleteIndex.search(searchArr, searcheableOrgnisations, maxResults);
+			if(identityKeys != null) {
+				return loadVisibleIdentityShortByKeys(identityKeys);
+			}
+		}
+		return searchIdentityShortInDatabase(searchArr, searcheableOrgnisations, repositoryEntryRole, maxResults);
+	}
+	
+	private List<IdentityShort> loadVisibleIdentityShortByKeys(List<Long> identityKeys) {
+		List<IdentityShort> identities = new ArrayList<>(loadIdentityShortByKeys(identityKeys));
+		// the index can be a few seconds late
+		identities.removeIf(identity -> identity.getStatus() >= Identity.STATUS_VISIBLE_LIMIT.intValue());
+		identities.sort((i1, i2) -> i1.getKey().compareTo(i2.getKey()));
+		return identities;
+	}
+	
+	/**
+	 * The search in the database, used by the search with a role in the
+	 * repository entries or if the index is not available.
+	 */
+	protected List<IdentityShort> searchIdentityShortInDatabase(String[] searchArr,
+			List<? extends OrganisationRef> searcheableOrgnisations, GroupRoles repositoryEntryRole, int maxResults) {
 		String[] attributes = new String[]{ "name", "firstName", "lastName", "email" };
 		
 		StringBuilder sb = new StringBuilder();
@@ -1147,6 +1244,7 @@ public class BaseSecurityManager implements BaseSecurity, UserDataDeletable {
 			reloadedIdentity = dbInstance.getCurrentEntityManager().merge(reloadedIdentity);
 		}
 		dbInstance.commit();
+		identityAutocompleteIndex.identityChanged(identity);
 		return reloadedIdentity;
 	}
 	
@@ -1207,6 +1305,7 @@ public class BaseSecurityManager implements BaseSecurity, UserDataDeletable {
 			reloadedIdentity = dbInstance.getCurrentEntityManager().merge(reloadedIdentity);
 		}
 		dbInstance.commit();
+		identityAutocompleteIndex.identityChanged(identity);
 		return reloadedIdentity;
 	}
 	
@@ -0,0 +1,58 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.basesecurity.events;
+
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * The event is fired in the whole cluster after a change of the
+ * searchable attributes of an identity (username, status or the
+ * properties of the user).
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class IdentityChangedEvent extends MultiUserEvent {
+
+	private static final long serialVersionUID = 4185830294120396487L;
+	
+	private final Long identityKey;
+	private final Long userKey;
+	
+	public IdentityChangedEvent(Long identityKey, Long userKey) {
+		super("identity-changed");
+		this.identityKey = identityKey;
+		this.userKey = userKey;
+	}
+
+	/**
+	 * @return The key of the identity or null if only the user is known
+	 */
+	public Long getIdentityKey() {
+		return identityKey;
+	}
+
+	/**
+	 * @return The key of the user or null
+	 */
+	public Long getUserKey() {
+		return userKey;
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.basesecurity.events;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * The event is fired in the whole cluster after the organisation roles
+ * of some identities (or of all identities) have changed.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class RolesChangedEvent extends MultiUserEvent {
+
+	private static final long serialVersionUID = -3652410913452075307L;
+	
+	private final ArrayList<Long> identityKeys;
+	
+	/**
+	 * @param identityKeys The keys of the identities or null if all identities are concerned
+	 */
+	public RolesChangedEvent(Collection<Long> identityKeys) {
+		super("roles-changed");
+		this.identityKeys = identityKeys == null ? null : new ArrayList<>(identityKeys);
+	}
+	
+	public boolean isAllIdentities() {
+		return identityKeys == null;
+	}
+
+	public List<Long> getIdentityKeys() {
+		return identityKeys;
+	}
+}
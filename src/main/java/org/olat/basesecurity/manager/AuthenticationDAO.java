@@ -19,7 +19,9 @@
  */
 package org.olat.basesecurity.manager;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -76,6 +78,25 @@ public class AuthenticationDAO {
 		return authentications != null && !authentications.isEmpty();
 	}
 	
+	/**
+	 * @param identityKeys A list of identity primary keys
+	 * @param provider The authentication provider
+	 * @return The authentications of the identities with the specified provider
+	 */
+	public List<Authentication> getAuthentications(Collection<Long> identityKeys, String provider) {
+		if(identityKeys == null || identityKeys.isEmpty()) return new ArrayList<>();
+		
+		StringBuilder sb = new StringBuilder(128);
+		sb.append("select auth from ").append(AuthenticationImpl.class.getName()).append(" as auth")
+		  .append(" inner join fetch auth.identity as ident")
+		  .append(" where ident.key in (:identityKeys) and auth.provider=:provider");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Authentication.class)
+				.setParameter("identityKeys", identityKeys)
+				.setParameter("provider", provider)
+				.getResultList();
+	}
+	
 	public Authentication updateAuthentication(Authentication authentication) {
 		return dbInstance.getCurrentEntityManager().merge(authentication);
 	}
@@ -19,11 +19,14 @@
  */
 package org.olat.basesecurity.manager;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 
@@ -31,13 +34,17 @@ import org.olat.basesecurity.Grant;
 import org.olat.basesecurity.Group;
 import org.olat.basesecurity.GroupMembership;
 import org.olat.basesecurity.GroupMembershipInheritance;
+import org.olat.basesecurity.GroupMembershipListener;
 import org.olat.basesecurity.IdentityRef;
 import org.olat.basesecurity.model.GrantImpl;
 import org.olat.basesecurity.model.GroupImpl;
 import org.olat.basesecurity.model.GroupMembershipImpl;
+import org.olat.core.CoreSpringFactory;
+import org.olat.core.commons.persistence.AfterCommitBatch;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.id.Identity;
 import org.olat.resource.OLATResource;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -48,11 +55,45 @@ import org.springframework.stereotype.Service;
  *
  */
 @Service("groupDao")
-public class GroupDAO {
+public class GroupDAO implements InitializingBean {
 	
 	@Autowired
 	private DB dbInstance;
 	
+	private AfterCommitBatch<Set<Long>> membershipChanges;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		membershipChanges = new AfterCommitBatch<>(dbInstance, HashSet::new, this::notifyMembershipsChanged);
+	}
+	
+	/**
+	 * @param identity The identity
+	 * @return true if the transaction of the current thread changed the memberships
+	 * 		of the identity and is not committed yet
+	 */
+	public boolean hasPendingMembershipChanges(IdentityRef identity) {
+		Set<Long> pending = membershipChanges.getPending();
+		return pending != null && pending.contains(identity.getKey());
+	}
+	
+	private void membershipsChanged(IdentityRef identity) {
+		if(identity == null || identity.getKey() == null) return;
+		membershipChanges.add(keys -> keys.add(identity.getKey()));
+	}
+	
+	private void membershipsChanged(Collection<Long> identityKeys) {
+		if(identityKeys == null || identityKeys.isEmpty()) return;
+		membershipChanges.add(keys -> keys.addAll(identityKeys));
+	}
+	
+	private void notifyMembershipsChanged(Set<Long> identityKeys) {
+		Map<String,GroupMembershipListener> listeners = CoreSpringFactory.getBeansOfType(GroupMembershipListener.class);
+		for(GroupMembershipListener listener:listeners.values()) {
+			listener.membershipsChanged(identityKeys);
+		}
+	}
+	
 	public Group createGroup() {
 		GroupImpl group = new GroupImpl();
 		group.setCreationDate(new Date());
@@ -97,6 +138,7 @@ public class GroupDAO {
 		membership.setRole(role);
 		membership.setInheritanceMode(inheritanceMode);
 		dbInstance.getCurrentEntityManager().persist(membership);
+		membershipsChanged(identity);
 		
 		Set<GroupMembership> members = ((GroupImpl)group).getMembers();
 		if(members == null) {
@@ -131,6 +173,7 @@ public class GroupDAO {
 		membership.setRole(role);
 		membership.setInheritanceMode(inheritanceMode);
 		dbInstance.getCurrentEntityManager().persist(membership);
+		membershipsChanged(identity);
 	}
 	
 	public GroupMembership updateInheritanceMode(GroupMembership membership, GroupMembershipInheritance inheritanceMode) {
@@ -146,10 +189,19 @@ public class GroupDAO {
 		for(GroupMembership membership:memberships) {
 			em.remove(membership);
 		}
+		membershipsChanged(memberships.stream()
+				.map(membership -> membership.getIdentity().getKey())
+				.collect(Collectors.toSet()));
 		return memberships.size();
 	}
 	
 	public int removeMemberships(Group group, String role) {
+		List<Long> identityKeys = dbInstance.getCurrentEntityManager()
+				.createQuery("select membership.identity.key from bgroupmember as membership where membership.group.key=:groupKey and membership.role=:role", Long.class)
+				.setParameter("groupKey", group.getKey())
+				.setParameter("role", role)
+				.getResultList();
+		membershipsChanged(identityKeys);
 		return dbInstance.getCurrentEntityManager().createNamedQuery("deleteMembershipsByGroupAndRole")
 				.setParameter("groupKey", group.getKey())
 				.setParameter("role", role)
@@ -165,6 +217,7 @@ public class GroupDAO {
 		for(GroupMembership membership:memberships) {
 			em.remove(membership);
 		}
+		membershipsChanged(identity);
 		return memberships.size();
 	}
 	
@@ -178,12 +231,14 @@ public class GroupDAO {
 		for(GroupMembership membership:memberships) {
 			em.remove(membership);
 		}
+		membershipsChanged(identity);
 		return memberships.size();
 	}
 	
 	public int removeMemberships(IdentityRef identity) {
 		String deleteQuery = "delete from bgroupmember as membership where membership.identity.key=:identityKey";
 		
+		membershipsChanged(identity);
 		return dbInstance.getCurrentEntityManager()
 				.createQuery(deleteQuery).setParameter("identityKey", identity.getKey())
 				.executeUpdate();
@@ -191,6 +246,7 @@ public class GroupDAO {
 	
 	public void removeMembership(GroupMembership membership) {
 		dbInstance.getCurrentEntityManager().remove(membership);
+		membershipsChanged(membership.getIdentity());
 	}
 	
 	public int countMembers(Group group) {
@@ -0,0 +1,427 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.basesecurity.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.olat.basesecurity.BaseSecurityManager;
+import org.olat.basesecurity.IdentityRef;
+import org.olat.basesecurity.events.IdentityChangedEvent;
+import org.olat.basesecurity.events.NewIdentityCreatedEvent;
+import org.olat.basesecurity.events.RolesChangedEvent;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.configuration.PreWarm;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.Identity;
+import org.olat.core.id.OrganisationRef;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.CodeHelper;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.event.GenericEventListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * The in-memory index used by the autocompletion of the users. The
+ * index is built after the startup, batch by batch, and the search
+ * uses the database until it's ready.
+ * <p>
+ * The changes of the identities, of the users and of the memberships
+ * of the organisations are collected from the events of the whole
+ * cluster and the changed identities are reloaded in background after
+ * a short delay. All these events are sent after the commit of the
+ * change, a reload sees the committed data.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class IdentityAutocompleteIndex implements PreWarm, GenericEventListener, InitializingBean, DisposableBean {
+	
+	private static final OLog log = Tracing.createLoggerFor(IdentityAutocompleteIndex.class);
+	
+	private static final int BATCH_SIZE = 5000;
+	private static final int REFRESH_BATCH_SIZE = 1000;
+	private static final long REFRESH_DELAY = 2000l;
+	
+	@Value("${usersearch.autocomplete.index.enabled:true}")
+	private boolean enabled;
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private CoordinatorManager coordinatorManager;
+	
+	private volatile IdentityTrigramIndex index;
+	private final AtomicBoolean building = new AtomicBoolean(false);
+	private final ConcurrentMap<Change,Long> changes = new ConcurrentHashMap<>();
+	private ScheduledExecutorService refresher;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if(!enabled) return;
+		
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, BaseSecurityManager.IDENTITY_EVENT_CHANNEL);
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, RolesCache.ROLES_EVENT_CHANNEL);
+		refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "identity-autocomplete-index");
+			t.setDaemon(true);
+			return t;
+		});
+		refresher.scheduleWithFixedDelay(this::refreshChanges, REFRESH_DELAY, REFRESH_DELAY, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(refresher != null) {
+			refresher.shutdownNow();
+		}
+	}
+	
+	public boolean isReady() {
+		return enabled && index != null;
+	}
+	
+	/**
+	 * Search the visible identities which match at least one of the terms
+	 * in their username, first name, last name or email. The terms follow
+	 * the rules of the fuzzy search of the database.
+	 * 
+	 * @param searchTerms The terms
+	 * @param organisations Limit the search to the members of these organisations (optional)
+	 * @param maxResults The max. number of results
+	 * @return The keys of the identities sorted by key or null if the index is not ready
+	 */
+	public List<Long> search(String[] searchTerms, List<? extends OrganisationRef> organisations, int maxResults) {
+		IdentityTrigramIndex currentIndex = index;
+		if(!enabled || currentIndex == null) {
+			return null;
+		}
+		
+		Set<Long> organisationKeys = null;
+		if(organisations != null && !organisations.isEmpty()) {
+			organisationKeys = new HashSet<>();
+			for(OrganisationRef organisation:organisations) {
+				organisationKeys.add(organisation.getKey());
+			}
+		}
+		return currentIndex.search(searchTerms, organisationKeys, maxResults);
+	}
+	
+	/**
+	 * Notify the indexes of the cluster that the identity has changed,
+	 * after the commit of the current transaction.
+	 * 
+	 * @param identity The identity
+	 */
+	public void identityChanged(IdentityRef identity) {
+		if(!enabled || identity == null || identity.getKey() == null) return;
+		
+		Long identityKey = identity.getKey();
+		dbInstance.afterCommit(() -> {
+			changed(new Change(identityKey, false));
+			coordinatorManager.getCoordinator().getEventBus()
+				.fireEventToListenersOf(new IdentityChangedEvent(identityKey, null), BaseSecurityManager.IDENTITY_EVENT_CHANNEL);
+		});
+	}
+	
+	/**
+	 * Notify the indexes of the cluster that the properties of
+	 * the user have changed, after the commit of the current
+	 * transaction.
+	 * 
+	 * @param userKey The primary key of the user
+	 */
+	public void userChanged(Long userKey) {
+		if(!enabled || userKey == null) return;
+		
+		dbInstance.afterCommit(() -> {
+			changed(new Change(userKey, true));
+			coordinatorManager.getCoordinator().getEventBus()
+				.fireEventToListenersOf(new IdentityChangedEvent(null, userKey), BaseSecurityManager.IDENTITY_EVENT_CHANNEL);
+		});
+	}
+
+	@Override
+	public void event(Event event) {
+		if(event instanceof IdentityChangedEvent) {
+			IdentityChangedEvent ice = (IdentityChangedEvent)event;
+			if(ice.getIdentityKey() != null) {
+				changed(new Change(ice.getIdentityKey(), false));
+			}
+			if(ice.getUserKey() != null) {
+				changed(new Change(ice.getUserKey(), true));
+			}
+		} else if(event instanceof NewIdentityCreatedEvent) {
+			changed(new Change(((NewIdentityCreatedEvent)event).getIdentityId(), false));
+		} else if(event instanceof RolesChangedEvent) {
+			RolesChangedEvent rce = (RolesChangedEvent)event;
+			if(rce.isAllIdentities()) {
+				if(refresher != null && index != null) {
+					// the structure of the organisations has changed
+					refresher.execute(this::rebuild);
+				}
+			} else {
+				for(Long identityKey:rce.getIdentityKeys()) {
+					changed(new Change(identityKey, false));
+				}
+			}
+		}
+	}
+	
+	private void changed(Change change) {
+		// the changes before the build are in the index
+		if(change.key != null && (index != null || building.get())) {
+			changes.put(change, Long.valueOf(System.currentTimeMillis() + REFRESH_DELAY));
+		}
+	}
+
+	/**
+	 * Build the index after the startup.
+	 */
+	@Override
+	public void run() {
+		rebuild();
+	}
+	
+	/**
+	 * Build a new index, the current one is used until the new
+	 * one is complete.
+	 */
+	public void rebuild() {
+		if(!enabled || !building.compareAndSet(false, true)) {
+			return;
+		}
+		
+		try {
+			long start = System.nanoTime();
+			IdentityTrigramIndex newIndex = new IdentityTrigramIndex();
+			Long lastKey = Long.valueOf(0l);
+			List<Object[]> rows;
+			do {
+				rows = loadIdentities(lastKey);
+				if(!rows.isEmpty()) {
+					Long firstKey = (Long)rows.get(0)[0];
+					lastKey = (Long)rows.get(rows.size() - 1)[0];
+					Map<Long,List<Long>> organisations = loadOrganisations(firstKey, lastKey);
+					for(Object[] row:rows) {
+						Long identityKey = (Long)row[0];
+						newIndex.put(identityKey, attributes(row), organisations.get(identityKey));
+					}
+				}
+				dbInstance.commitAndCloseSession();
+			} while(rows.size() == BATCH_SIZE);
+			
+			index = newIndex;
+			log.info("Identity autocomplete index built with " + newIndex.size() + " identities in (ms): " + CodeHelper.nanoToMilliTime(start));
+		} catch (Exception e) {
+			log.error("Cannot build the identity autocomplete index", e);
+			dbInstance.rollbackAndCloseSession();
+		} finally {
+			building.set(false);
+		}
+	}
+	
+	/**
+	 * Reload the identities which have changed, the changes are
+	 * kept until the index is built.
+	 */
+	protected void refreshChanges() {
+		IdentityTrigramIndex currentIndex = index;
+		if(currentIndex == null || building.get() || changes.isEmpty()) {
+			return;
+		}
+		
+		try {
+			long now = System.currentTimeMillis();
+			Set<Long> identityKeys = new HashSet<>();
+			Set<Long> userKeys = new HashSet<>();
+			for(Map.Entry<Change,Long> entry:changes.entrySet()) {
+				Change change = entry.getKey();
+				Long due = entry.getValue();
+				if(due.longValue() <= now && changes.remove(change, due)) {
+					if(change.user) {
+						userKeys.add(change.key);
+					} else {
+						identityKeys.add(change.key);
+					}
+				}
+			}
+			
+			refresh(currentIndex, new ArrayList<>(identityKeys), false);
+			refresh(currentIndex, new ArrayList<>(userKeys), true);
+			dbInstance.commitAndCloseSession();
+		} catch (Exception e) {
+			log.error("Cannot refresh the identity autocomplete index", e);
+			dbInstance.rollbackAndCloseSession();
+		}
+	}
+	
+	private void refresh(IdentityTrigramIndex currentIndex, List<Long> keys, boolean userKeys) {
+		for(int i=0; i<keys.size(); i+=REFRESH_BATCH_SIZE) {
+			List<Long> batchKeys = keys.subList(i, Math.min(i + REFRESH_BATCH_SIZE, keys.size()));
+			List<Object[]> rows = loadIdentities(batchKeys, userKeys);
+			List<Long> identityKeys = new ArrayList<>(rows.size());
+			for(Object[] row:rows) {
+				identityKeys.add((Long)row[0]);
+			}
+			Map<Long,List<Long>> organisations = loadOrganisations(identityKeys);
+			for(Object[] row:rows) {
+				Long identityKey = (Long)row[0];
+				int status = ((Number)row[5]).intValue();
+				if(status < Identity.STATUS_VISIBLE_LIMIT.intValue()) {
+					currentIndex.put(identityKey, attributes(row), organisations.get(identityKey));
+				} else {
+					currentIndex.remove(identityKey);
+				}
+			}
+			
+			if(!userKeys) {
+				Set<Long> deletedKeys = new HashSet<>(batchKeys);
+				deletedKeys.removeAll(identityKeys);
+				for(Long deletedKey:deletedKeys) {
+					currentIndex.remove(deletedKey);
+				}
+			}
+		}
+	}
+	
+	private static String[] attributes(Object[] row) {
+		return new String[] { (String)row[1], (String)row[2], (String)row[3], (String)row[4] };
+	}
+	
+	private List<Object[]> loadIdentities(Long afterKey) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select ident.key, ident.name, ident.firstName, ident.lastName, ident.email, ident.status")
+		  .append(" from bidentityshort as ident")
+		  .append(" where ident.key>:afterKey and ident.status<:statusLimit")
+		  .append(" order by ident.key");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("afterKey", afterKey)
+				.setParameter("statusLimit", Identity.STATUS_VISIBLE_LIMIT)
+				.setFirstResult(0)
+				.setMaxResults(BATCH_SIZE)
+				.getResultList();
+	}
+	
+	private List<Object[]> loadIdentities(List<Long> keys, boolean userKeys) {
+		if(keys.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select ident.key, ident.name, ident.firstName, ident.lastName, ident.email, ident.status")
+		  .append(" from bidentityshort as ident")
+		  .append(userKeys ? " where ident.userKey in (:keys)" : " where ident.key in (:keys)");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("keys", keys)
+				.getResultList();
+	}
+	
+	private Map<Long,List<Long>> loadOrganisations(Long firstKey, Long lastKey) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select membership.identity.key, org.key from organisation as org")
+		  .append(" inner join org.group baseGroup")
+		  .append(" inner join baseGroup.members membership")
+		  .append(" where membership.identity.key>=:firstKey and membership.identity.key<=:lastKey");
+		List<Object[]> rows = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("firstKey", firstKey)
+				.setParameter("lastKey", lastKey)
+				.getResultList();
+		return toOrganisationsMap(rows);
+	}
+	
+	private Map<Long,List<Long>> loadOrganisations(Collection<Long> identityKeys) {
+		if(identityKeys.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select membership.identity.key, org.key from organisation as org")
+		  .append(" inner join org.group baseGroup")
+		  .append(" inner join baseGroup.members membership")
+		  .append(" where membership.identity.key in (:identityKeys)");
+		List<Object[]> rows = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("identityKeys", identityKeys)
+				.getResultList();
+		return toOrganisationsMap(rows);
+	}
+	
+	private static Map<Long,List<Long>> toOrganisationsMap(List<Object[]> rows) {
+		Map<Long,List<Long>> organisations = new HashMap<>();
+		for(Object[] row:rows) {
+			List<Long> organisationKeys = organisations.computeIfAbsent((Long)row[0], key -> new ArrayList<>(2));
+			if(!organisationKeys.contains(row[1])) {
+				organisationKeys.add((Long)row[1]);
+			}
+		}
+		return organisations;
+	}
+	
+	private static class Change {
+		
+		private final Long key;
+		private final boolean user;
+		
+		public Change(Long key, boolean user) {
+			this.key = key;
+			this.user = user;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(key) + (user ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) {
+				return true;
+			}
+			if(obj instanceof Change) {
+				Change c = (Change)obj;
+				return user == c.user && Objects.equals(key, c.key);
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,542 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.basesecurity.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory trigram index of the searchable attributes of the
+ * identities (username, first name, last name and email). The attributes
+ * are saved lower case in one text per identity, separated by a new line.
+ * Every identity has a slot, the posting lists of the trigrams are sorted
+ * arrays of slots. The slots are allocated in the order of the keys, the
+ * results are sorted by key. The slots of the removed identities are
+ * reused by the next insertions nearby, the index is compacted if too
+ * many slots are free.
+ * <p>
+ * The terms follow the rules of the fuzzy search in the database: a term
+ * matches if it's contained in an attribute, a term with * at the begin or
+ * the end is a pattern, a term between quotes must match an attribute
+ * exactly. The index returns the identities which match at least one term.
+ * <p>
+ * The index is thread-safe.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+final class IdentityTrigramIndex {
+	
+	private static final char SEPARATOR = '\n';
+	private static final long[] NO_ORGANISATIONS = new long[0];
+	private static final int MAX_LEFT_SHIFT = 64;
+	private static final int MIN_FREE_SLOTS_TO_COMPACT = 1024;
+	
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	
+	private final Map<Long,Integer> keyToSlot = new HashMap<>();
+	private final Map<Long,Postings> postings = new HashMap<>();
+	private long[] keys = new long[1024];
+	private String[] texts = new String[1024];
+	private long[][] organisations = new long[1024][];
+	private int numOfSlots = 0;
+	private final BitSet freeSlots = new BitSet();
+	private int numOfFreeSlots = 0;
+	
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return keyToSlot.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * @return The number of slots, the free ones included
+	 */
+	int getNumOfSlots() {
+		lock.readLock().lock();
+		try {
+			return numOfSlots;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	public boolean contains(Long identityKey) {
+		lock.readLock().lock();
+		try {
+			return keyToSlot.containsKey(identityKey);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Add or replace the attributes of an identity.
+	 * 
+	 * @param identityKey The key of the identity
+	 * @param attributes The searchable attributes (null values are allowed)
+	 * @param organisationKeys The keys of the organisations of the identity
+	 */
+	public void put(Long identityKey, String[] attributes, Collection<Long> organisationKeys) {
+		String text = toText(attributes);
+		long[] orgs = toArray(organisationKeys);
+		
+		lock.writeLock().lock();
+		try {
+			Integer slot = keyToSlot.get(identityKey);
+			if(slot == null) {
+				slot = Integer.valueOf(allocateSlot(identityKey));
+				keyToSlot.put(identityKey, slot);
+			} else if(text.equals(texts[slot.intValue()])) {
+				organisations[slot.intValue()] = orgs;
+				return;
+			} else {
+				removeTrigrams(slot.intValue(), texts[slot.intValue()]);
+			}
+			
+			int s = slot.intValue();
+			texts[s] = text;
+			organisations[s] = orgs;
+			addTrigrams(s, text);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	public void remove(Long identityKey) {
+		lock.writeLock().lock();
+		try {
+			Integer slot = keyToSlot.remove(identityKey);
+			if(slot != null) {
+				int s = slot.intValue();
+				removeTrigrams(s, texts[s]);
+				keys[s] = 0l;
+				texts[s] = null;
+				organisations[s] = null;
+				freeSlots.set(s);
+				numOfFreeSlots++;
+				if(numOfFreeSlots > MIN_FREE_SLOTS_TO_COMPACT && numOfFreeSlots > numOfSlots / 4) {
+					compact();
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Find a slot for the key in the order of the keys. A free slot after
+	 * the position is used by shifting the slots in between to the right,
+	 * a free slot nearby before the position by shifting them to the left.
+	 */
+	private int allocateSlot(Long identityKey) {
+		long key = identityKey.longValue();
+		int pos = numOfSlots;
+		while(pos > 0 && (freeSlots.get(pos - 1) || keys[pos - 1] > key)) {
+			pos--;
+		}
+		
+		// the slots between pos and the next free slot have bigger keys
+		int free = freeSlots.nextSetBit(pos);
+		if(free >= 0 && free < numOfSlots) {
+			moveSlots(pos, free, 1);
+			return useFreeSlot(free, pos, key);
+		}
+		
+		// new identities have the biggest keys, use a free slot just before
+		int previousFree = pos > 0 ? freeSlots.previousSetBit(pos - 1) : -1;
+		if(previousFree >= 0 && pos - previousFree <= MAX_LEFT_SHIFT) {
+			moveSlots(previousFree + 1, pos, -1);
+			return useFreeSlot(previousFree, pos - 1, key);
+		}
+		
+		if(numOfSlots == keys.length) {
+			int newLength = keys.length * 2;
+			keys = Arrays.copyOf(keys, newLength);
+			texts = Arrays.copyOf(texts, newLength);
+			organisations = Arrays.copyOf(organisations, newLength);
+		}
+		int slot = numOfSlots++;
+		if(pos < slot) {
+			// rare because the new identities have the biggest keys
+			moveSlots(pos, slot, 1);
+		}
+		keys[pos] = key;
+		return pos;
+	}
+	
+	private int useFreeSlot(int freeSlot, int slot, long key) {
+		freeSlots.clear(freeSlot);
+		numOfFreeSlots--;
+		keys[slot] = key;
+		return slot;
+	}
+	
+	/**
+	 * Shift the slots between from (inclusive) and to (exclusive) by one
+	 * slot to the right (delta 1) or to the left (delta -1). The slot at
+	 * the destination must be free, the slot left behind is empty.
+	 */
+	private void moveSlots(int from, int to, int delta) {
+		if(from >= to) {
+			return;
+		}
+		
+		for(int s=from; s<to; s++) {
+			if(texts[s] != null) {
+				removeTrigrams(s, texts[s]);
+			}
+		}
+		System.arraycopy(keys, from, keys, from + delta, to - from);
+		System.arraycopy(texts, from, texts, from + delta, to - from);
+		System.arraycopy(organisations, from, organisations, from + delta, to - from);
+		int empty = delta > 0 ? from : to - 1;
+		keys[empty] = 0l;
+		texts[empty] = null;
+		organisations[empty] = null;
+		for(int s=from + delta; s<to + delta; s++) {
+			if(texts[s] != null) {
+				keyToSlot.put(Long.valueOf(keys[s]), Integer.valueOf(s));
+				addTrigrams(s, texts[s]);
+			}
+		}
+	}
+	
+	/**
+	 * Remove the free slots and rebuild the posting lists.
+	 */
+	private void compact() {
+		int slot = 0;
+		for(int s=0; s<numOfSlots; s++) {
+			if(texts[s] != null) {
+				keys[slot] = keys[s];
+				texts[slot] = texts[s];
+				organisations[slot] = organisations[s];
+				keyToSlot.put(Long.valueOf(keys[slot]), Integer.valueOf(slot));
+				slot++;
+			}
+		}
+		Arrays.fill(keys, slot, numOfSlots, 0l);
+		Arrays.fill(texts, slot, numOfSlots, null);
+		Arrays.fill(organisations, slot, numOfSlots, null);
+		numOfSlots = slot;
+		freeSlots.clear();
+		numOfFreeSlots = 0;
+		
+		postings.clear();
+		for(int s=0; s<numOfSlots; s++) {
+			addTrigrams(s, texts[s]);
+		}
+	}
+	
+	private void addTrigrams(int slot, String text) {
+		for(Long trigram:trigrams(text)) {
+			postings.computeIfAbsent(trigram, t -> new Postings()).add(slot);
+		}
+	}
+	
+	private void removeTrigrams(int slot, String text) {
+		for(Long trigram:trigrams(text)) {
+			Postings p = postings.get(trigram);
+			if(p != null && p.remove(slot) && p.size == 0) {
+				postings.remove(trigram);
+			}
+		}
+	}
+	
+	/**
+	 * Search the identities which match at least one of the terms.
+	 * 
+	 * @param searchTerms The terms
+	 * @param organisationKeys Limit to the members of these organisations (optional)
+	 * @param maxResults The max. number of results
+	 * @return The keys of the identities sorted by key
+	 */
+	public List<Long> search(String[] searchTerms, Set<Long> organisationKeys, int maxResults) {
+		List<Term> terms = new ArrayList<>(searchTerms.length);
+		boolean scan = false;
+		for(String searchTerm:searchTerms) {
+			Term term = Term.valueOf(searchTerm);
+			terms.add(term);
+			scan |= term.getLongestSegment().length() < 3;
+		}
+		
+		lock.readLock().lock();
+		try {
+			return scan ? scan(terms, organisationKeys, maxResults)
+					: searchByTrigrams(terms, organisationKeys, maxResults);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	private List<Long> scan(List<Term> terms, Set<Long> organisationKeys, int maxResults) {
+		List<Long> results = new ArrayList<>();
+		for(int slot=0; slot<numOfSlots && results.size() < maxResults; slot++) {
+			String text = texts[slot];
+			if(text != null && matchOrganisations(slot, organisationKeys)) {
+				for(Term term:terms) {
+					if(term.match(text)) {
+						results.add(Long.valueOf(keys[slot]));
+						break;
+					}
+				}
+			}
+		}
+		return results;
+	}
+	
+	private List<Long> searchByTrigrams(List<Term> terms, Set<Long> organisationKeys, int maxResults) {
+		BitSet matches = new BitSet(numOfSlots);
+		for(Term term:terms) {
+			int[] candidates = candidates(term.getLongestSegment());
+			for(int slot:candidates) {
+				if(!matches.get(slot) && term.match(texts[slot])) {
+					matches.set(slot);
+				}
+			}
+		}
+		
+		List<Long> results = new ArrayList<>(Math.min(maxResults, matches.cardinality()));
+		for(int slot=matches.nextSetBit(0); slot >= 0 && results.size() < maxResults; slot=matches.nextSetBit(slot + 1)) {
+			if(matchOrganisations(slot, organisationKeys)) {
+				results.add(Long.valueOf(keys[slot]));
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * @return The slots which contain all the trigrams of the segment
+	 */
+	private int[] candidates(String segment) {
+		Set<Long> segmentTrigrams = trigrams(segment);
+		List<Postings> lists = new ArrayList<>(segmentTrigrams.size());
+		for(Long trigram:segmentTrigrams) {
+			Postings p = postings.get(trigram);
+			if(p == null) {
+				return new int[0];
+			}
+			lists.add(p);
+		}
+		lists.sort(Comparator.comparingInt(p -> p.size));
+		
+		Postings smallest = lists.get(0);
+		int[] candidates = Arrays.copyOf(smallest.slots, smallest.size);
+		int numOfCandidates = candidates.length;
+		for(int i=1; i<lists.size() && numOfCandidates > 0; i++) {
+			Postings p = lists.get(i);
+			int retained = 0;
+			for(int j=0; j<numOfCandidates; j++) {
+				if(Arrays.binarySearch(p.slots, 0, p.size, candidates[j]) >= 0) {
+					candidates[retained++] = candidates[j];
+				}
+			}
+			numOfCandidates = retained;
+		}
+		return numOfCandidates == candidates.length ? candidates : Arrays.copyOf(candidates, numOfCandidates);
+	}
+	
+	private boolean matchOrganisations(int slot, Set<Long> organisationKeys) {
+		if(organisationKeys == null || organisationKeys.isEmpty()) {
+			return true;
+		}
+		for(long organisationKey:organisations[slot]) {
+			if(organisationKeys.contains(Long.valueOf(organisationKey))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static String toText(String[] attributes) {
+		StringBuilder sb = new StringBuilder(64);
+		sb.append(SEPARATOR);
+		for(String attribute:attributes) {
+			if(attribute != null) {
+				sb.append(attribute.toLowerCase());
+			}
+			sb.append(SEPARATOR);
+		}
+		return sb.toString();
+	}
+	
+	private static long[] toArray(Collection<Long> organisationKeys) {
+		if(organisationKeys == null || organisationKeys.isEmpty()) {
+			return NO_ORGANISATIONS;
+		}
+		long[] array = new long[organisationKeys.size()];
+		int i = 0;
+		for(Long organisationKey:organisationKeys) {
+			array[i++] = organisationKey.longValue();
+		}
+		return array;
+	}
+	
+	private static Set<Long> trigrams(String text) {
+		Set<Long> trigrams = new HashSet<>();
+		for(int i=0; i + 3 <= text.length(); i++) {
+			char c1 = text.charAt(i);
+			char c2 = text.charAt(i + 1);
+			char c3 = text.charAt(i + 2);
+			if(c1 != SEPARATOR && c2 != SEPARATOR && c3 != SEPARATOR) {
+				trigrams.add(Long.valueOf(((long)c1 << 32) | ((long)c2 << 16) | c3));
+			}
+		}
+		return trigrams;
+	}
+	
+	/**
+	 * A sorted list of slots.
+	 */
+	private static final class Postings {
+		
+		private int[] slots = new int[2];
+		private int size = 0;
+		
+		void add(int slot) {
+			if(size > 0 && slots[size - 1] >= slot) {
+				int pos = Arrays.binarySearch(slots, 0, size, slot);
+				if(pos >= 0) return;
+				insert(-pos - 1, slot);
+			} else {
+				insert(size, slot);
+			}
+		}
+		
+		private void insert(int pos, int slot) {
+			if(size == slots.length) {
+				slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+			}
+			if(pos < size) {
+				System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+			}
+			slots[pos] = slot;
+			size++;
+		}
+		
+		boolean remove(int slot) {
+			int pos = Arrays.binarySearch(slots, 0, size, slot);
+			if(pos < 0) return false;
+			System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+			size--;
+			return true;
+		}
+	}
+	
+	/**
+	 * A search term compiled like the fuzzy query string of the database.
+	 */
+	static final class Term {
+		
+		private final String[] segments;
+		private final boolean anchoredStart;
+		private final boolean anchoredEnd;
+		private final String longestSegment;
+		
+		private Term(String[] segments, boolean anchoredStart, boolean anchoredEnd) {
+			this.segments = segments;
+			this.anchoredStart = anchoredStart;
+			this.anchoredEnd = anchoredEnd;
+			String longest = "";
+			for(String segment:segments) {
+				if(segment.length() > longest.length()) {
+					longest = segment;
+				}
+			}
+			longestSegment = longest;
+		}
+		
+		static Term valueOf(String string) {
+			String term = string.toLowerCase();
+			if(term.length() > 1 && term.startsWith("\"") && term.endsWith("\"")) {
+				return new Term(new String[] { term.substring(1, term.length() - 1) }, true, true);
+			}
+			if(!term.startsWith("*") && !term.endsWith("*")) {
+				term = "*" + term + "*";
+			}
+			boolean anchoredStart = !term.startsWith("*");
+			boolean anchoredEnd = !term.endsWith("*");
+			List<String> segments = new ArrayList<>(3);
+			for(String segment:term.split("\\*")) {
+				if(segment.length() > 0) {
+					segments.add(segment);
+				}
+			}
+			return new Term(segments.toArray(new String[segments.size()]), anchoredStart, anchoredEnd);
+		}
+		
+		String getLongestSegment() {
+			return longestSegment;
+		}
+		
+		boolean match(String text) {
+			if(!anchoredStart && !anchoredEnd && segments.length == 1) {
+				// a segment never contains the separator and cannot overlap 2 attributes
+				return text.indexOf(segments[0]) >= 0;
+			}
+			
+			for(int start=1, end=text.indexOf(SEPARATOR, start); end >= 0; start=end + 1, end=text.indexOf(SEPARATOR, start)) {
+				if(matchAttribute(text, start, end)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		private boolean matchAttribute(String text, int start, int end) {
+			int pos = start;
+			for(int i=0; i<segments.length; i++) {
+				String segment = segments[i];
+				if(i == 0 && anchoredStart) {
+					if(!text.startsWith(segment, start)) {
+						return false;
+					}
+					pos = start + segment.length();
+				} else if(i == segments.length - 1 && anchoredEnd) {
+					int segmentStart = end - segment.length();
+					if(segmentStart < pos || !text.startsWith(segment, segmentStart)) {
+						return false;
+					}
+					pos = end;
+				} else {
+					int found = text.indexOf(segment, pos);
+					if(found < 0 || found + segment.length() > end) {
+						return false;
+					}
+					pos = found + segment.length();
+				}
+			}
+			return !anchoredEnd || pos == end;
+		}
+	}
+}
@@ -77,6 +77,8 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 	private OrganisationTypeDAO organisationTypeDao;
 	@Autowired
 	private OrganisationTypeToTypeDAO organisationTypeToTypeDao;
+	@Autowired
+	private RolesCache rolesCache;
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -98,12 +100,15 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 		if(parentOrganisation != null) {
 			Group organisationGroup = organisation.getGroup();
 			List<GroupMembership> memberships = groupDao.getMemberships(parentOrganisation.getGroup());
+			Set<Long> inheritedIdentityKeys = new HashSet<>();
 			for(GroupMembership membership:memberships) {
 				if(membership.getInheritanceMode() == GroupMembershipInheritance.inherited
 						|| membership.getInheritanceMode() == GroupMembershipInheritance.root) {
 					groupDao.addMembershipOneWay(organisationGroup, membership.getIdentity(), membership.getRole(), GroupMembershipInheritance.inherited);
+					inheritedIdentityKeys.add(membership.getIdentity().getKey());
 				}
 			}
+			rolesCache.invalidateKeys(inheritedIdentityKeys);
 		}
 		return organisation;
 	}
@@ -164,6 +169,7 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 			reloadedOrganisation.setStatus(OrganisationStatus.deleted.name());
 			organisationDao.update(reloadedOrganisation);
 		}
+		rolesCache.invalidateAll();
 	}
 
 	@Override
@@ -224,6 +230,7 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 		}
 		
 		dbInstance.commit();
+		rolesCache.invalidateAll();
 	}
 	
 	private void propagateMembership(OrganisationNode node, List<GroupMembership> membershipsToPropagate) {
@@ -400,6 +407,7 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 			groupDao.removeMemberships(identity);
 			addMember(defOrganisation, identity, OrganisationRoles.guest, GroupMembershipInheritance.none);
 		}
+		rolesCache.invalidate(identity);
 	}
 
 	@Override
@@ -452,6 +460,7 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 				}
 			}
 		}
+		rolesCache.invalidate(member);
 	}
 	
 	@Override
@@ -475,6 +484,7 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 				}
 			}
 		}
+		rolesCache.invalidate(member);
 	}
 	
 	/**
@@ -509,6 +519,7 @@ public class OrganisationServiceImpl implements OrganisationService, Initializin
 					removeInherithedMembership(child, member, role.name());
 				}
 			}
+			rolesCache.invalidate(member);
 			return true;
 		}
 		return false;
@@ -0,0 +1,197 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.basesecurity.manager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.olat.basesecurity.IdentityRef;
+import org.olat.basesecurity.events.RolesChangedEvent;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.id.Roles;
+import org.olat.core.util.cache.CacheWrapper;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.resource.OresHelper;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * The cache of the roles of the identities (with the inherited roles). The
+ * cache is local, every change of the organisation memberships removes the
+ * entries in the local cache and fires an event to invalidate the caches
+ * of the other nodes of the cluster after the commit of the transaction.
+ * Until then, the thread which made the changes neither reads nor caches
+ * the roles of the changed identities. The statistics of the cache are available
+ * in the administration of the caches.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class RolesCache implements GenericEventListener, InitializingBean {
+	
+	public static final OLATResourceable ROLES_EVENT_CHANNEL = OresHelper.createOLATResourceableType("RolesCache");
+	
+	private CacheWrapper<Long,Roles> rolesCache;
+	private final ThreadLocal<PendingChanges> pendingChanges = new ThreadLocal<>();
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private CoordinatorManager coordinatorManager;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		rolesCache = coordinatorManager.getCoordinator().getCacher().getCache("BaseSecurity", "roles");
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, ROLES_EVENT_CHANNEL);
+	}
+	
+	/**
+	 * The cache is bypassed for the identities whose roles were changed by
+	 * the current transaction, the cached roles are older than the changes.
+	 * 
+	 * @param identity The identity
+	 * @return The cached roles or null
+	 */
+	public Roles get(IdentityRef identity) {
+		PendingChanges pending = pendingChanges.get();
+		if(pending != null && pending.contains(identity.getKey())) {
+			return null;
+		}
+		return rolesCache.get(identity.getKey());
+	}
+	
+	/**
+	 * Put the roles in the cache, but not if the current transaction
+	 * has changed the roles of the identity and is not committed yet.
+	 * 
+	 * @param identityKey The key of the identity
+	 * @param roles The roles loaded from the database
+	 */
+	public void put(Long identityKey, Roles roles) {
+		PendingChanges pending = pendingChanges.get();
+		if(pending == null || !pending.contains(identityKey)) {
+			rolesCache.put(identityKey, roles);
+		}
+	}
+	
+	/**
+	 * Remove the roles of the identity in the whole cluster after
+	 * the commit of the current transaction.
+	 * 
+	 * @param identity The identity
+	 */
+	public void invalidate(IdentityRef identity) {
+		invalidateKeys(Collections.singletonList(identity.getKey()));
+	}
+	
+	/**
+	 * Remove the roles of the identities in the whole cluster after
+	 * the commit of the current transaction.
+	 * 
+	 * @param identityKeys The keys of the identities
+	 */
+	public void invalidateKeys(Collection<Long> identityKeys) {
+		if(identityKeys == null || identityKeys.isEmpty()) return;
+		
+		final Set<Long> keys = new HashSet<>(identityKeys);
+		getPendingChanges().addAll(keys);
+		// the other threads of this node don't wait for the commit to reload them
+		removeLocally(keys);
+		dbInstance.afterRollback(pendingChanges::remove);
+		dbInstance.afterCommit(() -> {
+			pendingChanges.remove();
+			removeLocally(keys);
+			coordinatorManager.getCoordinator().getEventBus()
+				.fireEventToListenersOf(new RolesChangedEvent(keys), ROLES_EVENT_CHANNEL);
+		});
+	}
+	
+	/**
+	 * Remove the roles of all identities in the whole cluster after the
+	 * commit of the current transaction, the structure of the organisations
+	 * has changed.
+	 */
+	public void invalidateAll() {
+		getPendingChanges().setAll();
+		dbInstance.afterRollback(pendingChanges::remove);
+		dbInstance.afterCommit(() -> {
+			pendingChanges.remove();
+			rolesCache.clear();
+			coordinatorManager.getCoordinator().getEventBus()
+				.fireEventToListenersOf(new RolesChangedEvent(null), ROLES_EVENT_CHANNEL);
+		});
+	}
+	
+	private PendingChanges getPendingChanges() {
+		PendingChanges pending = pendingChanges.get();
+		if(pending == null) {
+			pending = new PendingChanges();
+			pendingChanges.set(pending);
+		}
+		return pending;
+	}
+
+	@Override
+	public void event(Event event) {
+		if(event instanceof RolesChangedEvent) {
+			RolesChangedEvent rce = (RolesChangedEvent)event;
+			if(rce.isAllIdentities()) {
+				rolesCache.clear();
+			} else {
+				removeLocally(rce.getIdentityKeys());
+			}
+		}
+	}
+	
+	private void removeLocally(Collection<Long> identityKeys) {
+		for(Long identityKey:identityKeys) {
+			rolesCache.remove(identityKey);
+		}
+	}
+	
+	/**
+	 * The identities with changed but not committed roles in the
+	 * transaction of the current thread.
+	 */
+	private static class PendingChanges {
+		
+		private boolean all;
+		private final Set<Long> identityKeys = new HashSet<>();
+		
+		public void setAll() {
+			all = true;
+		}
+		
+		public void addAll(Collection<Long> keys) {
+			identityKeys.addAll(keys);
+		}
+		
+		public boolean contains(Long identityKey) {
+			return all || identityKeys.contains(identityKey);
+		}
+	}
+}
@@ -58,6 +58,9 @@ import org.olat.commons.calendar.model.CalendarKey;
 import org.olat.commons.calendar.model.CalendarUserConfiguration;
 import org.olat.commons.calendar.model.Kalendar;
 import org.olat.commons.calendar.model.KalendarEvent;
+import org.olat.commons.calendar.model.KalendarEventIndex;
+import org.olat.commons.calendar.model.KalendarEventIndex.Occurrence;
+import org.olat.commons.calendar.model.KalendarEventIndex.OccurrenceCalculator;
 import org.olat.commons.calendar.model.KalendarEventKey;
 import org.olat.commons.calendar.model.KalendarEventLink;
 import org.olat.commons.calendar.model.KalendarRecurEvent;
@@ -84,7 +87,6 @@ import org.springframework.stereotype.Service;
 import net.fortuna.ical4j.data.CalendarBuilder;
 import net.fortuna.ical4j.data.CalendarOutputter;
 import net.fortuna.ical4j.model.Calendar;
-import net.fortuna.ical4j.model.DateList;
 import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Parameter;
 import net.fortuna.ical4j.model.Period;
@@ -355,6 +357,8 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	// o_clusterOK by:cg only called by Junit-test  
 	@Override
 	public boolean persistCalendar(Kalendar kalendar) {
+		// events can be modified in place, the recurrence rules and exclusions too
+		kalendar.invalidateIndex();
 		Calendar calendar = buildCalendar(kalendar);
 		boolean success = writeCalendarFile(calendar, kalendar.getType(), kalendar.getCalendarID());
 		calendarCache.update(getKeyFor(kalendar.getType(), kalendar.getCalendarID()), kalendar);
@@ -869,23 +873,20 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 
 	@Override
 	public KalendarEvent getRecurringInPeriod(Date periodStart, Date periodEnd, KalendarEvent kEvent) {
-		boolean isRecurring= isRecurringInPeriod(periodStart, periodEnd, kEvent);
+		List<Occurrence> occurrences = getOccurrencesInPeriod(periodStart, periodEnd, kEvent);
 		KalendarEvent recurEvent = null;
 
-		if(isRecurring) {
-			java.util.Calendar periodStartCal = java.util.Calendar.getInstance();
-			java.util.Calendar eventBeginCal = java.util.Calendar.getInstance();
-			
-			periodStartCal.setTime(periodStart);
-			eventBeginCal.setTime(kEvent.getBegin());
+		if(!occurrences.isEmpty()) {
+			java.util.Calendar occurrenceCal = java.util.Calendar.getInstance();
+			occurrenceCal.setTimeInMillis(occurrences.get(0).getBegin());
 			
 			Long duration = kEvent.getEnd().getTime() - kEvent.getBegin().getTime();
 
 			java.util.Calendar beginCal = java.util.Calendar.getInstance();
 			beginCal.setTime(kEvent.getBegin());
-			beginCal.set(java.util.Calendar.YEAR, periodStartCal.get(java.util.Calendar.YEAR));
-			beginCal.set(java.util.Calendar.MONTH, periodStartCal.get(java.util.Calendar.MONTH));
-			beginCal.set(java.util.Calendar.DAY_OF_MONTH, periodStartCal.get(java.util.Calendar.DAY_OF_MONTH));
+			beginCal.set(java.util.Calendar.YEAR, occurrenceCal.get(java.util.Calendar.YEAR));
+			beginCal.set(java.util.Calendar.MONTH, occurrenceCal.get(java.util.Calendar.MONTH));
+			beginCal.set(java.util.Calendar.DAY_OF_MONTH, occurrenceCal.get(java.util.Calendar.DAY_OF_MONTH));
 
 			recurEvent = kEvent.clone();
 			recurEvent.setBegin(beginCal.getTime());
@@ -897,8 +898,48 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 
 	@Override
 	public boolean isRecurringInPeriod(Date periodStart, Date periodEnd, KalendarEvent kEvent) {
-		DateList recurDates = getRecurringsInPeriod(periodStart, periodEnd, kEvent);
-		return (recurDates != null && !recurDates.isEmpty());
+		return !getOccurrencesInPeriod(periodStart, periodEnd, kEvent).isEmpty();
+	}
+	
+	/**
+	 * The occurrences of the recurring event which begin on the days of the
+	 * period, first and last days included. They are taken from the index
+	 * of the calendar of the event, with its cached expansions.
+	 */
+	private List<Occurrence> getOccurrencesInPeriod(Date periodStart, Date periodEnd, KalendarEvent kEvent) {
+		if(!StringHelper.containsNonWhitespace(kEvent.getRecurrenceRule())
+				|| kEvent.getBegin() == null || kEvent.getEnd() == null) {
+			return Collections.emptyList();
+		}
+		
+		Date from = getStartOfDay(periodStart, 0);
+		Date to = getStartOfDay(periodEnd, 1);
+		
+		OccurrenceCalculator calculator = (start, end) -> calculateOccurrences(kEvent, start, end);
+		Kalendar calendar = kEvent.getCalendar();
+		List<Occurrence> occurrences = calendar == null
+				? calculator.calculate(from, to)
+				: calendar.getIndex().getOccurrences(kEvent, from, to, calculator);
+		
+		long fromTime = from.getTime();
+		List<Occurrence> occurrencesInPeriod = new ArrayList<>(occurrences.size());
+		for(Occurrence occurrence:occurrences) {
+			if(occurrence.getBegin() >= fromTime && occurrence.getBegin() < to.getTime()) {
+				occurrencesInPeriod.add(occurrence);
+			}
+		}
+		return occurrencesInPeriod;
+	}
+	
+	private static Date getStartOfDay(Date date, int plusDays) {
+		java.util.Calendar cal = java.util.Calendar.getInstance();
+		cal.setTime(date);
+		cal.set(java.util.Calendar.HOUR_OF_DAY, 0);
+		cal.set(java.util.Calendar.MINUTE, 0);
+		cal.set(java.util.Calendar.SECOND, 0);
+		cal.set(java.util.Calendar.MILLISECOND, 0);
+		cal.add(java.util.Calendar.DATE, plusDays);
+		return cal.getTime();
 	}
 
 	@Override
@@ -1249,45 +1290,41 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 	
 	@Override
 	public List<KalendarEvent> getEvents(Kalendar calendar, Date from, Date to, boolean privateEventsVisible) {
-		List<KalendarEvent> allEvents = calendar.getEvents();
+		KalendarEventIndex index = calendar.getIndex();
 		List<KalendarEvent> events = new ArrayList<>(128);
 		
 		Map<String, List<KalendarRecurEvent>> idToRecurringEvents = new HashMap<>();
 		//first pass, ignore events with recurrenceId
-		for(KalendarEvent event:allEvents) {
+		for(KalendarEvent event:index.getRecurringEvents(from, to)) {
 			if(!privateEventsVisible && event.getClassification() == KalendarEvent.CLASS_PRIVATE) {
 				continue;
 			}
-			if(StringHelper.containsNonWhitespace(event.getRecurrenceID())) {
-				continue;
-			}
 
-			if (StringHelper.containsNonWhitespace(event.getRecurrenceRule())) {
-				List<KalendarRecurEvent> recurringEvents = getRecurringEventsInPeriod(event, from, to, tz);
-				if(recurringEvents.size() > 0) {
-					idToRecurringEvents.put(event.getID(), recurringEvents);
-					for (KalendarRecurEvent recurEvent:recurringEvents) {
-						events.add(recurEvent);
-					}
+			List<KalendarRecurEvent> recurringEvents = getRecurringEventsInPeriod(index, event, from, to, tz);
+			if(recurringEvents.size() > 0) {
+				idToRecurringEvents.put(event.getID(), recurringEvents);
+				for (KalendarRecurEvent recurEvent:recurringEvents) {
+					events.add(recurEvent);
 				}
-			} else if(isInRange(from, to, event)) {
+			}
+		}
+		for(KalendarEvent event:index.getSingleEvents(from, to)) {
+			if(!privateEventsVisible && event.getClassification() == KalendarEvent.CLASS_PRIVATE) {
+				continue;
+			}
+			if(isInRange(from, to, event)) {
 				events.add(event);
 			}
 		}
 		
 		//process events with recurrenceId
-		for(KalendarEvent event:allEvents) {
-			if(!StringHelper.containsNonWhitespace(event.getRecurrenceID())) {
-				continue;
-			}
-
-			String id = event.getID();
-			if(idToRecurringEvents.containsKey(id)) {
+		for(Map.Entry<String, List<KalendarRecurEvent>> entry:idToRecurringEvents.entrySet()) {
+			List<KalendarRecurEvent> recurringEvents = entry.getValue();
+			for(KalendarEvent event:index.getRecurrenceEvents(entry.getKey())) {
 				VEvent vEvent = getVEvent(event);
 				RecurrenceId recurrenceId = vEvent.getRecurrenceId();
 				net.fortuna.ical4j.model.Date startDate = recurrenceId.getDate();
 				if(startDate instanceof net.fortuna.ical4j.model.DateTime) {
-					List<KalendarRecurEvent> recurringEvents = idToRecurringEvents.get(id);
 					for(KalendarRecurEvent recurEvent:recurringEvents) {
 						Date beginDate = recurEvent.getBegin();
 						if(beginDate.equals(startDate)) {
@@ -1295,7 +1332,6 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 						}
 					}
 				} else {
-					List<KalendarRecurEvent> recurringEvents = idToRecurringEvents.get(id);
 					for(KalendarRecurEvent recurEvent:recurringEvents) {
 						Date beginDate = recurEvent.getBegin();
 						net.fortuna.ical4j.model.Date occDate = CalendarUtils.createDate(beginDate);
@@ -1336,35 +1372,29 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		return false;
 	}
 	
-	private final List<KalendarRecurEvent> getRecurringEventsInPeriod(KalendarEvent kEvent, Date periodStart, Date periodEnd, TimeZone userTz) {
-		VEvent vEvent = getVEvent(kEvent);
-		if(vEvent.getEndDate() == null || vEvent.getStartDate().getDate().after(vEvent.getEndDate().getDate())) {
+	private final List<KalendarRecurEvent> getRecurringEventsInPeriod(KalendarEventIndex index, KalendarEvent kEvent,
+			Date periodStart, Date periodEnd, TimeZone userTz) {
+		List<Occurrence> occurrences = index.getOccurrences(kEvent, periodStart, periodEnd,
+				(from, to) -> calculateOccurrences(kEvent, from, to));
+		if(occurrences.isEmpty()) {
 			return Collections.emptyList();
 		}
-
-		//calculate the events in the specified period
-        Period recurringPeriod = new Period(new DateTime(periodStart), new DateTime(periodEnd));
-		PeriodList periodList = vEvent.calculateRecurrenceSet(recurringPeriod);
-		List<KalendarRecurEvent> recurringEvents = new ArrayList<>(periodList.size());
 		
-		for(Object obj : periodList) {
-			Period period = (Period)obj;
-			Date date = period.getStart();
+		Date recurrenceEnd = getRecurrenceEndDate(kEvent.getRecurrenceRule());
+		List<KalendarRecurEvent> recurringEvents = new ArrayList<>(occurrences.size());
+		for(Occurrence occurrence : occurrences) {
+			long date = occurrence.getBegin();
 
 			java.util.Calendar eventStartCal = java.util.Calendar.getInstance();
 			eventStartCal.clear();
 			eventStartCal.setTime(kEvent.getBegin());
 			
-			java.util.Calendar eventEndCal = java.util.Calendar.getInstance();
-			eventEndCal.clear();
-			eventEndCal.setTime(kEvent.getEnd());
-			
 			java.util.Calendar recurStartCal = java.util.Calendar.getInstance();
 			recurStartCal.clear();
 			if(userTz == null) {
-				recurStartCal.setTimeInMillis(date.getTime());
+				recurStartCal.setTimeInMillis(date);
 			} else {
-				recurStartCal.setTimeInMillis(date.getTime() - userTz.getOffset(date.getTime()));
+				recurStartCal.setTimeInMillis(date - userTz.getOffset(date));
 			}
 			long duration = kEvent.getEnd().getTime() - kEvent.getBegin().getTime();
 
@@ -1382,7 +1412,6 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 				original = true; //prevent doubled events
 			}
 
-			Date recurrenceEnd = getRecurrenceEndDate(kEvent.getRecurrenceRule());
 			if(kEvent.isAllDayEvent() && recurrenceEnd != null && recurStartCal.getTime().after(recurrenceEnd)) {
 				continue; //workaround for ical4j-bug in all day events
 			}
@@ -1395,45 +1424,24 @@ public class ICalFileCalendarManager implements CalendarManager, InitializingBea
 		return recurringEvents;
 	}
 	
-	private final DateList getRecurringsInPeriod(Date periodStart, Date periodEnd, KalendarEvent kEvent) {
-		DateList recurDates = null;
-		String recurrenceRule = kEvent.getRecurrenceRule();
-		if(StringHelper.containsNonWhitespace(recurrenceRule)) {
-			try {
-				Recur recur = new Recur(recurrenceRule);
-				net.fortuna.ical4j.model.Date periodStartDate = CalendarUtils.createDate(periodStart);
-				net.fortuna.ical4j.model.Date periodEndDate = CalendarUtils.createDate(periodEnd);
-				net.fortuna.ical4j.model.Date eventStartDate = CalendarUtils.createDate(kEvent.getBegin());
-				recurDates = recur.getDates(eventStartDate, periodStartDate, periodEndDate, Value.DATE);
-			} catch (ParseException e) {
-				log.error("cannot restore recurrence rule: " + recurrenceRule, e);
-			}
-			
-			String recurrenceExc = kEvent.getRecurrenceExc();
-			if(recurrenceExc != null && !recurrenceExc.equals("")) {
-				try {
-					ExDate exdate = new ExDate();
-					// expected date+time format: 
-					// 20100730T100000
-					// unexpected all-day format:
-					// 20100730
-					// see OLAT-5645
-					if (recurrenceExc.length() > 8) {
-						exdate.setValue(recurrenceExc);
-					} else {
-						exdate.getParameters().replace(Value.DATE);
-						exdate.setValue(recurrenceExc);
-					}
-					for( Object date : exdate.getDates() ) {
-						if(recurDates.contains(date)) recurDates.remove(date);
-					}
-				} catch (ParseException e) {
-					log.error("cannot restore excluded dates for this recurrence: " + recurrenceExc, e);
-				}
-			}
+	/**
+	 * Calculate the raw periods of the recurring event in the specified period.
+	 */
+	private final List<Occurrence> calculateOccurrences(KalendarEvent kEvent, Date periodStart, Date periodEnd) {
+		VEvent vEvent = getVEvent(kEvent);
+		if(vEvent.getEndDate() == null || vEvent.getStartDate().getDate().after(vEvent.getEndDate().getDate())) {
+			return Collections.emptyList();
 		}
-		
-		return recurDates;
+
+		//calculate the events in the specified period
+		Period recurringPeriod = new Period(new DateTime(periodStart), new DateTime(periodEnd));
+		PeriodList periodList = vEvent.calculateRecurrenceSet(recurringPeriod);
+		List<Occurrence> occurrences = new ArrayList<>(periodList.size());
+		for(Object obj : periodList) {
+			Period period = (Period)obj;
+			occurrences.add(new Occurrence(period.getStart().getTime(), period.getEnd().getTime()));
+		}
+		return occurrences;
 	}
 	
 	/**
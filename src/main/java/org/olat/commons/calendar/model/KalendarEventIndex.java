@@ -0,0 +1,243 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.calendar.model;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.olat.commons.calendar.model.KalendarIntervalTree.Interval;
+import org.olat.core.util.StringHelper;
+
+import net.fortuna.ical4j.model.Recur;
+
+/**
+ * The index of the events of a calendar. The single events are saved
+ * in an interval tree by their begin and end, the recurring events
+ * in an other one with the span from their first occurrence to the
+ * end of the recurrence rule (open end if the rule doesn't have
+ * an until date). The modified occurrences (with a recurrence id) are
+ * mapped to the id of their recurring event.
+ * <p>
+ * The occurrences of the recurring events are calculated by month and
+ * cached (only the begin and end of the occurrences) in a small LRU map.
+ * A query only materializes the occurrences of the requested window.
+ * <p>
+ * The index is immutable, the calendar drops it on every change.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class KalendarEventIndex {
+
+	/** safety margin for the time zones and the all-day events **/
+	private static final long ONE_DAY = 24l * 60l * 60l * 1000l;
+	private static final int MAX_CACHED_EXPANSIONS = 512;
+	/** larger windows are calculated directly and not cached **/
+	private static final int MAX_MONTHS_PER_WINDOW = 36;
+
+	private final KalendarIntervalTree<KalendarEvent> singleEvents;
+	private final KalendarIntervalTree<KalendarEvent> recurringEvents;
+	private final Map<String,List<KalendarEvent>> recurrenceEvents;
+	private final Map<String,List<Occurrence>> expansions = new LinkedHashMap<String,List<Occurrence>>(64, 0.75f, true) {
+		private static final long serialVersionUID = 5434585394652290113L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,List<Occurrence>> eldest) {
+			return size() > MAX_CACHED_EXPANSIONS;
+		}
+	};
+
+	public KalendarEventIndex(Collection<KalendarEvent> events) {
+		List<Interval<KalendarEvent>> singles = new ArrayList<>(events.size());
+		List<Interval<KalendarEvent>> recurrings = new ArrayList<>();
+		Map<String,List<KalendarEvent>> recurrences = new HashMap<>();
+
+		for(KalendarEvent event:events) {
+			if(StringHelper.containsNonWhitespace(event.getRecurrenceID())) {
+				recurrences.computeIfAbsent(event.getID(), id -> new ArrayList<>(2)).add(event);
+			} else if(StringHelper.containsNonWhitespace(event.getRecurrenceRule())) {
+				recurrings.add(getRecurrenceSpan(event));
+			} else {
+				Interval<KalendarEvent> interval = getSpan(event);
+				if(interval != null) {
+					singles.add(interval);
+				}
+			}
+		}
+
+		singleEvents = new KalendarIntervalTree<>(singles);
+		recurringEvents = new KalendarIntervalTree<>(recurrings);
+		recurrenceEvents = recurrences;
+	}
+
+	private static Interval<KalendarEvent> getSpan(KalendarEvent event) {
+		Date begin = event.getBegin();
+		Date end = event.getEnd();
+		if(begin != null && end != null) {
+			return new Interval<>(begin.getTime(), end.getTime(), event);
+		}
+		if(end != null) {
+			return new Interval<>(end.getTime(), end.getTime(), event);
+		}
+		// events without end are never in a range
+		return null;
+	}
+
+	private static Interval<KalendarEvent> getRecurrenceSpan(KalendarEvent event) {
+		long begin = event.getBegin() == null ? Long.MIN_VALUE : event.getBegin().getTime() - ONE_DAY;
+		long end = Long.MAX_VALUE;
+		try {
+			Date until = new Recur(event.getRecurrenceRule()).getUntil();
+			if(until != null && event.getBegin() != null && event.getEnd() != null) {
+				long duration = Math.abs(event.getEnd().getTime() - event.getBegin().getTime());
+				end = until.getTime() + duration + 2 * ONE_DAY;
+			}
+		} catch (ParseException e) {
+			// the whole calendar is a candidate
+		}
+		return new Interval<>(begin, end, event);
+	}
+
+	/**
+	 * @return The single events (without recurrence rule and recurrence id) which
+	 * 		overlap the range. The bounds are inclusive.
+	 */
+	public List<KalendarEvent> getSingleEvents(Date from, Date to) {
+		return singleEvents.query(from.getTime(), to.getTime());
+	}
+
+	/**
+	 * @return The events with a recurrence rule which can have occurrences in
+	 * 		the range.
+	 */
+	public List<KalendarEvent> getRecurringEvents(Date from, Date to) {
+		return recurringEvents.query(from.getTime(), to.getTime());
+	}
+
+	/**
+	 * @param eventId The id of a recurring event
+	 * @return The modified occurrences of the recurring event
+	 */
+	public List<KalendarEvent> getRecurrenceEvents(String eventId) {
+		List<KalendarEvent> events = recurrenceEvents.get(eventId);
+		return events == null ? Collections.emptyList() : events;
+	}
+
+	/**
+	 * Return the occurrences of the recurring event which overlap the window.
+	 * The occurrences are calculated month by month and the months are cached.
+	 *
+	 * @param event The recurring event
+	 * @param from The begin of the window
+	 * @param to The end of the window
+	 * @param calculator Calculate the occurrences of a period
+	 * @return The occurrences sorted by begin
+	 */
+	public List<Occurrence> getOccurrences(KalendarEvent event, Date from, Date to, OccurrenceCalculator calculator) {
+		Calendar month = Calendar.getInstance();
+		month.setTime(from);
+		month.set(Calendar.DATE, 1);
+		month.set(Calendar.HOUR_OF_DAY, 0);
+		month.set(Calendar.MINUTE, 0);
+		month.set(Calendar.SECOND, 0);
+		month.set(Calendar.MILLISECOND, 0);
+
+		Calendar toCal = Calendar.getInstance();
+		toCal.setTime(to);
+		int numOfMonths = (toCal.get(Calendar.YEAR) - month.get(Calendar.YEAR)) * 12
+				+ toCal.get(Calendar.MONTH) - month.get(Calendar.MONTH) + 1;
+		if(numOfMonths > MAX_MONTHS_PER_WINDOW) {
+			return calculator.calculate(from, to);
+		}
+
+		long fromTime = from.getTime();
+		long toTime = to.getTime();
+		Set<Long> dedups = new HashSet<>();
+		List<Occurrence> occurrences = new ArrayList<>();
+		while(month.getTimeInMillis() <= toTime) {
+			Date monthStart = month.getTime();
+			month.add(Calendar.MONTH, 1);
+			Date monthEnd = month.getTime();
+
+			String key = event.getID() + "@" + monthStart.getTime();
+			List<Occurrence> monthOccurrences;
+			synchronized(expansions) {
+				monthOccurrences = expansions.get(key);
+			}
+			if(monthOccurrences == null) {
+				monthOccurrences = calculator.calculate(monthStart, monthEnd);
+				synchronized(expansions) {
+					expansions.put(key, monthOccurrences);
+				}
+			}
+
+			for(Occurrence occurrence:monthOccurrences) {
+				// occurrences which overlap the boundaries of the months are found twice
+				if(occurrence.getBegin() < toTime && occurrence.getEnd() >= fromTime
+						&& dedups.add(Long.valueOf(occurrence.getBegin()))) {
+					occurrences.add(occurrence);
+				}
+			}
+		}
+		occurrences.sort(Comparator.comparingLong(Occurrence::getBegin));
+		return occurrences;
+	}
+
+	@FunctionalInterface
+	public interface OccurrenceCalculator {
+
+		public List<Occurrence> calculate(Date from, Date to);
+
+	}
+
+	/**
+	 * The begin and the end of an occurrence as calculated
+	 * by the recurrence rule.
+	 */
+	public static class Occurrence {
+
+		private final long begin;
+		private final long end;
+
+		public Occurrence(long begin, long end) {
+			this.begin = begin;
+			this.end = end;
+		}
+
+		public long getBegin() {
+			return begin;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.calendar.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable, augmented interval tree. The intervals are sorted
+ * by their begin and the tree is implicit: the middle of every range
+ * of the sorted arrays is the root of the sub-tree, it holds the
+ * maximum end of the whole range. A stabbing query costs O(log n + k).
+ * The bounds of the intervals are inclusive.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+final class KalendarIntervalTree<T> {
+
+	private final long[] begins;
+	private final long[] ends;
+	private final long[] maxEnds;
+	private final List<T> values;
+
+	KalendarIntervalTree(List<Interval<T>> intervals) {
+		List<Interval<T>> sorted = new ArrayList<>(intervals);
+		sorted.sort(Comparator.comparingLong(Interval::getBegin));
+
+		int size = sorted.size();
+		begins = new long[size];
+		ends = new long[size];
+		maxEnds = new long[size];
+		values = new ArrayList<>(size);
+		for(int i=0; i<size; i++) {
+			Interval<T> interval = sorted.get(i);
+			begins[i] = interval.getBegin();
+			ends[i] = interval.getEnd();
+			values.add(interval.getValue());
+		}
+		buildMaxEnds(0, size - 1);
+	}
+
+	public int size() {
+		return values.size();
+	}
+
+	private long buildMaxEnds(int low, int high) {
+		if(low > high) {
+			return Long.MIN_VALUE;
+		}
+		int mid = (low + high) >>> 1;
+		long max = Math.max(ends[mid], Math.max(buildMaxEnds(low, mid - 1), buildMaxEnds(mid + 1, high)));
+		maxEnds[mid] = max;
+		return max;
+	}
+
+	/**
+	 * @param from The begin of the range (inclusive)
+	 * @param to The end of the range (inclusive)
+	 * @return The values of the intervals which overlap the range, sorted by begin
+	 */
+	public List<T> query(long from, long to) {
+		List<T> results = new ArrayList<>();
+		query(0, values.size() - 1, from, to, results);
+		return results;
+	}
+
+	private void query(int low, int high, long from, long to, List<T> results) {
+		if(low > high) return;
+
+		int mid = (low + high) >>> 1;
+		if(maxEnds[mid] < from) {
+			// nothing in this sub-tree ends after the begin of the range
+			return;
+		}
+
+		query(low, mid - 1, from, to, results);
+		if(begins[mid] <= to) {
+			if(ends[mid] >= from) {
+				results.add(values.get(mid));
+			}
+			query(mid + 1, high, from, to, results);
+		}
+	}
+
+	static class Interval<T> {
+
+		private final long begin;
+		private final long end;
+		private final T value;
+
+		Interval(long begin, long end, T value) {
+			this.begin = Math.min(begin, end);
+			this.end = Math.max(begin, end);
+			this.value = value;
+		}
+
+		public long getBegin() {
+			return begin;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		public T getValue() {
+			return value;
+		}
+	}
+}
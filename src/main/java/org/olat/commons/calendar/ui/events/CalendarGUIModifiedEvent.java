@@ -26,9 +26,10 @@
 package org.olat.commons.calendar.ui.events;
 
 import org.olat.commons.calendar.model.Kalendar;
+import org.olat.core.util.event.CoalescableEvent;
 import org.olat.core.util.event.MultiUserEvent;
 
-public class CalendarGUIModifiedEvent extends MultiUserEvent {
+public class CalendarGUIModifiedEvent extends MultiUserEvent implements CoalescableEvent {
 
 	private static final long serialVersionUID = 8926945159054996511L;
 	private String type;
@@ -52,4 +53,8 @@ public class CalendarGUIModifiedEvent extends MultiUserEvent {
 		return calendarId;
 	}
 
+	@Override
+	public Object getCoalescingKey() {
+		return type + ":" + calendarId;
+	}
 }
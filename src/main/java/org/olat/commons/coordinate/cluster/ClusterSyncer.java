@@ -24,12 +24,27 @@
 */
 package org.olat.commons.coordinate.cluster;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.services.jmx.JMXManager;
+import org.olat.core.commons.services.lock.pessimistic.PLock;
 import org.olat.core.commons.services.lock.pessimistic.PessimisticLockManager;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.AssertException;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.WebappHelper;
 import org.olat.core.util.coordinate.Syncer;
 import org.olat.core.util.coordinate.SyncerCallback;
 import org.olat.core.util.coordinate.SyncerExecutor;
@@ -39,17 +54,47 @@ import org.olat.core.util.resource.OresHelper;
 /**
  * Description:<br>
  * cluster mode implementation of the Syncer
+ * <p>
+ * In the lease mode, the node holds a time limited lease on the row of the
+ * asset in o_plock. As long as more than the half of the lease remains, the
+ * syncs on this node only use the lock of the JVM and don't need the
+ * database. Else the lease is renewed in a short transaction of a dedicated
+ * thread, except if an other node waits for it. In this case, the node
+ * works with the lock of the row like in the plock mode and lets the lease
+ * expire. The other node can take the lease when it's expired. The half of
+ * the lease is the safety margin for the differences between the clocks of
+ * the nodes and for the duration of the syncs: a sync must not last longer
+ * than the half of the lease.
  * 
  * <P>
  * Initial Date:  21.09.2007 <br>
  * @author Felix Jost, http://www.goodsolutions.ch
  */
-public class ClusterSyncer implements Syncer {
+public class ClusterSyncer implements Syncer, ClusterSyncerMBean {
 	private static final OLog log = Tracing.createLoggerFor(ClusterSyncer.class);
+	private static final String JMX_NAME = "org.olat.commons.coordinate.cluster:type=ClusterSyncer";
+	private static final long MAX_LEASE_POLL_INTERVAL = 1000;
+	
+	public enum LockMode {
+		/** select for update of the row for every sync **/
+		plock,
+		/** time limited lease of the row per node **/
+		lease
+	}
+	
 	private int executionTimeThreshold = 3000; // warn if the execution takes longer than three seconds
 	private final ThreadLocal<ThreadLocalClusterSyncer> data = new ThreadLocal<ThreadLocalClusterSyncer>();
 	private PessimisticLockManager pessimisticLockManager;
 	private DB dbInstance;
+	private JMXManager jmxManager;
+	
+	private LockMode lockMode = LockMode.plock;
+	private long leaseDuration = 10000;
+	// asset -> end of the lease held by this node
+	private final ConcurrentMap<String,Long> leases = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String,ClusterSyncerStatistics> statistics = new ConcurrentHashMap<>();
+	private final AtomicLong lastPrune = new AtomicLong();
+	private ExecutorService leaseExecutor;
 	
 	/**
 	 * [used by spring]
@@ -63,6 +108,58 @@ public class ClusterSyncer implements Syncer {
 		dbInstance = db;
 	}
 	
+	/**
+	 * [used by spring]
+	 * @param jmxManager
+	 */
+	public void setJmxManager(JMXManager jmxManager) {
+		this.jmxManager = jmxManager;
+	}
+	
+	/**
+	 * [used by spring]
+	 * @param lockMode plock or lease
+	 */
+	public void setLockMode(String lockMode) {
+		try {
+			this.lockMode = LockMode.valueOf(lockMode);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			log.error("Unknown lock mode for the cluster syncer: " + lockMode + ", use plock");
+			this.lockMode = LockMode.plock;
+		}
+	}
+	
+	/**
+	 * [used by spring]
+	 * @param leaseDuration The duration of the leases in milliseconds
+	 */
+	public void setLeaseDuration(long leaseDuration) {
+		this.leaseDuration = leaseDuration;
+	}
+	
+	/**
+	 * [used by spring]
+	 */
+	public void init() {
+		log.info("ClusterSyncer started with lock mode: " + lockMode + (lockMode == LockMode.lease ? " (" + leaseDuration + "ms)" : ""));
+		if(jmxManager != null) {
+			jmxManager.registerMBean(this, JMX_NAME);
+		}
+	}
+	
+	/**
+	 * [used by spring]
+	 */
+	public synchronized void destroy() {
+		if(leaseExecutor != null) {
+			leaseExecutor.shutdownNow();
+			leaseExecutor = null;
+		}
+		if(jmxManager != null) {
+			jmxManager.unregisterMBean(JMX_NAME);
+		}
+	}
+	
 	/**
 	 * @see org.olat.core.util.coordinate.Syncer#doInSync(org.olat.core.id.OLATResourceable, org.olat.core.util.coordinate.SyncerCallback)
 	 */
@@ -76,7 +173,8 @@ public class ClusterSyncer implements Syncer {
 		long start = 0;
 		boolean isDebug = log.isDebug();
 		if (isDebug) start = System.currentTimeMillis();
-	
+		long waitStart = System.currentTimeMillis();
+		ClusterSyncerStatistics stats = getStatistics(ores.getResourceableTypeName());
 
 		T res;
 		Object syncObj = DerivedStringSyncer.getInstance().getSynchLockFor(ores);
@@ -89,7 +187,12 @@ public class ClusterSyncer implements Syncer {
 			// acquire a db lock with select for update which blocks other db select for updates on the same record 
 			// until the transaction is committed or rollbacked
 			try {
-				getPessimisticLockManager().findOrPersistPLock(asset);
+				if(lockMode == LockMode.lease) {
+					acquireLease(asset, stats);
+				} else {
+					getPessimisticLockManager().findOrPersistPLock(asset);
+				}
+				stats.addWaitTime(System.currentTimeMillis() - waitStart);
 	
 				// now execute the task, which may or may not contain further db queries.
 				res = callback.execute();
@@ -121,6 +224,187 @@ public class ClusterSyncer implements Syncer {
 		return res;
 	}
 	
+	/**
+	 * Use the lease of this node if more than the half of it remains, else
+	 * negotiate the lease in a transaction of its own, in a dedicated thread.
+	 * The transaction of the caller is never committed while waiting for a
+	 * lease held by an other node.
+	 * 
+	 * @param asset The asset
+	 * @param stats The counters for the type of the asset
+	 */
+	private void acquireLease(String asset, ClusterSyncerStatistics stats) {
+		long now = System.currentTimeMillis();
+		Long expiration = leases.get(asset);
+		if(expiration != null && expiration.longValue() - now > leaseDuration / 2) {
+			stats.incrementLeaseHits();
+			return;
+		}
+		leases.remove(asset);
+		pruneExpiredLeases(now);
+		
+		Integer nodeId = Integer.valueOf(WebappHelper.getNodeId());
+		boolean contended = false;
+		while(true) {
+			LeaseState state = negotiateLease(asset, nodeId);
+			if(state.getExpiration() != null) {
+				stats.incrementLeaseAcquisitions();
+				leases.put(asset, state.getExpiration());
+				return;
+			}
+			if(state.isRowLock()) {
+				lockRowOfLease(asset, nodeId);
+				return;
+			}
+			
+			// leased by an other node
+			if(!contended) {
+				stats.incrementContentions();
+				contended = true;
+			}
+			try {
+				Thread.sleep(Math.max(10l, Math.min(state.getWaitTime(), MAX_LEASE_POLL_INTERVAL)));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new AssertException("Interrupted while waiting for the lease of: " + asset);
+			}
+		}
+	}
+	
+	/**
+	 * The node holds the lease but an other node waits for it: lock the row
+	 * in the transaction of the caller, like in plock mode, until the lease
+	 * expires. The waiting node needs the row to take the lease.
+	 */
+	private void lockRowOfLease(String asset, Integer nodeId) {
+		PLock plock = getPessimisticLockManager().findOrPersistPLock(asset);
+		boolean expired = plock.getLeaseExpiration() == null
+				|| plock.getLeaseExpiration().getTime() < System.currentTimeMillis();
+		if(!expired && !nodeId.equals(plock.getLeaseNodeId())) {
+			throw new AssertException("Lease of " + asset + " lost to node: " + plock.getLeaseNodeId());
+		}
+	}
+	
+	/**
+	 * Lock the row of the asset in a dedicated thread, renew or take the lease
+	 * if possible, else register the node as waiting. The transaction of the
+	 * dedicated thread is committed before the method returns.
+	 */
+	private LeaseState negotiateLease(String asset, Integer nodeId) {
+		Future<LeaseState> future = getLeaseExecutor().submit(() -> {
+			try {
+				LeaseState state = negotiateLeaseInTransaction(asset, nodeId);
+				dbInstance.commitAndCloseSession();
+				return state;
+			} catch(RuntimeException e) {
+				dbInstance.rollbackAndCloseSession();
+				throw e;
+			}
+		});
+		
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new AssertException("Interrupted while negotiating the lease of: " + asset);
+		} catch (ExecutionException e) {
+			throw new AssertException("Cannot negotiate the lease of: " + asset, e.getCause());
+		}
+	}
+	
+	private LeaseState negotiateLeaseInTransaction(String asset, Integer nodeId) {
+		PLock plock = getPessimisticLockManager().findOrPersistPLock(asset);
+		long now = System.currentTimeMillis();
+		
+		Integer leaseNodeId = plock.getLeaseNodeId();
+		Integer waitingNodeId = plock.getLeaseWaitingNodeId();
+		Date leaseExpiration = plock.getLeaseExpiration();
+		boolean expired = leaseExpiration == null || leaseExpiration.getTime() < now;
+		boolean otherWaiting = waitingNodeId != null && !waitingNodeId.equals(nodeId);
+		
+		if(nodeId.equals(leaseNodeId) && !expired && otherWaiting) {
+			if(leaseExpiration.getTime() - now > leaseDuration / 2) {
+				// don't renew, work with the lock of the row until the lease expires
+				return LeaseState.rowLock();
+			}
+			// too close to the end of the lease, let the waiting node take it
+			return LeaseState.waitFor(leaseExpiration.getTime() - now);
+		}
+		
+		if(nodeId.equals(leaseNodeId) || leaseNodeId == null || expired) {
+			// the node which waits has one lease duration to take the expired lease
+			boolean yield = otherWaiting && leaseExpiration != null
+					&& leaseExpiration.getTime() + leaseDuration > now;
+			if(!yield) {
+				Date newExpiration = new Date(now + leaseDuration);
+				getPessimisticLockManager().updateLease(plock, nodeId, newExpiration, otherWaiting ? waitingNodeId : null);
+				return LeaseState.taken(newExpiration.getTime());
+			}
+		}
+		
+		if(waitingNodeId == null) {
+			getPessimisticLockManager().updateLease(plock, leaseNodeId, leaseExpiration, nodeId);
+		}
+		return LeaseState.waitFor(leaseExpiration == null ? 0l : leaseExpiration.getTime() - now);
+	}
+	
+	private synchronized ExecutorService getLeaseExecutor() {
+		if(leaseExecutor == null) {
+			AtomicInteger threadNumber = new AtomicInteger(1);
+			leaseExecutor = Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "cluster-syncer-lease-" + threadNumber.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return leaseExecutor;
+	}
+	
+	/**
+	 * Remove the expired leases of the node, at most once per lease duration.
+	 * 
+	 * @param now The current time
+	 */
+	void pruneExpiredLeases(long now) {
+		long last = lastPrune.get();
+		if(now - last > leaseDuration && lastPrune.compareAndSet(last, now)) {
+			leases.values().removeIf(leaseExpiration -> leaseExpiration.longValue() < now);
+		}
+	}
+	
+	boolean hasLease(String asset) {
+		return leases.containsKey(asset);
+	}
+	
+	ClusterSyncerStatistics getStatistics(String assetType) {
+		return statistics.computeIfAbsent(assetType, ClusterSyncerStatistics::new);
+	}
+	
+	@Override
+	public String getLockMode() {
+		return lockMode.name();
+	}
+
+	@Override
+	public long getLeaseDuration() {
+		return leaseDuration;
+	}
+
+	@Override
+	public int getNumOfLeases() {
+		return leases.size();
+	}
+
+	@Override
+	public String[] getStatistics() {
+		List<String> stats = new ArrayList<>(statistics.size());
+		for(ClusterSyncerStatistics stat:statistics.values()) {
+			stats.add(stat.toString());
+		}
+		return stats.toArray(new String[stats.size()]);
+	}
+
 	/**
 	 * @see org.olat.core.util.coordinate.Syncer#doInSync(org.olat.core.id.OLATResourceable, org.olat.core.util.coordinate.SyncerExecutor)
 	 */
@@ -227,4 +511,47 @@ public class ClusterSyncer implements Syncer {
 		}
 	}
 	
+	
+	private static class LeaseState {
+		
+		private final Long expiration;
+		private final boolean rowLock;
+		private final long waitTime;
+		
+		private LeaseState(Long expiration, boolean rowLock, long waitTime) {
+			this.expiration = expiration;
+			this.rowLock = rowLock;
+			this.waitTime = waitTime;
+		}
+		
+		public static LeaseState taken(long expiration) {
+			return new LeaseState(Long.valueOf(expiration), false, 0l);
+		}
+		
+		public static LeaseState rowLock() {
+			return new LeaseState(null, true, 0l);
+		}
+		
+		public static LeaseState waitFor(long waitTime) {
+			return new LeaseState(null, false, waitTime);
+		}
+
+		/**
+		 * @return The end of the lease taken by the node, or null
+		 */
+		public Long getExpiration() {
+			return expiration;
+		}
+
+		/**
+		 * @return true if the node must lock the row in the transaction of the sync
+		 */
+		public boolean isRowLock() {
+			return rowLock;
+		}
+
+		public long getWaitTime() {
+			return waitTime;
+		}
+	}
 }
@@ -0,0 +1,127 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of the ClusterSyncer for a type of resource: the number
+ * of syncs, the leases found on the node, the leases acquired in the
+ * database, the contentions with an other node and a histogram of the
+ * time waited to get the lock.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ClusterSyncerStatistics {
+	
+	/** The upper bounds (exclusive) of the wait time histogram in milliseconds */
+	private static final long[] WAIT_TIME_BUCKETS = { 1, 10, 100, 1000, 10000 };
+	
+	private final String assetType;
+	private final LongAdder syncs = new LongAdder();
+	private final LongAdder leaseHits = new LongAdder();
+	private final LongAdder leaseAcquisitions = new LongAdder();
+	private final LongAdder contentions = new LongAdder();
+	private final LongAdder totalWaitTime = new LongAdder();
+	private final LongAdder[] waitTimes = new LongAdder[WAIT_TIME_BUCKETS.length + 1];
+	
+	public ClusterSyncerStatistics(String assetType) {
+		this.assetType = assetType;
+		for(int i=0; i<waitTimes.length; i++) {
+			waitTimes[i] = new LongAdder();
+		}
+	}
+	
+	public String getAssetType() {
+		return assetType;
+	}
+	
+	public long getSyncs() {
+		return syncs.sum();
+	}
+	
+	public long getLeaseHits() {
+		return leaseHits.sum();
+	}
+	
+	public long getLeaseAcquisitions() {
+		return leaseAcquisitions.sum();
+	}
+	
+	public long getContentions() {
+		return contentions.sum();
+	}
+	
+	/**
+	 * @return The number of syncs per bucket of the histogram
+	 */
+	public long[] getWaitTimes() {
+		long[] counts = new long[waitTimes.length];
+		for(int i=0; i<waitTimes.length; i++) {
+			counts[i] = waitTimes[i].sum();
+		}
+		return counts;
+	}
+	
+	void incrementLeaseHits() {
+		leaseHits.increment();
+	}
+	
+	void incrementLeaseAcquisitions() {
+		leaseAcquisitions.increment();
+	}
+	
+	void incrementContentions() {
+		contentions.increment();
+	}
+	
+	void addWaitTime(long waitTime) {
+		syncs.increment();
+		totalWaitTime.add(waitTime);
+		int bucket = 0;
+		while(bucket < WAIT_TIME_BUCKETS.length && waitTime >= WAIT_TIME_BUCKETS[bucket]) {
+			bucket++;
+		}
+		waitTimes[bucket].increment();
+	}
+	
+	@Override
+	public String toString() {
+		long numOfSyncs = syncs.sum();
+		StringBuilder sb = new StringBuilder(256);
+		sb.append(assetType)
+		  .append(": syncs=").append(numOfSyncs)
+		  .append(", leaseHits=").append(leaseHits.sum())
+		  .append(", leaseAcquisitions=").append(leaseAcquisitions.sum())
+		  .append(", contentions=").append(contentions.sum())
+		  .append(", avgWait=").append(numOfSyncs == 0 ? 0 : totalWaitTime.sum() / numOfSyncs).append("ms");
+		for(int i=0; i<waitTimes.length; i++) {
+			sb.append(", ");
+			if(i < WAIT_TIME_BUCKETS.length) {
+				sb.append("<").append(WAIT_TIME_BUCKETS[i]);
+			} else {
+				sb.append(">=").append(WAIT_TIME_BUCKETS[i - 1]);
+			}
+			sb.append("ms=").append(waitTimes[i].sum());
+		}
+		return sb.toString();
+	}
+}
@@ -28,9 +28,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
@@ -72,6 +74,9 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	// settings
 	long sendInterval = 1000; // 1000 miliseconds between each "ping/alive/info" message, can be set using spring
 	long jmsMsgDelayLimit = 5000;  // max duration of ClusterInfoEvent send-receive time in ms
+	boolean batchEnabled = false; // send the events fired within the batch window in one message
+	long batchWindow = 20; // in miliseconds
+	int batchMaxSize = 500; // max. number of events per message
 	
 	// counters
 	private long latestSentMsgId = -1;
@@ -105,10 +110,16 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	private final SimpleProbe mrtgProbeJMSProcessingTime_ = new SimpleProbe();
 	
 	private final SimpleProbe mrtgProbeJMSEnqueueTime_ = new SimpleProbe();
+	private final SimpleProbe mrtgProbeJMSBatchSize_ = new SimpleProbe();
+	private final SimpleProbe mrtgProbeJMSBatchCoalesced_ = new SimpleProbe();
+	private final SimpleProbe mrtgProbeJMSBatchBytes_ = new SimpleProbe();
 	//final LinkedList<Object> incomingMessagesQueue_ = new LinkedList<Object>();
 	//private final static int LIMIT_ON_INCOMING_MESSAGE_QUEUE = 200;
 	
-	private ExecutorService jmsExecutor;
+	private ScheduledExecutorService jmsExecutor;
+	// events waiting for the next batch
+	private final List<JMSWrapper> pendingEvents = new ArrayList<>();
+	private boolean batchScheduled = false;
 	
 	/**
 	 * [used by spring]
@@ -120,7 +131,7 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	}
 
 	public void springInit() throws JMSException {
-		jmsExecutor = Executors.newSingleThreadExecutor();
+		jmsExecutor = Executors.newSingleThreadScheduledExecutor();
 		
 		connection = connectionFactory.createConnection();
 		sessionConsumer = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
@@ -184,6 +195,27 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		return mrtgProbeJMSEnqueueTime_;
 	}
 	
+	/**
+	 * @return The number of events per batch
+	 */
+	public SimpleProbe getMrtgProbeJMSBatchSize() {
+		return mrtgProbeJMSBatchSize_;
+	}
+	
+	/**
+	 * @return The number of coalesced events per batch
+	 */
+	public SimpleProbe getMrtgProbeJMSBatchCoalesced() {
+		return mrtgProbeJMSBatchCoalesced_;
+	}
+	
+	/**
+	 * @return The size of the batches in bytes
+	 */
+	public SimpleProbe getMrtgProbeJMSBatchBytes() {
+		return mrtgProbeJMSBatchBytes_;
+	}
+	
 	/* (non-Javadoc)
 	 * @see org.olat.core.util.event.GenericEventListener#event(org.olat.core.gui.control.Event)
 	 */
@@ -224,29 +256,17 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		final long msgId = ++latestSentMsgId;
 		final Integer nodeId = clusterConfig.getNodeId();
 		
-		jmsExecutor.execute(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					ObjectMessage message = sessionProducer.createObjectMessage();
-					message.setObject(new JMSWrapper(nodeId, msgId, ores, event));
-					producer.send(message);
-				} catch (Exception e) {
-					log.error("Cannot send JMS message", e);
-					// cluster:::: what shall we do here: the JMS bus is broken! and we thus cannot know if other nodes are alive.
-					// if we are the only node running, then we could continue.
-					// a) either throw an exception - meaning olat doesn't really run at all and produces redscreens all the time and logging in is not possible.
-					// b) or warn in the log/jmx - but surveillance is critical here!!
-					// -> do the more fail-fast option a) at the moment for correctness reasons.
-					System.err.println("###############################################################################################");
-					System.err.println("### ClusterEventBus: communication error with JMS - cannot send messages!!!" + e);
-					System.err.println("###############################################################################################");
-					
-					throw new OLATRuntimeException("communication error with JMS - cannot send messages!!!", e);
+		final JMSWrapper wrapper = new JMSWrapper(nodeId, msgId, ores, event);
+		if(batchEnabled) {
+			queueEvent(wrapper);
+		} else {
+			jmsExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					sendObjectMessage(wrapper);
 				}
-				numOfSentMessages++;
-			}
-		});
+			});
+		}
 
 		// store it for later access by the admin controller
 		String sentMsg = "sent msg: from node:" + nodeId + ", olat-id:" + msgId + ", ores:"	+ ores.getResourceableTypeName() + ":" + ores.getResourceableId()+", event:"+event;
@@ -254,6 +274,96 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		if (log.isDebug()) log.debug(sentMsg);
 	}
 
+	private void sendObjectMessage(JMSWrapper wrapper) {
+		try {
+			ObjectMessage message = sessionProducer.createObjectMessage();
+			message.setObject(wrapper);
+			producer.send(message);
+		} catch (Exception e) {
+			handleSendError(e);
+		}
+		numOfSentMessages++;
+	}
+	
+	private void handleSendError(Exception e) {
+		log.error("Cannot send JMS message", e);
+		// cluster:::: what shall we do here: the JMS bus is broken! and we thus cannot know if other nodes are alive.
+		// if we are the only node running, then we could continue.
+		// a) either throw an exception - meaning olat doesn't really run at all and produces redscreens all the time and logging in is not possible.
+		// b) or warn in the log/jmx - but surveillance is critical here!!
+		// -> do the more fail-fast option a) at the moment for correctness reasons.
+		System.err.println("###############################################################################################");
+		System.err.println("### ClusterEventBus: communication error with JMS - cannot send messages!!!" + e);
+		System.err.println("###############################################################################################");
+		
+		throw new OLATRuntimeException("communication error with JMS - cannot send messages!!!", e);
+	}
+	
+	/**
+	 * Queue the event for the next batch. The batch is sent after the
+	 * batch window or as soon as it has reached its max. size.
+	 * 
+	 * @param wrapper The event
+	 */
+	private void queueEvent(JMSWrapper wrapper) {
+		synchronized(pendingEvents) {
+			pendingEvents.add(wrapper);
+			if(pendingEvents.size() == batchMaxSize) {
+				jmsExecutor.execute(this::sendBatch);
+			} else if(!batchScheduled) {
+				batchScheduled = true;
+				jmsExecutor.schedule(this::sendBatch, batchWindow, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+	
+	private void sendBatch() {
+		List<JMSWrapper> events;
+		synchronized(pendingEvents) {
+			batchScheduled = false;
+			if(pendingEvents.isEmpty()) {
+				return;
+			}
+			events = new ArrayList<>(pendingEvents);
+			pendingEvents.clear();
+		}
+		
+		List<JMSWrapper> coalescedEvents = JMSBatch.coalesce(events);
+		mrtgProbeJMSBatchCoalesced_.addMeasurement(events.size() - coalescedEvents.size());
+		for(int i=0; i<coalescedEvents.size(); i+=batchMaxSize) {
+			List<JMSWrapper> batch = coalescedEvents.subList(i, Math.min(i + batchMaxSize, coalescedEvents.size()));
+			
+			byte[] bytes;
+			try {
+				bytes = JMSBatch.toBytes(clusterConfig.getNodeId(), batch);
+			} catch (Exception e) {
+				// an event cannot be serialized, send them one by one to only lose this one
+				log.error("Cannot serialize a batch of cluster events, send them separately", e);
+				for(JMSWrapper wrapper:batch) {
+					try {
+						sendObjectMessage(wrapper);
+					} catch (OLATRuntimeException re) {
+						// already logged
+					}
+				}
+				continue;
+			}
+			
+			try {
+				BytesMessage message = sessionProducer.createBytesMessage();
+				message.writeBytes(bytes);
+				producer.send(message);
+				numOfSentMessages++;
+				mrtgProbeJMSBatchSize_.addMeasurement(batch.size());
+				mrtgProbeJMSBatchBytes_.addMeasurement(bytes.length);
+			} catch (Exception e) {
+				// log and go on with the next batch, there is no caller to notify in the executor
+				log.error("Cannot send a batch of " + batch.size() + " cluster events (msg ids "
+						+ batch.get(0).getMsgId() + " to " + batch.get(batch.size() - 1).getMsgId() + ")", e);
+			}
+		}
+	}
+
 	/**
 	 * called by springs org.springframework.jms.listener.DefaultMessageListenerContainer, see coredefaultconfig.xml
 	 * we receive a message here on the topic reserved for olat system bus messages. 
@@ -302,40 +412,23 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			lastOnMessageFinishTime_ = -1;
 		}
 
-		ObjectMessage om = (ObjectMessage) message;
 		try {
-			// unpack
-			JMSWrapper jmsWrapper = (JMSWrapper) om.getObject();
-			Integer nodeId = jmsWrapper.getNodeId();			
-			MultiUserEvent event = jmsWrapper.getMultiUserEvent();
-			OLATResourceable ores = jmsWrapper.getOres();
-			boolean fromSameNode = clusterConfig.getNodeId().equals(nodeId);
-
-			String recMsg = "received msg: "+(fromSameNode? "[same node]":"")+" from node:" + 
-			nodeId + ", olat-id:" + jmsWrapper.getMsgId() + ", ores:" + ores.getResourceableTypeName() + ":" + ores.getResourceableId() +
-			", event:"+event+"}";
-
-			// stats
-			final long jmsTimestamp = om.getJMSTimestamp();
-			if (jmsTimestamp!=0) {
-				final long deliveryTime = receiveTime - jmsTimestamp;
-				if (deliveryTime>1500) {
-					// then issue a log statement
-					log.warn("message received with long delivery time (longer than 1500ms: "+deliveryTime+"): "+recMsg);
+			final long jmsTimestamp = message.getJMSTimestamp();
+			final String recMsg;
+			if(message instanceof BytesMessage) {
+				BytesMessage bm = (BytesMessage)message;
+				byte[] bytes = new byte[(int)bm.getBodyLength()];
+				bm.readBytes(bytes);
+				List<JMSWrapper> jmsWrappers = JMSBatch.fromBytes(bytes);
+				for(JMSWrapper jmsWrapper:jmsWrappers) {
+					serveEvent(jmsWrapper, receiveTime, jmsTimestamp);
 				}
-				mrtgProbeJMSDeliveryTime_.addMeasurement(deliveryTime);
+				recMsg = "batch of " + jmsWrappers.size() + " events";
+			} else {
+				JMSWrapper jmsWrapper = (JMSWrapper)((ObjectMessage)message).getObject();
+				recMsg = serveEvent(jmsWrapper, receiveTime, jmsTimestamp);
 			}
 			
-			addToReceivedScreen(recMsg);
-			if (log.isDebug()) log.debug(recMsg);
-			
-			// message with destination and source both having this vm are ignored here, since they were already 
-			// "inline routed" when having been sent (direct call within the vm).
-			//TODO jms if (!fromSameNode) {
-				// distribute the unmarshalled event to all JVM wide listeners for this channel.
-				doFire(event, ores);
-			//TODO jms } // else message already sent "in-vm"
-			
 			// stats
 			final long doneTime = System.currentTimeMillis();
 			final long processingTime = doneTime - receiveTime;
@@ -359,6 +452,39 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			lastOnMessageFinishTime_ = System.currentTimeMillis();
 		}
 	}
+	
+	private String serveEvent(JMSWrapper jmsWrapper, long receiveTime, long jmsTimestamp) {
+		// unpack
+		Integer nodeId = jmsWrapper.getNodeId();			
+		MultiUserEvent event = jmsWrapper.getMultiUserEvent();
+		OLATResourceable ores = jmsWrapper.getOres();
+		boolean fromSameNode = clusterConfig.getNodeId().equals(nodeId);
+
+		String recMsg = "received msg: "+(fromSameNode? "[same node]":"")+" from node:" + 
+		nodeId + ", olat-id:" + jmsWrapper.getMsgId() + ", ores:" + ores.getResourceableTypeName() + ":" + ores.getResourceableId() +
+		", event:"+event+"}";
+
+		// stats
+		if (jmsTimestamp!=0) {
+			final long deliveryTime = receiveTime - jmsTimestamp;
+			if (deliveryTime>1500) {
+				// then issue a log statement
+				log.warn("message received with long delivery time (longer than 1500ms: "+deliveryTime+"): "+recMsg);
+			}
+			mrtgProbeJMSDeliveryTime_.addMeasurement(deliveryTime);
+		}
+		
+		addToReceivedScreen(recMsg);
+		if (log.isDebug()) log.debug(recMsg);
+		
+		// message with destination and source both having this vm are ignored here, since they were already 
+		// "inline routed" when having been sent (direct call within the vm).
+		//TODO jms if (!fromSameNode) {
+			// distribute the unmarshalled event to all JVM wide listeners for this channel.
+			doFire(event, ores);
+		//TODO jms } // else message already sent "in-vm"
+		return recMsg;
+	}
 
 	private NodeInfo getNodeInfoFor(Integer nodeId) {
 		synchronized (nodeInfos) {//cluster_ok node info is per vm only
@@ -462,6 +588,12 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		log.info("ClusterEventBus: Set stop flag for ClusterInfoEvent-Thread.");
 		isClusterInfoEventThreadRunning = false;
 		try {
+			if(batchEnabled) {
+				// send the last events
+				jmsExecutor.execute(this::sendBatch);
+				jmsExecutor.shutdown();
+				jmsExecutor.awaitTermination(5, TimeUnit.SECONDS);
+			}
 			jmsExecutor.shutdownNow();
 			sessionProducer.close();
 			sessionConsumer.close();
@@ -469,6 +601,8 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			log.info("ClusterEventBus stopped");
 		} catch (JMSException e) {
 			log.warn("Exception in stop ClusteredSearchProvider, ",e);
+		} catch (InterruptedException e) {
+			log.warn("Interrupted while sending the last events", e);
 		}
 	}
 	
@@ -486,6 +620,27 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		this.jmsMsgDelayLimit = jmsMsgDelayLimit;
 	}
 
+	/**
+	 * [used by spring]
+	 */
+	public void setBatchEnabled(boolean batchEnabled) {
+		this.batchEnabled = batchEnabled;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setBatchWindow(long batchWindow) {
+		this.batchWindow = batchWindow;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setBatchMaxSize(int batchMaxSize) {
+		this.batchMaxSize = Math.max(1, batchMaxSize);
+	}
+
 	/**
 	 * [used by spring]
 	 */
@@ -0,0 +1,154 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.olat.core.util.event.CoalescableEvent;
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * The format of a batch of events sent in a single JMS message. The
+ * events are written in the same object stream, the class descriptors
+ * are only written once per batch and the types of the resources are
+ * saved in a table at the beginning of the batch. The events themselves
+ * are still serialized with the Java serialization, like in the
+ * ObjectMessage of the unbatched mode.
+ * <ul>
+ * 	<li>magic number and version</li>
+ * 	<li>node id</li>
+ * 	<li>the table of the resource types</li>
+ * 	<li>the events with their message id, the index of the resource type,
+ * 		the resource id and the serialized event</li>
+ * </ul>
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+class JMSBatch {
+	
+	private static final int MAGIC = 0x4F4A4D53;
+	private static final int VERSION = 1;
+	
+	private JMSBatch() {
+		//
+	}
+	
+	/**
+	 * Coalesce the runs of adjacent events which implement CoalescableEvent:
+	 * if an event has the same resource, class and coalescing key as the
+	 * event just before it, it replaces it. Events are never moved, the
+	 * listeners receive them in the order they were fired.
+	 * 
+	 * @param wrappers The events in the order they were fired
+	 * @return The coalesced list of events
+	 */
+	static List<JMSWrapper> coalesce(List<JMSWrapper> wrappers) {
+		List<JMSWrapper> coalesced = new ArrayList<>(wrappers.size());
+		List<Object> previousKey = null;
+		for(JMSWrapper wrapper:wrappers) {
+			List<Object> key = getCoalescingKey(wrapper);
+			if(key != null && key.equals(previousKey)) {
+				coalesced.set(coalesced.size() - 1, wrapper);
+			} else {
+				coalesced.add(wrapper);
+			}
+			previousKey = key;
+		}
+		return coalesced;
+	}
+	
+	private static List<Object> getCoalescingKey(JMSWrapper wrapper) {
+		MultiUserEvent event = wrapper.getMultiUserEvent();
+		if(event instanceof CoalescableEvent) {
+			return Arrays.asList(wrapper.getResourceableTypeName(), wrapper.getResourceableId(),
+					event.getClass(), ((CoalescableEvent)event).getCoalescingKey());
+		}
+		return null;
+	}
+	
+	static byte[] toBytes(Integer nodeId, List<JMSWrapper> wrappers) throws IOException {
+		List<String> types = new ArrayList<>();
+		Map<String,Integer> typeToIndex = new HashMap<>();
+		for(JMSWrapper wrapper:wrappers) {
+			String type = wrapper.getResourceableTypeName();
+			if(!typeToIndex.containsKey(type)) {
+				typeToIndex.put(type, Integer.valueOf(types.size()));
+				types.add(type);
+			}
+		}
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256 + wrappers.size() * 128);
+		try(ObjectOutputStream oout = new ObjectOutputStream(out)) {
+			oout.writeInt(MAGIC);
+			oout.writeInt(VERSION);
+			oout.writeInt(nodeId.intValue());
+			oout.writeInt(types.size());
+			for(String type:types) {
+				oout.writeUTF(type);
+			}
+			oout.writeInt(wrappers.size());
+			for(JMSWrapper wrapper:wrappers) {
+				oout.writeLong(wrapper.getMsgId());
+				oout.writeInt(typeToIndex.get(wrapper.getResourceableTypeName()).intValue());
+				Long resId = wrapper.getResourceableId();
+				oout.writeBoolean(resId != null);
+				oout.writeLong(resId == null ? 0l : resId.longValue());
+				oout.writeObject(wrapper.getMultiUserEvent());
+			}
+		}
+		return out.toByteArray();
+	}
+	
+	static List<JMSWrapper> fromBytes(byte[] bytes) throws IOException, ClassNotFoundException {
+		try(ObjectInputStream oin = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			if(oin.readInt() != MAGIC || oin.readInt() != VERSION) {
+				throw new IOException("Unknown format of batch of cluster events");
+			}
+			Integer nodeId = Integer.valueOf(oin.readInt());
+			int numOfTypes = oin.readInt();
+			String[] types = new String[numOfTypes];
+			for(int i=0; i<numOfTypes; i++) {
+				types[i] = oin.readUTF();
+			}
+			
+			int numOfEvents = oin.readInt();
+			List<JMSWrapper> wrappers = new ArrayList<>(numOfEvents);
+			for(int i=0; i<numOfEvents; i++) {
+				long msgId = oin.readLong();
+				String type = types[oin.readInt()];
+				boolean hasResId = oin.readBoolean();
+				long resId = oin.readLong();
+				MultiUserEvent event = (MultiUserEvent)oin.readObject();
+				wrappers.add(new JMSWrapper(nodeId, msgId, type, hasResId ? Long.valueOf(resId) : null, event));
+			}
+			return wrappers;
+		}
+	}
+}
@@ -57,6 +57,22 @@ public class JMSWrapper implements Serializable {
 		resId = ores.getResourceableId();
 		resType = ores.getResourceableTypeName();
 	}
+	
+	JMSWrapper(Integer nodeId, long msgId, String resType, Long resId, MultiUserEvent event) {
+		this.event = event;
+		this.msgId = msgId;
+		this.nodeId = nodeId;
+		this.resId = resId;
+		this.resType = resType;
+	}
+	
+	Long getResourceableId() {
+		return resId;
+	}
+	
+	String getResourceableTypeName() {
+		return resType;
+	}
 
 	public OLATResourceable getOres() {
 		return new OLATResourceable(){
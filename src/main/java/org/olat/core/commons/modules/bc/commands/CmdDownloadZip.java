@@ -24,7 +24,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipOutputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -47,6 +46,8 @@ import org.olat.core.util.vfs.VFSContainer;
 import org.olat.core.util.vfs.VFSItem;
 import org.olat.core.util.vfs.VFSLeaf;
 import org.olat.core.util.vfs.VFSManager;
+import org.olat.core.util.zip.ParallelZipArchive;
+import org.olat.core.util.zip.ParallelZipService;
 
 /**
  * 
@@ -177,9 +178,8 @@ public class CmdDownloadZip implements FolderCommand {
 		}
 		
 		private void prepareZip(HttpServletResponse hres, List<String> selectedFiles) {
-			try(ZipOutputStream zout = new ZipOutputStream(hres.getOutputStream())) {
-				zout.setLevel(9);
-				
+			ParallelZipService zipService = CoreSpringFactory.getImpl(ParallelZipService.class);
+			try(ParallelZipArchive zout = zipService.openArchive(hres.getOutputStream())) {
 				List<VFSItem> vfsFiles = new ArrayList<>();
 				for (String fileName : selectedFiles) {
 					VFSItem item = currentContainer.resolve(fileName);
@@ -193,9 +193,10 @@ public class CmdDownloadZip implements FolderCommand {
 				}
 				
 				for (VFSItem item:vfsFiles) {
-					ZipUtil.addToZip(item, "", zout);
+					if(!ZipUtil.addToZip(item, "", zout) && zout.isFailed()) {
+						break;
+					}
 				}
-				zout.flush();
 			} catch (Exception e) {
 				log.error("", e);
 			}
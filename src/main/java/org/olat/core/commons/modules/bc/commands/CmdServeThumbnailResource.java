@@ -35,6 +35,7 @@ import org.olat.core.gui.control.WindowControl;
 import org.olat.core.gui.media.ForbiddenMediaResource;
 import org.olat.core.gui.media.MediaResource;
 import org.olat.core.gui.media.NotFoundMediaResource;
+import org.olat.core.gui.media.ThumbnailPlaceholderMediaResource;
 import org.olat.core.gui.translator.Translator;
 import org.olat.core.util.vfs.VFSConstants;
 import org.olat.core.util.vfs.VFSLeaf;
@@ -70,9 +71,12 @@ public class CmdServeThumbnailResource implements FolderCommand {
 			}
 			
 			if(vfsLeaf != null && vfsLeaf.canMeta() == VFSConstants.YES) {
-				VFSLeaf thumbnail = vfsRepositoryservice.getThumbnail(vfsLeaf, 200, 200, false);
+				VFSLeaf thumbnail = vfsRepositoryservice.getThumbnailAsync(vfsLeaf, 200, 200, false);
 				if(thumbnail != null) {
 					mr = new VFSMediaResource(thumbnail);
+				} else if(vfsRepositoryservice.isThumbnailAvailable(vfsLeaf)) {
+					// generated in background
+					mr = new ThumbnailPlaceholderMediaResource();
 				}
 			}
 			if(mr == null) {
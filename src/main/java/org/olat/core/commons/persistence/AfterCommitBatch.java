@@ -0,0 +1,85 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.commons.persistence;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Collect the changes made by the transaction of the current thread and
+ * publish them once, after the commit. The changes are discarded if the
+ * transaction is rolled back. Without transaction, the changes are
+ * published immediately.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ * @param <T> The type of the collected changes
+ */
+public class AfterCommitBatch<T> {
+	
+	private final DB dbInstance;
+	private final Supplier<T> factory;
+	private final Consumer<T> publisher;
+	private final ThreadLocal<T> pending = new ThreadLocal<>();
+	
+	/**
+	 * @param dbInstance The database
+	 * @param factory Create an empty batch of changes
+	 * @param publisher Publish the changes after the commit, it must not use the database session
+	 */
+	public AfterCommitBatch(DB dbInstance, Supplier<T> factory, Consumer<T> publisher) {
+		this.dbInstance = dbInstance;
+		this.factory = factory;
+		this.publisher = publisher;
+	}
+	
+	/**
+	 * Add some changes to the batch of the current transaction.
+	 * 
+	 * @param change Add the changes to the batch
+	 */
+	public void add(Consumer<T> change) {
+		T batch = pending.get();
+		if(batch == null) {
+			batch = factory.get();
+			change.accept(batch);
+			pending.set(batch);
+			dbInstance.afterRollback(pending::remove);
+			dbInstance.afterCommit(this::publish);
+		} else {
+			change.accept(batch);
+		}
+	}
+	
+	/**
+	 * @return The changes of the current transaction which are not committed yet or null
+	 */
+	public T getPending() {
+		return pending.get();
+	}
+	
+	private void publish() {
+		T batch = pending.get();
+		pending.remove();
+		if(batch != null) {
+			publisher.accept(batch);
+		}
+	}
+}
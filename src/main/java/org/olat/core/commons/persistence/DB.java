@@ -113,7 +113,26 @@ public interface DB {
 	 * Call this to rollback current changes.
 	 */
 	public void rollback();
-  
+
+	/**
+	 * Run the callback after the current transaction is committed. If there
+	 * is no transaction, the callback runs immediately. The callback is
+	 * discarded if the transaction is rolled back. The callbacks run after
+	 * the end of the transaction and must not use the database session.
+	 *
+	 * @param callback The callback
+	 */
+	public void afterCommit(Runnable callback);
+
+	/**
+	 * Run the callback after the current transaction is rolled back or if
+	 * its commit fails. The callback is discarded if the transaction is
+	 * committed or if there is no transaction.
+	 *
+	 * @param callback The callback
+	 */
+	public void afterRollback(Runnable callback);
+
 	/**
 	 * Statistics must be enabled first, when you want to use it. 
 	 * @return Return Hibernates statistics object.
@@ -29,7 +29,10 @@ package org.olat.core.commons.persistence;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Properties;
 
 import javax.persistence.Cache;
@@ -139,6 +142,9 @@ public class DBImpl implements DB, Destroyable {
 		private int commitCounter = 0;
 		
 		private EntityManager em;
+		// callbacks of the current transaction
+		private List<Runnable> afterCommitCallbacks;
+		private List<Runnable> afterRollbackCallbacks;
 		
 		private ThreadLocalData() {
 		// don't let any other class instantiate ThreadLocalData.
@@ -232,6 +238,44 @@ public class DBImpl implements DB, Destroyable {
 		protected void resetCommitCounter() {
 			this.commitCounter = 0;
 		}
+		
+		protected void addAfterCommit(Runnable callback) {
+			if(afterCommitCallbacks == null) {
+				afterCommitCallbacks = new ArrayList<>(4);
+			}
+			afterCommitCallbacks.add(callback);
+		}
+		
+		protected void addAfterRollback(Runnable callback) {
+			if(afterRollbackCallbacks == null) {
+				afterRollbackCallbacks = new ArrayList<>(4);
+			}
+			afterRollbackCallbacks.add(callback);
+		}
+		
+		/**
+		 * The transaction is committed, discard the rollback callbacks.
+		 * 
+		 * @return The callbacks to run after the commit
+		 */
+		protected List<Runnable> committed() {
+			List<Runnable> callbacks = afterCommitCallbacks;
+			afterCommitCallbacks = null;
+			afterRollbackCallbacks = null;
+			return callbacks == null ? Collections.emptyList() : callbacks;
+		}
+		
+		/**
+		 * The transaction is rolled back, discard the commit callbacks.
+		 * 
+		 * @return The callbacks to run after the rollback
+		 */
+		protected List<Runnable> rolledBack() {
+			List<Runnable> callbacks = afterRollbackCallbacks;
+			afterCommitCallbacks = null;
+			afterRollbackCallbacks = null;
+			return callbacks == null ? Collections.emptyList() : callbacks;
+		}
 	}
 
 	private void setData(ThreadLocalData data) {
@@ -301,23 +345,57 @@ public class DBImpl implements DB, Destroyable {
 		//  that was closed underneath by hibernate (not noticed by DBImpl).
 		//  in order to be robust for any similar situation, we check if the 
 		//  connection is open, otherwise we shouldn't worry about doing any commit/rollback anyway
+		List<Runnable> callbacks = null;
 		EntityManager s = getData().getEntityManager(false);
 		if(s != null) {
 			EntityTransaction trx = s.getTransaction();
 			if(trx.isActive()) {
 				try {
 					trx.commit();
+					callbacks = getData().committed();
 				} catch (RollbackException ex) {
 					//possible if trx setRollbackonly
 					log.warn("Close session with transaction set with setRollbackOnly", ex);
+					callbacks = getData().rolledBack();
 				} catch (Exception e) {
 					log.error("", e);
 					trx.rollback();
+					callbacks = getData().rolledBack();
 				}
 			}
 			s.close();
 		}
+		if(callbacks == null) {
+			callbacks = getData().committed();
+		}
 		data.remove();
+		runCallbacks(callbacks);
+	}
+	
+	@Override
+	public void afterCommit(Runnable callback) {
+		if(hasTransaction()) {
+			getData().addAfterCommit(callback);
+		} else {
+			runCallbacks(Collections.singletonList(callback));
+		}
+	}
+	
+	@Override
+	public void afterRollback(Runnable callback) {
+		if(hasTransaction()) {
+			getData().addAfterRollback(callback);
+		}
+	}
+	
+	private void runCallbacks(List<Runnable> callbacks) {
+		for(Runnable callback:callbacks) {
+			try {
+				callback.run();
+			} catch (Exception e) {
+				log.error("Callback of the transaction failed", e);
+			}
+		}
 	}
   
 	private boolean contains(Object object) {
@@ -529,6 +607,7 @@ public class DBImpl implements DB, Destroyable {
 				if(trx != null) {
 					trx.commit();
 				}
+				runCallbacks(getData().committed());
 
 				if (debug) log.debug("Commit DONE hasTransaction()=" + hasTransaction(), null);
 			} else if(hasTransaction() && isError()) {
@@ -538,6 +617,8 @@ public class DBImpl implements DB, Destroyable {
 				}
 			} else {
 				if (debug) log.debug("Call commit without starting transaction", null );
+				// the transaction was ended outside of this class
+				runCallbacks(getData().committed());
 			}
 		} catch (Error er) {
 			log.error("Uncaught Error in DBImpl.commit.", er);
@@ -569,6 +650,8 @@ public class DBImpl implements DB, Destroyable {
 			} catch (Exception ex) {
 				log.warn("Could not rollback transaction after commit!", ex);
 				throw new DBRuntimeException("rollback after commit failed", e);
+			} finally {
+				runCallbacks(getData().rolledBack());
 			}
 			throw new DBRuntimeException("commit failed, rollback transaction", e);
 		}
@@ -599,7 +682,9 @@ public class DBImpl implements DB, Destroyable {
 		} catch (Exception ex) {
 			log.warn("Could not rollback transaction!",ex);
 			throw new DBRuntimeException("rollback failed", ex);
-		}		
+		} finally {
+			runCallbacks(getData().rolledBack());
+		}
 	}
 
 	/**
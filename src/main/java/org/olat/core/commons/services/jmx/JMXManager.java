@@ -68,6 +68,45 @@ public class JMXManager {
 		return mBeanServer;
 	}
 	
+	/**
+	 * Register the MBean if the JMX server is active and the name is
+	 * not already registered. The errors are logged.
+	 * 
+	 * @param mbean The MBean
+	 * @param objectName The object name of the MBean
+	 */
+	public void registerMBean(Object mbean, String objectName) {
+		if(mBeanServer == null) return;
+		
+		try {
+			ObjectName name = new ObjectName(objectName);
+			if(!mBeanServer.isRegistered(name)) {
+				mBeanServer.registerMBean(mbean, name);
+			}
+		} catch (Exception e) {
+			log.error("Cannot register the MBean: " + objectName, e);
+		}
+	}
+	
+	/**
+	 * Unregister the MBean if the JMX server is active and the name is
+	 * registered. The errors are logged.
+	 * 
+	 * @param objectName The object name of the MBean
+	 */
+	public void unregisterMBean(String objectName) {
+		if(mBeanServer == null) return;
+		
+		try {
+			ObjectName name = new ObjectName(objectName);
+			if(mBeanServer.isRegistered(name)) {
+				mBeanServer.unregisterMBean(name);
+			}
+		} catch (Exception e) {
+			log.error("Cannot unregister the MBean: " + objectName, e);
+		}
+	}
+	
 	public List<String> dumpJmx(String objectName) {
 		try {
 			ObjectName on = new ObjectName(objectName);
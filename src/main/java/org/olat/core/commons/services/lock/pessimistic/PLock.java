@@ -24,6 +24,23 @@
 */
 package org.olat.core.commons.services.lock.pessimistic;
 
+import java.util.Date;
+
 public interface PLock {
+	
+	/**
+	 * @return The id of the node which holds the lease of the lock, or null
+	 */
+	public Integer getLeaseNodeId();
+	
+	/**
+	 * @return The end of the lease, or null
+	 */
+	public Date getLeaseExpiration();
+	
+	/**
+	 * @return The id of a node which waits for the lease, or null
+	 */
+	public Integer getLeaseWaitingNodeId();
 
 }
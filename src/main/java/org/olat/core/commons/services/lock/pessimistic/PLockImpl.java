@@ -78,6 +78,13 @@ public class PLockImpl implements PLock, CreateInfo, Persistable {
 
 	@Column(name="asset", nullable=false, insertable=true, updatable=false, unique=true)
 	private String asset;
+	@Column(name="p_lease_node", nullable=true, insertable=true, updatable=true)
+	private Integer leaseNodeId;
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name="p_lease_expiration", nullable=true, insertable=true, updatable=true)
+	private Date leaseExpiration;
+	@Column(name="p_lease_waiting_node", nullable=true, insertable=true, updatable=true)
+	private Integer leaseWaitingNodeId;
 	
 	/**
 	* Constructor needed for Hibernate.
@@ -112,6 +119,33 @@ public class PLockImpl implements PLock, CreateInfo, Persistable {
 		this.asset = asset;
 	}
 
+	@Override
+	public Integer getLeaseNodeId() {
+		return leaseNodeId;
+	}
+
+	public void setLeaseNodeId(Integer leaseNodeId) {
+		this.leaseNodeId = leaseNodeId;
+	}
+
+	@Override
+	public Date getLeaseExpiration() {
+		return leaseExpiration;
+	}
+
+	public void setLeaseExpiration(Date leaseExpiration) {
+		this.leaseExpiration = leaseExpiration;
+	}
+
+	@Override
+	public Integer getLeaseWaitingNodeId() {
+		return leaseWaitingNodeId;
+	}
+
+	public void setLeaseWaitingNodeId(Integer leaseWaitingNodeId) {
+		this.leaseWaitingNodeId = leaseWaitingNodeId;
+	}
+
 	@Override
 	public int hashCode() {
 		return key == null ? 2396928 : key.hashCode();
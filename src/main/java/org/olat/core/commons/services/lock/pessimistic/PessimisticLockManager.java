@@ -103,6 +103,24 @@ public class PessimisticLockManager implements InitializingBean {
 		dbInstance.saveObject(plock);
 	}
 	
+	/**
+	 * Set the lease of the lock. The lock must be found with findOrPersistPLock
+	 * in the current transaction.
+	 * 
+	 * @param plock The lock
+	 * @param nodeId The node which holds the lease
+	 * @param expiration The end of the lease
+	 * @param waitingNodeId The node which waits for the lease
+	 * @return The updated lock
+	 */
+	public PLock updateLease(PLock plock, Integer nodeId, Date expiration, Integer waitingNodeId) {
+		PLockImpl lock = (PLockImpl)plock;
+		lock.setLeaseNodeId(nodeId);
+		lock.setLeaseExpiration(expiration);
+		lock.setLeaseWaitingNodeId(waitingNodeId);
+		return dbInstance.getCurrentEntityManager().merge(lock);
+	}
+	
 	/**
 	 * do not use this class directly. please use Syncer or Locker via CoordinatorManager!
 	 * @param asset
@@ -41,6 +41,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
@@ -50,6 +57,7 @@ import javax.persistence.TypedQuery;
 import org.olat.NewControllerFactory;
 import org.olat.basesecurity.BaseSecurity;
 import org.olat.basesecurity.IdentityRef;
+import org.olat.basesecurity.model.IdentityRefImpl;
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.persistence.PersistenceHelper;
@@ -124,6 +132,7 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 	private String defaultNotificationInterval;
 	private static final Map<String, Integer> INTERVAL_DEF_MAP = buildIntervalMap();
 	private Object lockObject = new Object();
+	private int emailWorkers = 1;
 	
 	private DB dbInstance;
 	private BaseSecurity securityManager;
@@ -170,6 +179,22 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 	public void setCoordinatorManager(CoordinatorManager coordinatorManager) {
 		this.coordinatorManager = coordinatorManager;
 	}
+	
+	/**
+	 * @return The number of threads which send the notifications emails
+	 */
+	public int getEmailWorkers() {
+		return emailWorkers;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param emailWorkers The number of threads which send the notifications
+	 * 		emails. 1 or less for the sequential run.
+	 */
+	public void setEmailWorkers(int emailWorkers) {
+		this.emailWorkers = emailWorkers;
+	}
 
 
 	@Override
@@ -371,6 +396,11 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 	
 	@Override
 	public void notifyAllSubscribersByEmail() {
+		if(emailWorkers > 1) {
+			notifyAllSubscribersByEmailPartitioned();
+			return;
+		}
+		
 		log.audit("starting notification cronjob to send email", null);
 		WorkThreadInformations.setLongRunningTask("sendNotifications");
 		
@@ -379,8 +409,9 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 		List<Identity> identities;
 		do {
 			identities = securityManager.loadVisibleIdentities(counter, BATCH_SIZE);
+			Map<Long,Roles> identitiesRoles = securityManager.getRoles(identities);
 			for(Identity identity:identities) {
-				Roles roles = securityManager.getRoles(identity);
+				Roles roles = identitiesRoles.get(identity.getKey());
 				if(roles.isGuestOnly()) {
 					continue;
 				}
@@ -400,14 +431,105 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 		log.audit("end notification cronjob to send email", null);
 	}
 	
-	private void processSubscribersByEmail(Identity ident) {
+	/**
+	 * The partitioned run only loads the identities which have at least
+	 * one subscription with news not already emailed. The guests are filtered
+	 * with the roles of all identities loaded at once. The identities are
+	 * split in partitions of BATCH_SIZE and processed by a pool of workers,
+	 * every worker with its own database session.
+	 * 
+	 * @return The number of identities processed by the workers
+	 */
+	protected int notifyAllSubscribersByEmailPartitioned() {
+		log.audit("starting partitioned notification cronjob to send email with " + emailWorkers + " workers", null);
+		WorkThreadInformations.setLongRunningTask("sendNotifications");
+		
+		List<Long> identityKeys = getIdentityKeysWithPendingNews(getDefaultCompareDate());
+		identityKeys = filterGuests(identityKeys);
+		dbInstance.commitAndCloseSession();
+		
+		EmailNotificationProgress progress = new EmailNotificationProgress(identityKeys.size());
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(emailWorkers, emailWorkers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), new NotificationsThreadFactory());
+		try {
+			List<Future<?>> partitions = new ArrayList<>();
+			for(int i=0; i<identityKeys.size(); i+=BATCH_SIZE) {
+				List<Long> partitionKeys = identityKeys.subList(i, Math.min(i + BATCH_SIZE, identityKeys.size()));
+				partitions.add(executor.submit(new EmailNotificationPartition(partitionKeys, progress)));
+			}
+			for(Future<?> partition:partitions) {
+				try {
+					partition.get();
+				} catch (ExecutionException e) {
+					log.error("Partition of notifications emails failed", e);
+				}
+			}
+		} catch (InterruptedException e) {
+			log.error("Notifications emails interrupted", e);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			WorkThreadInformations.unsetLongRunningTask("sendNotifications");
+		}
+		log.audit("end partitioned notification cronjob to send email: " + progress, null);
+		return progress.getProcessedIdentities();
+	}
+	
+	protected List<Long> filterGuests(List<Long> identityKeys) {
+		List<IdentityRef> identities = new ArrayList<>(identityKeys.size());
+		for(Long identityKey:identityKeys) {
+			identities.add(new IdentityRefImpl(identityKey));
+		}
+		
+		Map<Long,Roles> identitiesRoles = securityManager.getRoles(identities);
+		List<Long> filteredKeys = new ArrayList<>(identityKeys.size());
+		for(Long identityKey:identityKeys) {
+			Roles roles = identitiesRoles.get(identityKey);
+			if(roles != null && !roles.isGuestOnly()) {
+				filteredKeys.add(identityKey);
+			}
+		}
+		return filteredKeys;
+	}
+	
+	/**
+	 * Search the identities with at least one subscriber whose publisher has
+	 * news after the latest email sent to the subscriber. News older than
+	 * the default compare date are never sent and are not considered.
+	 * 
+	 * @param defaultCompareDate The oldest news date to consider
+	 * @return A list of identity keys ordered by key
+	 */
+	protected List<Long> getIdentityKeysWithPendingNews(Date defaultCompareDate) {
+		StringBuilder q = new StringBuilder();
+		q.append("select distinct ident.key from notisub as sub")
+		 .append(" inner join sub.publisher as pub")
+		 .append(" inner join sub.identity as ident")
+		 .append(" where ident.status<:statusLimit and pub.state=:publisherState")
+		 .append(" and pub.latestNewsDate>=:defaultCompareDate")
+		 .append(" and (sub.latestEmailed is null or sub.latestEmailed<pub.latestNewsDate)")
+		 .append(" order by ident.key");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(q.toString(), Long.class)
+				.setParameter("statusLimit", Identity.STATUS_VISIBLE_LIMIT)
+				.setParameter("publisherState", PUB_STATE_OK)
+				.setParameter("defaultCompareDate", defaultCompareDate)
+				.getResultList();
+	}
+	
+	/**
+	 * 
+	 * @param ident The identity
+	 * @return true if an email was sent to the identity
+	 */
+	private boolean processSubscribersByEmail(Identity ident) {
 		if(ident.getStatus().compareTo(Identity.STATUS_VISIBLE_LIMIT) >= 0) {
-			return;//send only to active user
+			return false;//send only to active user
 		}
 		
 		String userInterval = getUserIntervalOrDefault(ident);
 		if("never".equals(userInterval)) {
-			return;
+			return false;
 		}
 
 		long start = System.currentTimeMillis();
@@ -416,14 +538,14 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 		if(p != null) {
 		  	Date latestEmail = new Date(p.getLongValue());
 		  	if(latestEmail.after(compareDate)) {
-		  		return;//nothing to do
+		  		return false;//nothing to do
 		  	}
 		}
 
 		Date defaultCompareDate = getDefaultCompareDate();
 		List<Subscriber> subscribers = getSubscribers(ident);
 		if(subscribers.isEmpty()) {
-			return;
+			return false;
 		}
 		
 		String langPrefs = null;
@@ -461,17 +583,18 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 		}
 		
 		Translator translator = Util.createPackageTranslator(NotificationSubscriptionController.class, locale);
-		notifySubscribersByEmail(latestSub, items, subsToUpdate, translator, start, veto);
+		return notifySubscribersByEmail(latestSub, items, subsToUpdate, translator, start, veto);
 	}
 	
-	private void notifySubscribersByEmail(Subscriber latestSub, List<SubscriptionItem> items, List<Subscriber> subsToUpdate, Translator translator, long start, boolean veto) {
+	private boolean notifySubscribersByEmail(Subscriber latestSub, List<SubscriptionItem> items, List<Subscriber> subsToUpdate, Translator translator, long start, boolean veto) {
+		boolean sentOk = false;
 		if(veto) {
 			if(latestSub != null) {
 				log.audit(latestSub.getIdentity().getKey() + " already received notification email within prefs interval");
 			}
 		} else if (items.size() > 0) {
 			Identity curIdent = latestSub.getIdentity();
-			boolean sentOk = sendMailToUserAndUpdateSubscriber(curIdent, items, translator, subsToUpdate);
+			sentOk = sendMailToUserAndUpdateSubscriber(curIdent, items, translator, subsToUpdate);
 			if (sentOk) {
 				Property p = propertyManager.findProperty(curIdent, null, null, null, LATEST_EMAIL_USER_PROP);
 				if(p == null) {
@@ -492,6 +615,7 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 		}
 		//collecting the SubscriptionItem can potentially make a lot of DB calls
 		dbInstance.intermediateCommit();
+		return sentOk;
 	}
 
 	@Override
@@ -1432,4 +1556,88 @@ implements UserDataDeletable, UserDataExportable, GenericEventListener, Initiali
 	public List<String> getEnabledNotificationIntervals() {
 		return notificationIntervals;
 	}
-}
\ No newline at end of file
+	
+	private class EmailNotificationPartition implements Runnable {
+		
+		private final List<Long> identityKeys;
+		private final EmailNotificationProgress progress;
+		
+		public EmailNotificationPartition(List<Long> identityKeys, EmailNotificationProgress progress) {
+			this.identityKeys = new ArrayList<>(identityKeys);
+			this.progress = progress;
+		}
+
+		@Override
+		public void run() {
+			try {
+				int count = 0;
+				// the guests are already filtered
+				List<Identity> identities = securityManager.loadIdentityByKeys(identityKeys);
+				for(Identity identity:identities) {
+					if(processSubscribersByEmail(identity)) {
+						progress.incrementEmails();
+					}
+					progress.incrementIdentities();
+					if(++count % 20 == 0) {
+						dbInstance.commitAndCloseSession();
+					}
+				}
+				dbInstance.commitAndCloseSession();
+			} catch (Exception e) {
+				log.error("Error while sending notifications emails", e);
+				dbInstance.rollbackAndCloseSession();
+			} finally {
+				progress.partitionDone();
+			}
+		}
+	}
+	
+	private static class EmailNotificationProgress {
+		
+		private final int totalIdentities;
+		private final long start = System.currentTimeMillis();
+		private final AtomicInteger processedIdentities = new AtomicInteger(0);
+		private final AtomicInteger sentEmails = new AtomicInteger(0);
+		
+		public EmailNotificationProgress(int totalIdentities) {
+			this.totalIdentities = totalIdentities;
+		}
+		
+		public int getProcessedIdentities() {
+			return processedIdentities.get();
+		}
+		
+		public void incrementIdentities() {
+			processedIdentities.incrementAndGet();
+		}
+		
+		public void incrementEmails() {
+			sentEmails.incrementAndGet();
+		}
+		
+		public void partitionDone() {
+			log.info("Notifications emails progress: " + this);
+		}
+
+		@Override
+		public String toString() {
+			long duration = Math.max(1l, System.currentTimeMillis() - start);
+			int processed = processedIdentities.get();
+			double throughput = (processed * 1000.0d) / duration;
+			return processed + "/" + totalIdentities + " identities, " + sentEmails.get() + " emails sent in "
+					+ duration + "ms (" + Math.round(throughput) + " identities/s)";
+		}
+	}
+	
+	private static class NotificationsThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "notifications-email-" + threadNumber.getAndIncrement());
+			t.setDaemon(false);
+			return t;
+		}
+	}
+}
@@ -160,6 +160,20 @@ public interface VFSRepositoryService {
 	 */
 	public VFSLeaf getThumbnail(VFSLeaf file, VFSMetadata metadata, int maxWidth, int maxHeight, boolean fill);
 	
+	/**
+	 * Return the thumbnail if it's already generated. If not, the generation is
+	 * queued and the method returns null, the caller can show a placeholder until
+	 * the thumbnail is ready. If the background generation is disabled, the
+	 * thumbnail is generated synchronously.
+	 * 
+	 * @param file The file
+	 * @param maxWidth
+	 * @param maxHeight
+	 * @param fill
+	 * @return The thumbnail or null
+	 */
+	public VFSLeaf getThumbnailAsync(VFSLeaf file, int maxWidth, int maxHeight, boolean fill);
+	
 	public void resetThumbnails(VFSLeaf file);
 	
 	/**
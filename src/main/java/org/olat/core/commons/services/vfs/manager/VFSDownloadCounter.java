@@ -0,0 +1,256 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.commons.services.vfs.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.services.vfs.VFSMetadata;
+import org.olat.core.commons.services.vfs.model.VFSMetadataDownloads;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Accumulate the downloads of the files in memory and write them
+ * periodically in the database, in one transaction with an additive
+ * update per file. Every node of a cluster accumulates its own downloads,
+ * the additive updates don't lose the increments of the other nodes.
+ * The pending downloads are written at shutdown.
+ * <p>
+ * If the interval is 0, the downloads are written immediately.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class VFSDownloadCounter implements InitializingBean, DisposableBean {
+	
+	private static final OLog log = Tracing.createLoggerFor(VFSDownloadCounter.class);
+	
+	@Value("${vfs.download.counter.flush.interval:30}")
+	private int flushInterval;
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private VFSMetadataDAO metadataDao;
+	
+	private ScheduledExecutorService scheduler;
+	private final Map<DownloadKey,Integer> pendingDownloads = new ConcurrentHashMap<>();
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if(flushInterval > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "vfs-download-counter");
+				t.setDaemon(true);
+				return t;
+			});
+			scheduler.scheduleWithFixedDelay(this::flushSafely, flushInterval, flushInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(scheduler != null) {
+			scheduler.shutdown();
+			scheduler.awaitTermination(30, TimeUnit.SECONDS);
+			scheduler = null;
+		}
+		flushSafely();
+	}
+	
+	public boolean isDeferred() {
+		return scheduler != null;
+	}
+	
+	/**
+	 * Count a download of the file.
+	 * 
+	 * @param relativePath The relative path of the parent directory as saved in the metadata
+	 * @param filename The name of the file
+	 */
+	public void increaseDownloadCount(String relativePath, String filename) {
+		if(isDeferred()) {
+			pendingDownloads.merge(new DownloadKey(relativePath, filename), Integer.valueOf(1), Integer::sum);
+		} else {
+			metadataDao.increaseDownloadCount(relativePath, filename, 1);
+		}
+	}
+	
+	/**
+	 * @return The number of downloads not yet written in the database
+	 */
+	public int getPendingDownloadCount(String relativePath, String filename) {
+		Integer count = pendingDownloads.get(new DownloadKey(relativePath, filename));
+		return count == null ? 0 : count.intValue();
+	}
+	
+	/**
+	 * Write the pending downloads in the database. The updates are sorted
+	 * by path and name to prevent dead locks between the nodes of a cluster.
+	 * The downloads of a failed transaction are queued again.
+	 * 
+	 * @return The number of updated files
+	 */
+	public synchronized int flush() {
+		List<DownloadKey> keys = new ArrayList<>(pendingDownloads.keySet());
+		if(keys.isEmpty()) {
+			return 0;
+		}
+		Collections.sort(keys);
+		
+		Map<DownloadKey,Integer> deltas = new HashMap<>();
+		for(DownloadKey key:keys) {
+			Integer delta = pendingDownloads.remove(key);
+			if(delta != null && delta.intValue() > 0) {
+				deltas.put(key, delta);
+			}
+		}
+		
+		try {
+			for(DownloadKey key:keys) {
+				Integer delta = deltas.get(key);
+				if(delta != null) {
+					metadataDao.increaseDownloadCount(key.getRelativePath(), key.getFilename(), delta.intValue());
+				}
+			}
+			dbInstance.commitAndCloseSession();
+			return deltas.size();
+		} catch (Exception e) {
+			dbInstance.rollbackAndCloseSession();
+			for(Map.Entry<DownloadKey,Integer> delta:deltas.entrySet()) {
+				pendingDownloads.merge(delta.getKey(), delta.getValue(), Integer::sum);
+			}
+			throw e;
+		}
+	}
+	
+	private void flushSafely() {
+		try {
+			int updated = flush();
+			if(updated > 0) {
+				log.debug("Download counters of " + updated + " files updated");
+			}
+		} catch (Exception e) {
+			log.error("Cannot update the download counters", e);
+		}
+	}
+	
+	/**
+	 * The most downloaded files, the downloads not yet written in the database
+	 * included. The metadata are returned as loaded, the download counts with
+	 * the pending downloads are in the wrapper.
+	 * 
+	 * @param relativePath The relative path of the ancestor directory
+	 * @param maxResult The max. number of files
+	 * @return A list of metadata with their download counts
+	 */
+	public List<VFSMetadataDownloads> getMostDownloaded(String relativePath, int maxResult) {
+		List<VFSMetadata> mostDownloaded = metadataDao.getMostDownloaded(relativePath, maxResult);
+		
+		Map<DownloadKey,VFSMetadata> candidates = new HashMap<>();
+		for(VFSMetadata metadata:mostDownloaded) {
+			candidates.put(new DownloadKey(metadata.getRelativePath(), metadata.getFilename()), metadata);
+		}
+		
+		String prefix = relativePath == null ? "" : relativePath;
+		Map<String,Set<String>> missingFilenamesByPath = new HashMap<>();
+		for(DownloadKey key:pendingDownloads.keySet()) {
+			if(key.getRelativePath().startsWith(prefix) && !candidates.containsKey(key)) {
+				missingFilenamesByPath.computeIfAbsent(key.getRelativePath(), path -> new HashSet<>())
+					.add(key.getFilename());
+			}
+		}
+		if(!missingFilenamesByPath.isEmpty()) {
+			List<VFSMetadata> pendingMetadata = metadataDao.getFilesMetadata(missingFilenamesByPath);
+			for(VFSMetadata metadata:pendingMetadata) {
+				candidates.put(new DownloadKey(metadata.getRelativePath(), metadata.getFilename()), metadata);
+			}
+		}
+		
+		List<VFSMetadataDownloads> merged = new ArrayList<>(candidates.size());
+		for(Map.Entry<DownloadKey,VFSMetadata> candidate:candidates.entrySet()) {
+			VFSMetadata metadata = candidate.getValue();
+			int pending = getPendingDownloadCount(candidate.getKey().getRelativePath(), candidate.getKey().getFilename());
+			merged.add(new VFSMetadataDownloads(metadata, metadata.getDownloadCount() + pending));
+		}
+		merged.sort(Comparator.comparingInt(VFSMetadataDownloads::getDownloadCount).reversed());
+		return merged.size() > maxResult ? new ArrayList<>(merged.subList(0, maxResult)) : merged;
+	}
+	
+	private static class DownloadKey implements Comparable<DownloadKey> {
+		
+		private final String relativePath;
+		private final String filename;
+		
+		public DownloadKey(String relativePath, String filename) {
+			this.relativePath = relativePath;
+			this.filename = filename;
+		}
+
+		public String getRelativePath() {
+			return relativePath;
+		}
+
+		public String getFilename() {
+			return filename;
+		}
+
+		@Override
+		public int compareTo(DownloadKey o) {
+			int c = relativePath.compareTo(o.relativePath);
+			return c == 0 ? filename.compareTo(o.filename) : c;
+		}
+
+		@Override
+		public int hashCode() {
+			return relativePath.hashCode() * 31 + filename.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) {
+				return true;
+			}
+			if(obj instanceof DownloadKey) {
+				DownloadKey key = (DownloadKey)obj;
+				return relativePath.equals(key.relativePath) && filename.equals(key.filename);
+			}
+			return false;
+		}
+	}
+}
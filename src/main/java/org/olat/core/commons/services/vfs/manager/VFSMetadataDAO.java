@@ -19,11 +19,16 @@
  */
 package org.olat.core.commons.services.vfs.manager;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.persistence.TemporalType;
+import javax.persistence.TypedQuery;
 
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.services.vfs.VFSMetadata;
@@ -41,6 +46,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class VFSMetadataDAO {
 	
+	private static final int FILES_BATCH_SIZE = 500;
+	
 	@Autowired
 	private DB dbInstance;
 	
@@ -142,7 +149,71 @@ public class VFSMetadataDAO {
 			.getResultList();
 		return metadata == null || metadata.isEmpty() ? null : metadata.get(0);
 	}
-	
+
+	/**
+	 * Load the metadata of the files with the specified names in their
+	 * directories. The files are loaded in batches of at most 500 names.
+	 *
+	 * @param filenamesByPath The names of the files mapped to the relative
+	 * 		path of their parent directory
+	 * @return A list of metadata
+	 */
+	public List<VFSMetadata> getFilesMetadata(Map<String, ? extends Collection<String>> filenamesByPath) {
+		if(filenamesByPath == null || filenamesByPath.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		List<VFSMetadata> metadata = new ArrayList<>();
+		Map<String,List<String>> batch = new HashMap<>();
+		int batchSize = 0;
+		for(Map.Entry<String, ? extends Collection<String>> entry:filenamesByPath.entrySet()) {
+			List<String> filenames = new ArrayList<>(entry.getValue());
+			for(int i=0; i<filenames.size(); ) {
+				int end = Math.min(i + FILES_BATCH_SIZE - batchSize, filenames.size());
+				batch.computeIfAbsent(entry.getKey(), path -> new ArrayList<>())
+					.addAll(filenames.subList(i, end));
+				batchSize += end - i;
+				i = end;
+				if(batchSize >= FILES_BATCH_SIZE) {
+					metadata.addAll(loadFilesMetadata(batch));
+					batch.clear();
+					batchSize = 0;
+				}
+			}
+		}
+		if(!batch.isEmpty()) {
+			metadata.addAll(loadFilesMetadata(batch));
+		}
+		return metadata;
+	}
+
+	private List<VFSMetadata> loadFilesMetadata(Map<String,List<String>> filenamesByPath) {
+		StringBuilder sb = new StringBuilder(256 + 96 * filenamesByPath.size());
+		sb.append("select metadata from filemetadata metadata")
+		  .append(" left join fetch metadata.author as author")
+		  .append(" left join fetch author.user as authorUser")
+		  .append(" left join fetch metadata.licenseType as licenseType")
+		  .append(" where metadata.directory=false and (");
+		for(int i=0; i<filenamesByPath.size(); i++) {
+			if(i > 0) {
+				sb.append(" or ");
+			}
+			sb.append("(metadata.relativePath=:relativePath").append(i)
+			  .append(" and metadata.filename in (:filenames").append(i).append("))");
+		}
+		sb.append(")");
+
+		TypedQuery<VFSMetadata> query = dbInstance.getCurrentEntityManager()
+			.createQuery(sb.toString(), VFSMetadata.class);
+		int i = 0;
+		for(Map.Entry<String,List<String>> entry:filenamesByPath.entrySet()) {
+			query.setParameter("relativePath" + i, entry.getKey())
+			     .setParameter("filenames" + i, entry.getValue());
+			i++;
+		}
+		return query.getResultList();
+	}
+
 	public VFSMetadata loadMetadata(Long metadataKey) {
 		StringBuilder sb = new StringBuilder(256);
 		sb.append("select metadata from filemetadata metadata")
@@ -271,11 +342,24 @@ public class VFSMetadataDAO {
 	}
 	
 	public void increaseDownloadCount(String relativePath, String filename) {
-		String updateQuery = "update vfsmetadatadownloadcount set downloadCount=downloadCount+1 where filename=:filename and relativePath=:relativePath";
-		dbInstance.getCurrentEntityManager()
+		increaseDownloadCount(relativePath, filename, 1);
+	}
+	
+	/**
+	 * Additive update of the download counter.
+	 * 
+	 * @param relativePath The relative path of the parent directory
+	 * @param filename The name of the file
+	 * @param increment The number of downloads to add
+	 * @return The number of updated rows
+	 */
+	public int increaseDownloadCount(String relativePath, String filename, int increment) {
+		String updateQuery = "update vfsmetadatadownloadcount set downloadCount=downloadCount+:increment where filename=:filename and relativePath=:relativePath";
+		return dbInstance.getCurrentEntityManager()
 			.createQuery(updateQuery)
 			.setParameter("filename", filename)
 			.setParameter("relativePath", relativePath)
+			.setParameter("increment", increment)
 			.executeUpdate();
 	}
 	
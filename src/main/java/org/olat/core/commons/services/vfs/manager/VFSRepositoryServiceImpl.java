@@ -69,6 +69,7 @@ import org.olat.core.commons.services.vfs.VFSRevisionRef;
 import org.olat.core.commons.services.vfs.VFSThumbnailMetadata;
 import org.olat.core.commons.services.vfs.VFSVersionModule;
 import org.olat.core.commons.services.vfs.manager.MetaInfoReader.Thumbnail;
+import org.olat.core.commons.services.vfs.model.VFSMetadataDownloads;
 import org.olat.core.commons.services.vfs.model.VFSMetadataImpl;
 import org.olat.core.commons.services.vfs.model.VFSRevisionImpl;
 import org.olat.core.gui.control.Event;
@@ -107,6 +108,8 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 	private static final OLog log = Tracing.createLoggerFor(VFSRepositoryServiceImpl.class);
 	private final OLATResourceable fileSizeSubscription = OresHelper.createOLATResourceableType("UpdateFileSizeAsync");
 	private static final String CANONICAL_ROOT_REL_PATH = "/";
+	/** the size of the thumbnails of the folders, generated after upload **/
+	private static final int FOLDER_THUMBNAIL_SIZE = 200;
 	
 	@Autowired
 	private DB dbInstance;
@@ -131,6 +134,10 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 	@Autowired
 	private ThumbnailService thumbnailService;
 	@Autowired
+	private VFSThumbnailQueue thumbnailQueue;
+	@Autowired
+	private VFSDownloadCounter downloadCounter;
+	@Autowired
 	private CoordinatorManager coordinatorManager;
 	@Autowired
 	private BaseSecurity securityManager;
@@ -289,7 +296,12 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 
 	@Override
 	public List<VFSMetadata> getMostDownloaded(VFSMetadata ancestorMetadata, int maxResults) {
-		return metadataDao.getMostDownloaded(ancestorMetadata.getRelativePath(), maxResults);
+		List<VFSMetadataDownloads> mostDownloaded = downloadCounter.getMostDownloaded(ancestorMetadata.getRelativePath(), maxResults);
+		List<VFSMetadata> metadata = new ArrayList<>(mostDownloaded.size());
+		for(VFSMetadataDownloads downloads:mostDownloaded) {
+			metadata.add(downloads.getMetadata());
+		}
+		return metadata;
 	}
 
 	/**
@@ -345,6 +357,11 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 		String relativePath = getContainerRelativePath(leaf);
 		Date lastModified = new Date(leaf.getLastModified());
 		metadataDao.updateMetadata(leaf.getSize(), lastModified, relativePath, leaf.getName());
+		
+		if(relativePath != null && thumbnailQueue.isEnabled() && thumbnailService.isThumbnailPossible(leaf)) {
+			// the worker must see the metadata of the saved file
+			dbInstance.afterCommit(() -> queueThumbnail(leaf, relativePath, FOLDER_THUMBNAIL_SIZE, FOLDER_THUMBNAIL_SIZE, false));
+		}
 	}
 
 	@Override
@@ -480,9 +497,11 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 
 	@Override
 	public void increaseDownloadCount(VFSItem item) {
-		String relPath = item.getRelPath();
-		if(StringHelper.containsNonWhitespace(relPath)) {
-			metadataDao.increaseDownloadCount(relPath, item.getName());
+		if(item instanceof VFSLeaf) {
+			String relativePath = getContainerRelativePath((VFSLeaf)item);
+			if(StringHelper.containsNonWhitespace(relativePath)) {
+				downloadCounter.increaseDownloadCount(relativePath, item.getName());
+			}
 		}
 	}
 	
@@ -532,6 +551,92 @@ public class VFSRepositoryServiceImpl implements VFSRepositoryService, GenericEv
 		return thumbnailLeaf;
 	}
 	
+	@Override
+	public VFSLeaf getThumbnailAsync(VFSLeaf file, int maxWidth, int maxHeight, boolean fill) {
+		if(!thumbnailQueue.isEnabled()) {
+			return getThumbnail(file, maxWidth, maxHeight, fill);
+		}
+		
+		String relativePath = getContainerRelativePath(file);
+		if(relativePath == null) {
+			return null;
+		}
+		
+		// read only, the database is updated by the worker
+		VFSThumbnailMetadata thumbnail = thumbnailDao.findThumbnail(relativePath, file.getName(), fill, maxWidth, maxHeight);
+		if(thumbnail != null) {
+			VFSItem item = getSecureParentContainer(file).resolve(thumbnail.getFilename());
+			if(item instanceof VFSLeaf) {
+				return (VFSLeaf)item;
+			}
+		}
+		
+		VFSMetadata metadata = metadataDao.getMetadata(relativePath, file.getName(), false);
+		if(metadata == null || !Boolean.TRUE.equals(metadata.getCannotGenerateThumbnails())) {
+			queueThumbnail(file, relativePath, maxWidth, maxHeight, fill);
+		}
+		return null;
+	}
+	
+	/**
+	 * Queue the generation of the thumbnail. The worker creates the missing metadata,
+	 * removes the thumbnail entries without file and, if the generation fails, marks
+	 * the file as without thumbnail to stop serving the placeholder.
+	 */
+	private void queueThumbnail(VFSLeaf file, String relativePath, int maxWidth, int maxHeight, boolean fill) {
+		String filename = file.getName();
+		String key = relativePath + "/" + filename + "_" + fill + "_" + maxWidth + "_" + maxHeight;
+		thumbnailQueue.submit(key, filename, () -> {
+			try {
+				generateThumbnailInBackground(file, relativePath, maxWidth, maxHeight, fill);
+				dbInstance.commitAndCloseSession();
+			} catch (RuntimeException e) {
+				dbInstance.rollbackAndCloseSession();
+				markCannotGenerateThumbnails(relativePath, filename);
+				throw e;
+			}
+		});
+	}
+	
+	private void generateThumbnailInBackground(VFSLeaf file, String relativePath, int maxWidth, int maxHeight, boolean fill) {
+		String filename = file.getName();
+		VFSThumbnailMetadata thumbnail = thumbnailDao.findThumbnail(relativePath, filename, fill, maxWidth, maxHeight);
+		if(thumbnail != null) {
+			VFSItem item = getSecureParentContainer(file).resolve(thumbnail.getFilename());
+			if(item instanceof VFSLeaf) {
+				return;
+			} else if(item == null) {
+				thumbnailDao.removeThumbnail(thumbnail);
+			}
+		}
+		
+		VFSMetadata metadata = metadataDao.getMetadata(relativePath, filename, false);
+		if(metadata == null) {// fallback and generated the needed database entries
+			metadata = getMetadataFor(file);
+		}
+		if(metadata != null && !Boolean.TRUE.equals(metadata.getCannotGenerateThumbnails())
+				&& generateThumbnail(file, metadata, fill, maxWidth, maxHeight) == null
+				&& !Boolean.TRUE.equals(metadata.getCannotGenerateThumbnails())) {
+			// no thumbnail and no error, the placeholder would be served forever
+			metadata.setCannotGenerateThumbnails(Boolean.TRUE);
+			metadataDao.updateMetadata(metadata);
+		}
+	}
+	
+	private void markCannotGenerateThumbnails(String relativePath, String filename) {
+		try {
+			VFSMetadata metadata = metadataDao.getMetadata(relativePath, filename, false);
+			if(metadata != null) {
+				metadata.setCannotGenerateThumbnails(Boolean.TRUE);
+				metadataDao.updateMetadata(metadata);
+			}
+			dbInstance.commitAndCloseSession();
+		} catch (Exception e) {
+			dbInstance.rollbackAndCloseSession();
+			log.error("Cannot mark the file without thumbnail: " + relativePath + "/" + filename, e);
+		}
+	}
+	
 	private VFSLeaf generateThumbnail(VFSLeaf file, VFSMetadata metadata, boolean fill, int maxWidth, int maxHeight) {
 		String name = file.getName();
 		String thumbnailName = generateFilenameForThumbnail(name, fill, maxWidth, maxHeight);
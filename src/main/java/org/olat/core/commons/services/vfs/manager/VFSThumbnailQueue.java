@@ -0,0 +1,268 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.commons.services.vfs.manager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.olat.core.commons.services.jmx.JMXManager;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.FileUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * The queue of the thumbnails to generate in background. Every format
+ * (images, PDF, the others like videos) has its own small pool of workers
+ * which limits the concurrency of the format, and a bounded queue. A
+ * thumbnail is only queued once, until its generation is done.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class VFSThumbnailQueue implements VFSThumbnailQueueMBean, InitializingBean, DisposableBean {
+	
+	private static final OLog log = Tracing.createLoggerFor(VFSThumbnailQueue.class);
+	
+	private static final String JMX_NAME = "org.olat.core.commons.services.vfs:type=ThumbnailQueue";
+	
+	@Value("${vfs.thumbnails.async.enabled:true}")
+	private boolean enabled;
+	@Value("${vfs.thumbnails.async.queue.size:1000}")
+	private int queueSize;
+	@Value("${vfs.thumbnails.async.concurrency.image:2}")
+	private int imageConcurrency;
+	@Value("${vfs.thumbnails.async.concurrency.pdf:1}")
+	private int pdfConcurrency;
+	@Value("${vfs.thumbnails.async.concurrency.other:1}")
+	private int otherConcurrency;
+	
+	@Autowired
+	private JMXManager jmxManager;
+	
+	private final Set<String> pendings = ConcurrentHashMap.newKeySet();
+	private final Map<Format,ThreadPoolExecutor> executors = new EnumMap<>(Format.class);
+	
+	private final LongAdder queued = new LongAdder();
+	private final LongAdder generated = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder generationTime = new LongAdder();
+	private final AtomicLong maxGenerationTime = new AtomicLong();
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if(!enabled) return;
+		
+		executors.put(Format.image, createExecutor(Format.image, imageConcurrency));
+		executors.put(Format.pdf, createExecutor(Format.pdf, pdfConcurrency));
+		executors.put(Format.other, createExecutor(Format.other, otherConcurrency));
+		
+		if(jmxManager != null) {
+			jmxManager.registerMBean(this, JMX_NAME);
+		}
+	}
+	
+	private ThreadPoolExecutor createExecutor(Format format, int concurrency) {
+		int workers = Math.max(1, concurrency);
+		return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(Math.max(1, queueSize)), new ThumbnailThreadFactory(format));
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		for(ThreadPoolExecutor executor:executors.values()) {
+			executor.shutdownNow();
+		}
+		
+		if(jmxManager != null) {
+			jmxManager.unregisterMBean(JMX_NAME);
+		}
+	}
+	
+	public boolean isEnabled() {
+		return enabled && !executors.isEmpty();
+	}
+	
+	public boolean isPending(String key) {
+		return pendings.contains(key);
+	}
+	
+	/**
+	 * Queue the generation of a thumbnail.
+	 * 
+	 * @param key The unique key of the thumbnail (file and size)
+	 * @param filename The name of the original file, used to choose the workers
+	 * @param generator The job which generate the thumbnail
+	 * @return true if the generation is queued or was already queued
+	 */
+	public boolean submit(String key, String filename, Runnable generator) {
+		if(!isEnabled()) {
+			return false;
+		}
+		if(!pendings.add(key)) {
+			return true;
+		}
+		
+		ThreadPoolExecutor executor = executors.get(Format.valueOfFilename(filename));
+		try {
+			executor.execute(() -> generate(key, generator));
+			queued.increment();
+			return true;
+		} catch (RejectedExecutionException e) {
+			// the queue is full, the thumbnail will be queued again on next request
+			pendings.remove(key);
+			rejected.increment();
+			return false;
+		}
+	}
+	
+	private void generate(String key, Runnable generator) {
+		long start = System.nanoTime();
+		try {
+			generator.run();
+			generated.increment();
+		} catch (Exception e) {
+			failed.increment();
+			log.error("Cannot generate thumbnail: " + key, e);
+		} finally {
+			pendings.remove(key);
+			long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			generationTime.add(duration);
+			maxGenerationTime.accumulateAndGet(duration, Math::max);
+		}
+	}
+
+	@Override
+	public int getQueueDepth() {
+		int depth = 0;
+		for(ThreadPoolExecutor executor:executors.values()) {
+			depth += executor.getQueue().size();
+		}
+		return depth;
+	}
+
+	@Override
+	public int getActiveGenerations() {
+		int active = 0;
+		for(ThreadPoolExecutor executor:executors.values()) {
+			active += executor.getActiveCount();
+		}
+		return active;
+	}
+
+	@Override
+	public long getQueued() {
+		return queued.sum();
+	}
+
+	@Override
+	public long getGenerated() {
+		return generated.sum();
+	}
+
+	@Override
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	@Override
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	@Override
+	public long getAverageGenerationTime() {
+		long count = generated.sum() + failed.sum();
+		return count == 0 ? 0l : generationTime.sum() / count;
+	}
+
+	@Override
+	public long getMaxGenerationTime() {
+		return maxGenerationTime.get();
+	}
+
+	@Override
+	public void resetStatistics() {
+		queued.reset();
+		generated.reset();
+		failed.reset();
+		rejected.reset();
+		generationTime.reset();
+		maxGenerationTime.set(0l);
+	}
+	
+	protected enum Format {
+		image,
+		pdf,
+		other;
+		
+		public static Format valueOfFilename(String filename) {
+			String extension = FileUtils.getFileSuffix(filename);
+			switch(extension) {
+				case "jpg":
+				case "jpeg":
+				case "png":
+				case "gif":
+				case "bmp":
+				case "tif":
+				case "tiff":
+					return image;
+				case "pdf":
+					return pdf;
+				default:
+					return other;
+			}
+		}
+	}
+	
+	private static class ThumbnailThreadFactory implements ThreadFactory {
+		
+		private final Format format;
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		
+		public ThumbnailThreadFactory(Format format) {
+			this.format = format;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "thumbnails-" + format.name() + "-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			return t;
+		}
+	}
+}
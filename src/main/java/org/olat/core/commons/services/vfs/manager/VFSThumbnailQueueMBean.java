@@ -0,0 +1,63 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.commons.services.vfs.manager;
+
+/**
+ * The JMX view of the queue of thumbnails.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public interface VFSThumbnailQueueMBean {
+	
+	/**
+	 * @return The number of thumbnails waiting for a worker
+	 */
+	public int getQueueDepth();
+	
+	/**
+	 * @return The number of thumbnails in generation
+	 */
+	public int getActiveGenerations();
+	
+	public long getQueued();
+	
+	public long getGenerated();
+	
+	public long getFailed();
+	
+	/**
+	 * @return The number of thumbnails not queued because the queue was full
+	 */
+	public long getRejected();
+	
+	/**
+	 * @return The average generation time in milliseconds
+	 */
+	public long getAverageGenerationTime();
+	
+	/**
+	 * @return The maximum generation time in milliseconds
+	 */
+	public long getMaxGenerationTime();
+	
+	public void resetStatistics();
+
+}
@@ -19,9 +19,12 @@
  */
 package org.olat.core.commons.services.vfs.ui.media;
 
+import java.io.File;
+
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.services.vfs.VFSMetadata;
 import org.olat.core.commons.services.vfs.VFSRepositoryService;
+import org.olat.core.gui.media.ServletUtil;
 import org.olat.core.util.vfs.VFSItem;
 import org.olat.core.util.vfs.VFSLeaf;
 import org.olat.core.util.vfs.VFSMediaResource;
@@ -53,4 +56,13 @@ public class VFSMetadataMediaResource extends VFSMediaResource {
 		}
 		return leaf;
 	}
+
+	@Override
+	public String getETag() {
+		File file = getFile();
+		if(file == null || metadata.getUuid() == null) {
+			return super.getETag();
+		}
+		return ServletUtil.createETag(metadata.getUuid(), file.length(), file.lastModified());
+	}
 }
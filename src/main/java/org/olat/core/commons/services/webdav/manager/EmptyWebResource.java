@@ -19,6 +19,7 @@
  */
 package org.olat.core.commons.services.webdav.manager;
 
+import java.io.File;
 import java.io.InputStream;
 
 import org.olat.core.commons.services.webdav.servlets.WebResource;
@@ -107,4 +108,9 @@ public class EmptyWebResource implements WebResource {
 	public void increaseDownloadCount() {
 		//
 	}
+
+	@Override
+	public File getFile() {
+		return null;
+	}
 }
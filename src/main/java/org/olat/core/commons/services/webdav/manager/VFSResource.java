@@ -19,6 +19,7 @@
  */
 package org.olat.core.commons.services.webdav.manager;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -132,6 +133,14 @@ public class VFSResource implements WebResource {
 		return (item instanceof VFSLeaf ? ((VFSLeaf)item).getInputStream() : null);
 	}
 
+	@Override
+	public File getFile() {
+		if(item instanceof VFSLeaf && item instanceof JavaIOItem) {
+			return ((JavaIOItem)item).getBasefile();
+		}
+		return null;
+	}
+
 	@Override
 	public long getCreation() {
         try {
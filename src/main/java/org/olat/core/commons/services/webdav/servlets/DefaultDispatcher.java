@@ -17,6 +17,7 @@
 package org.olat.core.commons.services.webdav.servlets;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,6 +41,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.FileUtils;
 import org.olat.core.util.servlets.URLEncoder;
 
 
@@ -163,6 +165,12 @@ public abstract class DefaultDispatcher implements Serializable {
     protected static final int BUFFER_SIZE = 4096;
 
 
+    /**
+     * Minimum size for sendfile usage in bytes (as the default servlet of Tomcat).
+     */
+    protected static final int SENDFILE_SIZE = 48 * 1024;
+
+
     // --------------------------------------------------------- Public Methods
 
 
@@ -513,6 +521,11 @@ public abstract class DefaultDispatcher implements Serializable {
                         renderResult = resource.getInputStream();
                     }
                     copy(resource, renderResult, writer, encoding);
+                } else if (resource.isFile() && resource.getFile() != null) {
+                    // Output directly from the file
+                    if (!checkSendfile(request, resource, 0l, contentLength)) {
+                        FileUtils.transferTo(resource.getFile(), 0l, contentLength, ostream);
+                    }
                 } else {
                     // Output is via an InputStream
                     if (resource.isDirectory()) {
@@ -563,7 +576,9 @@ public abstract class DefaultDispatcher implements Serializable {
                         // Silent catch
                     }
                     if (ostream != null) {
-                        copy(resource, ostream, range);
+                        if (!checkSendfile(request, resource, range.start, length)) {
+                            copy(resource, ostream, range);
+                        }
                     } else {
                         // we should not get here
                         throw new IllegalStateException();
@@ -968,6 +983,30 @@ public abstract class DefaultDispatcher implements Serializable {
     }
 
 
+    /**
+     * Let the servlet container send the file after the request is processed
+     * if it supports it (sendfile) and the file is large enough.
+     *
+     * @param request   The servlet request we are processing
+     * @param resource  The resource
+     * @param start     The position of the first byte
+     * @param length    The number of bytes to send
+     * @return true if the container will send the file
+     */
+    protected boolean checkSendfile(HttpServletRequest request, WebResource resource,
+            long start, long length) throws IOException {
+        File file = resource.getFile();
+        if (file == null || length < SENDFILE_SIZE
+                || !Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            return false;
+        }
+        request.setAttribute("org.apache.tomcat.sendfile.filename", file.getCanonicalPath());
+        request.setAttribute("org.apache.tomcat.sendfile.start", Long.valueOf(start));
+        request.setAttribute("org.apache.tomcat.sendfile.end", Long.valueOf(start + length));
+        return true;
+    }
+
+
     /**
      * Copy the contents of the specified input stream to the specified
      * output stream, and ensure that both streams are closed before returning
@@ -1054,6 +1093,12 @@ public abstract class DefaultDispatcher implements Serializable {
                       Range range)
         throws IOException {
 
+        File file = resource.getFile();
+        if (file != null) {
+            FileUtils.transferTo(file, range.start, range.end - range.start + 1, ostream);
+            return;
+        }
+
         IOException exception = null;
 
         InputStream resourceInputStream = resource.getInputStream();
@@ -1089,26 +1134,22 @@ public abstract class DefaultDispatcher implements Serializable {
 
         IOException exception = null;
 
+        File file = resource.getFile();
         while ( (exception == null) && (ranges.hasNext()) ) {
 
-            InputStream resourceInputStream = resource.getInputStream();
-            try (InputStream istream = new BufferedInputStream(resourceInputStream, input)) {
+            Range currentRange = ranges.next();
+            writeRangeHeader(ostream, currentRange, contentType);
 
-                Range currentRange = ranges.next();
-
-                // Writing MIME header.
-                ostream.println();
-                ostream.println("--" + mimeSeparation);
-                if (contentType != null)
-                    ostream.println("Content-Type: " + contentType);
-                ostream.println("Content-Range: bytes " + currentRange.start
-                               + "-" + currentRange.end + "/"
-                               + currentRange.length);
-                ostream.println();
-
-                // Printing content
-                exception = copyRange(istream, ostream, currentRange.start,
-                                      currentRange.end);
+            // Printing content
+            if (file != null) {
+                FileUtils.transferTo(file, currentRange.start,
+                        currentRange.end - currentRange.start + 1, ostream);
+            } else {
+                InputStream resourceInputStream = resource.getInputStream();
+                try (InputStream istream = new BufferedInputStream(resourceInputStream, input)) {
+                    exception = copyRange(istream, ostream, currentRange.start,
+                                          currentRange.end);
+                }
             }
         }
 
@@ -1122,6 +1163,29 @@ public abstract class DefaultDispatcher implements Serializable {
     }
 
 
+    /**
+     * Write the MIME header of a part of a multipart/byteranges response.
+     *
+     * @param ostream       The output stream to write to
+     * @param range         The range of the part
+     * @param contentType   Content type of the resource
+     * @exception IOException if an input/output error occurs
+     */
+    private void writeRangeHeader(ServletOutputStream ostream, Range range,
+                                  String contentType)
+        throws IOException {
+
+        ostream.println();
+        ostream.println("--" + mimeSeparation);
+        if (contentType != null)
+            ostream.println("Content-Type: " + contentType);
+        ostream.println("Content-Range: bytes " + range.start
+                       + "-" + range.end + "/"
+                       + range.length);
+        ostream.println();
+    }
+
+
     /**
      * Copy the contents of the specified input stream to the specified
      * output stream, and ensure that both streams are closed before returning
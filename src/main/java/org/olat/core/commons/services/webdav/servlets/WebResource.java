@@ -16,6 +16,7 @@
  */
 package org.olat.core.commons.services.webdav.servlets;
 
+import java.io.File;
 import java.io.InputStream;
 
 /**
@@ -94,6 +95,12 @@ public interface WebResource {
      */
     InputStream getInputStream();
     
+    /**
+     * @return The file with the content of the resource if it's a plain
+     * 		file of the file system, or null
+     */
+    File getFile();
+    
     /**
      * The time the file was created. If not available, the result of
      * {@link #getLastModified()} will be returned.
@@ -51,6 +51,14 @@ public class CleanupAfterDeliveryFileMediaResource extends FileMediaResource {
 		return false;
 	}
 
+	/**
+	 * The file is deleted by the release.
+	 */
+	@Override
+	public boolean isSendfileAllowed() {
+		return false;
+	}
+
 	/**
 	 * @see org.olat.core.gui.media.MediaResource#release()
 	 */
@@ -0,0 +1,51 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.media;
+
+import java.io.File;
+
+/**
+ * A media resource which content is a plain file. The servlet can
+ * deliver the file with the file channel or let the servlet container
+ * send it (sendfile) without copying it through the heap.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public interface FileBackedMediaResource extends MediaResource {
+	
+	/**
+	 * @return The file with exactly the content of the resource, or null
+	 * 		if the content is not a plain file
+	 */
+	public File getFile();
+	
+	/**
+	 * @return A strong ETag (with the quotes) or null
+	 */
+	public String getETag();
+	
+	/**
+	 * @return true if the file can be sent by the servlet container after
+	 * 		the resource is released
+	 */
+	public boolean isSendfileAllowed();
+
+}
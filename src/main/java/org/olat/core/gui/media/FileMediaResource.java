@@ -54,7 +54,7 @@ import org.olat.core.util.WebappHelper;
  * 
  * @author Felix Jost
  */
-public class FileMediaResource implements MediaResource {
+public class FileMediaResource implements FileBackedMediaResource {
 	protected File file;
 	private long cacheDuration = ServletUtil.CACHE_ONE_HOUR;
 	private boolean unknownMimeType = false;
@@ -136,6 +136,24 @@ public class FileMediaResource implements MediaResource {
 		return Long.valueOf(file.lastModified());
 	}
 
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public String getETag() {
+		if(file == null) {
+			return null;
+		}
+		return ServletUtil.createETag(Integer.toHexString(file.getAbsolutePath().hashCode()), file.length(), file.lastModified());
+	}
+
+	@Override
+	public boolean isSendfileAllowed() {
+		return true;
+	}
+
 	@Override
 	public void release() {
 		// void
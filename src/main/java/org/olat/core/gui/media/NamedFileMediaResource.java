@@ -89,6 +89,14 @@ public class NamedFileMediaResource extends FileMediaResource {
 	}
 
 
+	/**
+	 * A file deleted by the release cannot be sent by the container.
+	 */
+	@Override
+	public boolean isSendfileAllowed() {
+		return !deleteAfterDelivery;
+	}
+
 	/**
 	 * @see org.olat.core.gui.media.MediaResource#release()
 	 */
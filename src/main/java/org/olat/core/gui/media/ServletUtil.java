@@ -28,6 +28,7 @@ package org.olat.core.gui.media;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -63,6 +64,13 @@ import org.olat.core.util.session.UserSessionManager;
 public class ServletUtil {
 	private static final OLog log = Tracing.createLoggerFor(ServletUtil.class);
 	
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+	/** same threshold as the default servlet of Tomcat **/
+	private static final long SENDFILE_MIN_SIZE = 48l * 1024l;
+	
 	public static final long CACHE_NO_CACHE = 0l;
 	public static final long CACHE_ONE_HOUR = 60l * 60l;
 	public static final long CACHE_ONE_DAY = 24l * 60l * 60l;
@@ -101,10 +109,21 @@ public class ServletUtil {
 	public static void serveResource(HttpServletRequest httpReq, HttpServletResponse httpResp, MediaResource mr) {
 		boolean debug = log.isDebug();
 		try {
+			String eTag = getETag(mr);
+			String ifNoneMatch = eTag == null ? null : httpReq.getHeader("If-None-Match");
+			if (ifNoneMatch != null) {
+				// If-None-Match has precedence over If-Modified-Since
+				if (matchETag(ifNoneMatch, eTag)) {
+					httpResp.setHeader("ETag", eTag);
+					httpResp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
+			}
+			
 			Long lastModified = mr.getLastModified();
 			if (lastModified != null) {
 				// give browser a chance to cache images
-				long ifModifiedSince = httpReq.getDateHeader("If-Modified-Since");
+				long ifModifiedSince = ifNoneMatch == null ? httpReq.getDateHeader("If-Modified-Since") : -1l;
 				// TODO: if no such header, what is the return value
 				long lastMod = lastModified.longValue();
 				if (ifModifiedSince >= (lastMod / 1000L) * 1000L) {
@@ -113,6 +132,9 @@ public class ServletUtil {
 				}
 				httpResp.setDateHeader("Last-Modified", lastModified.longValue());
 			}
+			if (eTag != null) {
+				httpResp.setHeader("ETag", eTag);
+			}
 
 			if (isFlashPseudoStreaming(httpReq, mr)) {
 				httpResp.setContentType("video/x-flv");
@@ -122,7 +144,7 @@ public class ServletUtil {
 				if (mime != null) {
 					httpResp.setContentType(mime);
 				}
-				serveFullResource(httpReq, httpResp, mr);
+				serveFullResource(httpReq, httpResp, mr, eTag);
 			}
 			
 			// else there is no stream, but probably just headers
@@ -157,7 +179,7 @@ public class ServletUtil {
 		return false;
 	}
 	
-	private static void serveFullResource(HttpServletRequest httpReq, HttpServletResponse httpResp,  MediaResource mr) {
+	private static void serveFullResource(HttpServletRequest httpReq, HttpServletResponse httpResp,  MediaResource mr, String eTag) {
 		boolean debug = log.isDebug();
 		
 		InputStream in = null;
@@ -171,7 +193,8 @@ public class ServletUtil {
 			Long size = mr.getSize();
 			Long lastModified = mr.getLastModified();
 			// accept range to deliver videos for iPad (implementation based on Tomcat)
-			List<Range> ranges = parseRange(httpReq, httpResp, (lastModified == null ? -1 : lastModified.longValue()), (size == null ? 0 : size.longValue()));
+			List<Range> ranges = parseRange(httpReq, httpResp, (lastModified == null ? -1 : lastModified.longValue()),
+					eTag, (size == null ? 0 : size.longValue()));
 			if(ranges != null && mr.acceptRanges()) {
 				httpResp.setHeader("Accept-Ranges", "bytes");
 			}
@@ -179,6 +202,12 @@ public class ServletUtil {
 			// maybe some more preparations
 			mr.prepare(httpResp);
 			
+			File file = getTransferableFile(mr);
+			if (file != null) {
+				serveFile(httpReq, httpResp, (FileBackedMediaResource)mr, file, ranges);
+				return;
+			}
+			
 			in = mr.getInputStream();
 
 			// serve the Resource
@@ -244,6 +273,96 @@ public class ServletUtil {
 		}
 	}
 	
+	/**
+	 * @return The file if the media resource can be delivered directly from the file system
+	 */
+	private static File getTransferableFile(MediaResource mr) {
+		if (mr instanceof FileBackedMediaResource && !Settings.isDebuging()) {
+			File file = ((FileBackedMediaResource)mr).getFile();
+			Long size = mr.getSize();
+			if (file != null && file.isFile() && file.canRead()
+					&& size != null && size.longValue() == file.length()) {
+				return file;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Deliver the file or a single range of it. If the servlet container
+	 * supports it, the file is sent by the container after the request (sendfile),
+	 * else it's transferred with the file channel.
+	 */
+	private static void serveFile(HttpServletRequest httpReq, HttpServletResponse httpResp,
+			FileBackedMediaResource mr, File file, List<Range> ranges) throws IOException {
+		if (httpResp.isCommitted()) {
+			// an error was sent
+			return;
+		}
+		
+		long start = 0l;
+		long length = file.length();
+		if (ranges != null && ranges.size() == 1) {
+			Range range = ranges.get(0);
+			httpResp.addHeader("Content-Range", "bytes " + range.start + "-" + range.end + "/" + range.length);
+			httpResp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			start = range.start;
+			length = range.end - range.start + 1;
+		}
+		httpResp.setContentLengthLong(length);
+		
+		if (length >= SENDFILE_MIN_SIZE && mr.isSendfileAllowed()
+				&& Boolean.TRUE.equals(httpReq.getAttribute(SENDFILE_SUPPORT))) {
+			httpReq.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+			httpReq.setAttribute(SENDFILE_START, Long.valueOf(start));
+			httpReq.setAttribute(SENDFILE_END, Long.valueOf(start + length));
+		} else if (length > 0) {
+			FileUtils.transferTo(file, start, length, httpResp.getOutputStream());
+		}
+	}
+	
+	private static String getETag(MediaResource mr) {
+		if (mr instanceof FileBackedMediaResource) {
+			return ((FileBackedMediaResource)mr).getETag();
+		}
+		return null;
+	}
+	
+	/**
+	 * Create a strong ETag from the identity of the file, its size and
+	 * its last modification date.
+	 * 
+	 * @param identity The identity of the file (the UUID of the metadata, a hash of the path...)
+	 * @param size The size of the file
+	 * @param lastModified The last modification date of the file
+	 * @return The ETag with its quotes
+	 */
+	public static String createETag(String identity, long size, long lastModified) {
+		return "\"" + identity + "-" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+	}
+	
+	/**
+	 * @param header The value of the If-None-Match or If-Range header
+	 * @param eTag The strong ETag of the resource
+	 * @return true if the header contains the ETag or the wildcard
+	 */
+	public static boolean matchETag(String header, String eTag) {
+		if (header == null || eTag == null) {
+			return false;
+		}
+		for (StringTokenizer tokenizer = new StringTokenizer(header, ","); tokenizer.hasMoreTokens(); ) {
+			String candidate = tokenizer.nextToken().trim();
+			if ("*".equals(candidate) || eTag.equals(candidate)) {
+				return true;
+			}
+			// weak comparison, as the browsers may add a W/ after compression
+			if (candidate.startsWith("W/") && eTag.equals(candidate.substring(2))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	//fxdiff FXOLAT-118: accept range to deliver videos for iPad
 	protected static void copy(OutputStream ostream, InputStream resourceInputStream, Range range) throws IOException {
 		IOException exception = null;
@@ -294,10 +413,21 @@ public class ServletUtil {
 	//fxdiff FXOLAT-118: accept range to deliver videos for iPad
 	protected static List<Range> parseRange(HttpServletRequest request, HttpServletResponse response, long lastModified, long fileLength)
 			throws IOException {
+		return parseRange(request, response, lastModified, null, fileLength);
+	}
+	
+	protected static List<Range> parseRange(HttpServletRequest request, HttpServletResponse response, long lastModified, String eTag, long fileLength)
+			throws IOException {
 		
 		String headerValue = request.getHeader("If-Range");
 
-    if (headerValue != null) {
+    if (headerValue != null && headerValue.trim().startsWith("\"")) {
+        // If the ETag the client gave doesn't match the entity
+        // ETag, the entire entity is returned.
+        if (eTag == null || !eTag.equals(headerValue.trim())) {
+            return Collections.emptyList();
+        }
+    } else if (headerValue != null) {
         long headerValueTime = (-1L);
         try {
           headerValueTime = request.getDateHeader("If-Range");
@@ -27,15 +27,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.olat.core.CoreSpringFactory;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
-import org.olat.core.util.FileUtils;
 import org.olat.core.util.StringHelper;
+import org.olat.core.util.zip.ParallelZipArchive;
+import org.olat.core.util.zip.ParallelZipService;
 
 /**
  * 
@@ -96,9 +96,8 @@ public class ZippedDirectoryMediaResource implements MediaResource {
 		hres.setHeader("Content-Disposition","attachment; filename*=UTF-8''" + urlEncodedLabel);			
 		hres.setHeader("Content-Description", urlEncodedLabel);
 		
-		try(ZipOutputStream zout = new ZipOutputStream(hres.getOutputStream())) {
-			zout.setLevel(9);
-			
+		ParallelZipService zipService = CoreSpringFactory.getImpl(ParallelZipService.class);
+		try(ParallelZipArchive zout = zipService.openArchive(hres.getOutputStream())) {
 			final Path unzipPath = unzipDir.toPath();
 			Files.walkFileTree(unzipPath, new SimpleFileVisitor<Path>() {
 				@Override
@@ -106,15 +105,7 @@ public class ZippedDirectoryMediaResource implements MediaResource {
 					if(!attrs.isDirectory()) {
 						Path relativeFile = unzipPath.relativize(file);
 						String names = relativeFile.toString();
-						zout.putNextEntry(new ZipEntry(names));
-						
-						try(InputStream in=Files.newInputStream(file)) {
-							FileUtils.copy(in, zout);
-						} catch (Exception e) {
-							log.error("", e);
-						}
-						
-						zout.closeEntry();
+						zout.addFile(names, file.toFile(), attrs.lastModifiedTime().toMillis(), null);
 					}
 					return FileVisitResult.CONTINUE;
 				}
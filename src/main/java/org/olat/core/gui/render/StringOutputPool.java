@@ -21,116 +21,186 @@ package org.olat.core.gui.render;
 
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * the pool is based on the implementation of Slobodan Celenkovic:<br/>
- * http://www.jroller.com/slobodan/date/20050309<br/>
+ * A pool of StringOutput without locks. Every thread has its own small
+ * pool with three size classes (smaller than 4KB, than 64KB and than 250KB),
+ * the buffers are allocated and freed by the same request thread in
+ * the render cycle. Bigger buffers are never pooled to prevent memory
+ * leaks. The buffers are held by soft references, the garbage collector
+ * can reclaim them under memory pressure.
+ * <p>
+ * The pool counts the allocations, the hits, the discarded oversize
+ * buffers and the size of the freed buffers, the counters are available
+ * with JMX (see StringOutputPoolMonitor).
  * 
  * Initial date: 10.01.2013<br>
  * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
  *
  */
 public class StringOutputPool {
+	
+	/** The upper bounds (exclusive) of the capacity of the size classes */
+	private static final int[] SIZE_CLASSES = { 4096, 65536, 250000 };
+	/** The number of buffers per thread and size class */
+	private static final int[] SLOTS_PER_CLASS = { 4, 2, 2 };
+	
+	private static final ThreadLocal<ThreadPool> threadPools = ThreadLocal.withInitial(ThreadPool::new);
+	
+	private static final LongAdder allocations = new LongAdder();
+	private static final LongAdder hits = new LongAdder();
+	private static final LongAdder frees = new LongAdder();
+	private static final LongAdder discardedOversize = new LongAdder();
+	private static final LongAdder renderedChars = new LongAdder();
 
-	/** Max pool size */
-  protected final static int MAX_STR_BUILDER_POOL_SIZE = 50;
-
-  /** General purpose pool for StringBuilder instances. */
-  private static List<Reference<StringOutput>> stringBuilders = new ArrayList<Reference<StringOutput>>(MAX_STR_BUILDER_POOL_SIZE+1);
-
-  /** Auxiliary pool for small size builders. It is a simple sparse array with
-      elements not sorted. Buffers are simply placed in and taken out. In
-      general, when storing buffers preference is given to large buffers. */
-  private static final StringOutput auxStringBuilders[] =
-    new StringOutput[ 10 ];
-
-
-  /** Allocates a string builder instance using recycling. Doesn't guarantee
-      that the returned object will have the requested size!
-      @param size (optional) builder size
-      @return builder instance */
-  public static StringOutput allocStringBuilder(final int size)  {
-    assert size > 0;
-    if ( size < 4096 ) {        // Smaller buffer? -> use auxiliary pool
-      synchronized ( auxStringBuilders ) {
-        for(int index=0; index < auxStringBuilders.length; index++)
-          if ((auxStringBuilders[index] != null) &&
-              (auxStringBuilders[index].capacity() >= size)) {
-          	StringOutput res = auxStringBuilders[ index ];
-            auxStringBuilders[ index ] = null;
-            return res;
-          }
-      }
-      return new StringOutput(size);
-    } else {// Bigger buffers? -> use primary pool
-      synchronized ( stringBuilders ) { // pool lookup
-        if ( stringBuilders.isEmpty())  {
-        	return new StringOutput(size);
-        }
-
-        StringOutput res =null;
-        for (Iterator<Reference<StringOutput>> seq=stringBuilders.iterator(); seq.hasNext(); ) {
-          res = seq.next().get();
-          if ( res == null ) {
-          	seq.remove(); // no longer available, cleanup
-          }  else if ( res.capacity() >= size ) {
-            seq.remove();
-            return res;
-          }
-        } // for
-      } // sync
-    } // else
-
-    return new StringOutput(size);
-  } // allocStringBuilder
-  
-  /** Supplies object instance for recycling. The object could have been
-  allocated using any means. Caller must not continue using it after this
-  method call.
-  @param obj discarded builder instance */
-	public static void free(final StringOutput obj) {
-		if ( obj.capacity() < 4096 ) { // Smaller buffer? -> use auxiliary pool
-		  synchronized ( auxStringBuilders ) {
-		    int minIndex =-1, minSize = Integer.MAX_VALUE, size =0;
-		    for(int index=0; index < auxStringBuilders.length; index++) {
-		      if ( auxStringBuilders[index] == null ) {
-		        obj.setLength(0);
-		        auxStringBuilders[ index ] = obj;
-		        return;
-		      }
+	/**
+	 * Allocates a string builder instance using recycling. Doesn't guarantee
+	 * that the returned object will have the requested size!
+	 * 
+	 * @param size (optional) builder size
+	 * @return builder instance
+	 */
+	public static StringOutput allocStringBuilder(final int size) {
+		assert size > 0;
+		allocations.increment();
 		
-		      if ((size= auxStringBuilders[index].capacity()) < minSize) {
-		        minIndex = index;
-		        minSize = size;
-		      }
-		    }
+		int sizeClass = getSizeClass(size);
+		if(sizeClass >= 0) {
+			StringOutput res = threadPools.get().take(sizeClass, size);
+			if(res != null) {
+				hits.increment();
+				return res;
+			}
+		}
+		return new StringOutput(size);
+	}
+	
+	/**
+	 * Supplies object instance for recycling. The object could have been
+	 * allocated using any means. Caller must not continue using it after this
+	 * method call.
+	 * 
+	 * @param obj discarded builder instance
+	 */
+	public static void free(final StringOutput obj) {
+		frees.increment();
+		renderedChars.add(obj.length());
 		
-		    if ( minSize < obj.capacity() ) {
-		      obj.setLength(0);
-		      auxStringBuilders[minIndex] = obj;
-		    }
-		  }
-		} else if(obj.capacity() < 250000) {
-			// Bigger buffers? -> use primary pool, too big, don't return it to prevent memory leak
-		  synchronized ( stringBuilders ) {
-	      obj.setLength(0);
-		    stringBuilders.add(0, new SoftReference<StringOutput>(obj));
-		    if ( stringBuilders.size() > MAX_STR_BUILDER_POOL_SIZE ) {
-		      stringBuilders.remove(MAX_STR_BUILDER_POOL_SIZE);
-		    }
-		  }
+		int sizeClass = getSizeClass(obj.capacity());
+		if(sizeClass < 0) {
+			// too big, don't return it to prevent memory leak
+			discardedOversize.increment();
+		} else {
+			obj.setLength(0);
+			threadPools.get().give(sizeClass, obj);
 		}
-	} // free
+	}
 	
-	/** Frees the string builder and returns its contents before cleanup.
-	  @param obj buffer to free
-	  @return buffer's contents before cleanup */
+	/**
+	 * Frees the string builder and returns its contents before cleanup.
+	 * 
+	 * @param obj buffer to free
+	 * @return buffer's contents before cleanup
+	 */
 	public static String freePop(final StringOutput obj) {
 		String res = obj.toString();
-		free( obj );
+		free(obj);
 		return res;
 	}
-}
\ No newline at end of file
+	
+	public static long getAllocations() {
+		return allocations.sum();
+	}
+	
+	public static long getHits() {
+		return hits.sum();
+	}
+	
+	public static long getFrees() {
+		return frees.sum();
+	}
+	
+	public static long getDiscardedOversize() {
+		return discardedOversize.sum();
+	}
+	
+	/**
+	 * @return The average length of the freed buffers in characters
+	 */
+	public static long getAverageRenderSize() {
+		long numOfFrees = frees.sum();
+		return numOfFrees == 0 ? 0l : renderedChars.sum() / numOfFrees;
+	}
+	
+	public static void resetStatistics() {
+		allocations.reset();
+		hits.reset();
+		frees.reset();
+		discardedOversize.reset();
+		renderedChars.reset();
+	}
+	
+	private static int getSizeClass(int capacity) {
+		for(int i=0; i<SIZE_CLASSES.length; i++) {
+			if(capacity < SIZE_CLASSES[i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * The pool of a thread, only used by its thread.
+	 */
+	private static class ThreadPool {
+		
+		private final Reference<?>[][] slots = new Reference<?>[SIZE_CLASSES.length][];
+		
+		public ThreadPool() {
+			for(int i=0; i<SIZE_CLASSES.length; i++) {
+				slots[i] = new Reference<?>[SLOTS_PER_CLASS[i]];
+			}
+		}
+		
+		public StringOutput take(int sizeClass, int size) {
+			Reference<?>[] classSlots = slots[sizeClass];
+			for(int i=classSlots.length; i-->0; ) {
+				StringOutput buffer = get(classSlots[i]);
+				if(buffer == null) {
+					classSlots[i] = null;
+				} else if(buffer.capacity() >= size) {
+					classSlots[i] = null;
+					return buffer;
+				}
+			}
+			return null;
+		}
+		
+		public void give(int sizeClass, StringOutput obj) {
+			Reference<?>[] classSlots = slots[sizeClass];
+			
+			int minIndex = -1;
+			int minCapacity = Integer.MAX_VALUE;
+			for(int i=0; i<classSlots.length; i++) {
+				StringOutput buffer = get(classSlots[i]);
+				if(buffer == null) {
+					classSlots[i] = new SoftReference<>(obj);
+					return;
+				} else if(buffer.capacity() < minCapacity) {
+					minIndex = i;
+					minCapacity = buffer.capacity();
+				}
+			}
+			
+			// preference is given to large buffers
+			if(minCapacity < obj.capacity()) {
+				classSlots[minIndex] = new SoftReference<>(obj);
+			}
+		}
+		
+		private static StringOutput get(Reference<?> ref) {
+			return ref == null ? null : (StringOutput)ref.get();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.render;
+
+import org.olat.core.commons.services.jmx.JMXManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Register the counters of the StringOutputPool as an MBean.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class StringOutputPoolMonitor implements StringOutputPoolMonitorMBean, InitializingBean, DisposableBean {
+	
+	private static final String JMX_NAME = "org.olat.core.gui.render:type=StringOutputPool";
+	
+	private JMXManager jmxManager;
+	
+	/**
+	 * [used by Spring]
+	 * @param jmxManager
+	 */
+	public void setJmxManager(JMXManager jmxManager) {
+		this.jmxManager = jmxManager;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if(jmxManager != null) {
+			jmxManager.registerMBean(this, JMX_NAME);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(jmxManager != null) {
+			jmxManager.unregisterMBean(JMX_NAME);
+		}
+	}
+
+	@Override
+	public long getAllocations() {
+		return StringOutputPool.getAllocations();
+	}
+
+	@Override
+	public long getHits() {
+		return StringOutputPool.getHits();
+	}
+
+	@Override
+	public long getHitRate() {
+		long allocations = StringOutputPool.getAllocations();
+		return allocations == 0 ? 0l : (StringOutputPool.getHits() * 100l) / allocations;
+	}
+
+	@Override
+	public long getFrees() {
+		return StringOutputPool.getFrees();
+	}
+
+	@Override
+	public long getDiscardedOversize() {
+		return StringOutputPool.getDiscardedOversize();
+	}
+
+	@Override
+	public long getAverageRenderSize() {
+		return StringOutputPool.getAverageRenderSize();
+	}
+
+	@Override
+	public void resetStatistics() {
+		StringOutputPool.resetStatistics();
+	}
+}
@@ -0,0 +1,392 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.logging.activity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.services.jmx.JMXManager;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Write the rows of the user activity log. In synchronous mode, the logging
+ * objects are saved in the transaction of the user. In asynchronous mode,
+ * they are queued in a bounded queue and a background thread inserts them
+ * in JDBC batches, every flush size rows or at the latest after the flush interval.
+ * The back pressure policy decides what happens if the queue is full: block
+ * the user, drop the row or save it synchronously. The queue is drained at
+ * shutdown. A row queued while the writer stops, or after the writer thread
+ * died, is saved synchronously.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class UserActivityLogWriter implements UserActivityLogWriterMBean, InitializingBean, DisposableBean {
+	
+	private static final OLog log = Tracing.createLoggerFor(UserActivityLogWriter.class);
+	private static final String JMX_NAME = "org.olat.core.logging.activity:type=UserActivityLogWriter";
+	/** The time a blocked user waits before checking that the writer is still alive */
+	private static final long BLOCK_CHECK_INTERVAL = 500;
+	
+	public enum BackPressure {
+		block,
+		drop,
+		sync
+	}
+	
+	private static UserActivityLogWriter instance;
+	
+	private boolean asyncEnabled;
+	private int queueCapacity = 10000;
+	private int flushSize = 200;
+	private long flushInterval = 1000;
+	private BackPressure backPressure = BackPressure.sync;
+	
+	private DB dbInstance;
+	private JMXManager jmxManager;
+	
+	private BlockingQueue<LoggingObject> queue;
+	private volatile Thread writerThread;
+	private volatile boolean running = false;
+	
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong synchronousFallbackCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong totalFlushDuration = new AtomicLong();
+	private volatile long lastFlushDuration = 0;
+	
+	/**
+	 * @return The writer or null if the spring context isn't started
+	 */
+	static UserActivityLogWriter getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * [used by Spring]
+	 * @param dbInstance
+	 */
+	public void setDbInstance(DB dbInstance) {
+		this.dbInstance = dbInstance;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param jmxManager
+	 */
+	public void setJmxManager(JMXManager jmxManager) {
+		this.jmxManager = jmxManager;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param asyncEnabled
+	 */
+	public void setAsyncEnabled(boolean asyncEnabled) {
+		this.asyncEnabled = asyncEnabled;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param queueCapacity
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param flushSize The max. number of rows inserted in one batch
+	 */
+	public void setFlushSize(int flushSize) {
+		this.flushSize = flushSize;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param flushInterval The max. time in milliseconds a row waits in the queue
+	 */
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * [used by Spring]
+	 * @param backPressure block, drop or sync
+	 */
+	public void setBackPressure(String backPressure) {
+		try {
+			this.backPressure = BackPressure.valueOf(backPressure);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			log.error("Unknown back pressure policy for the user activity log: " + backPressure + ", use sync");
+			this.backPressure = BackPressure.sync;
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		start();
+		if(jmxManager != null) {
+			jmxManager.registerMBean(this, JMX_NAME);
+		}
+		instance = this;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(instance == this) {
+			instance = null;
+		}
+		stop();
+		if(jmxManager != null) {
+			jmxManager.unregisterMBean(JMX_NAME);
+		}
+	}
+	
+	/**
+	 * Start the writer thread if the asynchronous mode is enabled.
+	 */
+	void start() {
+		if(asyncEnabled) {
+			queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+			running = true;
+			writerThread = new Thread(new WriterRunnable(), "user-activity-log-writer");
+			writerThread.setDaemon(true);
+			writerThread.start();
+			log.info("Asynchronous user activity log started with a queue of " + queueCapacity
+					+ ", flush size " + flushSize + ", flush interval " + flushInterval + "ms and back pressure " + backPressure);
+		}
+	}
+	
+	/**
+	 * Stop the writer thread after it has written the queued rows. The rows
+	 * queued after the writer has seen an empty queue, or left by a dead
+	 * writer, are written by the calling thread.
+	 * 
+	 * @throws InterruptedException
+	 */
+	void stop() throws InterruptedException {
+		if(writerThread != null) {
+			running = false;
+			writerThread.join(30000);
+			if(writerThread.isAlive()) {
+				log.error("User activity log writer not stopped after 30s, write the queue in the calling thread");
+			}
+			writerThread = null;
+			
+			List<LoggingObject> batch = new ArrayList<>(flushSize);
+			while(queue.drainTo(batch, flushSize) > 0) {
+				flush(batch);
+			}
+		}
+	}
+	
+	/**
+	 * Save or queue the logging object.
+	 * 
+	 * @param logObj The row to write
+	 */
+	public void write(LoggingObject logObj) {
+		if(!running) {
+			dbInstance.saveObject(logObj);
+			return;
+		}
+		
+		switch(backPressure) {
+			case block:
+				try {
+					while(!queue.offer(logObj, BLOCK_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+						if(!isWriterAlive()) {
+							saveSynchronously(logObj);
+							return;
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					saveSynchronously(logObj);
+					return;
+				}
+				break;
+			case drop:
+				if(!queue.offer(logObj)) {
+					droppedCount.incrementAndGet();
+					return;
+				}
+				break;
+			default:
+				if(!queue.offer(logObj)) {
+					saveSynchronously(logObj);
+					return;
+				}
+				break;
+		}
+		
+		// the writer stopped or died while the row was queued: if the row is
+		// still in the queue, nobody else will write it
+		if(!isWriterAlive() && queue.remove(logObj)) {
+			saveSynchronously(logObj);
+		}
+	}
+	
+	private boolean isWriterAlive() {
+		Thread thread = writerThread;
+		return running && thread != null && thread.isAlive();
+	}
+	
+	private void saveSynchronously(LoggingObject logObj) {
+		synchronousFallbackCount.incrementAndGet();
+		dbInstance.saveObject(logObj);
+	}
+	
+	private void flush(List<LoggingObject> batch) {
+		long start = System.nanoTime();
+		try {
+			EntityManager em = dbInstance.getCurrentEntityManager();
+			em.unwrap(Session.class).setJdbcBatchSize(flushSize);
+			for(LoggingObject logObj:batch) {
+				em.persist(logObj);
+			}
+			dbInstance.commitAndCloseSession();
+			writtenCount.addAndGet(batch.size());
+		} catch (Exception e) {
+			log.error("Cannot write " + batch.size() + " rows of the user activity log", e);
+			dbInstance.rollbackAndCloseSession();
+			failedCount.addAndGet(batch.size());
+		} finally {
+			batch.clear();
+			long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			lastFlushDuration = duration;
+			totalFlushDuration.addAndGet(duration);
+			flushCount.incrementAndGet();
+		}
+	}
+
+	@Override
+	public boolean isAsyncEnabled() {
+		return asyncEnabled;
+	}
+
+	@Override
+	public String getBackPressurePolicy() {
+		return backPressure.name();
+	}
+
+	@Override
+	public int getQueueDepth() {
+		return queue == null ? 0 : queue.size();
+	}
+
+	@Override
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	@Override
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	@Override
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	@Override
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	@Override
+	public long getSynchronousFallbackCount() {
+		return synchronousFallbackCount.get();
+	}
+
+	@Override
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	@Override
+	public long getLastFlushDuration() {
+		return lastFlushDuration;
+	}
+
+	@Override
+	public long getAverageFlushDuration() {
+		long flushes = flushCount.get();
+		return flushes == 0 ? 0 : totalFlushDuration.get() / flushes;
+	}
+	
+	private class WriterRunnable implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				writeQueue();
+				log.info("User activity log writer stopped");
+			} catch (Error e) {
+				// the rows are saved synchronously until the writer is restarted
+				log.error("User activity log writer died", e);
+				throw e;
+			}
+		}
+		
+		private void writeQueue() {
+			List<LoggingObject> batch = new ArrayList<>(flushSize);
+			long deadline = 0;
+			while(running || !queue.isEmpty() || !batch.isEmpty()) {
+				try {
+					long wait = batch.isEmpty() ? flushInterval : Math.max(1l, deadline - System.currentTimeMillis());
+					LoggingObject logObj = queue.poll(wait, TimeUnit.MILLISECONDS);
+					if(logObj != null) {
+						if(batch.isEmpty()) {
+							deadline = System.currentTimeMillis() + flushInterval;
+						}
+						batch.add(logObj);
+						queue.drainTo(batch, flushSize - batch.size());
+					}
+					
+					if(!batch.isEmpty() && (batch.size() >= flushSize || !running
+							|| System.currentTimeMillis() >= deadline)) {
+						flush(batch);
+					}
+				} catch (InterruptedException e) {
+					log.warn("User activity log writer interrupted, drain the queue");
+					running = false;
+				} catch (Exception e) {
+					log.error("", e);
+				}
+			}
+		}
+	}
+}
@@ -738,7 +738,12 @@ public class UserActivityLoggerImpl implements IUserActivityLogger {
 			//@TODO: lower to log_.info once we checked that it doesn't occur very often (best for 6.4)
 			log_.warn("log: DB is in Error state therefore the UserActivityLoggerImpl cannot store the following logging action into the loggingtable: "+logObj);
 		} else {
-			DBFactory.getInstance().saveObject(logObj);
+			UserActivityLogWriter writer = UserActivityLogWriter.getInstance();
+			if(writer == null) {
+				DBFactory.getInstance().saveObject(logObj);
+			} else {
+				writer.write(logObj);
+			}
 		}
 		if (log_.isDebug()) {
 			Long logEnd = System.currentTimeMillis();
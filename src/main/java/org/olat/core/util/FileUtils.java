@@ -38,10 +38,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.text.Normalizer;
 import java.util.Arrays;
@@ -69,6 +73,7 @@ public class FileUtils {
 	
 	// the following is for cleaning up file I/O stuff ... so it works fine on NFS
 	public static final int BSIZE = 8*1024;
+	private static final long TRANSFER_SIZE = 8l * 1024l * 1024l;
 
 	// matches files and folders of type:
 	// bla, bla1, bla12, bla.html, bla1.html, bla12.html
@@ -960,6 +965,36 @@ public class FileUtils {
 		return tot;
 	}
 	
+	/**
+	 * Transfer a part of the file to the output stream with the file channel,
+	 * without buffered input stream. The output stream is left open.
+	 * 
+	 * @param file The file
+	 * @param start The position of the first byte
+	 * @param length The number of bytes to transfer
+	 * @param out The output stream
+	 * @return The number of transferred bytes
+	 * @throws IOException
+	 */
+	public static long transferTo(File file, long start, long length, OutputStream out) throws IOException {
+		long tot = 0;
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			WritableByteChannel target = Channels.newChannel(out);
+			long position = start;
+			long remaining = Math.min(length, channel.size() - start);
+			while(remaining > 0) {
+				long transferred = channel.transferTo(position, Math.min(remaining, TRANSFER_SIZE), target);
+				if(transferred <= 0) {
+					break;
+				}
+				position += transferred;
+				remaining -= transferred;
+				tot += transferred;
+			}
+		}
+		return tot;
+	}
+	
 	/**
 	 * from a newer version of apache commons.io Determines whether the specified
 	 * file is a Symbolic Link rather than an actual file.
@@ -70,6 +70,8 @@ import org.olat.core.util.vfs.VFSLockApplicationType;
 import org.olat.core.util.vfs.VFSLockManager;
 import org.olat.core.util.vfs.VFSManager;
 import org.olat.core.util.vfs.filters.VFSSystemItemFilter;
+import org.olat.core.util.zip.ParallelZipArchive;
+import org.olat.core.util.zip.ParallelZipService;
 
 /**
  * Initial Date:  04.12.2002
@@ -636,12 +638,19 @@ public class ZipUtil {
 	 * @return true if successful
 	 */
 	public static boolean zip(VFSContainer container, OutputStream out) {
-		try(ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(out, FileUtils.BSIZE))) {
+		ParallelZipService zipService = CoreSpringFactory.getImpl(ParallelZipService.class);
+		try(ParallelZipArchive zipOut = zipService.openArchive(out)) {
+			boolean success = true;
 			List<VFSItem> items=container.getItems(new VFSSystemItemFilter());
 			for(VFSItem item:items) {
-				addToZip(item, "", zipOut);
+				if(!addToZip(item, "", zipOut)) {
+					success = false;
+					if(zipOut.isFailed()) {
+						break;
+					}
+				}
 			}
-			return true;
+			return success;
 		} catch(IOException e) {
 			log.error("", e);
 			return false;
@@ -671,34 +680,42 @@ public class ZipUtil {
 	}
 	
 	public static boolean addToZip(VFSItem vfsItem, String currentPath, ZipOutputStream out) {
-		boolean success = true;
+		return addToZip(vfsItem, currentPath, new ZipOutputStreamTarget(out));
+	}
+	
+	/**
+	 * Add the item to the archive. The files are deflated in parallel,
+	 * the already compressed formats are only stored.
+	 * 
+	 * @param vfsItem The file or the container to add
+	 * @param currentPath The path of the parent in the archive
+	 * @param out The archive
+	 * @return true if successful
+	 */
+	public static boolean addToZip(VFSItem vfsItem, String currentPath, ParallelZipArchive out) {
+		return addToZip(vfsItem, currentPath, new ParallelZipArchiveTarget(out));
+	}
+	
+	/**
+	 * Add the item and its children to the archive. An item which cannot
+	 * be added is logged and skipped, only a failed archive stops the walk.
+	 */
+	private static boolean addToZip(VFSItem vfsItem, String currentPath, ZipTarget out) {
+		// The separator / is the separator defined by the ZIP standard
+		String itemName = currentPath.length() == 0 ?
+				vfsItem.getName() : currentPath + "/" + vfsItem.getName();
+		
 		try {
-			// The separator / is the separator defined by the ZIP standard
-			String itemName = currentPath.length() == 0 ?
-					vfsItem.getName() : currentPath + "/" + vfsItem.getName();
-					
 			if (vfsItem instanceof VFSContainer) {
-				out.putNextEntry(new ZipEntry(itemName + "/"));
-				out.closeEntry();
-				
-				List<VFSItem> items = ((VFSContainer)vfsItem).getItems();
-				for (VFSItem item:items) {
-					if (!addToZip(item, itemName, out)) {
-						success = false;
-						break;
-					}
-				}
-				
+				out.addDirectory(itemName, vfsItem.getLastModified());
 			} else {
 				VFSLeaf leaf = (VFSLeaf)vfsItem;
-				ZipEntry entry = new ZipEntry(itemName);
+				byte[] metadata = null;
 				if(leaf.canMeta() == VFSConstants.YES) {
-					byte[] metadata = MetaInfoReader.toBinaries(leaf.getMetaInfo());
-					entry.setExtra(metadata);
+					metadata = MetaInfoReader.toBinaries(leaf.getMetaInfo());
 				}
-				out.putNextEntry(entry);
-				copyShielded(leaf, out);
-				out.closeEntry();
+				out.addLeaf(itemName, leaf, metadata);
+				return true;
 			}
 		} catch (IOException ioe) {
 			String name = vfsItem.getName();
@@ -708,9 +725,99 @@ public class ZipUtil {
 			log.error("I/O error while adding "+name+" to zip:"+ioe);
 			return false;
 		}
+		
+		boolean success = true;
+		List<VFSItem> items = ((VFSContainer)vfsItem).getItems();
+		for (VFSItem item:items) {
+			if (!addToZip(item, itemName, out)) {
+				success = false;
+				if(out.isFailed()) {
+					break;
+				}
+			}
+		}
 		return success;
 	}
+	
+	private interface ZipTarget {
+		
+		public void addDirectory(String name, long lastModified) throws IOException;
+		
+		public void addLeaf(String name, VFSLeaf leaf, byte[] metadata) throws IOException;
+		
+		public boolean isFailed();
+		
+	}
+	
+	/**
+	 * The content errors are logged by copyShielded, every exception
+	 * thrown comes from the output stream and ends the archive.
+	 */
+	private static class ZipOutputStreamTarget implements ZipTarget {
+		
+		private final ZipOutputStream out;
+		private boolean failed = false;
+		
+		public ZipOutputStreamTarget(ZipOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void addDirectory(String name, long lastModified) throws IOException {
+			try {
+				out.putNextEntry(new ZipEntry(name + "/"));
+				out.closeEntry();
+			} catch(IOException e) {
+				failed = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public void addLeaf(String name, VFSLeaf leaf, byte[] metadata) throws IOException {
+			try {
+				ZipEntry entry = new ZipEntry(name);
+				if(metadata != null) {
+					entry.setExtra(metadata);
+				}
+				out.putNextEntry(entry);
+				copyShielded(leaf, out);
+				out.closeEntry();
+			} catch(IOException e) {
+				failed = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public boolean isFailed() {
+			return failed;
+		}
+	}
+	
+	private static class ParallelZipArchiveTarget implements ZipTarget {
+		
+		private final ParallelZipArchive out;
+		
+		public ParallelZipArchiveTarget(ParallelZipArchive out) {
+			this.out = out;
+		}
+
+		@Override
+		public void addDirectory(String name, long lastModified) throws IOException {
+			out.addDirectory(name, lastModified);
+		}
 
+		@Override
+		public void addLeaf(String name, VFSLeaf leaf, byte[] metadata) throws IOException {
+			out.addLeaf(name, leaf, metadata);
+		}
+
+		@Override
+		public boolean isFailed() {
+			return out.isFailed();
+		}
+	}
 
 	/**
 	 * Zip all files under a certain root directory. (choose to compress or not param compress)
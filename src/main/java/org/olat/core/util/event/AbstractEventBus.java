@@ -24,11 +24,12 @@
 */
 package org.olat.core.util.event;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.olat.core.gui.control.Controller;
 import org.olat.core.id.Identity;
@@ -40,7 +41,12 @@ import org.olat.core.logging.activity.UserActivityLoggerImpl;
 import org.olat.core.util.event.businfo.BusListenerInfo;
 
 /**
- * abstract class for common services of the system bus
+ * abstract class for common services of the system bus.<br>
+ * The event agencies are held in concurrent maps. Registration and
+ * deregistration are atomic per resourceable (the maps lock only the bin
+ * of the key), fire outs don't lock the maps at all and work on a
+ * snapshot of the listeners.
+ * 
  * @author Felix Jost
  */
 public abstract class AbstractEventBus implements EventBus {
@@ -50,63 +56,55 @@ public abstract class AbstractEventBus implements EventBus {
 	private final OLog log = Tracing.createLoggerFor(this.getClass());
 
 	public AbstractEventBus() {
-		infocenter = new HashMap<String, EventAgency>();
-		typeInfocenter = new HashMap<String, EventAgency>();
+		infocenter = new ConcurrentHashMap<>();
+		typeInfocenter = new ConcurrentHashMap<>();
 	}
 
 	@Override
 	public void registerFor(GenericEventListener gel, Identity identity, OLATResourceable ores) {
 		final Long oresId = ores.getResourceableId();
 		final String typeName = ores.getResourceableTypeName();
-		synchronized (infocenter) {
-			EventAgency ea = null;
-			if (oresId == null) {
-				// return the eventagency which listens to all events with the type of
-				// the ores
-				ea = typeInfocenter.get(typeName);
-				if (ea == null) { // we are the first listener -> create an agency
-					ea = new EventAgency();
-					typeInfocenter.put(typeName, ea);
-				}
-			} else {
-				// type and id
-				String oresStr = typeName + "::" + oresId;
-				ea = infocenter.get(oresStr);
-				if (ea == null) { // we are the first listener
-					ea = new EventAgency();
-					infocenter.put(oresStr, ea);
-				}
-			}
-			ea.addListener(gel, identity);
+		final Long identityKey = (identity != null? identity.getKey() : null);
+		if (oresId == null) {
+			// return the eventagency which listens to all events with the type of
+			// the ores, we are maybe the first listener -> create an agency
+			typeInfocenter.compute(typeName, (key, ea) -> addListener(ea, gel, identityKey));
+		} else {
+			// type and id
+			String oresStr = typeName + "::" + oresId;
+			infocenter.compute(oresStr, (key, ea) -> addListener(ea, gel, identityKey));
+		}
+	}
+	
+	private EventAgency addListener(EventAgency ea, GenericEventListener gel, Long identityKey) {
+		if (ea == null) {
+			ea = new EventAgency();
 		}
+		ea.addListener(gel, identityKey);
+		return ea;
 	}
 
 	@Override
 	public void deregisterFor(GenericEventListener gel, OLATResourceable ores) {
 		final Long oresId = ores.getResourceableId();
 		final String typeName = ores.getResourceableTypeName();
-		synchronized (infocenter) {
-			if (oresId == null) {
-				EventAgency ea = typeInfocenter.get(typeName);
-				if (ea != null) {
-					ea.removeListener(gel);
-					if(ea.getListenerCount() == 0) {
-						typeInfocenter.remove(typeName);
-					}
-				}
-			} else {
-				// type and id
-				String oresStr = typeName + "::" + oresId;
-				EventAgency ea = infocenter.get(oresStr);
-				if (ea != null) {
-					ea.removeListener(gel);
-					if(ea.getListenerCount() == 0) {
-						infocenter.remove(typeName);
-					}
-				}
-			}
+		if (oresId == null) {
+			typeInfocenter.computeIfPresent(typeName, (key, ea) -> removeListener(ea, gel));
+		} else {
+			// type and id
+			String oresStr = typeName + "::" + oresId;
+			infocenter.computeIfPresent(oresStr, (key, ea) -> removeListener(ea, gel));
 		}
 	}
+	
+	/**
+	 * @return The agency or null if the agency doesn't have any listener
+	 * 		and can be removed
+	 */
+	private EventAgency removeListener(EventAgency ea, GenericEventListener gel) {
+		ea.removeListener(gel);
+		return ea.getListenerCount() == 0 ? null : ea;
+	}
 
 	public abstract int getListeningIdentityCntFor(OLATResourceable ores);
 	
@@ -122,33 +120,30 @@ public abstract class AbstractEventBus implements EventBus {
 		final Long oresId = ores.getResourceableId();
 		final String typeName = ores.getResourceableTypeName();
 
-		GenericEventListener[] listenersArr = null;
-		GenericEventListener[] listenersTypeArr = null;
-		synchronized (infocenter) {  
-			if (oresId != null) {
-				String oresStr = typeName + "::" + oresId;
-				EventAgency ea = infocenter.get(oresStr);
-				if (ea != null) {
-					listenersArr = ea.getListeners();
-				}
-			}
-			EventAgency ea = typeInfocenter.get(typeName);
+		WeakReference<GenericEventListener>[] listenersArr = null;
+		if (oresId != null) {
+			String oresStr = typeName + "::" + oresId;
+			EventAgency ea = infocenter.get(oresStr);
 			if (ea != null) {
-				listenersTypeArr = ea.getListeners();
+				listenersArr = ea.getListeners();
 			}
 		}
+		WeakReference<GenericEventListener>[] listenersTypeArr = null;
+		EventAgency typeEa = typeInfocenter.get(typeName);
+		if (typeEa != null) {
+			listenersTypeArr = typeEa.getListeners();
+		}
 
 		doFire(event, listenersArr);
 		doFire(event, listenersTypeArr);
 	}
 	
-	private final void doFire(final MultiUserEvent event, final GenericEventListener[] liArr) {
+	private final void doFire(final MultiUserEvent event, final WeakReference<GenericEventListener>[] liArr) {
 		if(liArr == null) return;
 		
 		for (int i = 0; i < liArr.length; i++) {
+			final GenericEventListener listener = liArr[i].get();
 			try {
-				final GenericEventListener listener = liArr[i];
-				
 				//make sure GenericEvents are only sent when controller is not yet disposed
 				if (listener instanceof Controller) {
 					Controller dCtrl = (Controller)listener;
@@ -173,81 +168,93 @@ public abstract class AbstractEventBus implements EventBus {
 					}, ThreadLocalUserActivityLoggerInstaller.createEmptyUserActivityLogger());
 				}
 			} catch (RuntimeException e) {
-				log.error("Error while sending generic event: "+liArr[i], e);
+				log.error("Error while sending generic event: " + listener, e);
 			}
 		}
 	}
 	
 	protected final BusListenerInfo createBusListenerInfo() {
+		// o_clusterOK by:fj: extract quickly so that we can later serialize and send across the wire. data affects only one vm.
 		BusListenerInfo bii = new BusListenerInfo();
-		synchronized(infocenter) { // o_clusterOK by:fj: extract quickly so that we can later serialize and send across the wire. data affects only one vm.
-			// for all types: the name of the type + "::"+ the id (integer) is used as key
-			List<String> infocenterKeys = new ArrayList<>(infocenter.keySet());
-			for (String derivedOres: infocenterKeys) {
-				EventAgency ea = infocenter.get(derivedOres);
-				int cnt = ea.getListenerCount();
-				// only add those with at least one current listener. Telling that a resource has no listeners is unneeded since we update 
-				// the whole table on each clusterInfoEvent (cluster:: could be improved by only sending the delta of listeners)
-				if (cnt > 0) {
-					bii.addEntry(derivedOres, cnt);
-				} else {
-					infocenter.remove(derivedOres);
-				}
-			}
-			infocenterKeys = null;
-			
-			// for all types: the name of the type is used as key
-			List<String> typeInfocenterKeys = new ArrayList<>(typeInfocenter.keySet());
-			for (String derivedOres: typeInfocenterKeys) {
-				EventAgency ea = typeInfocenter.get(derivedOres);
-				int cnt = ea.getListenerCount();
-				if (cnt > 0) {
-					bii.addEntry(derivedOres, cnt);
-				} else {
-					typeInfocenter.remove(derivedOres);
-				}
+		// for all types: the name of the type + "::"+ the id (integer) is used as key
+		addBusListenerInfo(bii, infocenter);
+		// for all types: the name of the type is used as key
+		addBusListenerInfo(bii, typeInfocenter);
+		return bii;
+	}
+	
+	private void addBusListenerInfo(BusListenerInfo bii, Map<String, EventAgency> agencies) {
+		List<String> derivedOresKeys = new ArrayList<>(agencies.keySet());
+		for (String derivedOres: derivedOresKeys) {
+			EventAgency ea = agencies.get(derivedOres);
+			int cnt = ea == null ? 0 : ea.getListenerCount();
+			// only add those with at least one current listener. Telling that a resource has no listeners is unneeded since we update 
+			// the whole table on each clusterInfoEvent (cluster:: could be improved by only sending the delta of listeners)
+			if (cnt > 0) {
+				bii.addEntry(derivedOres, cnt);
+			} else {
+				agencies.computeIfPresent(derivedOres, (key, agency) -> agency.getListenerCount() == 0 ? null : agency);
 			}
 		}
-		return bii;
 	}
 	
 	protected final int getLocalListeningIdentityCntFor(OLATResourceable ores) {
 		int cnt = 0;
 		final Long oresId = ores.getResourceableId();
 		final String typeName = ores.getResourceableTypeName();
-		synchronized (infocenter) { 
-			EventAgency ea = null;
-			if (oresId == null) {
-				ea = typeInfocenter.get(typeName);	
-			} else {
-				// type and id
-				String oresStr = typeName + "::" + oresId;
-				ea = infocenter.get(oresStr);
-			}
-			if (ea != null) {
-				cnt = ea.getListenerCount();
-			}
+		EventAgency ea = null;
+		if (oresId == null) {
+			ea = typeInfocenter.get(typeName);	
+		} else {
+			// type and id
+			String oresStr = typeName + "::" + oresId;
+			ea = infocenter.get(oresStr);
+		}
+		if (ea != null) {
+			cnt = ea.getListenerCount();
 		}
 		return cnt;
 	}
 	
 	/**
 	 * Description: <br>
-	 * The listeners map is not synchronized, but need to be. The synchronization
-	 * is done by the infocenter map. Make sure that you always access instances of
-	 * this class in a synchronized(infocenter).
+	 * The listeners are held in a weak map, the access to the map is synchronized
+	 * by the agency. The fire outs use a copy-on-write snapshot of weak references,
+	 * the snapshot is invalidated by every change and rebuilt by the next fire out.
 	 * 
 	 * @author Felix Jost
 	 * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
 	 */
 	private static class EventAgency {
-		private WeakHashMap<GenericEventListener, Long> listeners = new WeakHashMap<>();
+		private final WeakHashMap<GenericEventListener, Long> listeners = new WeakHashMap<>();
+		private volatile WeakReference<GenericEventListener>[] snapshot;
 		
 		/**
-		 * @param event
+		 * @return A snapshot of the listeners, the references can be cleared
 		 */
-		GenericEventListener[] getListeners() {
-			return listeners.keySet().toArray(new GenericEventListener[listeners.size()]);
+		WeakReference<GenericEventListener>[] getListeners() {
+			WeakReference<GenericEventListener>[] currentSnapshot = snapshot;
+			if(currentSnapshot == null) {
+				synchronized(this) {
+					currentSnapshot = snapshot;
+					if(currentSnapshot == null) {
+						currentSnapshot = createSnapshot();
+						snapshot = currentSnapshot;
+					}
+				}
+			}
+			return currentSnapshot;
+		}
+		
+		@SuppressWarnings("unchecked")
+		private WeakReference<GenericEventListener>[] createSnapshot() {
+			List<WeakReference<GenericEventListener>> refs = new ArrayList<>(listeners.size());
+			for(GenericEventListener listener:listeners.keySet()) {
+				if(listener != null) {
+					refs.add(new WeakReference<>(listener));
+				}
+			}
+			return refs.toArray(new WeakReference[refs.size()]);
 		}
 
 		/**
@@ -256,29 +263,30 @@ public abstract class AbstractEventBus implements EventBus {
 		 * are using a map, not a list.
 		 * 
 		 * @param gel the instance which wants to listen to events.
-		 * @param identity the identity belonging to the listener, or null if there is
-		 *          none (e.g. the LockManager = the 'System')
+		 * @param identityKey the key of the identity belonging to the listener, or null if
+		 *          there is none (e.g. the LockManager = the 'System')
 		 */
-		void addListener(GenericEventListener gel, Identity identity) {
+		synchronized void addListener(GenericEventListener gel, Long identityKey) {
 			if (!listeners.containsKey(gel)) {
-				Long identityKey = (identity != null? identity.getKey() : null);
 				listeners.put(gel, identityKey);
+				snapshot = null;
 			}
 		}
 
 		/**
 		 * @param gel
 		 */
-		void removeListener(GenericEventListener gel) {
+		synchronized void removeListener(GenericEventListener gel) {
 			listeners.remove(gel);
+			snapshot = null;
 		}
 		
 		/**
 		 * 
 		 * @return the current number of listeners listening to this channel/eventagency 
 		 */
-		int getListenerCount() {
+		synchronized int getListenerCount() {
 			return listeners.size();	
 		}
 	}
-}
\ No newline at end of file
+}
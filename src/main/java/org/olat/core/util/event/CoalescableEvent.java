@@ -0,0 +1,41 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.event;
+
+/**
+ * A multi user event which can be coalesced by the cluster event bus. If
+ * several events of the same class with the same coalescing key are fired
+ * to the same resource within the window of a batch, only the latest one
+ * is sent. Implement it only for notifications which the listeners can
+ * receive once instead of several times, like "something has changed,
+ * reload it".
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public interface CoalescableEvent {
+	
+	/**
+	 * @return A key which identifies the content of the event (must
+	 * 		implement equals and hashCode)
+	 */
+	public Object getCoalescingKey();
+
+}
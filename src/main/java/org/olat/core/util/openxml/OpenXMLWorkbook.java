@@ -68,7 +68,7 @@ public class OpenXMLWorkbook implements Closeable {
 
 	private List<OpenXMLWorksheet> worksheets = new ArrayList<>(10);
 	private final OpenXMLWorkbookStyles styles = new OpenXMLWorkbookStyles();
-	private OpenXMLWorkbookSharedStrings sharedStrings = new OpenXMLWorkbookSharedStrings();
+	private final OpenXMLWorkbookSharedStrings sharedStrings;
 	private final Filter xmlCharactersFilter = FilterFactory.getXMLValidCharacterFilter();
 	
 	private int currentId = 4;
@@ -79,8 +79,23 @@ public class OpenXMLWorkbook implements Closeable {
 	private OpenXMLWorksheet currentWorkSheet;
 	
 	public OpenXMLWorkbook(OutputStream outputStream, int numberOfWorksheet) {
+		this(outputStream, numberOfWorksheet, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * The shared strings are hold in memory until the workbook is closed. For
+	 * large exports, limit the size of the table: the strings above the limit
+	 * are written inline in the worksheets, directly in the output stream.
+	 * 
+	 * @param outputStream The output stream
+	 * @param numberOfWorksheet The number of worksheets
+	 * @param maxSharedStrings The maximum number of shared strings, 0 to
+	 * 		write all strings inline
+	 */
+	public OpenXMLWorkbook(OutputStream outputStream, int numberOfWorksheet, int maxSharedStrings) {
 		zout = new ZipOutputStream(outputStream);
 		zout.setLevel(9);
+		sharedStrings = new OpenXMLWorkbookSharedStrings(maxSharedStrings);
 		this.numberOfWorksheet = numberOfWorksheet;
 		for(int i=0; i<numberOfWorksheet; i++) {
 			worksheets.add(new OpenXMLWorksheet(generateId(), this, zout));
@@ -828,14 +843,7 @@ public class OpenXMLWorkbook implements Closeable {
 			
 			for (String sharedString: sharedStrings) {
 				writer.writeStartElement("si");
-				writer.writeStartElement("t");
-				String cleanedSharedString = xmlCharactersFilter.filter(sharedString);
-				if(cleanedSharedString.contains("<") || cleanedSharedString.contains(">")) {
-					writer.writeCData(cleanedSharedString);
-				} else {
-					writer.writeCharacters(cleanedSharedString);
-				}
-				writer.writeEndElement();
+				appendString(sharedString, writer);
 				writer.writeEndElement();
 			}
 			
@@ -847,6 +855,25 @@ public class OpenXMLWorkbook implements Closeable {
 		}
 	}
 	
+	/**
+	 * Write the t element with the string, used by the shared and the inline strings.
+	 * 
+	 * @param string The string
+	 * @param writer The writer
+	 * @throws XMLStreamException
+	 */
+	protected void appendString(String string, XMLStreamWriter writer)
+	throws XMLStreamException {
+		writer.writeStartElement("t");
+		String cleanedString = xmlCharactersFilter.filter(string);
+		if(cleanedString.contains("<") || cleanedString.contains(">")) {
+			writer.writeCData(cleanedString);
+		} else {
+			writer.writeCharacters(cleanedString);
+		}
+		writer.writeEndElement();
+	}
+	
 	private static final void appendTag(String tag, String characters, XMLStreamWriter writer)
 	throws XMLStreamException {
 		writer.writeStartElement(tag);
@@ -20,10 +20,15 @@
 package org.olat.core.util.openxml;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
+ * The table of shared strings. The strings are indexed in a hash map.
+ * The table can be limited, the strings which don't find place in
+ * the table are written inline in the worksheet.
  * 
  * Initial date: 25.04.2016<br>
  * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
@@ -31,24 +36,39 @@ import java.util.List;
  */
 public class OpenXMLWorkbookSharedStrings implements Iterable<String> {
 
+	private final int maxSize;
 	private final List<String> sharedStrings = new ArrayList<>();
+	private final Map<String,Integer> sharedStringsIndex = new HashMap<>();
 	
 	public OpenXMLWorkbookSharedStrings() {
-		sharedStrings.add("OpenOLAT");//prevent empty list
+		this(Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * @param maxSize The maximum number of shared strings
+	 */
+	public OpenXMLWorkbookSharedStrings(int maxSize) {
+		this.maxSize = Math.max(1, maxSize);
+		add("OpenOLAT");//prevent empty list
 	}
 	
 	/**
 	 * Add a shared string and return the index.
 	 * @param string
-	 * @return
+	 * @return The index of the string or -1 if the table is full
 	 */
 	public int add(String string) {
-		int index = sharedStrings.indexOf(string);
-		if(index < 0) {
-			sharedStrings.add(string);
-			index = sharedStrings.size() - 1;
+		Integer index = sharedStringsIndex.get(string);
+		if(index != null) {
+			return index.intValue();
 		}
-		return index;
+		if(sharedStrings.size() >= maxSize) {
+			return -1;
+		}
+		sharedStrings.add(string);
+		int newIndex = sharedStrings.size() - 1;
+		sharedStringsIndex.put(string, Integer.valueOf(newIndex));
+		return newIndex;
 	}
 
 	@Override
@@ -59,4 +79,8 @@ public class OpenXMLWorkbookSharedStrings implements Iterable<String> {
 	public int size() {
 		return sharedStrings.size();
 	}
+	
+	public int getMaxSize() {
+		return maxSize;
+	}
 }
@@ -64,6 +64,7 @@ public class OpenXMLWorksheet {
 	private Row row;
 	private int rowPosition = 0;
 	private Map<Integer,Integer> columnsWidth = new HashMap<>();
+	private final List<String> columnNames = new ArrayList<>(64);
 	
 	public OpenXMLWorksheet(String id, OpenXMLWorkbook workbook, ZipOutputStream zout) {
 		this.id = id;
@@ -126,12 +127,20 @@ public class OpenXMLWorksheet {
 				Cell cell = row.getCell(j);
 				if(cell != null && cell.getValue() != null) {
 					writer.writeStartElement("c");
-					writer.writeAttribute("r", getColumn(j).concat(rowId));
+					writer.writeAttribute("r", getColumnName(j).concat(rowId));
 					
 					CellStyle style = cell.getStyle();
 					if(style != null && style.getIndex() > 0) {
 						writer.writeAttribute("s", Integer.toString(style.getIndex()));
 					}
+					if(cell.getType() == OpenXMLCellType.inlineString) {
+						writer.writeAttribute("t", "inlineStr");
+						writer.writeStartElement("is");
+						workbook.appendString(cell.getValue().toString(), writer);
+						writer.writeEndElement();// end is
+						writer.writeEndElement();// end c
+						continue;
+					}
 					if(cell.getType() == OpenXMLCellType.sharedString) {
 						writer.writeAttribute("t", "s");
 					}
@@ -325,6 +334,17 @@ public class OpenXMLWorksheet {
                        - 460;      // leap days in previous 1900 years
         return 365 * (yr - (use1904windowing ? 1904 : 1900)) + leapDays;
     }
+	/**
+	 * @param c The column position, start with zero
+	 * @return The cached name of the column
+	 */
+	private String getColumnName(int c) {
+		for(int i=columnNames.size(); i<=c; i++) {
+			columnNames.add(getColumn(i));
+		}
+		return columnNames.get(c);
+	}
+    
 	/**
 	 * Thanks to POI project and the argument c is zero based.
 	 * @param c The column position, start with zero
@@ -378,6 +398,10 @@ public class OpenXMLWorksheet {
 				int sharedIndex = workbook.getSharedStrings().add(value);
 				if(sharedIndex >= 0) {
 					cell.setValue(sharedIndex);
+				} else {
+					// the table of shared strings is full
+					cell.setType(OpenXMLCellType.inlineString);
+					cell.setValue(value);
 				}
 			}
 			return cell;
@@ -26,16 +26,17 @@
 
 package org.olat.core.util.vfs;
 
+import java.io.File;
 import java.io.InputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
-import org.olat.core.gui.media.MediaResource;
+import org.olat.core.gui.media.FileBackedMediaResource;
 import org.olat.core.gui.media.ServletUtil;
 import org.olat.core.util.StringHelper;
 import org.olat.core.util.WebappHelper;
 
-public class VFSMediaResource implements MediaResource {
+public class VFSMediaResource implements FileBackedMediaResource {
 
 	private static final String MIME_TYPE_OCTET_STREAM = "application/octet-stream";
 	//use this pseudo mime-type to force download on ie 6
@@ -115,6 +116,29 @@ public class VFSMediaResource implements MediaResource {
 		return (lastModified == VFSConstants.UNDEFINED) ? null : Long.valueOf(lastModified);
 	}
 
+	@Override
+	public File getFile() {
+		VFSLeaf leaf = getLeaf();
+		if(leaf instanceof JavaIOItem) {
+			return ((JavaIOItem)leaf).getBasefile();
+		}
+		return null;
+	}
+
+	@Override
+	public String getETag() {
+		File file = getFile();
+		if(file == null) {
+			return null;
+		}
+		return ServletUtil.createETag(Integer.toHexString(file.getAbsolutePath().hashCode()), file.length(), file.lastModified());
+	}
+
+	@Override
+	public boolean isSendfileAllowed() {
+		return true;
+	}
+
 	@Override
 	public void prepare(HttpServletResponse hres) {
 		String filename = StringHelper.urlEncodeUTF8(getLeaf().getName());
@@ -0,0 +1,434 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.zip;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.vfs.JavaIOItem;
+import org.olat.core.util.vfs.VFSLeaf;
+
+/**
+ * A ZIP archive streamed to an output stream. The files are split in
+ * chunks which are deflated in parallel by the workers of the service,
+ * every chunk is deflated independently and ends with a sync. flush, the
+ * concatenation of the chunks is a valid deflate stream. The entries are
+ * written in order as soon as their chunks are ready. The memory used by
+ * the chunks in flight is limited, the caller writes the finished chunks
+ * before queuing new ones.
+ * <p>
+ * The already compressed files (images, videos, office documents...)
+ * are written with the level 0, no CPU is wasted to deflate them again.
+ * <p>
+ * A file which cannot be opened is not added and the archive goes on.
+ * An error while reading a file whose entry is already started aborts
+ * the archive: a truncated entry would pass the CRC checks of the
+ * extractors and hide the loss of data.
+ * <p>
+ * The archive is not thread-safe, it must be filled by a single thread.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ParallelZipArchive implements Closeable {
+	
+	private static final int CHUNK_OVERHEAD = 1024;
+	private static final Set<String> COMPRESSED_SUFFIXES = new HashSet<>(Arrays.asList(
+			"zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jar", "war", "epub",
+			"docx", "xlsx", "pptx", "odt", "ods", "odp", "odg",
+			"jpg", "jpeg", "png", "gif", "webp", "heic",
+			"mp3", "m4a", "aac", "ogg", "oga", "wma", "flac",
+			"mp4", "m4v", "mov", "avi", "mkv", "webm", "ogv", "flv", "wmv", "mpg", "mpeg",
+			"pdf"));
+	
+	private final ZipStreamWriter writer;
+	private final ExecutorService executor;
+	private final int level;
+	private final int chunkSize;
+	private final long maxMemory;
+	private final int maxPendingOperations;
+	
+	private long pendingMemory = 0l;
+	private final Deque<Operation> pendings = new ArrayDeque<>();
+	private boolean failed = false;
+	
+	ParallelZipArchive(OutputStream out, ExecutorService executor, int level, int chunkSize, long maxMemory, int maxPendingOperations) {
+		this.writer = new ZipStreamWriter(out);
+		this.executor = executor;
+		this.level = level;
+		this.chunkSize = chunkSize;
+		this.maxMemory = maxMemory;
+		this.maxPendingOperations = maxPendingOperations;
+	}
+	
+	/**
+	 * @param filename The name of a file
+	 * @return true if the format of the file is already compressed
+	 */
+	public static boolean isCompressed(String filename) {
+		return COMPRESSED_SUFFIXES.contains(FileUtils.getFileSuffix(filename).toLowerCase());
+	}
+	
+	/**
+	 * @return true if the archive is aborted, no entry can be added
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+	
+	public void addDirectory(String name, long lastModified) throws IOException {
+		enqueue(w -> w.writeDirectory(name, lastModified), 0l);
+	}
+	
+	/**
+	 * Add the content of a leaf. The files of the file system are read by
+	 * the workers, the other leafs by the caller.
+	 * 
+	 * @param name The name of the entry
+	 * @param leaf The leaf
+	 * @param extra The extra field of the entry (optional)
+	 * @throws IOException
+	 */
+	public void addLeaf(String name, VFSLeaf leaf, byte[] extra) throws IOException {
+		if(leaf instanceof JavaIOItem) {
+			File file = ((JavaIOItem)leaf).getBasefile();
+			if(file != null && file.isFile()) {
+				addFile(name, file, leaf.getLastModified(), extra);
+				return;
+			}
+		}
+		try(InputStream in = leaf.getInputStream()) {
+			if(in == null) {
+				throw new IOException("Cannot read " + name);
+			}
+			addStream(name, in, leaf.getLastModified(), extra);
+		}
+	}
+	
+	/**
+	 * Add the content of a file, read by the workers. A file which cannot
+	 * be opened is not added, a read error later aborts the archive.
+	 */
+	public void addFile(String name, File file, long lastModified, byte[] extra) throws IOException {
+		int fileLevel = isCompressed(name) ? Deflater.NO_COMPRESSION : level;
+		Path path = file.toPath();
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// check before the local header is written
+		}
+		
+		long length = file.length();
+		FileState state = new FileState();
+		enqueue(w -> w.beginFile(name, lastModified, extra), 0l);
+		
+		long offset = 0l;
+		do {
+			int len = (int)Math.min(chunkSize, length - offset);
+			boolean last = offset + len >= length;
+			long cost = 2l * len + CHUNK_OVERHEAD;
+			ensureCapacity(cost);
+			Future<Chunk> future = executor.submit(new FileChunkTask(path, offset, len, last, fileLevel));
+			enqueue(new ChunkOperation(state, future, cost), cost);
+			offset += len;
+		} while(offset < length);
+		
+		enqueue(w -> w.endFile(state.crc.getValue(), state.size), 0l);
+	}
+	
+	/**
+	 * Add the content of a stream, the stream is read by the caller
+	 * and left open. If the first chunk cannot be read, the stream
+	 * is not added; a read error later aborts the archive.
+	 */
+	public void addStream(String name, InputStream in, long lastModified, byte[] extra) throws IOException {
+		int streamLevel = isCompressed(name) ? Deflater.NO_COMPRESSION : level;
+		long cost = 2l * chunkSize + CHUNK_OVERHEAD;
+		ensureCapacity(cost);
+		byte[] data = new byte[chunkSize];
+		int len = readFully(in, data);
+		
+		FileState state = new FileState();
+		enqueue(w -> w.beginFile(name, lastModified, extra), 0l);
+		
+		boolean last = len < chunkSize;
+		enqueue(new ChunkOperation(state, executor.submit(new DeflateTask(data, len, last, streamLevel)), cost), cost);
+		while(!last) {
+			ensureCapacity(cost);
+			data = new byte[chunkSize];
+			try {
+				len = readFully(in, data);
+			} catch(IOException e) {
+				fail();
+				throw e;
+			}
+			last = len < chunkSize;
+			enqueue(new ChunkOperation(state, executor.submit(new DeflateTask(data, len, last, streamLevel)), cost), cost);
+		}
+		
+		enqueue(w -> w.endFile(state.crc.getValue(), state.size), 0l);
+	}
+	
+	private static int readFully(InputStream in, byte[] data) throws IOException {
+		int len = 0;
+		while(len < data.length) {
+			int read = in.read(data, len, data.length - len);
+			if(read < 0) {
+				break;
+			}
+			len += read;
+		}
+		return len;
+	}
+	
+	private void ensureCapacity(long cost) throws IOException {
+		while(!pendings.isEmpty() && (pendingMemory + cost > maxMemory || pendings.size() >= maxPendingOperations)) {
+			writeNext();
+		}
+	}
+	
+	private void enqueue(Operation operation, long cost) throws IOException {
+		if(failed) {
+			throw new IOException("ZIP archive failed");
+		}
+		if(pendings.size() >= maxPendingOperations) {
+			ensureCapacity(cost);
+		}
+		pendings.add(operation);
+		pendingMemory += cost;
+	}
+	
+	private void writeNext() throws IOException {
+		Operation operation = pendings.poll();
+		try {
+			operation.write(writer);
+		} catch(IOException | RuntimeException e) {
+			fail();
+			throw e;
+		} finally {
+			if(operation instanceof ChunkOperation) {
+				pendingMemory -= ((ChunkOperation)operation).cost;
+			}
+		}
+	}
+	
+	private void fail() {
+		failed = true;
+		for(Operation operation:pendings) {
+			if(operation instanceof ChunkOperation) {
+				((ChunkOperation)operation).future.cancel(true);
+			}
+		}
+		pendings.clear();
+		pendingMemory = 0l;
+	}
+
+	/**
+	 * Write the pending entries, the central directory and close the stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(failed) {
+			writer.abort();
+			return;
+		}
+		
+		try {
+			while(!pendings.isEmpty()) {
+				writeNext();
+			}
+			writer.close();
+		} catch(IOException | RuntimeException e) {
+			fail();
+			writer.abort();
+			throw e;
+		}
+	}
+	
+	private static Chunk deflate(byte[] input, int offset, int length, boolean last, int level) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			deflater.setInput(input, offset, length);
+			byte[] output = new byte[length + (length >> 10) + 64];
+			int outputLength = 0;
+			if(last) {
+				deflater.finish();
+				while(!deflater.finished()) {
+					if(outputLength == output.length) {
+						output = Arrays.copyOf(output, output.length * 2);
+					}
+					outputLength += deflater.deflate(output, outputLength, output.length - outputLength);
+				}
+			} else {
+				// the sync. flush ends the chunk on a byte boundary without final block
+				while(true) {
+					int available = output.length - outputLength;
+					int deflated = deflater.deflate(output, outputLength, available, Deflater.SYNC_FLUSH);
+					outputLength += deflated;
+					if(deflated < available) {
+						break;
+					}
+					output = Arrays.copyOf(output, output.length * 2);
+				}
+			}
+			return new Chunk(input, offset, length, output, outputLength);
+		} finally {
+			deflater.end();
+		}
+	}
+	
+	@FunctionalInterface
+	private interface Operation {
+		
+		public void write(ZipStreamWriter w) throws IOException;
+		
+	}
+	
+	private static class FileState {
+		
+		private final CRC32 crc = new CRC32();
+		private long size = 0l;
+		
+	}
+	
+	private static class ChunkOperation implements Operation {
+		
+		private final FileState state;
+		private final Future<Chunk> future;
+		private final long cost;
+		
+		public ChunkOperation(FileState state, Future<Chunk> future, long cost) {
+			this.state = state;
+			this.future = future;
+			this.cost = cost;
+		}
+		
+		@Override
+		public void write(ZipStreamWriter w) throws IOException {
+			Chunk chunk;
+			try {
+				chunk = future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while zipping");
+			} catch (ExecutionException e) {
+				// the entry is started, a truncated file must not look valid
+				if(e.getCause() instanceof IOException) {
+					throw (IOException)e.getCause();
+				}
+				throw new IOException(e.getCause());
+			}
+			
+			state.crc.update(chunk.input, chunk.inputOffset, chunk.inputLength);
+			state.size += chunk.inputLength;
+			w.writeDeflated(chunk.output, 0, chunk.outputLength);
+		}
+	}
+	
+	private static class Chunk {
+		
+		private final byte[] input;
+		private final int inputOffset;
+		private final int inputLength;
+		private final byte[] output;
+		private final int outputLength;
+		
+		public Chunk(byte[] input, int inputOffset, int inputLength, byte[] output, int outputLength) {
+			this.input = input;
+			this.inputOffset = inputOffset;
+			this.inputLength = inputLength;
+			this.output = output;
+			this.outputLength = outputLength;
+		}
+	}
+	
+	private static class FileChunkTask implements Callable<Chunk> {
+		
+		private final Path path;
+		private final long offset;
+		private final int length;
+		private final boolean last;
+		private final int level;
+		
+		public FileChunkTask(Path path, long offset, int length, boolean last, int level) {
+			this.path = path;
+			this.offset = offset;
+			this.length = length;
+			this.last = last;
+			this.level = level;
+		}
+
+		@Override
+		public Chunk call() throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				long position = offset;
+				while(buffer.hasRemaining()) {
+					int read = channel.read(buffer, position);
+					if(read < 0) {
+						// the file was truncated in the meantime, the entry would be short
+						throw new EOFException("File truncated while archived: " + path);
+					}
+					position += read;
+				}
+			}
+			return deflate(buffer.array(), 0, length, last, level);
+		}
+	}
+	
+	private static class DeflateTask implements Callable<Chunk> {
+		
+		private final byte[] data;
+		private final int length;
+		private final boolean last;
+		private final int level;
+		
+		public DeflateTask(byte[] data, int length, boolean last, int level) {
+			this.data = data;
+			this.length = length;
+			this.last = last;
+			this.level = level;
+		}
+
+		@Override
+		public Chunk call() {
+			return deflate(data, 0, length, last, level);
+		}
+	}
+}
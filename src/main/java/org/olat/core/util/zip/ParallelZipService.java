@@ -0,0 +1,93 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.zip;
+
+import java.io.OutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hold the bounded pool of workers which deflate the chunks of the
+ * ZIP archives streamed to the users (folders, course files...).
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class ParallelZipService implements InitializingBean, DisposableBean {
+	
+	private static final int CHUNK_SIZE = 1024 * 1024;
+	private static final int MIN_MEMORY = 4 * CHUNK_SIZE;
+	
+	@Value("${zip.parallel.threads:0}")
+	private int threads;
+	@Value("${zip.parallel.memory.per.request:16777216}")
+	private long memoryPerRequest;
+	
+	private ThreadPoolExecutor executor;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		int workers = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), new ZipThreadFactory());
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(executor != null) {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Open a new archive, the archive must be closed to write the
+	 * central directory. The output stream is closed with the archive.
+	 * 
+	 * @param out The output stream
+	 * @return The archive
+	 */
+	public ParallelZipArchive openArchive(OutputStream out) {
+		long maxMemory = Math.max(MIN_MEMORY, memoryPerRequest);
+		int maxPendingOperations = (int)Math.min(4096l, 4l * maxMemory / CHUNK_SIZE);
+		return new ParallelZipArchive(out, executor, Deflater.DEFAULT_COMPRESSION, CHUNK_SIZE, maxMemory, maxPendingOperations);
+	}
+	
+	private static class ZipThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "zip-deflate-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,358 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.zip;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipException;
+
+/**
+ * A minimal ZIP writer which accepts already deflated data. The files are
+ * written with the method DEFLATED and a data descriptor (the CRC and the
+ * sizes are written after the data), the directories are empty STORED
+ * entries. The names are encoded in UTF-8. The ZIP64 extensions are
+ * used only if needed (large files, archive or number of entries), like
+ * the ZipOutputStream of the JDK.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+class ZipStreamWriter implements Closeable {
+	
+	private static final int LOCSIG = 0x04034b50;
+	private static final int EXTSIG = 0x08074b50;
+	private static final int CENSIG = 0x02014b50;
+	private static final int ENDSIG = 0x06054b50;
+	private static final int ZIP64_ENDSIG = 0x06064b50;
+	private static final int ZIP64_LOCSIG = 0x07064b50;
+	
+	private static final long ZIP64_MAGICVAL = 0xFFFFFFFFl;
+	private static final int ZIP64_MAGICCOUNT = 0xFFFF;
+	private static final int ZIP64_EXTID = 0x0001;
+	
+	private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+	private static final int FLAG_UTF8 = 0x0800;
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+	private static final int VERSION_DEFAULT = 20;
+	private static final int VERSION_ZIP64 = 45;
+	private static final int DOS_DIRECTORY = 0x10;
+	
+	private final OutputStream out;
+	private long written = 0l;
+	private final byte[] buffer = new byte[8];
+	
+	private Entry current;
+	private boolean finished = false;
+	private final Set<String> names = new HashSet<>();
+	private final List<Entry> entries = new ArrayList<>();
+	
+	ZipStreamWriter(OutputStream out) {
+		this.out = new BufferedOutputStream(out, 65536);
+	}
+	
+	public void writeDirectory(String name, long lastModified) throws IOException {
+		Entry entry = new Entry(name.endsWith("/") ? name : name + "/", lastModified, null, METHOD_STORED);
+		addEntry(entry);
+		writeLocalHeader(entry);
+	}
+	
+	/**
+	 * Start a file, the data must be deflated (raw, without ZLIB header).
+	 * 
+	 * @param name The name of the entry
+	 * @param lastModified The last modification date
+	 * @param extra The extra field or null
+	 * @throws IOException
+	 */
+	public void beginFile(String name, long lastModified, byte[] extra) throws IOException {
+		if(current != null) {
+			throw new ZipException("Previous entry not closed: " + current.name);
+		}
+		Entry entry = new Entry(name, lastModified, extra, METHOD_DEFLATED);
+		addEntry(entry);
+		writeLocalHeader(entry);
+		current = entry;
+	}
+	
+	public void writeDeflated(byte[] data, int off, int len) throws IOException {
+		out.write(data, off, len);
+		written += len;
+		current.compressedSize += len;
+	}
+	
+	/**
+	 * Close the current file and write its data descriptor.
+	 * 
+	 * @param crc The CRC-32 of the uncompressed data
+	 * @param size The size of the uncompressed data
+	 * @throws IOException
+	 */
+	public void endFile(long crc, long size) throws IOException {
+		Entry entry = current;
+		current = null;
+		entry.crc = crc;
+		entry.size = size;
+		
+		writeInt(EXTSIG);
+		writeInt(crc);
+		if(entry.compressedSize >= ZIP64_MAGICVAL || entry.size >= ZIP64_MAGICVAL) {
+			writeLong(entry.compressedSize);
+			writeLong(entry.size);
+		} else {
+			writeInt(entry.compressedSize);
+			writeInt(entry.size);
+		}
+	}
+	
+	private void addEntry(Entry entry) throws IOException {
+		if(finished) {
+			throw new ZipException("ZIP already finished");
+		}
+		if(!names.add(entry.name)) {
+			throw new ZipException("duplicate entry: " + entry.name);
+		}
+		entry.offset = written;
+		entries.add(entry);
+	}
+	
+	private void writeLocalHeader(Entry entry) throws IOException {
+		boolean deflated = entry.method == METHOD_DEFLATED;
+		writeInt(LOCSIG);
+		writeShort(VERSION_DEFAULT);
+		writeShort(deflated ? FLAG_UTF8 | FLAG_DATA_DESCRIPTOR : FLAG_UTF8);
+		writeShort(entry.method);
+		writeInt(entry.dosTime);
+		// CRC and sizes are in the data descriptor or 0 for the directories
+		writeInt(0);
+		writeInt(0);
+		writeInt(0);
+		writeShort(entry.nameBytes.length);
+		writeShort(entry.extra == null ? 0 : entry.extra.length);
+		writeBytes(entry.nameBytes);
+		if(entry.extra != null) {
+			writeBytes(entry.extra);
+		}
+	}
+	
+	/**
+	 * Write the central directory and flush the stream.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if(finished) return;
+		if(current != null) {
+			throw new ZipException("Entry not closed: " + current.name);
+		}
+		finished = true;
+		
+		long centralOffset = written;
+		for(Entry entry:entries) {
+			writeCentralHeader(entry);
+		}
+		long centralSize = written - centralOffset;
+		int count = entries.size();
+		
+		boolean zip64 = count >= ZIP64_MAGICCOUNT || centralOffset >= ZIP64_MAGICVAL || centralSize >= ZIP64_MAGICVAL;
+		if(zip64) {
+			long zip64EndOffset = written;
+			writeInt(ZIP64_ENDSIG);
+			writeLong(44l);
+			writeShort(VERSION_ZIP64);
+			writeShort(VERSION_ZIP64);
+			writeInt(0);
+			writeInt(0);
+			writeLong(count);
+			writeLong(count);
+			writeLong(centralSize);
+			writeLong(centralOffset);
+			
+			writeInt(ZIP64_LOCSIG);
+			writeInt(0);
+			writeLong(zip64EndOffset);
+			writeInt(1);
+		}
+		
+		writeInt(ENDSIG);
+		writeShort(0);
+		writeShort(0);
+		writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+		writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+		writeInt(Math.min(centralSize, ZIP64_MAGICVAL));
+		writeInt(Math.min(centralOffset, ZIP64_MAGICVAL));
+		writeShort(0);
+		out.flush();
+	}
+	
+	private void writeCentralHeader(Entry entry) throws IOException {
+		boolean sizeOverflow = entry.size >= ZIP64_MAGICVAL;
+		boolean compressedSizeOverflow = entry.compressedSize >= ZIP64_MAGICVAL;
+		boolean offsetOverflow = entry.offset >= ZIP64_MAGICVAL;
+		boolean zip64 = sizeOverflow || compressedSizeOverflow || offsetOverflow;
+		
+		byte[] zip64Extra = null;
+		if(zip64) {
+			ByteArrayOutputStream extraOut = new ByteArrayOutputStream(28);
+			int length = (sizeOverflow ? 8 : 0) + (compressedSizeOverflow ? 8 : 0) + (offsetOverflow ? 8 : 0);
+			writeShort(extraOut, ZIP64_EXTID);
+			writeShort(extraOut, length);
+			if(sizeOverflow) {
+				writeLong(extraOut, entry.size);
+			}
+			if(compressedSizeOverflow) {
+				writeLong(extraOut, entry.compressedSize);
+			}
+			if(offsetOverflow) {
+				writeLong(extraOut, entry.offset);
+			}
+			zip64Extra = extraOut.toByteArray();
+		}
+		
+		int extraLength = (entry.extra == null ? 0 : entry.extra.length) + (zip64Extra == null ? 0 : zip64Extra.length);
+		boolean deflated = entry.method == METHOD_DEFLATED;
+		int version = zip64 ? VERSION_ZIP64 : VERSION_DEFAULT;
+		writeInt(CENSIG);
+		writeShort(version);
+		writeShort(version);
+		writeShort(deflated ? FLAG_UTF8 | FLAG_DATA_DESCRIPTOR : FLAG_UTF8);
+		writeShort(entry.method);
+		writeInt(entry.dosTime);
+		writeInt(entry.crc);
+		writeInt(Math.min(entry.compressedSize, ZIP64_MAGICVAL));
+		writeInt(Math.min(entry.size, ZIP64_MAGICVAL));
+		writeShort(entry.nameBytes.length);
+		writeShort(extraLength);
+		writeShort(0);// comment
+		writeShort(0);// disk number
+		writeShort(0);// internal attributes
+		writeInt(deflated ? 0 : DOS_DIRECTORY);
+		writeInt(Math.min(entry.offset, ZIP64_MAGICVAL));
+		writeBytes(entry.nameBytes);
+		if(zip64Extra != null) {
+			writeBytes(zip64Extra);
+		}
+		if(entry.extra != null) {
+			writeBytes(entry.extra);
+		}
+	}
+
+	/**
+	 * Close the stream without writing the central directory,
+	 * the archive is incomplete.
+	 */
+	public void abort() throws IOException {
+		finished = true;
+		out.close();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			out.close();
+		}
+	}
+	
+	private void writeShort(int v) throws IOException {
+		buffer[0] = (byte)(v & 0xff);
+		buffer[1] = (byte)((v >>> 8) & 0xff);
+		out.write(buffer, 0, 2);
+		written += 2;
+	}
+	
+	private void writeInt(long v) throws IOException {
+		for(int i=0; i<4; i++) {
+			buffer[i] = (byte)((v >>> (8 * i)) & 0xff);
+		}
+		out.write(buffer, 0, 4);
+		written += 4;
+	}
+	
+	private void writeLong(long v) throws IOException {
+		for(int i=0; i<8; i++) {
+			buffer[i] = (byte)((v >>> (8 * i)) & 0xff);
+		}
+		out.write(buffer, 0, 8);
+		written += 8;
+	}
+	
+	private void writeBytes(byte[] bytes) throws IOException {
+		out.write(bytes, 0, bytes.length);
+		written += bytes.length;
+	}
+	
+	private static void writeShort(OutputStream stream, int v) throws IOException {
+		stream.write(v & 0xff);
+		stream.write((v >>> 8) & 0xff);
+	}
+	
+	private static void writeLong(OutputStream stream, long v) throws IOException {
+		for(int i=0; i<8; i++) {
+			stream.write((int)((v >>> (8 * i)) & 0xff));
+		}
+	}
+	
+	/**
+	 * Same conversion as the ZIP implementation of the JDK.
+	 */
+	private static int toDosTime(long time) {
+		LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		int year = date.getYear() - 1980;
+		if (year < 0) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (year << 25) | (date.getMonthValue() << 21) | (date.getDayOfMonth() << 16)
+				| (date.getHour() << 11) | (date.getMinute() << 5) | (date.getSecond() >> 1);
+	}
+	
+	private static class Entry {
+		
+		private final String name;
+		private final byte[] nameBytes;
+		private final byte[] extra;
+		private final int method;
+		private final int dosTime;
+		private long offset;
+		private long crc;
+		private long size;
+		private long compressedSize;
+		
+		public Entry(String name, long lastModified, byte[] extra, int method) {
+			this.name = name;
+			this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+			this.extra = extra == null || extra.length == 0 || extra.length > 0xFFFF ? null : extra;
+			this.method = method;
+			this.dosTime = toDosTime(lastModified < 0l ? System.currentTimeMillis() : lastModified);
+		}
+	}
+}
@@ -0,0 +1,280 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.olat.core.helpers.Settings;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+
+/**
+ * A binary snapshot of the run structure or of the editor tree model,
+ * saved next to the XML file. It's the Java serialization of the
+ * structure with a header which holds:
+ * <ul>
+ * 	<li>a magic number and the version of the format</li>
+ * 	<li>the version and the build of OpenOLAT, the classes can change
+ * 		with every release</li>
+ * 	<li>the length and the SHA-256 hash of the XML file</li>
+ * </ul>
+ * The snapshot is only used if the header matches the XML file. The XML
+ * file stays the reference, the snapshot can be deleted at any time.
+ * <p>
+ * Only the classes of the course structures can be deserialized, every
+ * other class is rejected and the course falls back to the XML file. The
+ * snapshots are never trusted from an import, see {@link #deleteSnapshots(File)}.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class CourseBinarySnapshot {
+
+	private static final OLog log = Tracing.createLoggerFor(CourseBinarySnapshot.class);
+
+	private static final int MAGIC = 0x4F4C4353;
+	private static final int FORMAT_VERSION = 2;
+	private static final int HASH_LENGTH = 32;
+	
+	private static final String[] SNAPSHOT_FILE_NAMES = { "runstructure.bin", "editortreemodel.bin" };
+	/**
+	 * The course nodes with the models of their configurations, the conditions
+	 * and the nodes of the editor tree.
+	 */
+	private static final String[] ALLOWED_PACKAGES = {
+		"org.olat.course.nodes.", "org.olat.course.condition.", "org.olat.course.tree.",
+		"de.bps.course.nodes.", "de.bps.olat.modules.cl."
+	};
+	private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+		"org.olat.course.Structure", "org.olat.course.run.scoring.ScoreCalculator",
+		"org.olat.course.run.scoring.FailedEvaluationType", "org.olat.modules.ModuleConfiguration",
+		"org.olat.modules.edubase.model.BookSectionImpl", "org.olat.core.gui.control.generic.iframe.DeliveryOptions",
+		"org.olat.core.util.nodes.GenericNode", "org.olat.core.gui.components.tree.GenericTreeNode",
+		"org.olat.core.gui.components.tree.GenericTreeModel", "org.olat.core.commons.persistence.PersistentObject",
+		// the old checklists were saved with the collections of Hibernate
+		"org.hibernate.collection.internal.PersistentBag", "org.hibernate.collection.internal.AbstractPersistentCollection",
+		"java.lang.String", "java.lang.Boolean", "java.lang.Byte", "java.lang.Character",
+		"java.lang.Short", "java.lang.Integer", "java.lang.Long", "java.lang.Float",
+		"java.lang.Double", "java.lang.Number", "java.lang.Enum",
+		"java.math.BigDecimal", "java.math.BigInteger",
+		"java.util.ArrayList", "java.util.LinkedList", "java.util.Vector", "java.util.Arrays$ArrayList",
+		"java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.Hashtable",
+		"java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+		"java.util.Collections$EmptyList", "java.util.Collections$EmptyMap", "java.util.Collections$EmptySet",
+		"java.util.Collections$SingletonList", "java.util.Collections$SingletonMap", "java.util.Collections$SingletonSet",
+		"java.util.Collections$UnmodifiableCollection", "java.util.Collections$UnmodifiableList",
+		"java.util.Collections$UnmodifiableRandomAccessList", "java.util.Collections$UnmodifiableMap",
+		"java.util.Collections$UnmodifiableSet", "java.util.Collections$SynchronizedCollection",
+		"java.util.Collections$SynchronizedList", "java.util.Collections$SynchronizedRandomAccessList",
+		"java.util.Collections$SynchronizedMap", "java.util.Collections$SynchronizedSet",
+		"java.util.Date", "java.util.Locale", "java.util.UUID", "java.sql.Timestamp"
+	));
+
+	private final File xmlFile;
+	private final File snapshotFile;
+
+	public CourseBinarySnapshot(File courseBaseDir, String xmlFileName) {
+		xmlFile = new File(courseBaseDir, xmlFileName);
+		snapshotFile = new File(courseBaseDir, getSnapshotFileName(xmlFileName));
+	}
+
+	public static String getSnapshotFileName(String xmlFileName) {
+		String name = xmlFileName.endsWith(".xml")
+				? xmlFileName.substring(0, xmlFileName.length() - 4) : xmlFileName;
+		return name + ".bin";
+	}
+
+	public File getSnapshotFile() {
+		return snapshotFile;
+	}
+	
+	/**
+	 * Delete the snapshots of the course structures. Call it after an import,
+	 * the snapshots of an archive are never trusted.
+	 * 
+	 * @param courseBaseDir The base directory of the course
+	 */
+	public static void deleteSnapshots(File courseBaseDir) {
+		for(String snapshotFileName:SNAPSHOT_FILE_NAMES) {
+			FileUtils.deleteQuietly(new File(courseBaseDir, snapshotFileName));
+		}
+	}
+
+	/**
+	 * @return The structure if the snapshot exists and matches the XML file, or null
+	 */
+	public Object read() {
+		if(!snapshotFile.exists() || !xmlFile.exists()) {
+			return null;
+		}
+
+		try(InputStream in = new BufferedInputStream(Files.newInputStream(snapshotFile.toPath()), 65536);
+				ObjectInputStream oin = new CourseObjectInputStream(in)) {
+			if(oin.readInt() != MAGIC || oin.readInt() != FORMAT_VERSION
+					|| !getVersion().equals(oin.readUTF())) {
+				log.info("Course snapshot of another version: " + snapshotFile);
+				return null;
+			}
+			long xmlLength = oin.readLong();
+			int hashLength = oin.readInt();
+			if(hashLength != HASH_LENGTH) {
+				return null;
+			}
+			byte[] xmlHash = new byte[hashLength];
+			oin.readFully(xmlHash);
+			if(xmlLength != xmlFile.length() || !MessageDigest.isEqual(xmlHash, hash(xmlFile))) {
+				log.info("Course snapshot doesn't match the XML file: " + snapshotFile);
+				return null;
+			}
+			return oin.readObject();
+		} catch (IOException | ClassNotFoundException | RuntimeException e) {
+			log.warn("Cannot read the course snapshot: " + snapshotFile, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Write the snapshot of the structure which was just written in
+	 * the XML file. The snapshot is written in a temporary file and
+	 * moved at the end.
+	 *
+	 * @param structure The run structure or the editor tree model
+	 * @return true if the snapshot was successfully written
+	 */
+	public boolean write(Object structure) {
+		File tmpFile = null;
+		try {
+			// the course can be loaded at the same time on several nodes
+			tmpFile = File.createTempFile(snapshotFile.getName(), ".tmp", snapshotFile.getParentFile());
+			long xmlLength = xmlFile.length();
+			byte[] xmlHash = hash(xmlFile);
+			try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath()), 65536);
+					ObjectOutputStream oout = new ObjectOutputStream(out)) {
+				oout.writeInt(MAGIC);
+				oout.writeInt(FORMAT_VERSION);
+				oout.writeUTF(getVersion());
+				oout.writeLong(xmlLength);
+				oout.writeInt(xmlHash.length);
+				oout.write(xmlHash);
+				oout.writeObject(structure);
+			}
+
+			try {
+				Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Cannot write the course snapshot: " + snapshotFile, e);
+			if(tmpFile != null) {
+				FileUtils.deleteQuietly(tmpFile);
+			}
+			delete();
+			return false;
+		}
+	}
+
+	public void delete() {
+		FileUtils.deleteQuietly(snapshotFile);
+	}
+
+	private static String getVersion() {
+		return Settings.getFullVersionInfo();
+	}
+
+	private static byte[] hash(File file) throws IOException {
+		try(InputStream in = Files.newInputStream(file.toPath())) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[65536];
+			int read;
+			while((read = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, read);
+			}
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+	
+	private static boolean isAllowed(String className) {
+		String name = className;
+		while(name.startsWith("[")) {
+			name = name.substring(1);
+		}
+		if(name.length() == 1) {
+			// array of primitives
+			return true;
+		}
+		if(name.startsWith("L") && name.endsWith(";")) {
+			name = name.substring(1, name.length() - 1);
+		}
+		if(ALLOWED_CLASSES.contains(name)) {
+			return true;
+		}
+		for(String allowedPackage:ALLOWED_PACKAGES) {
+			if(name.startsWith(allowedPackage)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Only resolve the classes of the allow-list.
+	 */
+	private static class CourseObjectInputStream extends ObjectInputStream {
+		
+		public CourseObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if(!isAllowed(desc.getName())) {
+				throw new InvalidClassException(desc.getName(), "Class not allowed in a course snapshot");
+			}
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+			throw new InvalidClassException("Proxy classes are not allowed in a course snapshot");
+		}
+	}
+}
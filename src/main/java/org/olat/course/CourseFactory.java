@@ -556,6 +556,8 @@ public class CourseFactory {
 		LocalFolderImpl courseBaseContainer = newCourse.getCourseBaseContainer();
 		File fCanonicalCourseBasePath = courseBaseContainer.getBasefile();
 		if (ZipUtil.unzip(zipFile, fCanonicalCourseBasePath)) {
+			// never trust the binary snapshots of an archive, load the XML files
+			CourseBinarySnapshot.deleteSnapshots(fCanonicalCourseBasePath);
 			// Load course strucure now
 			try {
 				newCourse.load();
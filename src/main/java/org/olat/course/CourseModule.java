@@ -67,6 +67,8 @@ public class CourseModule extends AbstractSpringModule {
 	private boolean displayInfoBox;
 	@Value("${course.display.changelog}")
 	private boolean displayChangeLog;
+	@Value("${course.binary.snapshot.enabled:false}")
+	private boolean binarySnapshotEnabled;
 	
 	// Repository types
 	public static final String ORES_TYPE_COURSE = OresHelper.calculateTypeName(CourseModule.class);
@@ -206,6 +208,19 @@ public class CourseModule extends AbstractSpringModule {
 		this.displayChangeLog = enabled;
 		setStringProperty(COURSE_DISPLAY_CHANGELOG, Boolean.toString(enabled), true);
 	}
+
+	/**
+	 * @return true if the run structure and the editor tree model are
+	 * 		saved as binary snapshots next to the XML files and loaded
+	 * 		from them when they are up-to-date
+	 */
+	public boolean isBinarySnapshotEnabled() {
+		return binarySnapshotEnabled;
+	}
+
+	public void setBinarySnapshotEnabled(boolean enabled) {
+		this.binarySnapshotEnabled = enabled;
+	}
 	
 	
 }
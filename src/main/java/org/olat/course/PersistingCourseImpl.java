@@ -277,6 +277,7 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 	 * Save the run structure to disk, persist to the xml file
 	 */
 	void saveRunStructure() {
+		getRunStructure().resetExpressionCache();
 		writeObject(RUNSTRUCTURE_XML, getRunStructure());
 		log.debug("saveRunStructure");
 	}
@@ -429,12 +430,12 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 		 * the constructor !
 		 */
 		Object obj;
-		obj = readObject(RUNSTRUCTURE_XML);
+		obj = readObject(RUNSTRUCTURE_XML, Structure.class);
 		if (!(obj instanceof Structure)) throw new AssertException("Error reading course run structure.");
 		runStructure = (Structure) obj;
 		initHasAssessableNodes();
 		
-		obj = readObject(EDITORTREEMODEL_XML);
+		obj = readObject(EDITORTREEMODEL_XML, CourseEditorTreeModel.class);
 		if (!(obj instanceof CourseEditorTreeModel)) throw new AssertException("Error reading course editor tree model.");
 		editorTreeModel = (CourseEditorTreeModel) obj;	
 	}
@@ -458,23 +459,47 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 		}
 		XStream xstream = CourseXStreamAliases.getWriteCourseXStream();
 		XStreamHelper.writeObject(xstream, vfsItem, obj);
+		
+		CourseBinarySnapshot snapshot = new CourseBinarySnapshot(getCourseBaseContainer().getBasefile(), fileName);
+		if(CoreSpringFactory.getImpl(CourseModule.class).isBinarySnapshotEnabled()) {
+			snapshot.write(obj);
+		} else {
+			snapshot.delete();
+		}
 	}
 
 	/**
-	 * Read a structure from XML file within the course base path folder.
+	 * Read a structure from the binary snapshot if enabled and up-to-date,
+	 * else from the XML file within the course base path folder. The snapshot
+	 * is (re)written after a successful read of the XML file.
 	 * 
 	 * @param fileName
+	 * @param type The expected type of the structure
 	 * @return de-serialized object
 	 * @throws OLATRuntimeException if de-serialization fails.
 	 */
-	private Object readObject(String fileName) {
+	private Object readObject(String fileName, Class<?> type) {
 		VFSItem vfsItem = getCourseBaseContainer().resolve(fileName);
 		if (!(vfsItem instanceof VFSLeaf)) {
 			throw new CorruptedCourseException("Cannot resolve file: " + fileName + " course=" + toString());
 		}
+		
+		CourseBinarySnapshot snapshot = null;
+		if(CoreSpringFactory.getImpl(CourseModule.class).isBinarySnapshotEnabled()) {
+			snapshot = new CourseBinarySnapshot(getCourseBaseContainer().getBasefile(), fileName);
+			Object obj = snapshot.read();
+			if(type.isInstance(obj)) {
+				return obj;
+			}
+		}
+		
 		try {
 			XStream xstream = CourseXStreamAliases.getReadCourseXStream();
-			return XStreamHelper.readObject(xstream, (VFSLeaf)vfsItem);
+			Object obj = XStreamHelper.readObject(xstream, (VFSLeaf)vfsItem);
+			if(snapshot != null && type.isInstance(obj)) {
+				snapshot.write(obj);
+			}
+			return obj;
 		} catch (Exception e) {
 			log.error("Cannot read course tree file: " + fileName, e);
 			throw new CorruptedCourseException("Cannot resolve file: " + fileName + " course=" + toString(), e);
@@ -27,6 +27,7 @@ package org.olat.course;
 
 import java.io.Serializable;
 
+import org.olat.course.condition.interpreter.ConditionExpressionCache;
 import org.olat.course.nodes.CourseNode;
 
 /**
@@ -41,6 +42,7 @@ public class Structure implements Serializable {
 	private CourseNode rootNode = null;
 	transient private final static int CURRENTVERSION = 3;
 	private int version;
+	private transient volatile ConditionExpressionCache expressionCache;
 	
 
 	/**
@@ -65,6 +67,34 @@ public class Structure implements Serializable {
 		rootNode = node;
 	}
 
+	/**
+	 * @return The compiled conditions and calculations of this structure
+	 */
+	public ConditionExpressionCache getExpressionCache() {
+		ConditionExpressionCache cache = expressionCache;
+		if(cache == null) {
+			synchronized(this) {
+				cache = expressionCache;
+				if(cache == null) {
+					cache = new ConditionExpressionCache();
+					expressionCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+	
+	/**
+	 * Drop the compiled conditions and calculations, the structure
+	 * was changed (published).
+	 */
+	public void resetExpressionCache() {
+		ConditionExpressionCache cache = expressionCache;
+		if(cache != null) {
+			cache.clear();
+		}
+	}
+
 	/**
 	 * Searches for a course node with the given node id starting at the root node
 	 * 
@@ -30,6 +30,7 @@ import java.util.List;
 
 import org.olat.core.id.Identity;
 import org.olat.core.logging.AssertException;
+import org.olat.core.util.event.CoalescableEvent;
 import org.olat.core.util.event.MultiUserEvent;
 
 /**
@@ -39,7 +40,7 @@ import org.olat.core.util.event.MultiUserEvent;
  *
  * @author gnaegi 
  */
-public class AssessmentChangedEvent extends MultiUserEvent {
+public class AssessmentChangedEvent extends MultiUserEvent implements CoalescableEvent {
 
 	private static final long serialVersionUID = 4656566906763550944L;
 	/** Changed attempts value **/
@@ -83,6 +84,11 @@ public class AssessmentChangedEvent extends MultiUserEvent {
 		return identityKey;
 	}
 	
+	@Override
+	public Object getCoalescingKey() {
+		return getCommand() + ":" + identityKey;
+	}
+	
 	public String toString() {
 		return "assesstype:"+getCommand()+", for identity with key:"+identityKey;
 	}
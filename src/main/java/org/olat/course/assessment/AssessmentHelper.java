@@ -65,6 +65,7 @@ import org.olat.course.run.userview.UserCourseEnvironmentImpl;
 import org.olat.course.tree.CourseEditorTreeModel;
 import org.olat.course.tree.CourseEditorTreeNode;
 import org.olat.modules.ModuleConfiguration;
+import org.olat.modules.assessment.AssessmentEntry;
 
 /**
  * Description:<br>
@@ -183,6 +184,24 @@ public class AssessmentHelper {
 		return uce;
 	}
 
+	/**
+	 * Same as createInitAndUpdateUserCourseEnvironment but with the
+	 * assessment entries of the user already loaded.
+	 * 
+	 * @param identity The assessed identity
+	 * @param course The course
+	 * @param assessmentEntries All the assessment entries of the identity in the course
+	 * @return Initialized and updated user course environment
+	 */
+	public static UserCourseEnvironment createInitAndUpdateUserCourseEnvironment(Identity identity, ICourse course,
+			List<AssessmentEntry> assessmentEntries) {
+		IdentityEnvironment ienv = new IdentityEnvironment(); 
+		ienv.setIdentity(identity);
+		UserCourseEnvironment uce = new UserCourseEnvironmentImpl(ienv, course.getCourseEnvironment());
+		uce.getScoreAccounting().evaluateAll(true, assessmentEntries);
+		return uce;
+	}
+
 	/**
 	 * Create a user course environment for the given user and course. After
 	 * creation, the users score accounting will be initialized.
@@ -109,7 +109,13 @@ public class EfficiencyStatementAssessmentController extends FormBasicController
 			if(EfficiencyStatementEvent.CMD_FINISHED.equals(event.getCommand())
 					&& ores.getResourceableId().equals(e.getCourseResourceId())) {
 				flc.contextPut("recalculating", Boolean.FALSE);
+				flc.contextRemove("recalculatingProgress");
 				showInfo("efficiencystatement.recalculate.finished");
+			} else if(EfficiencyStatementEvent.CMD_PROGRESS.equals(event.getCommand())
+					&& ores.getResourceableId().equals(e.getCourseResourceId())) {
+				String progress = translate("efficiencystatement.recalculate.progress",
+						Integer.toString(e.getDone()), Integer.toString(e.getTotal()));
+				flc.contextPut("recalculatingProgress", progress);
 			}
 		}
 	}
@@ -30,16 +30,39 @@ public class EfficiencyStatementEvent extends MultiUserEvent {
 	private static final long serialVersionUID = 5909863438474123648L;
 
 	private Long courseResourceId;
+	private int done;
+	private int total;
 	
 	public static final String CMD_RECALCULATE = "recalculate";
+	public static final String CMD_PROGRESS = "recalculate.progress";
 	public static final String CMD_FINISHED = "recalculate.finished";
 
 	public EfficiencyStatementEvent(String cmd, Long courseResourceId) {
 		super(cmd);
 		this.courseResourceId = courseResourceId;	
 	}
+	
+	public EfficiencyStatementEvent(String cmd, Long courseResourceId, int done, int total) {
+		this(cmd, courseResourceId);
+		this.done = done;
+		this.total = total;
+	}
 
 	public Long getCourseResourceId() {
 		return courseResourceId;
 	}
+
+	/**
+	 * @return The number of users already recalculated (only for progress events)
+	 */
+	public int getDone() {
+		return done;
+	}
+
+	/**
+	 * @return The number of users to recalculate (only for progress events)
+	 */
+	public int getTotal() {
+		return total;
+	}
 }
@@ -26,14 +26,30 @@
 package org.olat.course.assessment.manager;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
 import org.olat.basesecurity.IdentityRef;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.persistence.DBFactory;
@@ -42,6 +58,7 @@ import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.StringHelper;
+import org.olat.core.util.async.ProgressDelegate;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.coordinate.SyncerExecutor;
 import org.olat.core.util.resource.OresHelper;
@@ -60,8 +77,11 @@ import org.olat.course.assessment.model.UserEfficiencyStatementImpl;
 import org.olat.course.assessment.model.UserEfficiencyStatementLight;
 import org.olat.course.assessment.model.UserEfficiencyStatementStandalone;
 import org.olat.course.config.CourseConfig;
+import org.olat.course.nodes.CourseNode;
 import org.olat.course.run.environment.CourseEnvironment;
 import org.olat.course.run.userview.UserCourseEnvironment;
+import org.olat.modules.assessment.AssessmentEntry;
+import org.olat.modules.assessment.manager.AssessmentEntryDAO;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.RepositoryEntryRef;
 import org.olat.repository.model.RepositoryEntryRefImpl;
@@ -71,6 +91,7 @@ import org.olat.user.UserDataExportable;
 import org.olat.user.UserManager;
 import org.olat.user.manager.ManifestBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.thoughtworks.xstream.XStream;
@@ -97,6 +118,17 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 	private DB dbInstance;
 	@Autowired
 	private UserManager userManager;
+	@Autowired
+	private AssessmentEntryDAO assessmentEntryDao;
+	
+	@Value("${efficiencystatement.bulk.enabled:true}")
+	private boolean bulkEnabled;
+	@Value("${efficiencystatement.bulk.threshold:20}")
+	private int bulkThreshold;
+	@Value("${efficiencystatement.bulk.workers:2}")
+	private int bulkWorkers;
+	@Value("${efficiencystatement.bulk.chunk.size:50}")
+	private int bulkChunkSize;
 	
 	private final XStream xstream = XStreamHelper.createXStreamInstance();
 
@@ -185,38 +217,14 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 	public void updateUserEfficiencyStatement(Identity assessedIdentity, final CourseEnvironment courseEnv,
 			List<AssessmentNodeData> assessmentNodeList, AssessmentNodesLastModified lastModifications, final RepositoryEntry repoEntry) {
 		List<Map<String,Object>> assessmentNodes = AssessmentHelper.assessmentNodeDataListToMap(assessmentNodeList);
-			
-		EfficiencyStatement efficiencyStatement = new EfficiencyStatement();
-		efficiencyStatement.setAssessmentNodes(assessmentNodes);
-		efficiencyStatement.setCourseTitle(courseEnv.getCourseTitle());
-		efficiencyStatement.setCourseRepoEntryKey(repoEntry.getKey());
-		String userInfos = userManager.getUserDisplayName(assessedIdentity);
-		efficiencyStatement.setDisplayableUserInfo(userInfos);
-		efficiencyStatement.setLastUpdated(System.currentTimeMillis());
-		if(lastModifications != null) {
-			if(lastModifications.getLastUserModified() != null) {
-				efficiencyStatement.setLastUserModified(lastModifications.getLastUserModified().getTime());
-			}
-			if(lastModifications.getLastCoachModified() != null) {
-				efficiencyStatement.setLastCoachModified(lastModifications.getLastCoachModified().getTime());
-			}
-		}
+		EfficiencyStatement efficiencyStatement = createEfficiencyStatement(assessedIdentity, courseEnv, assessmentNodes, lastModifications, repoEntry);
 		
 		boolean debug = log.isDebug();
 		UserEfficiencyStatementImpl efficiencyProperty = getUserEfficiencyStatementFull(repoEntry, assessedIdentity);
 		if (assessmentNodes != null) {				
 			if (efficiencyProperty == null) {
 				// create new
-				efficiencyProperty = new UserEfficiencyStatementImpl();
-				efficiencyProperty.setCreationDate(new Date());
-				efficiencyProperty.setIdentity(assessedIdentity);
-				efficiencyProperty.setCourseRepoKey(repoEntry.getKey());
-				if(repoEntry != null) {
-					efficiencyProperty.setResource(repoEntry.getOlatResource());
-					efficiencyProperty.setCourseRepoKey(repoEntry.getKey());
-				}
-				efficiencyProperty.setShortTitle(courseEnv.getRunStructure().getRootNode().getShortTitle());
-				efficiencyProperty.setTitle(courseEnv.getRunStructure().getRootNode().getLongTitle());
+				efficiencyProperty = createUserEfficiencyStatement(assessedIdentity, courseEnv, repoEntry);
 				fillEfficiencyStatement(efficiencyStatement, lastModifications, efficiencyProperty);
 				dbInstance.getCurrentEntityManager().persist(efficiencyProperty);
 				if (debug) {
@@ -249,6 +257,37 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 		CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(ace, courseOres);
 	}
 	
+	private EfficiencyStatement createEfficiencyStatement(Identity assessedIdentity, CourseEnvironment courseEnv,
+			List<Map<String,Object>> assessmentNodes, AssessmentNodesLastModified lastModifications, RepositoryEntry repoEntry) {
+		EfficiencyStatement efficiencyStatement = new EfficiencyStatement();
+		efficiencyStatement.setAssessmentNodes(assessmentNodes);
+		efficiencyStatement.setCourseTitle(courseEnv.getCourseTitle());
+		efficiencyStatement.setCourseRepoEntryKey(repoEntry.getKey());
+		String userInfos = userManager.getUserDisplayName(assessedIdentity);
+		efficiencyStatement.setDisplayableUserInfo(userInfos);
+		efficiencyStatement.setLastUpdated(System.currentTimeMillis());
+		if(lastModifications != null) {
+			if(lastModifications.getLastUserModified() != null) {
+				efficiencyStatement.setLastUserModified(lastModifications.getLastUserModified().getTime());
+			}
+			if(lastModifications.getLastCoachModified() != null) {
+				efficiencyStatement.setLastCoachModified(lastModifications.getLastCoachModified().getTime());
+			}
+		}
+		return efficiencyStatement;
+	}
+	
+	private UserEfficiencyStatementImpl createUserEfficiencyStatement(Identity assessedIdentity, CourseEnvironment courseEnv, RepositoryEntry repoEntry) {
+		UserEfficiencyStatementImpl efficiencyProperty = new UserEfficiencyStatementImpl();
+		efficiencyProperty.setCreationDate(new Date());
+		efficiencyProperty.setIdentity(assessedIdentity);
+		efficiencyProperty.setResource(repoEntry.getOlatResource());
+		efficiencyProperty.setCourseRepoKey(repoEntry.getKey());
+		efficiencyProperty.setShortTitle(courseEnv.getRunStructure().getRootNode().getShortTitle());
+		efficiencyProperty.setTitle(courseEnv.getRunStructure().getRootNode().getLongTitle());
+		return efficiencyProperty;
+	}
+	
 	public void fillEfficiencyStatement(EfficiencyStatement efficiencyStatement, AssessmentNodesLastModified lastModifications, UserEfficiencyStatementImpl efficiencyProperty) {
 		if(lastModifications != null) {
 			if(lastModifications.getLastUserModified() != null
@@ -389,6 +428,31 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 		return statement.get(0);
 	}
 	
+	/**
+	 * Load the efficiency statements of a course with their resource.
+	 * 
+	 * @param courseRepoEntry The course (mandatory)
+	 * @param identityKeys Restrict the statements to these identities (optional)
+	 * @return A list of efficiency statements
+	 */
+	public List<UserEfficiencyStatementImpl> getUserEfficiencyStatementsFull(RepositoryEntryRef courseRepoEntry, List<Long> identityKeys) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select statement from effstatement as statement ")
+		  .append(" left join fetch statement.resource as resource")
+		  .append(" where statement.courseRepoKey=:repoKey");
+		if(identityKeys != null && !identityKeys.isEmpty()) {
+			sb.append(" and statement.identity.key in (:identityKeys)");
+		}
+
+		TypedQuery<UserEfficiencyStatementImpl> query = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), UserEfficiencyStatementImpl.class)
+				.setParameter("repoKey", courseRepoEntry.getKey());
+		if(identityKeys != null && !identityKeys.isEmpty()) {
+			query.setParameter("identityKeys", identityKeys);
+		}
+		return query.getResultList();
+	}
+	
 	public boolean hasUserEfficiencyStatement(Long courseRepoEntryKey, IdentityRef identity) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("select statement.key from effstatementlight as statement")
@@ -736,32 +800,389 @@ public class EfficiencyStatementManager implements UserDataDeletable, UserDataEx
 	 * false: always create new one (be careful with this one!)
 	 */	
 	public void updateEfficiencyStatements(final RepositoryEntry courseEntry, List<Identity> identities) {
+		updateEfficiencyStatements(courseEntry, identities, null);
+	}
+	
+	/**
+	 * Create or update all efficiency statment lists for the given list of identities
+	 * and this course. Large courses are recalculated in bulk: the assessment entries and
+	 * the statements are loaded with one query, the users are evaluated in parallel by
+	 * a small pool of workers and only the statements which changed are written.
+	 * 
+	 * @param courseEntry The course
+	 * @param identities List of identities
+	 * @param progress Follow the progress of the recalculation (optional)
+	 */
+	public void updateEfficiencyStatements(final RepositoryEntry courseEntry, List<Identity> identities, ProgressDelegate progress) {
 		if (identities.size() > 0) {
-			final ICourse course = CourseFactory.loadCourse(courseEntry);
-			log.audit("Updating efficiency statements for course::" + course.getResourceableId() + ", this might produce temporary heavy load on the CPU");
-
-			// preload cache to speed up things
-			AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();		
-			int count = 0;
-			for (Identity identity : identities) {			
-				//o_clusterOK: by ld
-				OLATResourceable efficiencyStatementResourceable = am.createOLATResourceableForLocking(identity);
-				CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(efficiencyStatementResourceable, new SyncerExecutor() {
-					@Override
-					public void execute() {					
-						// create temporary user course env
-						UserCourseEnvironment uce = AssessmentHelper.createInitAndUpdateUserCourseEnvironment(identity, course);
-						updateUserEfficiencyStatement(uce, courseEntry);
+			if(progress != null) {
+				progress.setMax(identities.size());
+			}
+			if(bulkEnabled && identities.size() >= bulkThreshold) {
+				updateEfficiencyStatementsInBulk(courseEntry, identities, progress);
+			} else {
+				updateEfficiencyStatementsOneByOne(courseEntry, identities, progress);
+			}
+		}
+		if(progress != null) {
+			progress.finished();
+		}
+	}
+	
+	private void updateEfficiencyStatementsOneByOne(final RepositoryEntry courseEntry, List<Identity> identities, ProgressDelegate progress) {
+		final ICourse course = CourseFactory.loadCourse(courseEntry);
+		log.audit("Updating efficiency statements for course::" + course.getResourceableId() + ", this might produce temporary heavy load on the CPU");
+
+		// preload cache to speed up things
+		AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();		
+		int count = 0;
+		for (Identity identity : identities) {			
+			//o_clusterOK: by ld
+			OLATResourceable efficiencyStatementResourceable = am.createOLATResourceableForLocking(identity);
+			CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(efficiencyStatementResourceable, new SyncerExecutor() {
+				@Override
+				public void execute() {					
+					// create temporary user course env
+					UserCourseEnvironment uce = AssessmentHelper.createInitAndUpdateUserCourseEnvironment(identity, course);
+					updateUserEfficiencyStatement(uce, courseEntry);
+				}
+			});
+			if (Thread.interrupted()) {
+				break;
+			}
+			
+			if(++count % 10 == 0) {
+				DBFactory.getInstance().commitAndCloseSession();
+			}
+			if(progress != null) {
+				progress.setActual(count);
+			}
+		}
+	}
+	
+	/**
+	 * The recalculation in bulk. The evaluation of the users happens without
+	 * lock in the workers, the statements are written by the calling thread
+	 * chunk by chunk. A statement which was updated by someone else since
+	 * the beginning of the recalculation is not overwritten, it's already
+	 * up-to-date. If the efficiency statements are disabled in the course,
+	 * the users are evaluated as by the one by one update, which updates the
+	 * calculated scores, but no statement is written.
+	 * 
+	 * @param courseEntry The course
+	 * @param identities The identities
+	 * @param progress The progress (optional)
+	 */
+	private void updateEfficiencyStatementsInBulk(final RepositoryEntry courseEntry, List<Identity> identities, ProgressDelegate progress) {
+		final ICourse course = CourseFactory.loadCourse(courseEntry);
+		final boolean statementEnabled = course.getCourseEnvironment().getCourseConfig().isEfficencyStatementEnabled();
+		
+		long start = System.currentTimeMillis();
+		log.audit("Updating in bulk " + identities.size() + " efficiency statements for course::" + course.getResourceableId());
+
+		int chunkSize = Math.max(1, bulkChunkSize);
+		int workers = Math.max(1, bulkWorkers);
+		ThreadPoolExecutor executor = createBulkExecutor(workers);
+		Deque<Future<List<BulkEfficiencyStatement>>> pendings = new ArrayDeque<>();
+		int done = 0;
+		int written = 0;
+		try {
+			for(int i=0; i<identities.size(); i+=chunkSize) {
+				List<Identity> chunk = identities.subList(i, Math.min(i + chunkSize, identities.size()));
+				pendings.add(executor.submit(() -> evaluateEfficiencyStatements(course, courseEntry, chunk, statementEnabled)));
+				// only keep a few chunks in memory
+				if(pendings.size() > workers) {
+					written += writeEfficiencyStatements(course, courseEntry, pendings.poll().get(), chunkSize);
+					done = Math.min(done + chunkSize, identities.size());
+					if(progress != null) {
+						progress.setActual(done);
 					}
-				});
-				if (Thread.interrupted()) {
+				}
+			}
+			while(!pendings.isEmpty()) {
+				written += writeEfficiencyStatements(course, courseEntry, pendings.poll().get(), chunkSize);
+				done = Math.min(done + chunkSize, identities.size());
+				if(progress != null) {
+					progress.setActual(done);
+				}
+			}
+		} catch (InterruptedException e) {
+			log.warn("Recalculation of the efficiency statements interrupted: course::" + course.getResourceableId());
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			log.error("Cannot recalculate the efficiency statements of course::" + course.getResourceableId(), e);
+		} finally {
+			executor.shutdownNow();
+			dbInstance.commitAndCloseSession();
+		}
+		log.audit("Updated in bulk " + written + " of " + identities.size() + " efficiency statements for course::"
+				+ course.getResourceableId() + " in (ms): " + (System.currentTimeMillis() - start));
+	}
+	
+	private ThreadPoolExecutor createBulkExecutor(int workers) {
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		ThreadFactory threadFactory = r -> {
+			Thread t = new Thread(r, "efficiency-statements-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		};
+		// the number of queued chunks is limited by the caller
+		return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory);
+	}
+	
+	/**
+	 * Evaluate the users of the chunk. It runs in the workers, with its own
+	 * database session. The assessment entries and the current statements are
+	 * loaded for the chunk only, just before its evaluation, to not evaluate
+	 * the last chunks of a large course with data loaded minutes ago. The
+	 * evaluation can update the calculated nodes (structure nodes) as a normal
+	 * evaluation does.
+	 * 
+	 * @param statementEnabled If false, only evaluate the users
+	 * @return The statements which changed
+	 */
+	private List<BulkEfficiencyStatement> evaluateEfficiencyStatements(ICourse course, RepositoryEntry courseEntry,
+			List<Identity> identities, boolean statementEnabled) {
+		CourseEnvironment courseEnv = course.getCourseEnvironment();
+		CourseNode rootNode = courseEnv.getRunStructure().getRootNode();
+		List<BulkEfficiencyStatement> statements = new ArrayList<>(identities.size());
+		try {
+			List<Long> identityKeys = new ArrayList<>(identities.size());
+			for(Identity identity:identities) {
+				identityKeys.add(identity.getKey());
+			}
+			Map<Long,List<AssessmentEntry>> identityKeyToEntries = new HashMap<>();
+			List<AssessmentEntry> chunkEntries = assessmentEntryDao.loadAssessmentEntriesByRepositoryEntry(courseEntry, identityKeys);
+			for(AssessmentEntry assessmentEntry:chunkEntries) {
+				identityKeyToEntries
+					.computeIfAbsent(assessmentEntry.getIdentity().getKey(), key -> new ArrayList<>())
+					.add(assessmentEntry);
+			}
+			Map<Long,UserEfficiencyStatementImpl> identityKeyToStatement = new HashMap<>();
+			if(statementEnabled) {
+				for(UserEfficiencyStatementImpl currentStatement:getUserEfficiencyStatementsFull(courseEntry, identityKeys)) {
+					identityKeyToStatement.put(currentStatement.getIdentity().getKey(), currentStatement);
+				}
+			}
+			
+			for(Identity identity:identities) {
+				if(Thread.currentThread().isInterrupted()) {
 					break;
 				}
 				
-				if(++count % 10 == 0) {
-					DBFactory.getInstance().commitAndCloseSession();
+				List<AssessmentEntry> assessmentEntries = identityKeyToEntries.get(identity.getKey());
+				if(assessmentEntries == null) {
+					assessmentEntries = new ArrayList<>();
+				}
+				UserCourseEnvironment uce = AssessmentHelper.createInitAndUpdateUserCourseEnvironment(identity, course, assessmentEntries);
+				if(!statementEnabled) {
+					continue;
+				}
+				
+				AssessmentNodesLastModified lastModifications = new AssessmentNodesLastModified();
+				List<AssessmentNodeData> assessmentNodeList = new ArrayList<>(50);
+				AssessmentHelper.getAssessmentNodeDataList(0, rootNode, uce.getScoreAccounting(), uce,
+						true, true, true, assessmentNodeList, lastModifications);
+				List<Map<String,Object>> assessmentNodes = AssessmentHelper.assessmentNodeDataListToMap(assessmentNodeList);
+				EfficiencyStatement efficiencyStatement = createEfficiencyStatement(identity, courseEnv, assessmentNodes, lastModifications, courseEntry);
+				UserEfficiencyStatementImpl currentStatement = identityKeyToStatement.get(identity.getKey());
+				String currentXml = currentStatement == null ? null : currentStatement.getStatementXml();
+				if(hasChanged(efficiencyStatement, currentXml)) {
+					Date currentLastModified = currentStatement == null ? null : currentStatement.getLastModified();
+					statements.add(new BulkEfficiencyStatement(identity, efficiencyStatement, lastModifications, currentLastModified));
 				}
 			}
+			dbInstance.commitAndCloseSession();
+		} catch(Exception e) {
+			dbInstance.rollbackAndCloseSession();
+			log.error("Cannot evaluate the efficiency statements of course::" + course.getResourceableId(), e);
+		}
+		return statements;
+	}
+	
+	/**
+	 * Compare the new statement with the current one, without the
+	 * date of the update.
+	 * 
+	 * @param efficiencyStatement The new statement
+	 * @param currentXml The XML of the current statement
+	 * @return true if the statement changed or is new
+	 */
+	private boolean hasChanged(EfficiencyStatement efficiencyStatement, String currentXml) {
+		if(!StringHelper.containsNonWhitespace(currentXml)) {
+			return true;
+		}
+		
+		try {
+			EfficiencyStatement currentStatement = (EfficiencyStatement)xstream.fromXML(currentXml);
+			long lastUpdated = efficiencyStatement.getLastUpdated();
+			efficiencyStatement.setLastUpdated(currentStatement.getLastUpdated());
+			boolean changed = !currentXml.equals(xstream.toXML(efficiencyStatement));
+			efficiencyStatement.setLastUpdated(lastUpdated);
+			return changed;
+		} catch (Exception e) {
+			log.warn("Cannot read the efficiency statement", e);
+			return true;
+		}
+	}
+	
+	/**
+	 * Write the statements of a chunk with JDBC batches. The statements
+	 * modified since the evaluation of the chunk are skipped. If the batch
+	 * fails, typically because a statement was updated concurrently, the
+	 * statements of the chunk are written again one by one.
+	 * 
+	 * @return The number of written statements
+	 */
+	private int writeEfficiencyStatements(ICourse course, RepositoryEntry courseEntry, List<BulkEfficiencyStatement> statements, int batchSize) {
+		if(statements.isEmpty()) {
+			return 0;
+		}
+		
+		CourseEnvironment courseEnv = course.getCourseEnvironment();
+		List<Identity> changedIdentities;
+		try {
+			changedIdentities = writeEfficiencyStatementsBatch(courseEnv, courseEntry, statements, batchSize);
+		} catch (Exception e) {
+			dbInstance.rollbackAndCloseSession();
+			log.info("Batch of efficiency statements failed, write them one by one: course::" + course.getResourceableId());
+			changedIdentities = writeEfficiencyStatementsOneByOne(courseEnv, courseEntry, statements);
+		}
+		
+		OLATResourceable courseOres = OresHelper.createOLATResourceableInstance(CourseModule.class, courseEnv.getCourseResourceableId());
+		for(Identity assessedIdentity:changedIdentities) {
+			AssessmentChangedEvent ace = new AssessmentChangedEvent(AssessmentChangedEvent.TYPE_EFFICIENCY_STATEMENT_CHANGED, assessedIdentity);
+			CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(ace, courseOres);
+		}
+		return changedIdentities.size();
+	}
+	
+	private List<Identity> writeEfficiencyStatementsBatch(CourseEnvironment courseEnv, RepositoryEntry courseEntry,
+			List<BulkEfficiencyStatement> statements, int batchSize) {
+		List<Long> identityKeys = new ArrayList<>(statements.size());
+		for(BulkEfficiencyStatement statement:statements) {
+			identityKeys.add(statement.getIdentity().getKey());
+		}
+		Map<Long,UserEfficiencyStatementImpl> identityKeyToProperties = new HashMap<>();
+		for(UserEfficiencyStatementImpl efficiencyProperty:getUserEfficiencyStatementsFull(courseEntry, identityKeys)) {
+			identityKeyToProperties.put(efficiencyProperty.getIdentity().getKey(), efficiencyProperty);
+		}
+		
+		List<Identity> changedIdentities = new ArrayList<>(statements.size());
+		EntityManager em = dbInstance.getCurrentEntityManager();
+		em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+		for(BulkEfficiencyStatement statement:statements) {
+			UserEfficiencyStatementImpl efficiencyProperty = identityKeyToProperties.get(statement.getIdentity().getKey());
+			if(writeEfficiencyStatement(courseEnv, courseEntry, statement, efficiencyProperty)) {
+				changedIdentities.add(statement.getIdentity());
+			}
+		}
+		dbInstance.commitAndCloseSession();
+		return changedIdentities;
+	}
+	
+	/**
+	 * Every statement is reloaded and written in its own transaction. A statement
+	 * updated concurrently (optimistic lock) or which cannot be written is skipped,
+	 * the other ones are written.
+	 */
+	private List<Identity> writeEfficiencyStatementsOneByOne(CourseEnvironment courseEnv, RepositoryEntry courseEntry,
+			List<BulkEfficiencyStatement> statements) {
+		List<Identity> changedIdentities = new ArrayList<>(statements.size());
+		for(BulkEfficiencyStatement statement:statements) {
+			Identity assessedIdentity = statement.getIdentity();
+			try {
+				UserEfficiencyStatementImpl efficiencyProperty = getUserEfficiencyStatementFull(courseEntry, assessedIdentity);
+				if(writeEfficiencyStatement(courseEnv, courseEntry, statement, efficiencyProperty)) {
+					dbInstance.commit();
+					changedIdentities.add(assessedIdentity);
+				}
+			} catch (Exception e) {
+				dbInstance.rollback();
+				if(isOptimisticLock(e)) {
+					log.info("Efficiency statement updated concurrently, skip it: " + assessedIdentity.getKey());
+				} else {
+					log.error("Cannot write the efficiency statement of identity: " + assessedIdentity.getKey(), e);
+				}
+			} finally {
+				dbInstance.closeSession();
+			}
+		}
+		return changedIdentities;
+	}
+	
+	private boolean isOptimisticLock(Throwable e) {
+		for(Throwable cause=e; cause != null; cause=cause.getCause()) {
+			if(cause instanceof OptimisticLockException || cause instanceof StaleStateException) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Create or update the statement in the current transaction if it wasn't
+	 * modified since the evaluation.
+	 * 
+	 * @return true if the statement is written
+	 */
+	private boolean writeEfficiencyStatement(CourseEnvironment courseEnv, RepositoryEntry courseEntry,
+			BulkEfficiencyStatement statement, UserEfficiencyStatementImpl efficiencyProperty) {
+		Identity assessedIdentity = statement.getIdentity();
+		Date lastModified = statement.getCurrentLastModified();
+		if(efficiencyProperty == null) {
+			if(lastModified == null) {
+				efficiencyProperty = createUserEfficiencyStatement(assessedIdentity, courseEnv, courseEntry);
+				fillEfficiencyStatement(statement.getEfficiencyStatement(), statement.getLastModifications(), efficiencyProperty);
+				dbInstance.getCurrentEntityManager().persist(efficiencyProperty);
+				return true;
+			}
+		} else if(lastModified != null && lastModified.equals(efficiencyProperty.getLastModified())) {
+			efficiencyProperty.setShortTitle(courseEnv.getRunStructure().getRootNode().getShortTitle());
+			efficiencyProperty.setTitle(courseEnv.getRunStructure().getRootNode().getLongTitle());
+			fillEfficiencyStatement(statement.getEfficiencyStatement(), statement.getLastModifications(), efficiencyProperty);
+			return true;
+		}
+		if(log.isDebug()) {
+			log.debug("Efficiency statement updated during the recalculation, skip it: " + assessedIdentity.getKey());
+		}
+		return false;
+	}
+	
+	private static class BulkEfficiencyStatement {
+		
+		private final Identity identity;
+		private final EfficiencyStatement efficiencyStatement;
+		private final AssessmentNodesLastModified lastModifications;
+		private final Date currentLastModified;
+		
+		public BulkEfficiencyStatement(Identity identity, EfficiencyStatement efficiencyStatement,
+				AssessmentNodesLastModified lastModifications, Date currentLastModified) {
+			this.identity = identity;
+			this.efficiencyStatement = efficiencyStatement;
+			this.lastModifications = lastModifications;
+			this.currentLastModified = currentLastModified;
+		}
+
+		public Identity getIdentity() {
+			return identity;
+		}
+
+		public EfficiencyStatement getEfficiencyStatement() {
+			return efficiencyStatement;
+		}
+
+		public AssessmentNodesLastModified getLastModifications() {
+			return lastModifications;
+		}
+
+		/**
+		 * @return The last modification date of the statement loaded before the
+		 * 		evaluation, or null if the user had no statement
+		 */
+		public Date getCurrentLastModified() {
+			return currentLastModified;
 		}
 	}
 
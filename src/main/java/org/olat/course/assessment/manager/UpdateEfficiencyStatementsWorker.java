@@ -33,6 +33,7 @@ import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.async.ProgressDelegate;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.course.assessment.EfficiencyStatementEvent;
 import org.olat.repository.RepositoryEntry;
@@ -66,7 +67,7 @@ public class UpdateEfficiencyStatementsWorker implements Runnable {
 			RepositoryEntry re = rm.lookupRepositoryEntry(ores, false);
 			
 			List<Identity> identities = esm.findIdentitiesWithEfficiencyStatements(re.getKey());
-			esm.updateEfficiencyStatements(re, identities);
+			esm.updateEfficiencyStatements(re, identities, new EventProgressDelegate());
 			// close db session in this thread
 			DBFactory.getInstance().commitAndCloseSession();
 			success = true;
@@ -82,4 +83,42 @@ public class UpdateEfficiencyStatementsWorker implements Runnable {
 			}
 		}
 	}
+	
+	/**
+	 * Send the progress of the recalculation to the listeners of the course,
+	 * at most every 2 seconds.
+	 */
+	private class EventProgressDelegate implements ProgressDelegate {
+		
+		private static final long INTERVAL = 2000l;
+		
+		private int max;
+		private long lastEvent = System.currentTimeMillis();
+
+		@Override
+		public void setMax(float max) {
+			this.max = Math.round(max);
+		}
+
+		@Override
+		public void setActual(float value) {
+			long now = System.currentTimeMillis();
+			if(now - lastEvent >= INTERVAL) {
+				lastEvent = now;
+				EfficiencyStatementEvent progressEvent = new EfficiencyStatementEvent(EfficiencyStatementEvent.CMD_PROGRESS,
+						ores.getResourceableId(), Math.round(value), max);
+				CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(progressEvent, ores);
+			}
+		}
+
+		@Override
+		public void setInfo(String message) {
+			//
+		}
+
+		@Override
+		public void finished() {
+			// the worker sends the finished event
+		}
+	}
 }
\ No newline at end of file
@@ -42,7 +42,8 @@ public abstract class AbstractFunction extends FunctionCB{
 	private UserCourseEnvironment userCourseEnv;
 
 	/**
-	 * @param userCourseEnv
+	 * @param userCourseEnv The user course environment, or null if the function
+	 * 		is shared by the compiled expressions of a course
 	 */
 	public AbstractFunction(UserCourseEnvironment userCourseEnv) {
 		this.userCourseEnv = userCourseEnv;
@@ -57,6 +58,9 @@ public abstract class AbstractFunction extends FunctionCB{
 	 * @return user course environment
 	 */
 	public UserCourseEnvironment getUserCourseEnv() {
+		if(userCourseEnv == null) {
+			return ConditionExpressionCache.getBoundUserCourseEnvironment();
+		}
 		return userCourseEnv;
 	}
 
@@ -38,7 +38,8 @@ public abstract class AbstractVariable extends VariableCB {
 	private UserCourseEnvironment userCourseEnv;
 
 	/**
-	 * @param userCourseEnv
+	 * @param userCourseEnv The user course environment, or null if the variable
+	 * 		is shared by the compiled expressions of a course
 	 */
 	public AbstractVariable(UserCourseEnvironment userCourseEnv) {
 		this.userCourseEnv = userCourseEnv;
@@ -53,6 +54,9 @@ public abstract class AbstractVariable extends VariableCB {
 	 * @return user course environment
 	 */
 	public UserCourseEnvironment getUserCourseEnv() {
+		if(userCourseEnv == null) {
+			return ConditionExpressionCache.getBoundUserCourseEnvironment();
+		}
 		return userCourseEnv;
 	}
 }
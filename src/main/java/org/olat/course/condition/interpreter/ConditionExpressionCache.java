@@ -0,0 +1,186 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.condition.interpreter;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.olat.course.run.userview.UserCourseEnvironment;
+
+import com.neemsoft.jmep.Environment;
+import com.neemsoft.jmep.Expression;
+import com.neemsoft.jmep.XExpression;
+
+/**
+ * The compiled conditions and calculations of a course run structure. Every
+ * distinct expression is parsed once and the parsed expression is reused
+ * by all the users of the course.
+ * <p>
+ * The functions and variables of the environment are shared, they are not
+ * bound to a user. The user course environment is bound to the thread
+ * during the evaluation and the functions find it with
+ * {@link #getBoundUserCourseEnvironment()}. A parsed expression is used
+ * by one thread at a time, there is a small pool of parsed expressions
+ * per expression string (as large as the number of concurrent evaluations
+ * of the same expression).
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ConditionExpressionCache {
+	
+	/** a course has rarely more than a few hundred distinct expressions **/
+	private static final int MAX_EXPRESSIONS = 4096;
+	
+	private static final ThreadLocal<UserCourseEnvironment> boundUserCourseEnv = new ThreadLocal<>();
+	
+	private static final LongAdder parses = new LongAdder();
+	private static final LongAdder parseTime = new LongAdder();
+	private static final LongAdder evaluations = new LongAdder();
+	private static final LongAdder evaluationTime = new LongAdder();
+	private static final LongAdder uncachedEvaluations = new LongAdder();
+	
+	private volatile Environment env;
+	private final ConcurrentMap<String,Queue<Expression>> expressions = new ConcurrentHashMap<>();
+	
+	/**
+	 * @return The user course environment of the expression which is evaluated
+	 * 		by the current thread, or null
+	 */
+	public static UserCourseEnvironment getBoundUserCourseEnvironment() {
+		return boundUserCourseEnv.get();
+	}
+	
+	/**
+	 * Evaluate the expression for the specified user.
+	 * 
+	 * @param expression The condition or the calculation
+	 * @param userCourseEnv The user course environment
+	 * @return The result of the evaluation
+	 * @throws XExpression If the expression cannot be parsed or evaluated
+	 */
+	public Object evaluate(String expression, UserCourseEnvironment userCourseEnv) throws XExpression {
+		Queue<Expression> pool = expressions.get(expression);
+		if(pool == null) {
+			if(expressions.size() >= MAX_EXPRESSIONS) {
+				uncachedEvaluations.increment();
+			} else {
+				pool = expressions.computeIfAbsent(expression, exp -> new ConcurrentLinkedQueue<>());
+			}
+		}
+		
+		Expression exp = pool == null ? null : pool.poll();
+		if(exp == null) {
+			long start = System.nanoTime();
+			exp = new Expression(expression, getEnvironment());
+			parseTime.add(System.nanoTime() - start);
+			parses.increment();
+		}
+		
+		UserCourseEnvironment previousUserCourseEnv = boundUserCourseEnv.get();
+		boundUserCourseEnv.set(userCourseEnv);
+		long start = System.nanoTime();
+		try {
+			Object result = exp.evaluate();
+			if(pool != null) {
+				// only reuse the expressions which were successfully evaluated
+				pool.offer(exp);
+			}
+			return result;
+		} finally {
+			evaluationTime.add(System.nanoTime() - start);
+			evaluations.increment();
+			// the functions can evaluate the conditions of an other course
+			if(previousUserCourseEnv == null) {
+				boundUserCourseEnv.remove();
+			} else {
+				boundUserCourseEnv.set(previousUserCourseEnv);
+			}
+		}
+	}
+	
+	private Environment getEnvironment() {
+		Environment environment = env;
+		if(environment == null) {
+			synchronized(this) {
+				environment = env;
+				if(environment == null) {
+					environment = ConditionInterpreter.createEnvironment(null);
+					env = environment;
+				}
+			}
+		}
+		return environment;
+	}
+	
+	/**
+	 * @return The number of distinct expressions in the cache
+	 */
+	public int size() {
+		return expressions.size();
+	}
+	
+	/**
+	 * Drop all the compiled expressions.
+	 */
+	public void clear() {
+		expressions.clear();
+	}
+	
+	public static long getParses() {
+		return parses.sum();
+	}
+	
+	/**
+	 * @return The cumulated time to parse the expressions in nanoseconds
+	 */
+	public static long getParseTime() {
+		return parseTime.sum();
+	}
+	
+	public static long getEvaluations() {
+		return evaluations.sum();
+	}
+	
+	/**
+	 * @return The cumulated time to evaluate the expressions in nanoseconds
+	 */
+	public static long getEvaluationTime() {
+		return evaluationTime.sum();
+	}
+	
+	/**
+	 * @return The number of evaluations which couldn't use the cache because it was full
+	 */
+	public static long getUncachedEvaluations() {
+		return uncachedEvaluations.sum();
+	}
+	
+	public static void resetStatistics() {
+		parses.reset();
+		parseTime.reset();
+		evaluations.reset();
+		evaluationTime.reset();
+		uncachedEvaluations.reset();
+	}
+}
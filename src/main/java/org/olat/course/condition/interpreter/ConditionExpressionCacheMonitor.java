@@ -0,0 +1,99 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.condition.interpreter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.olat.core.commons.services.jmx.JMXManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Register the counters of the ConditionExpressionCache as an MBean.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class ConditionExpressionCacheMonitor implements ConditionExpressionCacheMonitorMBean, InitializingBean, DisposableBean {
+	
+	private static final String JMX_NAME = "org.olat.course.condition:type=ConditionExpressionCache";
+	
+	@Autowired
+	private JMXManager jmxManager;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if(jmxManager != null) {
+			jmxManager.registerMBean(this, JMX_NAME);
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(jmxManager != null) {
+			jmxManager.unregisterMBean(JMX_NAME);
+		}
+	}
+
+	@Override
+	public long getParses() {
+		return ConditionExpressionCache.getParses();
+	}
+
+	@Override
+	public long getAverageParseTime() {
+		long parses = ConditionExpressionCache.getParses();
+		return parses == 0 ? 0l : TimeUnit.NANOSECONDS.toMicros(ConditionExpressionCache.getParseTime() / parses);
+	}
+
+	@Override
+	public long getEvaluations() {
+		return ConditionExpressionCache.getEvaluations();
+	}
+
+	@Override
+	public long getAverageEvaluationTime() {
+		long evaluations = ConditionExpressionCache.getEvaluations();
+		return evaluations == 0 ? 0l : TimeUnit.NANOSECONDS.toMicros(ConditionExpressionCache.getEvaluationTime() / evaluations);
+	}
+
+	@Override
+	public long getHitRate() {
+		long evaluations = ConditionExpressionCache.getEvaluations();
+		if(evaluations == 0) {
+			return 0l;
+		}
+		long hits = Math.max(0l, evaluations - ConditionExpressionCache.getParses());
+		return (hits * 100l) / evaluations;
+	}
+
+	@Override
+	public long getUncachedEvaluations() {
+		return ConditionExpressionCache.getUncachedEvaluations();
+	}
+
+	@Override
+	public void resetStatistics() {
+		ConditionExpressionCache.resetStatistics();
+	}
+}
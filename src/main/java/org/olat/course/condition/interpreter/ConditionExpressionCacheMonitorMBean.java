@@ -0,0 +1,53 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.condition.interpreter;
+
+/**
+ * The JMX view of the compiled conditions and calculations.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public interface ConditionExpressionCacheMonitorMBean {
+	
+	public long getParses();
+	
+	/**
+	 * @return The average time to parse an expression in microseconds
+	 */
+	public long getAverageParseTime();
+	
+	public long getEvaluations();
+	
+	/**
+	 * @return The average time to evaluate an expression in microseconds
+	 */
+	public long getAverageEvaluationTime();
+	
+	/**
+	 * @return The percentage of evaluations which reused a parsed expression
+	 */
+	public long getHitRate();
+	
+	public long getUncachedEvaluations();
+	
+	public void resetStatistics();
+
+}
@@ -33,6 +33,7 @@ import org.olat.core.logging.OLATRuntimeException;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.Util;
+import org.olat.course.Structure;
 import org.olat.course.condition.Condition;
 import org.olat.course.condition.interpreter.score.GetPassedFunction;
 import org.olat.course.condition.interpreter.score.GetPassedWithCourseIdFunction;
@@ -69,6 +70,7 @@ public class ConditionInterpreter {
 	protected Environment env;
 	protected Translator translator;
 	protected UserCourseEnvironment uce;
+	protected boolean useCompiledExpressions;
 
 	/**
 	 * ConditionInterpreter interpretes course conditions.
@@ -83,7 +85,31 @@ public class ConditionInterpreter {
 			translator = Util.createPackageTranslator(ConditionInterpreter.class, cev.getEditorEnvLocale());
 		}
 
-		env = new Environment();
+		// the editor collects the errors of the functions of its own interpreter
+		useCompiledExpressions = cev == null;
+		// the environment of the user is only needed if the expressions are not compiled
+		if(!useCompiledExpressions) {
+			env = createEnvironment(userCourseEnv);
+		}
+	}
+	
+	private Environment getEnvironment() {
+		if(env == null) {
+			env = createEnvironment(uce);
+		}
+		return env;
+	}
+	
+	/**
+	 * Create the environment with all the functions, variables and units of
+	 * the conditions.
+	 * 
+	 * @param userCourseEnv The user course environment or null for an environment
+	 * 		shared by the compiled expressions of a course
+	 * @return A new environment
+	 */
+	static Environment createEnvironment(UserCourseEnvironment userCourseEnv) {
+		Environment env = new Environment();
 
 		// constants: add for user convenience
 		env.addConstant("true", 1);
@@ -171,6 +197,7 @@ public class ConditionInterpreter {
 		env.addUnit("d", new DayUnit());
 		env.addUnit("w", new WeekUnit());
 		env.addUnit("m", new MonthUnit());
+		return env;
 	}
 	
 
@@ -194,7 +221,7 @@ public class ConditionInterpreter {
 			 * environment.
 			 */
 			String conditionString = condExpr.getExptressionString();
-			Expression exp = new Expression(conditionString, env);
+			Expression exp = new Expression(conditionString, getEnvironment());
 			exp.evaluate();
 			Exception[] condExceptions = condExpr.getExceptions();
 			ConditionErrorMessage[] cems = null;
@@ -321,8 +348,7 @@ public class ConditionInterpreter {
 
 	private float doEvaluateCalculation(String calculation) throws ParseException {
 		try {
-			Expression exp = new Expression(calculation, env);
-			Object result = exp.evaluate();
+			Object result = evaluateExpression(calculation);
 			if (result instanceof Double) {
 				return ((Double) result).floatValue();
 			} else if (result instanceof Integer) {
@@ -342,8 +368,7 @@ public class ConditionInterpreter {
 	 */
 	private boolean doEvaluateCondition(String condition) throws ParseException {
 		try {
-			Expression exp = new Expression(condition, env);
-			Object result = exp.evaluate();
+			Object result = evaluateExpression(condition);
 			if (result instanceof Double) {
 				return (((Double) result).doubleValue() == 1.0);
 			} else if (result instanceof Integer) {
@@ -353,4 +378,28 @@ public class ConditionInterpreter {
 			throw new ParseException("Parse exception for condition: " + condition + ". " + xe.getMessage(), xe.getPosition());
 		}
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Evaluate the expression with the compiled expressions of the course
+	 * if possible.
+	 * 
+	 * @param expression The condition or the calculation
+	 * @return The result of the evaluation
+	 */
+	private Object evaluateExpression(String expression) throws XExpression {
+		ConditionExpressionCache expressionCache = getExpressionCache();
+		if(expressionCache == null) {
+			Expression exp = new Expression(expression, getEnvironment());
+			return exp.evaluate();
+		}
+		return expressionCache.evaluate(expression, uce);
+	}
+	
+	private ConditionExpressionCache getExpressionCache() {
+		if(useCompiledExpressions && uce != null && uce.getCourseEnvironment() != null) {
+			Structure runStructure = uce.getCourseEnvironment().getRunStructure();
+			return runStructure == null ? null : runStructure.getExpressionCache();
+		}
+		return null;
+	}
+}
@@ -51,6 +51,8 @@ public class OnlyGroupConditionInterpreter extends ConditionInterpreter{
 	public OnlyGroupConditionInterpreter(UserCourseEnvironment userCourseEnv) {
 		super(userCourseEnv);
 
+		// the dummy functions are not the ones of the compiled expressions
+		useCompiledExpressions = false;
 		env = new Environment();
 
 		// constants: add for user convenience
@@ -19,19 +19,18 @@
  */
 package org.olat.course.reminder.manager;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.persistence.TypedQuery;
 
 import org.olat.core.commons.persistence.DB;
-import org.olat.core.commons.persistence.PersistenceHelper;
 import org.olat.core.id.Identity;
 import org.olat.course.nodes.CourseNode;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.repository.RepositoryEntryRef;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -50,126 +49,74 @@ public class ReminderRuleDAO {
 
 
 	public Map<Long,Float> getScores(RepositoryEntryRef entry, CourseNode node, List<Identity> identities) {
-		if(identities == null || identities.isEmpty()) {
-			return new HashMap<>();
-		}
-
-		Set<Long> identityKeySet = null;
-		StringBuilder sb = new StringBuilder();
-		sb.append("select data.identity.key, data.score from assessmententry data")
-		  .append(" where data.repositoryEntry.key=:courseEntryKey and data.subIdent=:subIdent");
-		if(identities.size() < 50) {
-			sb.append(" and data.identity.key in (:identityKeys)");
-		}
-
-		TypedQuery<Object[]> query = dbInstance.getCurrentEntityManager()
-				.createQuery(sb.toString(), Object[].class)
-				.setParameter("courseEntryKey", entry.getKey())
-				.setParameter("subIdent", node.getIdent());
-		if(identities.size() < 50) {
-			query.setParameter("identityKeys", PersistenceHelper.toKeys(identities));
-		} else {
-			identityKeySet = new HashSet<>(PersistenceHelper.toKeys(identities));
-		}
-
-		List<Object[]> infoList = query.getResultList();
-		Map<Long,Float> dateMap = new HashMap<>();
-		for(Object[] infos:infoList) {
-			Long identityKey = (Long)infos[0];
-			if(identityKeySet == null || identityKeySet.contains(identityKey)) {
-				Number score = (Number)infos[1];
-				if(score != null) {
-					dateMap.put(identityKey, score.floatValue());
-				}
-			}
-		}
-		return dateMap;
+		return getScores(entry, node, IdentityKeySet.valueOfIdentities(identities));
 	}
 	
 	public Map<Long,Integer> getAttempts(RepositoryEntryRef entry, CourseNode node, List<Identity> identities) {
-		if(identities == null || identities.isEmpty()) {
-			return new HashMap<>();
-		}
-
-		Set<Long> identityKeySet = null;
-		StringBuilder sb = new StringBuilder();
-		sb.append("select data.identity.key, data.attempts from assessmententry data")
-		  .append(" where data.repositoryEntry.key=:courseEntryKey and data.subIdent=:subIdent");
-		if(identities.size() < 50) {
-			sb.append(" and data.identity.key in (:identityKeys)");
-		}
-
-		TypedQuery<Object[]> query = dbInstance.getCurrentEntityManager()
-				.createQuery(sb.toString(), Object[].class)
-				.setParameter("courseEntryKey", entry.getKey())
-				.setParameter("subIdent", node.getIdent());
-		if(identities.size() < 50) {
-			query.setParameter("identityKeys", PersistenceHelper.toKeys(identities));
-		} else {
-			identityKeySet = new HashSet<>(PersistenceHelper.toKeys(identities));
-		}
-
-		List<Object[]> infoList = query.getResultList();
-		Map<Long,Integer> dateMap = new HashMap<>();
-		for(Object[] infos:infoList) {
-			Long identityKey = (Long)infos[0];
-			if(identityKeySet == null || identityKeySet.contains(identityKey)) {
-				Number attempts = (Number)infos[1];
-				if(attempts != null) {
-					dateMap.put(identityKey, Integer.valueOf(attempts.intValue()));
-				} else {
-					dateMap.put(identityKey, Integer.valueOf(0));
-				}
-			}
-		}
-		return dateMap;
+		return getAttempts(entry, node, IdentityKeySet.valueOfIdentities(identities));
 	}
 	
 	public Map<Long,Date> getInitialAttemptDates(RepositoryEntryRef entry, CourseNode node, List<Identity> identities) {
-		if(identities == null || identities.isEmpty()) {
-			return new HashMap<>();
-		}
-
-		Set<Long> identityKeySet = null;
-		StringBuilder sb = new StringBuilder();
-		sb.append("select data.identity.key, data.creationDate from assessmententry data")
-		  .append(" where data.repositoryEntry.key=:courseEntryKey and data.subIdent=:subIdent");
-		if(identities.size() < 50) {
-			sb.append(" and data.identity.key in (:identityKeys)");
+		return getInitialAttemptDates(entry, node, IdentityKeySet.valueOfIdentities(identities));
+	}
+	
+	public Map<Long,Boolean> getPassed(RepositoryEntryRef entry, CourseNode node, List<Identity> identities) {
+		return getPassed(entry, node, IdentityKeySet.valueOfIdentities(identities));
+	}
+	
+	public Map<Long,Float> getScores(RepositoryEntryRef entry, CourseNode node, IdentityKeySet identityKeys) {
+		Map<Long,Float> scoreMap = new HashMap<>();
+		for(Object[] infos:getAssessmentValues(entry, node, "score", identityKeys)) {
+			Number score = (Number)infos[1];
+			if(score != null) {
+				scoreMap.put((Long)infos[0], score.floatValue());
+			}
 		}
-
-		TypedQuery<Object[]> query = dbInstance.getCurrentEntityManager()
-				.createQuery(sb.toString(), Object[].class)
-				.setParameter("courseEntryKey", entry.getKey())
-				.setParameter("subIdent", node.getIdent());
-		if(identities.size() < 50) {
-			query.setParameter("identityKeys", PersistenceHelper.toKeys(identities));
-		} else {
-			identityKeySet = new HashSet<>(PersistenceHelper.toKeys(identities));
+		return scoreMap;
+	}
+	
+	public Map<Long,Integer> getAttempts(RepositoryEntryRef entry, CourseNode node, IdentityKeySet identityKeys) {
+		Map<Long,Integer> attemptsMap = new HashMap<>();
+		for(Object[] infos:getAssessmentValues(entry, node, "attempts", identityKeys)) {
+			Number attempts = (Number)infos[1];
+			attemptsMap.put((Long)infos[0], Integer.valueOf(attempts == null ? 0 : attempts.intValue()));
 		}
-
-		List<Object[]> infoList = query.getResultList();
+		return attemptsMap;
+	}
+	
+	public Map<Long,Date> getInitialAttemptDates(RepositoryEntryRef entry, CourseNode node, IdentityKeySet identityKeys) {
 		Map<Long,Date> dateMap = new HashMap<>();
-		for(Object[] infos:infoList) {
-			Long identityKey = (Long)infos[0];
-			if(identityKeySet == null || identityKeySet.contains(identityKey)) {
-				Date attempts = (Date)infos[1];
-				dateMap.put(identityKey, attempts);
-			}
+		for(Object[] infos:getAssessmentValues(entry, node, "creationDate", identityKeys)) {
+			dateMap.put((Long)infos[0], (Date)infos[1]);
 		}
 		return dateMap;
 	}
 	
-	public Map<Long,Boolean> getPassed(RepositoryEntryRef entry, CourseNode node, List<Identity> identities) {
-		if(identities == null || identities.isEmpty()) {
-			return new HashMap<>();
+	public Map<Long,Boolean> getPassed(RepositoryEntryRef entry, CourseNode node, IdentityKeySet identityKeys) {
+		Map<Long,Boolean> passedMap = new HashMap<>();
+		for(Object[] infos:getAssessmentValues(entry, node, "passed", identityKeys)) {
+			passedMap.put((Long)infos[0], (Boolean)infos[1]);
 		}
-
-		Set<Long> identityKeySet = null;
+		return passedMap;
+	}
+	
+	/**
+	 * Load the key of the identity and the specified attribute of the assessment
+	 * entries of the course element in one query. Large sets of identities are
+	 * not sent to the database, the rows are filtered in memory.
+	 * 
+	 * @return A list of arrays with the identity key and the value
+	 */
+	private List<Object[]> getAssessmentValues(RepositoryEntryRef entry, CourseNode node, String attribute, IdentityKeySet identityKeys) {
+		if(identityKeys == null || identityKeys.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		boolean restricted = identityKeys.size() < 50;
 		StringBuilder sb = new StringBuilder();
-		sb.append("select data.identity.key, data.passed from assessmententry data")
+		sb.append("select data.identity.key, data.").append(attribute).append(" from assessmententry data")
 		  .append(" where data.repositoryEntry.key=:courseEntryKey and data.subIdent=:subIdent");
-		if(identities.size() < 50) {
+		if(restricted) {
 			sb.append(" and data.identity.key in (:identityKeys)");
 		}
 
@@ -177,21 +124,17 @@ public class ReminderRuleDAO {
 				.createQuery(sb.toString(), Object[].class)
 				.setParameter("courseEntryKey", entry.getKey())
 				.setParameter("subIdent", node.getIdent());
-		if(identities.size() < 50) {
-			query.setParameter("identityKeys", PersistenceHelper.toKeys(identities));
-		} else {
-			identityKeySet = new HashSet<>(PersistenceHelper.toKeys(identities));
+		if(restricted) {
+			query.setParameter("identityKeys", identityKeys.toList());
 		}
 
 		List<Object[]> infoList = query.getResultList();
-		Map<Long,Boolean> dateMap = new HashMap<>();
+		List<Object[]> values = new ArrayList<>(infoList.size());
 		for(Object[] infos:infoList) {
-			Long identityKey = (Long)infos[0];
-			if(identityKeySet == null || identityKeySet.contains(identityKey)) {
-				Boolean passed = (Boolean)infos[1];
-				dateMap.put(identityKey, passed);
+			if(identityKeys.contains((Long)infos[0])) {
+				values.add(infos);
 			}
 		}
-		return dateMap;
+		return values;
 	}
-}
\ No newline at end of file
+}
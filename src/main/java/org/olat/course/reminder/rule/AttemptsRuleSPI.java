@@ -35,6 +35,7 @@ import org.olat.course.reminder.ui.AttemptsRuleEditor;
 import org.olat.modules.reminder.FilterRuleSPI;
 import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.RuleEditorFragment;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.repository.RepositoryEntry;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -106,6 +107,30 @@ public class AttemptsRuleSPI implements FilterRuleSPI {
 		}
 	}
 	
+	@Override
+	public IdentityKeySet filterKeys(RepositoryEntry entry, IdentityKeySet candidates, ReminderRule rule) {
+		if(rule instanceof ReminderRuleImpl) {
+			ReminderRuleImpl r = (ReminderRuleImpl)rule;
+			String nodeIdent = r.getLeftOperand();
+			String operator = r.getOperator();
+			int value = Integer.parseInt(r.getRightOperand());
+			
+			ICourse course = CourseFactory.loadCourse(entry);
+			CourseNode courseNode = course.getRunStructure().getNode(nodeIdent);
+			if (courseNode == null) {
+				log.error("Attempts rule in course " + entry.getKey() + " (" + entry.getDisplayname() + ") is missing a course element");
+				return IdentityKeySet.EMPTY;
+			}
+
+			Map<Long, Integer> attempts = helperDao.getAttempts(entry, courseNode, candidates);
+			return candidates.filter(identityKey -> {
+				Integer attempt = attempts.get(Long.valueOf(identityKey));
+				return evaluateAttempt(attempt == null ? 0 : attempt.intValue(), operator, value);
+			});
+		}
+		return candidates;
+	}
+	
 	private boolean evaluateAttempt(int attempt, String operator, int value) {
 		boolean eval = false;
 		switch(operator) {
@@ -20,6 +20,7 @@
 package org.olat.course.reminder.rule;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +33,7 @@ import org.olat.course.reminder.manager.ReminderRuleDAO;
 import org.olat.course.reminder.ui.InitialAttemptsRuleEditor;
 import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.RuleEditorFragment;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.modules.reminder.rule.AbstractLaunchDateRuleSPI;
 import org.olat.repository.RepositoryEntry;
@@ -84,4 +86,21 @@ public class InitialAttemptsRuleSPI extends AbstractLaunchDateRuleSPI {
 			return null;
 		}
 	}
+
+	@Override
+	protected Map<Long, Date> getLaunchDates(ReminderRule rule, RepositoryEntry entry, IdentityKeySet identityKeys) {
+		if(rule instanceof ReminderRuleImpl) {
+			ReminderRuleImpl r = (ReminderRuleImpl)rule;
+			String nodeIdent = r.getLeftOperand();
+
+			ICourse course = CourseFactory.loadCourse(entry);
+			CourseNode courseNode = course.getRunStructure().getNode(nodeIdent);
+			if(courseNode == null) {
+				return new HashMap<>();
+			}
+			return helperDao.getInitialAttemptDates(entry, courseNode, identityKeys);
+		} else {
+			return new HashMap<>();
+		}
+	}
 }
@@ -40,6 +40,7 @@ import org.olat.course.run.userview.UserCourseEnvironment;
 import org.olat.modules.reminder.FilterRuleSPI;
 import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.RuleEditorFragment;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.repository.RepositoryEntry;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -130,4 +131,38 @@ public class PassedRuleSPI implements FilterRuleSPI {
 			}
 		}
 	}
+
+	@Override
+	public IdentityKeySet filterKeys(RepositoryEntry entry, IdentityKeySet candidates, ReminderRule rule) {
+		if(rule instanceof ReminderRuleImpl) {
+			ReminderRuleImpl r = (ReminderRuleImpl)rule;
+			String nodeIdent = r.getLeftOperand();
+			String status = r.getRightOperand();
+			
+			ICourse course = CourseFactory.loadCourse(entry);
+			CourseNode courseNode = course.getRunStructure().getNode(nodeIdent);
+			if (courseNode == null) {
+				log.error("Passed rule in course " + entry.getKey() + " (" + entry.getDisplayname() + ") is missing a course element");
+				return IdentityKeySet.EMPTY;
+			}
+			if(courseNode instanceof STCourseNode) {
+				// the passed of the structure is calculated with the user course environment
+				return null;
+			}
+			
+			Map<Long, Boolean> passeds = helperDao.getPassed(entry, courseNode, candidates);
+			if("passed".equals(status)) {
+				return candidates.filter(identityKey -> {
+					Boolean passed = passeds.get(Long.valueOf(identityKey));
+					return passed != null && passed.booleanValue();
+				});
+			} else if("failed".equals(status)) {
+				return candidates.filter(identityKey -> {
+					Boolean passed = passeds.get(Long.valueOf(identityKey));
+					return passed == null || !passed.booleanValue();
+				});
+			}
+		}
+		return candidates;
+	}
 }
@@ -40,6 +40,7 @@ import org.olat.course.run.userview.UserCourseEnvironment;
 import org.olat.modules.reminder.FilterRuleSPI;
 import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.RuleEditorFragment;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.repository.RepositoryEntry;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -129,6 +130,37 @@ public class ScoreRuleSPI implements FilterRuleSPI {
 		}
 	}
 	
+	@Override
+	public IdentityKeySet filterKeys(RepositoryEntry entry, IdentityKeySet candidates, ReminderRule rule) {
+		if(rule instanceof ReminderRuleImpl) {
+			ReminderRuleImpl r = (ReminderRuleImpl)rule;
+			String nodeIdent = r.getLeftOperand();
+			String operator = r.getOperator();
+			float value = Float.parseFloat(r.getRightOperand());
+			
+			ICourse course = CourseFactory.loadCourse(entry);
+			CourseNode courseNode = course.getRunStructure().getNode(nodeIdent);
+			if (courseNode == null) {
+				log.error("Score rule in course " + entry.getKey() + " (" + entry.getDisplayname() + ") is missing a course element");
+				return IdentityKeySet.EMPTY;
+			}
+			if(courseNode instanceof STCourseNode) {
+				// the score of the structure is calculated with the user course environment
+				return null;
+			}
+			
+			Map<Long, Float> scores = helperDao.getScores(entry, courseNode, candidates);
+			return candidates.filter(identityKey -> {
+				Float score = scores.get(Long.valueOf(identityKey));
+				if(score == null) {
+					return operator.equals("!=");//always different
+				}
+				return evaluateScore(score.floatValue(), operator, value);
+			});
+		}
+		return candidates;
+	}
+	
 	private boolean evaluateScore(float score, String operator, float value) {
 		boolean eval = false;
 		switch(operator) {
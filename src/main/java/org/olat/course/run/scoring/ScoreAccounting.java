@@ -88,7 +88,18 @@ public class ScoreAccounting {
 		Identity identity = userCourseEnvironment.getIdentityEnvironment().getIdentity();
 		List<AssessmentEntry> entries = userCourseEnvironment.getCourseEnvironment()
 				.getAssessmentManager().getAssessmentEntries(identity);
-
+		return evaluateAll(update, entries);
+	}
+	
+	/**
+	 * Evaluate all the course nodes with the assessment entries already loaded,
+	 * for example by a bulk recalculation of the whole course.
+	 * 
+	 * @param update Update the entries of the calculated nodes if needed
+	 * @param entries All the assessment entries of the user in the course
+	 * @return true if some entries were updated
+	 */
+	public boolean evaluateAll(boolean update, List<AssessmentEntry> entries) {
 		AssessableTreeVisitor visitor = new AssessableTreeVisitor(entries, update);
 		// collect all assessable nodes and eval 'em
 		CourseNode root = userCourseEnvironment.getCourseEnvironment().getRunStructure().getRootNode();
@@ -0,0 +1,192 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.statistic;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * The SQL statements of one o_stat_* table for the incremental updater.
+ * <ul>
+ *  <li>updateSQL: the statements which fold the logging actions
+ *  in the statistic table. The selection of the logging actions is
+ *  given by the token #LOGFILTER#, it's replaced by a range of creation
+ *  dates or a list of log ids.</li>
+ *  <li>deleteSQL: the statements which delete the statistic table
+ *  for a full recalculation</li>
+ *  <li>verifySQL: a query which aggregates the logging actions with
+ *  creationdate &lt;= ? from scratch and returns the columns businesspath,
+ *  the bucket (day, week, hour...) and the count</li>
+ *  <li>tableSQL: a query which returns the columns businesspath,
+ *  the bucket and the value of the statistic table</li>
+ * </ul>
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class IncrementalStatisticAggregation {
+	
+	private static final String LOG_FILTER = "#LOGFILTER#";
+	private static final String RANGE_FILTER = "creationdate>:fromDate and creationdate<=:untilDate and log_id not in (:excludedLogIds)";
+	private static final String IDS_FILTER = "log_id in (:logIds)";
+	private static final int IDS_CHUNK_SIZE = 1000;
+	// an empty list is not valid SQL
+	private static final List<Long> NO_IDS = Collections.singletonList(Long.valueOf(-1l));
+
+	private String loggingName;
+	private String[] updateSQL;
+	private String[] deleteSQL;
+	private String verifySQL;
+	private String tableSQL;
+
+	public String getLoggingName() {
+		return loggingName;
+	}
+
+	/** set via spring **/
+	public void setLoggingName(String loggingName) {
+		this.loggingName = loggingName;
+	}
+
+	/** set via spring **/
+	public void setUpdateSQL(String[] updateSQL) {
+		this.updateSQL = updateSQL;
+	}
+
+	/** set via spring **/
+	public void setDeleteSQL(String[] deleteSQL) {
+		this.deleteSQL = deleteSQL;
+	}
+
+	/** set via spring **/
+	public void setVerifySQL(String verifySQL) {
+		this.verifySQL = verifySQL;
+	}
+
+	/** set via spring **/
+	public void setTableSQL(String tableSQL) {
+		this.tableSQL = tableSQL;
+	}
+
+	protected void delete(JdbcTemplate jdbcTemplate) {
+		if(deleteSQL == null) return;
+
+		for(String aDeleteQuery:deleteSQL) {
+			if(aDeleteQuery != null && aDeleteQuery.length() > 0) {
+				jdbcTemplate.execute(aDeleteQuery);
+			}
+		}
+	}
+
+	/**
+	 * Fold the logging actions with fromDate &lt; creationdate &lt;= untilDate,
+	 * without the ones already counted.
+	 */
+	protected void foldRange(JdbcTemplate jdbcTemplate, Date fromDate, Date untilDate, Collection<Long> excludedLogIds) {
+		MapSqlParameterSource params = new MapSqlParameterSource()
+				.addValue("fromDate", new Timestamp(fromDate.getTime()), Types.TIMESTAMP)
+				.addValue("untilDate", new Timestamp(untilDate.getTime()), Types.TIMESTAMP)
+				.addValue("excludedLogIds", excludedLogIds.isEmpty() ? NO_IDS : excludedLogIds);
+		fold(jdbcTemplate, RANGE_FILTER, params);
+	}
+	
+	/**
+	 * Fold the logging actions with the specified ids, by chunks.
+	 */
+	protected void foldLogIds(JdbcTemplate jdbcTemplate, List<Long> logIds) {
+		for(int i=0; i<logIds.size(); i+=IDS_CHUNK_SIZE) {
+			List<Long> chunk = new ArrayList<>(logIds.subList(i, Math.min(i + IDS_CHUNK_SIZE, logIds.size())));
+			fold(jdbcTemplate, IDS_FILTER, new MapSqlParameterSource("logIds", chunk));
+		}
+	}
+
+	private void fold(JdbcTemplate jdbcTemplate, String filter, MapSqlParameterSource params) {
+		if(updateSQL == null) return;
+
+		NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		for(String anUpdateQuery:updateSQL) {
+			if(anUpdateQuery != null && anUpdateQuery.length() > 0) {
+				namedJdbcTemplate.update(anUpdateQuery.replace(LOG_FILTER, filter), params);
+			}
+		}
+	}
+
+	/**
+	 * @return The aggregation of the logging actions up to the specified date
+	 * 		calculated from scratch.
+	 */
+	protected Map<String,Long> loadFullAggregation(JdbcTemplate jdbcTemplate, Date untilDate) {
+		Map<String,Long> counts = new HashMap<>();
+		if(verifySQL != null) {
+			jdbcTemplate.query(verifySQL, new Object[] { new Timestamp(untilDate.getTime()) }, new int[] { Types.TIMESTAMP },
+					(RowCallbackHandler)rs -> {
+						counts.merge(toKey(rs.getString(1), rs.getObject(2)), Long.valueOf(rs.getLong(3)), Long::sum);
+					});
+		}
+		return counts;
+	}
+
+	/**
+	 * @return The content of the statistic table
+	 */
+	protected Map<String,Long> loadTable(JdbcTemplate jdbcTemplate) {
+		Map<String,Long> values = new HashMap<>();
+		if(tableSQL != null) {
+			jdbcTemplate.query(tableSQL, (RowCallbackHandler)rs -> {
+				values.merge(toKey(rs.getString(1), rs.getObject(2)), Long.valueOf(rs.getLong(3)), Long::sum);
+			});
+		}
+		return values;
+	}
+
+	/**
+	 * The bucket can be returned as date, timestamp, integer or double
+	 * depending of the database and if it comes from the statistic table or
+	 * from the logging table.
+	 */
+	private static String toKey(String businessPath, Object bucket) {
+		String normalized;
+		if(bucket instanceof Date) {
+			normalized = Long.toString(((Date)bucket).getTime());
+		} else if(bucket instanceof Number) {
+			normalized = Long.toString(((Number)bucket).longValue());
+		} else {
+			normalized = bucket == null ? "" : bucket.toString().trim();
+		}
+		return businessPath + "::" + normalized;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "[" + loggingName + "]";
+	}
+}
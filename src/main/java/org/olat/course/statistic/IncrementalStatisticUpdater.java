@@ -0,0 +1,261 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.statistic;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.olat.core.commons.persistence.DBFactory;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.StringHelper;
+import org.olat.properties.Property;
+import org.olat.properties.PropertyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This updater replaces the temporary table and the four updaters of
+ * the o_stat_* tables. It folds only the new logging actions directly
+ * from o_loggingtable in the statistic tables.
+ * <p>
+ * The log ids cannot be used as high-water mark: they are allocated in
+ * blocks per node and a transaction can commit a smaller id after a
+ * greater one. The reference is the creation date. An update at the
+ * time T folds:
+ * <ul>
+ *  <li>the actions between the last watermark and T - overlap, all
+ *  committed by now, by range of creation dates</li>
+ *  <li>the actions of the overlap window (T - overlap, T] by id</li>
+ * </ul>
+ * The ids of the overlap window are saved with the new watermark T - overlap,
+ * the next update doesn't count them again but counts the actions of the
+ * window committed later. The statements of all the tables, the watermark
+ * and the ids are committed in the same transaction, a failed run doesn't
+ * count anything twice. The dates given by the StatisticUpdateManager are
+ * ignored.
+ * <p>
+ * With verify set to true, the statistic tables are compared after
+ * every run with an aggregation from scratch of the logging table
+ * up to the time of the update. Differences are logged as errors.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class IncrementalStatisticUpdater implements IStatisticUpdater {
+
+	private static final OLog log = Tracing.createLoggerFor(IncrementalStatisticUpdater.class);
+
+	/** the category used for statistics properties (in the o_properties table) **/
+	private static final String STATISTICS_PROPERTIES_CATEGORY = "STATISTICS_PROPERTIES";
+
+	/** the name of the property which holds the watermark and the ids of the overlap window **/
+	private static final String WATERMARK_PROPERTY_NAME = "INCREMENTAL_WATERMARK";
+	
+	private static final String OVERLAP_IDS_SQL = "select log_id from o_loggingtable where actionverb='launch' and actionobject='node' and creationdate>? and creationdate<=?";
+
+	private static final int MAX_REPORTED_DIFFERENCES = 10;
+
+	private boolean verify;
+	private long overlap = 600000l;
+	private String loggingName;
+	private JdbcTemplate jdbcTemplate;
+	private List<IncrementalStatisticAggregation> aggregations;
+
+	/** set via spring **/
+	public void setLoggingName(String loggingName) {
+		this.loggingName = loggingName;
+	}
+
+	/** set via spring **/
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/** set via spring **/
+	public void setAggregations(List<IncrementalStatisticAggregation> aggregations) {
+		this.aggregations = aggregations;
+	}
+
+	/** set via spring **/
+	public void setVerify(boolean verify) {
+		this.verify = verify;
+	}
+
+	/** set via spring **/
+	public void setOverlap(long overlap) {
+		this.overlap = overlap;
+	}
+
+	@Override
+	public void updateStatistic(boolean fullRecalculation, Date from, Date until, StatisticUpdateManager statisticUpdateManager) {
+		update(fullRecalculation, new Date());
+	}
+	
+	/**
+	 * @param fullRecalculation Delete the statistics and fold all the logging actions
+	 * @param updateTime The time of the update
+	 */
+	protected void update(boolean fullRecalculation, Date updateTime) {
+		log.info("updateStatistic<" + loggingName + ">: START");
+		final long startTime = System.currentTimeMillis();
+		try {
+			Property watermarkProperty = getWatermarkProperty();
+			Long watermark = watermarkProperty.getLongValue();
+			boolean full = fullRecalculation || watermark == null || watermark.longValue() <= 0l;
+			
+			Date fromDate = full ? new Date(0l) : new Date(watermark.longValue());
+			Set<Long> countedLogIds = full ? new HashSet<>() : parseLogIds(watermarkProperty.getTextValue());
+			Date newWatermark = new Date(Math.max(fromDate.getTime(), updateTime.getTime() - overlap));
+			
+			log.info("updateStatistic<" + loggingName + ">: fold logging actions from " + fromDate + " until " + updateTime + (full ? " (full recalculation)" : ""));
+			fold(full, fromDate, newWatermark, updateTime, countedLogIds, watermarkProperty.getKey());
+
+			if(verify) {
+				verify(updateTime);
+			}
+		} catch(RuntimeException e) {
+			log.error("updateStatistic<" + loggingName + ">: RuntimeException while updating the statistics: " + e, e);
+		} finally {
+			final long diff = System.currentTimeMillis() - startTime;
+			log.info("updateStatistic<" + loggingName + ">: END. duration=" + diff + " milliseconds");
+		}
+	}
+
+	private void fold(final boolean fullRecalculation, final Date fromDate, final Date newWatermark, final Date updateTime,
+			final Set<Long> countedLogIds, final Long propertyKey) {
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+		transaction.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				// read before the folds, an action committed in between is counted by the next update
+				List<Long> overlapLogIds = jdbcTemplate.queryForList(OVERLAP_IDS_SQL,
+						new Object[] { new Timestamp(newWatermark.getTime()), new Timestamp(updateTime.getTime()) },
+						new int[] { Types.TIMESTAMP, Types.TIMESTAMP }, Long.class);
+				List<Long> newOverlapLogIds = new ArrayList<>(overlapLogIds.size());
+				for(Long overlapLogId:overlapLogIds) {
+					if(!countedLogIds.contains(overlapLogId)) {
+						newOverlapLogIds.add(overlapLogId);
+					}
+				}
+				
+				for(IncrementalStatisticAggregation aggregation:aggregations) {
+					long start = System.currentTimeMillis();
+					if(fullRecalculation) {
+						aggregation.delete(jdbcTemplate);
+					}
+					if(newWatermark.after(fromDate)) {
+						aggregation.foldRange(jdbcTemplate, fromDate, newWatermark, countedLogIds);
+					}
+					aggregation.foldLogIds(jdbcTemplate, newOverlapLogIds);
+					log.info("updateStatistic<" + aggregation.getLoggingName() + ">: folded in " + (System.currentTimeMillis() - start) + " milliseconds");
+				}
+
+				jdbcTemplate.update("update o_property set longvalue=?, textvalue=?, lastmodified=?, version=version+1 where id=?",
+						new Object[] { Long.valueOf(newWatermark.getTime()), toString(overlapLogIds), new Date(), propertyKey },
+						new int[] { Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP, Types.BIGINT });
+			}
+		});
+	}
+	
+	private static Set<Long> parseLogIds(String text) {
+		Set<Long> logIds = new HashSet<>();
+		if(StringHelper.containsNonWhitespace(text)) {
+			for(String logId:text.split(",")) {
+				logIds.add(Long.valueOf(logId.trim()));
+			}
+		}
+		return logIds;
+	}
+	
+	private static String toString(List<Long> logIds) {
+		StringBuilder sb = new StringBuilder(logIds.size() * 10);
+		for(Long logId:logIds) {
+			if(sb.length() > 0) sb.append(",");
+			sb.append(logId);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Compare the content of the statistic tables with an aggregation
+	 * of the logging table made from scratch.
+	 *
+	 * @param untilDate The time of the last update
+	 * @return The number of buckets which differ
+	 */
+	public int verify(Date untilDate) {
+		int totalDifferences = 0;
+		for(IncrementalStatisticAggregation aggregation:aggregations) {
+			long start = System.currentTimeMillis();
+			Map<String,Long> expected = aggregation.loadFullAggregation(jdbcTemplate, untilDate);
+			Map<String,Long> actual = aggregation.loadTable(jdbcTemplate);
+
+			int differences = 0;
+			for(Map.Entry<String, Long> entry:expected.entrySet()) {
+				Long value = actual.remove(entry.getKey());
+				if(value == null || !value.equals(entry.getValue())) {
+					if(differences++ < MAX_REPORTED_DIFFERENCES) {
+						log.warn("verify<" + aggregation.getLoggingName() + ">: " + entry.getKey() + " expected " + entry.getValue() + " but was " + value);
+					}
+				}
+			}
+			for(Map.Entry<String, Long> entry:actual.entrySet()) {
+				if(differences++ < MAX_REPORTED_DIFFERENCES) {
+					log.warn("verify<" + aggregation.getLoggingName() + ">: " + entry.getKey() + " unexpected value " + entry.getValue());
+				}
+			}
+
+			if(differences > 0) {
+				log.error("verify<" + aggregation.getLoggingName() + ">: " + differences + " buckets differ from a full recalculation up to " + untilDate);
+			} else {
+				log.info("verify<" + aggregation.getLoggingName() + ">: " + expected.size() + " buckets identical to a full recalculation in " + (System.currentTimeMillis() - start) + " milliseconds");
+			}
+			totalDifferences += differences;
+		}
+		return totalDifferences;
+	}
+
+	private Property getWatermarkProperty() {
+		PropertyManager pm = PropertyManager.getInstance();
+		Property p = pm.findProperty(null, null, null, STATISTICS_PROPERTIES_CATEGORY, WATERMARK_PROPERTY_NAME);
+		if (p == null) {
+			p = pm.createPropertyInstance(null, null, null, STATISTICS_PROPERTIES_CATEGORY, WATERMARK_PROPERTY_NAME, null, 0l, null, null);
+			pm.saveProperty(p);
+		}
+		// the property is updated with plain SQL in the same transaction as the statistics
+		DBFactory.getInstance().commitAndCloseSession();
+		return p;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "[" + loggingName + "]";
+	}
+}
@@ -104,7 +104,7 @@ public class BusinessGroupRelationDAO {
 				.setParameter("role", role)
 				.getResultList();
 		 if(memberships.size() > 0) {
-			 dbInstance.getCurrentEntityManager().remove(memberships.get(0)); 
+			 groupDao.removeMembership(memberships.get(0));
 		 }
 		 return memberships.size() > 0;
 	}
@@ -64,6 +64,12 @@ public class QTI21Module extends AbstractSpringModule {
 	private String correctionWorkflow;
 	@Value("${qti21.import.encoding.fallback:}")
 	private String importEncodingFallback;
+	@Value("${qti21.session.journal.enabled:false}")
+	private boolean sessionJournalEnabled;
+	@Value("${qti21.session.journal.snapshot.size:1048576}")
+	private long sessionJournalSnapshotSize;
+	@Value("${qti21.session.journal.force:true}")
+	private boolean sessionJournalForce;
 	
 	@Autowired
 	public QTI21Module(CoordinatorManager coordinatorManager) {
@@ -176,6 +182,33 @@ public class QTI21Module extends AbstractSpringModule {
 		return importEncodingFallback;
 	}
 
+	/**
+	 * @return true if the changes of the test session states are appended
+	 * 		to a journal instead of rewriting the XML file
+	 */
+	public boolean isSessionJournalEnabled() {
+		return sessionJournalEnabled;
+	}
+
+	public void setSessionJournalEnabled(boolean enabled) {
+		this.sessionJournalEnabled = enabled;
+	}
+
+	/**
+	 * @return The size in bytes of the journal which triggers a snapshot
+	 */
+	public long getSessionJournalSnapshotSize() {
+		return sessionJournalSnapshotSize;
+	}
+
+	/**
+	 * @return true if every append is forced to the disk, the snapshots
+	 * 		are always forced
+	 */
+	public boolean isSessionJournalForce() {
+		return sessionJournalForce;
+	}
+
 	public enum CorrectionWorkflow {
 		anonymous,
 		named
@@ -22,9 +22,11 @@ package org.olat.ims.qti21.manager;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.persistence.TypedQuery;
 
+import org.hibernate.jpa.QueryHints;
 import org.olat.basesecurity.GroupRoles;
 import org.olat.core.commons.persistence.DB;
 import org.olat.ims.qti21.AssessmentItemSession;
@@ -144,6 +146,24 @@ public class AssessmentResponseDAO {
 	 * @return The returned list is order by user name, test session key and item session key
 	 */
 	public List<AssessmentResponse> getResponse(QTI21StatisticSearchParams searchParams) {
+		return createResponseQuery(searchParams).getResultList();
+	}
+	
+	/**
+	 * Stream the responses in the same order as {@link #getResponse(QTI21StatisticSearchParams)},
+	 * the responses are read-only and fetched by chunks. The stream need to be closed.
+	 * 
+	 * @param searchParams The search parameters
+	 * @return A stream of responses with their item and test sessions
+	 */
+	public Stream<AssessmentResponse> streamResponses(QTI21StatisticSearchParams searchParams) {
+		return createResponseQuery(searchParams)
+				.setHint(QueryHints.HINT_FETCH_SIZE, AssessmentTestSessionDAO.STREAM_FETCH_SIZE)
+				.setHint(QueryHints.HINT_READONLY, Boolean.TRUE)
+				.getResultStream();
+	}
+	
+	private TypedQuery<AssessmentResponse> createResponseQuery(QTI21StatisticSearchParams searchParams) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("select response from qtiassessmentresponse response ")
 		  .append(" inner join fetch response.assessmentItemSession itemSession")
@@ -160,6 +180,6 @@ public class AssessmentResponseDAO {
 		TypedQuery<AssessmentResponse> query = dbInstance.getCurrentEntityManager()
 				.createQuery(sb.toString(), AssessmentResponse.class);
 		AssessmentTestSessionDAO.decorateTestSessionPermission(query, searchParams);
-		return query.getResultList();
+		return query;
 	}
 }
@@ -27,9 +27,11 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.TypedQuery;
 
+import org.hibernate.jpa.QueryHints;
 import org.olat.basesecurity.GroupRoles;
 import org.olat.basesecurity.IdentityRef;
 import org.olat.core.commons.persistence.DB;
@@ -56,6 +58,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class AssessmentTestSessionDAO {
 	
+	protected static final int STREAM_FETCH_SIZE = 500;
+	
 	private final DateFormat formater = new SimpleDateFormat("yyyyMMdd'T'HHmmss");
 	
 	@Autowired
@@ -654,20 +658,52 @@ public class AssessmentTestSessionDAO {
 	 * @return The returned list is order by user name and test session key
 	 */
 	public List<AssessmentTestSession> getTestSessionsOfResponse(QTI21StatisticSearchParams searchParams) {
+		return createTestSessionsOfResponseQuery(searchParams, AssessmentTestSession.class).getResultList();
+	}
+	
+	/**
+	 * @param searchParams The search parameters
+	 * @return The keys of the test sessions in the same order as {@link #getTestSessionsOfResponse(QTI21StatisticSearchParams)}
+	 */
+	public List<Long> getTestSessionKeysOfResponse(QTI21StatisticSearchParams searchParams) {
+		return createTestSessionsOfResponseQuery(searchParams, Long.class).getResultList();
+	}
+	
+	/**
+	 * Stream the test sessions in the same order as {@link #getTestSessionsOfResponse(QTI21StatisticSearchParams)},
+	 * the sessions are read-only and fetched by chunks. The stream need to be closed.
+	 * 
+	 * @param searchParams The search parameters
+	 * @return A stream of test sessions
+	 */
+	public Stream<AssessmentTestSession> streamTestSessionsOfResponse(QTI21StatisticSearchParams searchParams) {
+		return createTestSessionsOfResponseQuery(searchParams, AssessmentTestSession.class)
+				.setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+				.setHint(QueryHints.HINT_READONLY, Boolean.TRUE)
+				.getResultStream();
+	}
+	
+	private <U> TypedQuery<U> createTestSessionsOfResponseQuery(QTI21StatisticSearchParams searchParams, Class<U> resultClass) {
+		boolean keysOnly = Long.class.equals(resultClass);
 		StringBuilder sb = new StringBuilder();
-		sb.append("select testSession from qtiassessmenttestsession testSession ")
-		  .append(" inner join fetch testSession.assessmentEntry assessmentEntry")
-		  .append(" left join assessmentEntry.identity as ident")
+		if(keysOnly) {
+			sb.append("select testSession.key from qtiassessmenttestsession testSession ")
+			  .append(" inner join testSession.assessmentEntry assessmentEntry");
+		} else {
+			sb.append("select testSession from qtiassessmenttestsession testSession ")
+			  .append(" inner join fetch testSession.assessmentEntry assessmentEntry");
+		}
+		sb.append(" left join assessmentEntry.identity as ident")
 		  .append(" left join ident.user as usr");
 		
 		decorateTestSessionPermission(sb, searchParams);
 		//need to be anonymized
 		sb.append(" order by usr.lastName, testSession.key");
 		
-		TypedQuery<AssessmentTestSession> query = dbInstance.getCurrentEntityManager()
-				.createQuery(sb.toString(), AssessmentTestSession.class);
+		TypedQuery<U> query = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), resultClass);
 		decorateTestSessionPermission(query, searchParams) ;
-		return query.getResultList();
+		return query;
 	}
 	
 	/**
@@ -19,6 +19,8 @@
  */
 package org.olat.ims.qti21.manager;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -28,6 +30,7 @@ import java.io.OutputStream;
 import java.io.StringReader;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -523,8 +526,8 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 		if(session == null || session.isExploded() || session.getFinishTime() != null || session.getTerminationTime() != null) {
 			session = null;
 		} else {
-			File sessionFile = getTestSessionStateFile(session);
-			if(!sessionFile.exists()) {
+			SessionStateJournal sessionState = getTestSessionStateJournal(session);
+			if(!sessionState.exists()) {
 				session = null;
 			}
 		}
@@ -616,8 +619,7 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
     }
 	
     private Document loadStateDocument(AssessmentTestSession candidateSession) {
-        File sessionFile = getTestSessionStateFile(candidateSession);
-        return loadStateDocument(sessionFile);
+        return loadStateDocument(getTestSessionStateJournal(candidateSession));
     }
     
     @Override
@@ -627,8 +629,24 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 	}
     
     private Document loadStateDocument(AssessmentTestSession candidateSession, AssessmentItemSession itemSession) {
-        File sessionFile = getItemSessionStateFile(candidateSession, itemSession);
-        return loadStateDocument(sessionFile);
+        return loadStateDocument(getItemSessionStateJournal(candidateSession, itemSession));
+    }
+    
+    /**
+     * The last state of the journal if any, or the XML file (which is the
+     * snapshot or the state saved without journal).
+     */
+    private Document loadStateDocument(SessionStateJournal journal) {
+        byte[] state = journal.readLatest();
+        if(state != null) {
+	        try {
+		        DocumentBuilder documentBuilder = XmlFactories.newDocumentBuilder();
+	            return documentBuilder.parse(new ByteArrayInputStream(state));
+	        } catch (final Exception e) {
+	        	return loadFilteredStateDocument(new String(state, StandardCharsets.UTF_8));
+	        }
+        }
+        return loadStateDocument(journal.getSnapshotFile());
     }
     
     private Document loadStateDocument(File sessionFile) {
@@ -646,6 +664,14 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 	private Document loadFilteredStateDocument(File sessionFile) {
     		try(InputStream in = new FileInputStream(sessionFile)) {
     			String xmlContent = IOUtils.toString(in, "UTF-8");
+    			return loadFilteredStateDocument(xmlContent);
+        } catch (IOException e) {
+        		throw new OLATRuntimeException("Could not parse serialized state XML. This is an internal error as we currently don't expose this data to clients", e);
+        }
+    }
+
+	private Document loadFilteredStateDocument(String xmlContent) {
+    		try {
     			String filteredContent = FilterFactory.getXMLValidEntityFilter().filter(xmlContent);
 	        DocumentBuilder documentBuilder = XmlFactories.newDocumentBuilder();
             return documentBuilder.parse(new InputSource(new StringReader(filteredContent)));
@@ -1153,6 +1179,12 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 			candidateSession = testSessionDao.update(candidateSession);
 		}
 		
+		SessionStateJournal sessionState = getTestSessionStateJournal(candidateSession);
+		if(sessionState.hasJournal()) {
+			snapshotStateDocument(TestSessionStateXmlMarshaller.marshal(testSessionState), sessionState);
+		}
+		compactItemSessionStates(candidateSession);
+		
 		storeAssessmentResultFile(candidateSession, assessmentResult);
 		if(qtiModule.isDigitalSignatureEnabled() && digitalSignature.isDigitalSignature()) {
     		signAssessmentResult(candidateSession, digitalSignature, assessedIdentity);
@@ -1170,14 +1202,11 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 	 */
 	@Override
 	public void cancelTestSession(AssessmentTestSession candidateSession, TestSessionState testSessionState) {
-		final File myStore = testSessionDao.getSessionStorage(candidateSession);
-        final File sessionState = new File(myStore, "testSessionState.xml");
+		final SessionStateJournal sessionState = getTestSessionStateJournal(candidateSession);
         final File resultFile = getAssessmentResultFile(candidateSession);
 
 		testSessionDao.deleteTestSession(candidateSession);
-		if(sessionState != null && sessionState.exists()) {
-			sessionState.delete();
-		}
+		sessionState.delete();
 		if(resultFile != null && resultFile.exists()) {
 			resultFile.delete();
 		}
@@ -1308,24 +1337,19 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 	
 	private void storeTestSessionState(CandidateEvent candidateEvent, TestSessionState testSessionState) {
 		Document stateDocument = TestSessionStateXmlMarshaller.marshal(testSessionState);
-		File sessionFile = getTestSessionStateFile(candidateEvent);
-		storeStateDocument(stateDocument, sessionFile);
+		SessionStateJournal sessionState = getTestSessionStateJournal(candidateEvent.getCandidateSession());
+		appendStateDocument(stateDocument, sessionState);
 	}
 	
 	private void storeTestSessionState(AssessmentTestSession candidateSession, TestSessionState testSessionState) {
 		Document stateDocument = TestSessionStateXmlMarshaller.marshal(testSessionState);
-		File sessionFile = getTestSessionStateFile(candidateSession);
-		storeStateDocument(stateDocument, sessionFile);
-	}
-
-	private File getTestSessionStateFile(CandidateEvent candidateEvent) {
-		AssessmentTestSession candidateSession = candidateEvent.getCandidateSession();
-		return getTestSessionStateFile(candidateSession);
+		SessionStateJournal sessionState = getTestSessionStateJournal(candidateSession);
+		snapshotStateDocument(stateDocument, sessionState);
 	}
     
-	private File getTestSessionStateFile(AssessmentTestSession candidateSession) {
+	private SessionStateJournal getTestSessionStateJournal(AssessmentTestSession candidateSession) {
 		File myStore = testSessionDao.getSessionStorage(candidateSession);
-		return new File(myStore, "testSessionState.xml");
+		return new SessionStateJournal(myStore, "testSessionState");
 	}
 	
     @Override
@@ -1367,25 +1391,87 @@ public class QTI21ServiceImpl implements QTI21Service, UserDataDeletable, Initia
 
 	public void storeItemSessionState(AssessmentItemSession itemSession, CandidateEvent candidateEvent, ItemSessionState itemSessionState) {
         Document stateDocument = ItemSessionStateXmlMarshaller.marshal(itemSessionState);
-        File sessionFile = getItemSessionStateFile(candidateEvent.getCandidateSession(), itemSession);
-        storeStateDocument(stateDocument, sessionFile);
+        SessionStateJournal sessionState = getItemSessionStateJournal(candidateEvent.getCandidateSession(), itemSession);
+        appendStateDocument(stateDocument, sessionState);
     }
     
-	private File getItemSessionStateFile(AssessmentTestSession candidateSession, AssessmentItemSession itemSession) {
+	private SessionStateJournal getItemSessionStateJournal(AssessmentTestSession candidateSession, AssessmentItemSession itemSession) {
 		File myStore = testSessionDao.getSessionStorage(candidateSession);
-		String filename = "itemSessionState_" + itemSession.getKey() + ".xml";
-		return new File(myStore, filename);
+		return new SessionStateJournal(myStore, "itemSessionState_" + itemSession.getKey());
+	}
+	
+	/**
+	 * Append the state to the journal if enabled, or rewrite the XML file. A snapshot is
+	 * written if the journal is too large.
+	 */
+	private void appendStateDocument(Document stateXml, SessionStateJournal journal) {
+		if(qtiModule.isSessionJournalEnabled()) {
+			// serialized once, the same bytes are used for the snapshot
+			byte[] state = serializeStateDocument(stateXml, false);
+			try {
+				journal.append(state, qtiModule.isSessionJournalForce());
+				if(journal.isSnapshotDue(qtiModule.getSessionJournalSnapshotSize())) {
+					journal.snapshot(state);
+				}
+			} catch (IOException e) {
+				throw new OLATRuntimeException("Cannot append the state to the journal: " + journal.getJournalFile(), e);
+			}
+		} else {
+			storeStateDocument(stateXml, journal.getSnapshotFile());
+			// a journal of the time the feature was enabled is obsolete
+			journal.deleteJournal();
+		}
+	}
+	
+	/**
+	 * Replace the journals of the item session states of a finished test
+	 * by their snapshots.
+	 */
+	private void compactItemSessionStates(AssessmentTestSession candidateSession) {
+		List<AssessmentItemSession> itemSessions = itemSessionDao.getAssessmentItemSessions(candidateSession);
+		for(AssessmentItemSession itemSession:itemSessions) {
+			SessionStateJournal journal = getItemSessionStateJournal(candidateSession, itemSession);
+			if(journal.hasJournal()) {
+				try {
+					journal.compact();
+				} catch (IOException e) {
+					log.error("Cannot compact the journal: " + journal.getJournalFile(), e);
+				}
+			}
+		}
+	}
+	
+	private void snapshotStateDocument(Document stateXml, SessionStateJournal journal) {
+		try {
+			journal.snapshot(serializeStateDocument(stateXml, true));
+		} catch (IOException e) {
+			throw new OLATRuntimeException("Cannot write the snapshot of the state: " + journal.getSnapshotFile(), e);
+		}
+	}
+	
+	private byte[] serializeStateDocument(Document stateXml, boolean indenting) {
+		ByteArrayOutputStream resultStream = new ByteArrayOutputStream(16384);
+		serializeStateDocument(stateXml, indenting, resultStream);
+		return resultStream.toByteArray();
 	}
     
 	private void storeStateDocument(Document stateXml, File sessionFile) {
+        try(OutputStream resultStream = new FileOutputStream(sessionFile)) {
+        	serializeStateDocument(stateXml, true, resultStream);
+        } catch (IOException e) {
+            throw new OLATRuntimeException("Unexpected Exception serializing state DOM", e);
+        }
+    }
+	
+	private void serializeStateDocument(Document stateXml, boolean indenting, OutputStream resultStream) {
         XsltSerializationOptions xsltSerializationOptions = new XsltSerializationOptions();
-        xsltSerializationOptions.setIndenting(true);
+        xsltSerializationOptions.setIndenting(indenting);
         xsltSerializationOptions.setIncludingXMLDeclaration(false);
         
         Transformer serializer = XsltStylesheetManager.createSerializer(xsltSerializationOptions);
-        try(OutputStream resultStream = new FileOutputStream(sessionFile)) {
+        try {
             serializer.transform(new DOMSource(stateXml), new StreamResult(resultStream));
-        } catch (TransformerException | IOException e) {
+        } catch (TransformerException e) {
             throw new OLATRuntimeException("Unexpected Exception serializing state DOM", e);
         }
     }
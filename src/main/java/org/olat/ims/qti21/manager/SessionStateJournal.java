@@ -0,0 +1,413 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ims.qti21.manager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.FileUtils;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+
+/**
+ * The journal of a session state. Every change of the state is appended
+ * as a complete, compressed record to the journal. A record has a header
+ * with a magic number, the length and the CRC32 checksum of the payload,
+ * and a trailer with the length and the magic number to find the last
+ * record from the end of the file. A state equal to the last record is
+ * not appended.
+ * <p>
+ * The XML file of the state is the snapshot. It's written in a temporary
+ * file which is moved at the end, and the journal is deleted after it. The
+ * readers only read: the last valid record wins, a torn or corrupted end
+ * of the journal (crash during an append) is skipped. The writer cuts it
+ * under the lock of the file before its next append. Without a valid
+ * record, the XML file is used: the states saved before the journal
+ * was enabled are read as before.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class SessionStateJournal {
+
+	private static final OLog log = Tracing.createLoggerFor(SessionStateJournal.class);
+
+	private static final int MAGIC = 0x514A524E;
+	private static final int HEADER_LENGTH = 16;
+	private static final int TRAILER_LENGTH = 8;
+	private static final int RECORD_OVERHEAD = HEADER_LENGTH + TRAILER_LENGTH;
+	// the file locks are per JVM, serialize the threads before
+	private static final Object[] WRITE_LOCKS = new Object[64];
+	static {
+		for(int i=WRITE_LOCKS.length; i-->0; ) {
+			WRITE_LOCKS[i] = new Object();
+		}
+	}
+
+	private final File snapshotFile;
+	private final File journalFile;
+
+	/**
+	 * @param storage The directory of the session
+	 * @param name The name of the state file without extension
+	 */
+	public SessionStateJournal(File storage, String name) {
+		snapshotFile = new File(storage, name + ".xml");
+		journalFile = new File(storage, name + ".journal");
+	}
+
+	public File getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	public File getJournalFile() {
+		return journalFile;
+	}
+
+	/**
+	 * @return true if there is a snapshot or a journal
+	 */
+	public boolean exists() {
+		return journalFile.exists() || snapshotFile.exists();
+	}
+
+	public boolean hasJournal() {
+		return journalFile.exists();
+	}
+
+	/**
+	 * @param maxSize The maximum size in bytes of the journal
+	 * @return true if the journal is larger than the specified size
+	 */
+	public boolean isSnapshotDue(long maxSize) {
+		return journalFile.length() >= maxSize;
+	}
+	
+	private Object writeLock() {
+		return WRITE_LOCKS[(journalFile.getAbsolutePath().hashCode() & 0x7fffffff) % WRITE_LOCKS.length];
+	}
+
+	/**
+	 * Append the state to the journal. A torn end of the journal is cut
+	 * first. Nothing is written if the state is the same as the last one.
+	 * 
+	 * @param state The serialized state
+	 * @param force Force the journal to the disk
+	 * @return true if the state was appended
+	 */
+	public boolean append(byte[] state, boolean force) throws IOException {
+		byte[] payload = deflate(state);
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		long checksum = crc.getValue();
+
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_OVERHEAD + payload.length);
+		buffer.putInt(MAGIC);
+		buffer.putInt(payload.length);
+		buffer.putLong(checksum);
+		buffer.put(payload);
+		buffer.putInt(payload.length);
+		buffer.putInt(MAGIC);
+		buffer.flip();
+
+		boolean created = !journalFile.exists();
+		synchronized(writeLock()) {
+			try(FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+					FileLock lock = channel.lock()) {
+				long size = channel.size();
+				long lastRecord = size == 0 ? -1l : lastRecordPosition(channel, size);
+				if(lastRecord < 0 && size > 0) {
+					long end = validEnd(channel, size);
+					log.warn("Truncate the session journal after the last complete record: " + journalFile + " (" + size + " -> " + end + ")");
+					channel.truncate(end);
+					size = end;
+				} else if(lastRecord >= 0 && isSameRecord(channel, lastRecord, payload.length, checksum)) {
+					return false;
+				}
+				
+				long position = size;
+				while(buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+				if(force) {
+					channel.force(false);
+				}
+			}
+		}
+		if(created && force) {
+			forceDirectory();
+		}
+		return true;
+	}
+
+	/**
+	 * Read the last valid state of the journal. The journal is only read,
+	 * a torn or corrupted end is skipped.
+	 * 
+	 * @return The serialized state or null if the journal doesn't exist
+	 * 		or doesn't contain a valid record
+	 */
+	public byte[] readLatest() {
+		if(!journalFile.exists()) {
+			return null;
+		}
+
+		try(FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			// fast path, the last record is complete and valid
+			long lastRecord = lastRecordPosition(channel, size);
+			if(lastRecord >= 0) {
+				byte[] payload = readPayload(channel, lastRecord);
+				if(payload != null) {
+					return inflate(payload);
+				}
+			}
+
+			List<Long> positions = recordPositions(channel, size);
+			for(int i=positions.size(); i-->0; ) {
+				byte[] payload = readPayload(channel, positions.get(i).longValue());
+				if(payload != null) {
+					log.warn("Skip the invalid end of the session journal: " + journalFile);
+					return inflate(payload);
+				}
+			}
+			
+			if(size > 0) {
+				log.warn("Session journal without valid record: " + journalFile);
+			}
+			return null;
+		} catch (IOException | DataFormatException e) {
+			log.error("Cannot read the session journal: " + journalFile, e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Write the last valid state of the journal as snapshot.
+	 * 
+	 * @return true if the journal had a valid state
+	 */
+	public boolean compact() throws IOException {
+		byte[] state = readLatest();
+		if(state != null) {
+			snapshot(state);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Write the snapshot of the state and delete the journal. The snapshot
+	 * is first written in a temporary file, forced to the disk and moved.
+	 * 
+	 * @param state The serialized state
+	 */
+	public void snapshot(byte[] state) throws IOException {
+		synchronized(writeLock()) {
+			File tmpFile = File.createTempFile(snapshotFile.getName(), ".tmp", snapshotFile.getParentFile());
+			try {
+				try(FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					ByteBuffer buffer = ByteBuffer.wrap(state);
+					while(buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+					channel.force(false);
+				}
+				
+				try {
+					Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+				forceDirectory();
+			} finally {
+				FileUtils.deleteQuietly(tmpFile);
+			}
+			// the snapshot is the reference now
+			Files.deleteIfExists(journalFile.toPath());
+		}
+	}
+
+	public void delete() {
+		FileUtils.deleteQuietly(journalFile);
+		FileUtils.deleteQuietly(snapshotFile);
+	}
+
+	public void deleteJournal() {
+		if(journalFile.exists()) {
+			FileUtils.deleteQuietly(journalFile);
+		}
+	}
+
+	/**
+	 * Make the new directory entries durable. It's not supported on
+	 * every platform and silently ignored.
+	 */
+	private void forceDirectory() {
+		try(FileChannel channel = FileChannel.open(journalFile.getParentFile().toPath(), StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Windows, some network file systems
+		}
+	}
+
+	/**
+	 * @return The position of the last record if the end of the journal is
+	 * 		a complete record, or -1
+	 */
+	private static long lastRecordPosition(FileChannel channel, long size) throws IOException {
+		if(size < RECORD_OVERHEAD) {
+			return -1l;
+		}
+		ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+		readFully(channel, trailer, size - TRAILER_LENGTH);
+		int length = trailer.getInt(0);
+		if(trailer.getInt(4) != MAGIC || length < 0 || length > size - RECORD_OVERHEAD) {
+			return -1l;
+		}
+		long position = size - RECORD_OVERHEAD - length;
+		return isCompleteRecord(channel, position, size) ? position : -1l;
+	}
+	
+	/**
+	 * @return The positions of the complete records from the start of the journal
+	 */
+	private static List<Long> recordPositions(FileChannel channel, long size) throws IOException {
+		List<Long> positions = new ArrayList<>();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		for(long position=0; isCompleteRecord(channel, position, size); ) {
+			positions.add(Long.valueOf(position));
+			header.clear();
+			readFully(channel, header, position);
+			position += RECORD_OVERHEAD + header.getInt(4);
+		}
+		return positions;
+	}
+	
+	/**
+	 * @return The end of the last complete record
+	 */
+	private static long validEnd(FileChannel channel, long size) throws IOException {
+		List<Long> positions = recordPositions(channel, size);
+		if(positions.isEmpty()) {
+			return 0l;
+		}
+		long lastPosition = positions.get(positions.size() - 1).longValue();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		readFully(channel, header, lastPosition);
+		return lastPosition + RECORD_OVERHEAD + header.getInt(4);
+	}
+	
+	private static boolean isCompleteRecord(FileChannel channel, long position, long size) throws IOException {
+		if(position < 0 || position + RECORD_OVERHEAD > size) {
+			return false;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		readFully(channel, header, position);
+		int length = header.getInt(4);
+		if(header.getInt(0) != MAGIC || length < 0 || position + RECORD_OVERHEAD + length > size) {
+			return false;
+		}
+		ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+		readFully(channel, trailer, position + HEADER_LENGTH + length);
+		return trailer.getInt(0) == length && trailer.getInt(4) == MAGIC;
+	}
+	
+	private static boolean isSameRecord(FileChannel channel, long position, int length, long checksum) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		readFully(channel, header, position);
+		return header.getInt(4) == length && header.getLong(8) == checksum;
+	}
+	
+	/**
+	 * @return The payload of the record if its checksum is valid, or null
+	 */
+	private static byte[] readPayload(FileChannel channel, long position) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		readFully(channel, header, position);
+		int length = header.getInt(4);
+		long checksum = header.getLong(8);
+		
+		ByteBuffer payload = ByteBuffer.allocate(length);
+		readFully(channel, payload, position + HEADER_LENGTH);
+		CRC32 crc = new CRC32();
+		crc.update(payload.array());
+		return crc.getValue() == checksum ? payload.array() : null;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if(read < 0) {
+				throw new IOException("Unexpected end of the journal");
+			}
+		}
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(256, data.length / 4));
+			byte[] buffer = new byte[8192];
+			while(!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				out.write(buffer, 0, count);
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] data) throws DataFormatException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+			byte[] buffer = new byte[8192];
+			while(!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new DataFormatException("Truncated record");
+				}
+				out.write(buffer, 0, count);
+			}
+			return out.toByteArray();
+		} finally {
+			inflater.end();
+		}
+	}
+}
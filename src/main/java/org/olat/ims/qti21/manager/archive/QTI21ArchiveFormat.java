@@ -27,13 +27,21 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import javax.persistence.EntityManager;
+
 import org.olat.core.CoreSpringFactory;
+import org.olat.core.commons.persistence.DB;
 import org.olat.core.gui.media.MediaResource;
 import org.olat.core.gui.translator.Translator;
 import org.olat.core.id.Identity;
@@ -136,6 +144,8 @@ public class QTI21ArchiveFormat {
 	
 	private static final OLog log = Tracing.createLoggerFor(QTI21ArchiveFormat.class);
 	
+	private static final int MAX_SHARED_STRINGS = 65536;
+	
 	private Translator translator;
 	
 	private ResolvedAssessmentTest resolvedAssessmentTest;
@@ -150,6 +160,7 @@ public class QTI21ArchiveFormat {
 	private List<AbstractInfos> elementInfos;
 	private final Map<String, InteractionArchive> interactionArchiveMap = new HashMap<>();
 	
+	private final DB dbInstance;
 	private final QTI21Service qtiService;
 	private final UserManager userManager;
 	private final AssessmentResponseDAO responseDao;
@@ -165,6 +176,7 @@ public class QTI21ArchiveFormat {
 		
 		userManager = CoreSpringFactory.getImpl(UserManager.class);
 		qtiService = CoreSpringFactory.getImpl(QTI21ServiceImpl.class);
+		dbInstance = CoreSpringFactory.getImpl(DB.class);
 		responseDao = CoreSpringFactory.getImpl(AssessmentResponseDAO.class);
 		testSessionDao = CoreSpringFactory.getImpl(AssessmentTestSessionDAO.class);
 		
@@ -251,16 +263,28 @@ public class QTI21ArchiveFormat {
 		File unzippedDirRoot = frm.unzipFileResource(testEntry.getOlatResource());
 		resolvedAssessmentTest = qtiService.loadAndResolveAssessmentTest(unzippedDirRoot, false, false);
 		
-		//content
-		final List<AssessmentTestSession> sessions = testSessionDao.getTestSessionsOfResponse(searchParams);
-		final List<AssessmentResponse> responses = responseDao.getResponse(searchParams);
-		try(OpenXMLWorkbook workbook = new OpenXMLWorkbook(exportStream, 1)) {
+		writeWorkbook(exportStream);
+	}
+	
+	/**
+	 * The sessions and the responses are streamed from the database, row by row.
+	 * Only the keys of the sessions are loaded upfront to merge both streams.
+	 * 
+	 * @param out The output stream
+	 */
+	private void writeWorkbook(OutputStream out) {
+		try(OpenXMLWorkbook workbook = new OpenXMLWorkbook(out, 1, MAX_SHARED_STRINGS)) {
 			//headers
 			OpenXMLWorksheet exportSheet = workbook.nextWorksheet();
 			exportSheet.setHeaderRows(2);
 			writeHeaders_1(exportSheet, workbook);
 			writeHeaders_2(exportSheet, workbook);
-			writeData(sessions, responses, exportSheet, workbook);
+			//content
+			List<Long> sessionKeys = testSessionDao.getTestSessionKeysOfResponse(searchParams);
+			try(Stream<AssessmentTestSession> sessions = testSessionDao.streamTestSessionsOfResponse(searchParams);
+					Stream<AssessmentResponse> responses = responseDao.streamResponses(searchParams)) {
+				writeData(sessionKeys, sessions, responses, exportSheet, workbook);
+			}
 		} catch(Exception e) {
 			log.error("", e);
 		}
@@ -282,22 +306,10 @@ public class QTI21ArchiveFormat {
 			anonymizerCallback = course.getCourseEnvironment().getCoursePropertyManager();
 		}
 		
-		//content
-		final List<AssessmentTestSession> sessions = testSessionDao.getTestSessionsOfResponse(searchParams);
-		final List<AssessmentResponse> responses = responseDao.getResponse(searchParams);
 		return new OpenXMLWorkbookResource(label) {
 			@Override
 			protected void generate(OutputStream out) {
-				try(OpenXMLWorkbook workbook = new OpenXMLWorkbook(out, 1)) {
-					//headers
-					OpenXMLWorksheet exportSheet = workbook.nextWorksheet();
-					exportSheet.setHeaderRows(2);
-					writeHeaders_1(exportSheet, workbook);
-					writeHeaders_2(exportSheet, workbook);
-					writeData(sessions, responses, exportSheet, workbook);
-				} catch (Exception e) {
-					log.error("", e);
-				}
+				writeWorkbook(out);
 			}
 		};
 	}
@@ -452,36 +464,76 @@ public class QTI21ArchiveFormat {
 	}
 	
 	/**
-	 * The 2 lists, sessions and responses are order by the user name and the test session key.
-	 * @param sessions A list of test sessions ordered by test session key
-	 * @param responses A list of responses ordered by test session key
+	 * The 2 streams, sessions and responses are ordered by participant name and
+	 * test session key. The responses of a session are collected, the row written
+	 * and the entities detached.
+	 * 
+	 * @param sessionKeys The keys of the test sessions in the order of the streams
+	 * @param sessions A stream of test sessions ordered by name and test session key
+	 * @param responses A stream of responses ordered by name and test session key
 	 * @param exportSheet
 	 * @param workbook
 	 */
-	private void writeData(List<AssessmentTestSession> sessions, List<AssessmentResponse> responses, OpenXMLWorksheet exportSheet, OpenXMLWorkbook workbook) {
-		int numOfSessions = sessions.size();
-		Map<AssessmentTestSession, SessionResponses> sessionToResponses = new HashMap<>();
-		for(int i=0; i<numOfSessions; i++) {
-			AssessmentTestSession testSession = sessions.get(i);
-			sessionToResponses.put(testSession, new SessionResponses(testSession));
-		}
-
-		int numOfResponses = responses.size();
-		for(int j=0; j<numOfResponses; j++) {
-			AssessmentResponse response = responses.get(j);
-			
-			AssessmentItemSession itemSession = response.getAssessmentItemSession();
-			AssessmentTestSession responseTestSession = itemSession.getAssessmentTestSession();
-			SessionResponses sessionResponses = sessionToResponses.get(responseTestSession);
-			if(sessionResponses != null) {
-				sessionResponses.addResponse(itemSession, response);
+	private void writeData(List<Long> sessionKeys, Stream<AssessmentTestSession> sessions, Stream<AssessmentResponse> responses,
+			OpenXMLWorksheet exportSheet, OpenXMLWorkbook workbook) {
+		final EntityManager em = dbInstance.getCurrentEntityManager();
+		final AtomicInteger num = new AtomicInteger(2);
+		mergeResponses(sessionKeys, sessions.iterator(), responses.iterator(), (testSession, sessionResponseList) -> {
+			SessionResponses sessionResponses = new SessionResponses(testSession);
+			for(AssessmentResponse response:sessionResponseList) {
+				sessionResponses.addResponse(response.getAssessmentItemSession(), response);
 			}
+			writeDataRow(num.getAndIncrement(), sessionResponses, exportSheet, workbook);
+			sessionResponses.detach(em);
+		}, skippedResponse -> {
+			em.detach(skippedResponse);
+			em.detach(skippedResponse.getAssessmentItemSession());
+		});
+	}
+	
+	/**
+	 * Merge the sessions and their responses, both in the order of the session keys.
+	 * The order comes from the database (names with its collation), the merge only
+	 * compares the positions of the session keys. The responses of a test session
+	 * which is not in the keys or already passed are skipped.
+	 * 
+	 * @param sessionKeys The keys of the test sessions in the order of both iterators
+	 * @param sessions The test sessions
+	 * @param responses The responses, grouped by test session
+	 * @param sessionConsumer Receives every session with its responses (possibly empty)
+	 * @param skippedConsumer Receives the skipped responses
+	 */
+	static void mergeResponses(List<Long> sessionKeys, Iterator<AssessmentTestSession> sessions, Iterator<AssessmentResponse> responses,
+			BiConsumer<AssessmentTestSession, List<AssessmentResponse>> sessionConsumer, Consumer<AssessmentResponse> skippedConsumer) {
+		Map<Long,Integer> positions = new HashMap<>();
+		for(int i=0; i<sessionKeys.size(); i++) {
+			positions.put(sessionKeys.get(i), Integer.valueOf(i));
 		}
 		
-		for(int i=0; i<numOfSessions; i++) {
-			AssessmentTestSession testSession = sessions.get(i);
-			SessionResponses sessionResponses = sessionToResponses.get(testSession);
-			writeDataRow(i + 2, sessionResponses, exportSheet, workbook);
+		int position = -1;
+		AssessmentResponse nextResponse = responses.hasNext() ? responses.next() : null;
+		while(sessions.hasNext()) {
+			AssessmentTestSession testSession = sessions.next();
+			Integer sessionPosition = positions.get(testSession.getKey());
+			if(sessionPosition != null) {
+				position = sessionPosition.intValue();
+			}
+			
+			List<AssessmentResponse> sessionResponses = new ArrayList<>();
+			while(nextResponse != null) {
+				Long responseSessionKey = nextResponse.getAssessmentItemSession().getAssessmentTestSession().getKey();
+				if(responseSessionKey.equals(testSession.getKey())) {
+					sessionResponses.add(nextResponse);
+				} else {
+					Integer responsePosition = positions.get(responseSessionKey);
+					if(responsePosition != null && responsePosition.intValue() > position) {
+						break;// responses of a next session
+					}
+					skippedConsumer.accept(nextResponse);
+				}
+				nextResponse = responses.hasNext() ? responses.next() : null;
+			}
+			sessionConsumer.accept(testSession, sessionResponses);
 		}
 	}
 	
@@ -730,6 +782,21 @@ public class QTI21ArchiveFormat {
 			return response;
 		}
 		
+		/**
+		 * Free the persistence context of the entities already written.
+		 */
+		public void detach(EntityManager em) {
+			em.detach(testSession);
+			for(AssessmentItemSession itemSession:itemSessionsMap.values()) {
+				em.detach(itemSession);
+			}
+			for(List<AssessmentResponse> responses:responsesMap.values()) {
+				for(AssessmentResponse response:responses) {
+					em.detach(response);
+				}
+			}
+		}
+		
 		public void addResponse(AssessmentItemSession itemSession, AssessmentResponse response) {
 			String itemIdentifier = itemSession.getAssessmentItemIdentifier();
 			if(!itemSessionsMap.containsKey(itemIdentifier)) {
@@ -31,6 +31,7 @@ import org.olat.basesecurity.IdentityRef;
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.util.resource.OresHelper;
+import org.olat.ldap.model.LDAPSyncReport;
 
 public interface LDAPLoginManager {
 
@@ -63,6 +64,22 @@ public interface LDAPLoginManager {
 
 	public boolean doBatchSync(LDAPError errors);
 	
+	/**
+	 * Search the users in LDAP like a full batch sync but don't change
+	 * anything. The users which would be created, updated, converted
+	 * or deleted are reported and logged. The dry run holds the sync lock
+	 * and is rejected while a batch sync is running.
+	 * 
+	 * @param errors The errors
+	 * @return The report with the intended changes
+	 */
+	public LDAPSyncReport doBatchSyncDryRun(LDAPError errors);
+	
+	/**
+	 * @return The metrics of the last successful batch sync on this node or null
+	 */
+	public LDAPSyncReport getLastSyncReport();
+	
 	public Date getLastSyncDate();
 	
 	public boolean acquireSyncLock();
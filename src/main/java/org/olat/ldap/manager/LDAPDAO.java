@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.function.Consumer;
 
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
@@ -277,6 +278,37 @@ public class LDAPDAO {
 	 */
 
 	public List<LDAPUser> getUserAttributesModifiedSince(Date syncTime, LdapContext ctx) {
+		final boolean debug = log.isDebug();
+		String[] userAttrs = getEnhancedUserAttributes();
+		LDAPUserVisitor userVisitor = new LDAPUserVisitor(syncConfiguration);
+		searchInLdap(userVisitor, buildUserModifiedSinceFilter(syncTime), userAttrs, ctx);
+		List<LDAPUser> ldapUserList = userVisitor.getLdapUserList();
+		if(debug) {
+			log.debug("attrib search returned " + ldapUserList.size() + " results");
+		}
+		return ldapUserList;
+	}
+	
+	/**
+	 * Search the LDAP users like getUserAttributesModifiedSince but give them
+	 * chunk by chunk to the consumer while the paged search is running.
+	 * 
+	 * @param syncTime The time to search in LDAP for changes since this time or null for all users
+	 * @param ctx The LDAP system connection
+	 * @param chunkSize The max. number of users per chunk
+	 * @param consumer The consumer of the chunks
+	 * @return The number of users found
+	 */
+	public int getUserAttributesModifiedSince(Date syncTime, LdapContext ctx, int chunkSize, Consumer<List<LDAPUser>> consumer) {
+		String[] userAttrs = getEnhancedUserAttributes();
+		LDAPUserChunkVisitor userVisitor = new LDAPUserChunkVisitor(syncConfiguration, chunkSize, consumer);
+		searchInLdap(userVisitor, buildUserModifiedSinceFilter(syncTime), userAttrs, ctx);
+		userVisitor.flush();
+		log.debug("attrib search returned " + userVisitor.getCount() + " results");
+		return userVisitor.getCount();
+	}
+	
+	private String buildUserModifiedSinceFilter(Date syncTime) {
 		final boolean debug = log.isDebug();
 		String userFilter = syncConfiguration.getLdapUserFilter();
 		StringBuilder filter = new StringBuilder();
@@ -304,15 +336,7 @@ public class LDAPDAO {
 				filter.append(")");				
 			}
 		}
-
-		String[] userAttrs = getEnhancedUserAttributes();
-		LDAPUserVisitor userVisitor = new LDAPUserVisitor(syncConfiguration);
-		searchInLdap(userVisitor, filter.toString(), userAttrs, ctx);
-		List<LDAPUser> ldapUserList = userVisitor.getLdapUserList();
-		if(debug) {
-			log.debug("attrib search returned " + ldapUserList.size() + " results");
-		}
-		return ldapUserList;
+		return filter.toString();
 	}
 	
 	public String[] getEnhancedUserAttributes() {
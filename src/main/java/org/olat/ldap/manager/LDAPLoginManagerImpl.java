@@ -32,6 +32,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.naming.AuthenticationException;
 import javax.naming.Context;
@@ -92,11 +101,14 @@ import org.olat.ldap.LDAPLoginManager;
 import org.olat.ldap.LDAPLoginModule;
 import org.olat.ldap.LDAPSyncConfiguration;
 import org.olat.ldap.model.LDAPGroup;
+import org.olat.ldap.model.LDAPSyncReport;
+import org.olat.ldap.model.LDAPSyncReport.Phase;
 import org.olat.ldap.model.LDAPUser;
 import org.olat.ldap.ui.LDAPAuthenticationController;
 import org.olat.login.auth.OLATAuthManager;
 import org.olat.user.UserManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -114,12 +126,18 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, GenericEventListe
 	private static final OLog log = Tracing.createLoggerFor(LDAPLoginManagerImpl.class);
 
 	private static final String TIMEOUT_KEY = "com.sun.jndi.ldap.connect.timeout";
-	private static boolean batchSyncIsRunning = false;
+	private static volatile boolean batchSyncIsRunning = false;
 	private static Date lastSyncDate = null; // first sync is always a full sync
+	private static volatile LDAPSyncReport lastSyncReport = null;
 	
 	private Coordinator coordinator;
 	private TaskExecutorManager taskExecutorManager;
 	
+	@Value("${ldap.sync.chunk.size:500}")
+	private int syncChunkSize;
+	@Value("${ldap.sync.workers:4}")
+	private int syncWorkers;
+	
 	@Autowired
 	private DB dbInstance;
 	@Autowired
@@ -911,29 +929,37 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, GenericEventListe
 				return success;
 			}
 			Date timeBeforeSync = new Date();
+			LDAPSyncReport report = new LDAPSyncReport(false);
 
 			//check server capabilities
 			// Get time before sync to have a save sync time when sync is successful
 			String sinceSentence = (lastSyncDate == null ? "" : " since last sync from " + lastSyncDate);
+			long phaseStartTime = System.currentTimeMillis();
 			doBatchSyncDeletedUsers(ctx, sinceSentence);
+			report.addDuration(Phase.deletedUsers, System.currentTimeMillis() - phaseStartTime);
 			// bind again to use an initial unmodified context. lookup of server-properties might fail otherwise!
 			ctx.close();
 			ctx = bindSystem();
-			Map<String,LDAPUser> dnToIdentityKeyMap = new HashMap<>();
-			List<LDAPUser> ldapUsers = doBatchSyncNewAndModifiedUsers(ctx, sinceSentence, dnToIdentityKeyMap, errors);
+			Map<String,LDAPUser> dnToIdentityKeyMap = new ConcurrentHashMap<>();
+			List<LDAPUser> ldapUsers = doBatchSyncNewAndModifiedUsers(ctx, lastSyncDate, sinceSentence, dnToIdentityKeyMap, report, errors);
 			ctx.close();
 			ctx = bindSystem();
 			//sync groups by LDAP groups or attributes
+			phaseStartTime = System.currentTimeMillis();
 			doBatchSyncGroups(ctx, ldapUsers, dnToIdentityKeyMap, errors);
+			report.addDuration(Phase.groups, System.currentTimeMillis() - phaseStartTime);
 			//sync roles
+			phaseStartTime = System.currentTimeMillis();
 			doBatchSyncRoles(ctx, ldapUsers, dnToIdentityKeyMap, errors);
+			report.addDuration(Phase.roles, System.currentTimeMillis() - phaseStartTime);
 			
 			// update sync time and set running flag
 			lastSyncDate = timeBeforeSync;
+			lastSyncReport = report;
 			
 			ctx.close();
 			success = true;
-			log.audit("LDAP batch sync done: " + success + " in " + ((System.currentTimeMillis() - startTime) / 1000) + "s");
+			log.audit("LDAP batch sync done: " + success + " in " + ((System.currentTimeMillis() - startTime) / 1000) + "s " + report);
 			return success;
 		} catch (Exception e) {
 
@@ -959,6 +985,72 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, GenericEventListe
 		}
 	}
 	
+	@Override
+	public LDAPSyncReport doBatchSyncDryRun(LDAPError errors) {
+		LDAPSyncReport report = new LDAPSyncReport(true);
+		// a full search during a sync would compare the users with half synchronized data
+		if(!acquireSyncLock()) {
+			log.info("LDAP batch sync dry run started, but a sync is running - skipping this dry run");
+			errors.insert("BatchSync already running by concurrent process");
+			return report;
+		}
+		
+		LdapContext ctx = null;
+		try {
+			long startTime = System.currentTimeMillis();
+			ctx = bindSystem();
+			if (ctx == null) {
+				errors.insert("LDAP connection ERROR");
+				log.error("LDAP batch sync dry run: LDAP connection empty", null);
+				return report;
+			}
+			
+			long phaseStartTime = System.currentTimeMillis();
+			List<Identity> deletedUserList = getIdentitysDeletedInLdap(ctx);
+			if(deletedUserList != null) {
+				for(Identity deletedUser:deletedUserList) {
+					if(!Identity.STATUS_PERMANENT.equals(deletedUser.getStatus())) {
+						report.addUserToDelete(deletedUser.getName());
+					}
+				}
+				report.addCount(Phase.deletedUsers, deletedUserList.size());
+			}
+			dbInstance.rollbackAndCloseSession();
+			report.addDuration(Phase.deletedUsers, System.currentTimeMillis() - phaseStartTime);
+			
+			ctx.close();
+			ctx = bindSystem();
+			// the next batch sync is always a full sync
+			doBatchSyncNewAndModifiedUsers(ctx, null, " (dry run)", new ConcurrentHashMap<>(), report, errors);
+			dbInstance.rollbackAndCloseSession();
+			
+			log.audit("LDAP batch sync dry run done in " + ((System.currentTimeMillis() - startTime) / 1000) + "s " + report);
+			log.audit("LDAP batch sync dry run, users to create: " + report.getUsersToCreate());
+			log.audit("LDAP batch sync dry run, users to update: " + report.getUsersToUpdate());
+			log.audit("LDAP batch sync dry run, users to convert to LDAP: " + report.getUsersToConvert());
+			log.audit("LDAP batch sync dry run, users deleted in LDAP: " + report.getUsersToDelete());
+		} catch (Exception e) {
+			errors.insert("Unknown error");
+			log.error("LDAP batch sync dry run, unknown reason", e);
+			dbInstance.rollbackAndCloseSession();
+		} finally {
+			freeSyncLock();
+			if(ctx != null) {
+				try {
+					ctx.close();
+				} catch (NamingException e) {
+					//try but failed silently
+				}
+			}
+		}
+		return report;
+	}
+	
+	@Override
+	public LDAPSyncReport getLastSyncReport() {
+		return lastSyncReport;
+	}
+	
 	private void doBatchSyncRoles(LdapContext ctx, List<LDAPUser> ldapUsers, Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors)
 	throws NamingException {
 		ctx.close();
@@ -1167,117 +1259,251 @@ public class LDAPLoginManagerImpl implements LDAPLoginManager, GenericEventListe
 		dbInstance.commitAndCloseSession();
 	}
 	
-	private List<LDAPUser> doBatchSyncNewAndModifiedUsers(LdapContext ctx, String sinceSentence, Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors) {
-		// Get new and modified users from LDAP
-		int count = 0;
-		List<LDAPUser> ldapUserList = ldapDao.getUserAttributesModifiedSince(lastSyncDate, ctx);
+	/**
+	 * Search the new and modified users in LDAP and process them chunk by chunk
+	 * while the paged search is running. The identities and their LDAP authentications
+	 * of a chunk are loaded in bulk, the attributes compared in memory and the changes
+	 * applied on a bounded pool of workers, every chunk in its own transaction. If
+	 * the search is faster than the workers, the thread of the search processes the
+	 * chunk itself. The new users are created at the end by the calling thread to not
+	 * create concurrently users with the same email address.
+	 * 
+	 * @param ctx The LDAP system connection
+	 * @param syncTime Search the users modified since this date, or null for a full sync
+	 * @param sinceSentence For the log
+	 * @param dnToIdentityKeyMap Will be filled with the users found in OpenOLAT (must be thread-safe)
+	 * @param report The report
+	 * @param errors The errors
+	 * @return The list of all the users found in LDAP
+	 */
+	private List<LDAPUser> doBatchSyncNewAndModifiedUsers(LdapContext ctx, Date syncTime, String sinceSentence,
+			Map<String,LDAPUser> dnToIdentityKeyMap, LDAPSyncReport report, LDAPError errors) {
+		List<LDAPUser> ldapUserList = new ArrayList<>();
+		List<LDAPUser> newLdapUserList = Collections.synchronizedList(new ArrayList<>());
+		List<Future<?>> chunkFutures = new ArrayList<>();
+		int chunkSize = Math.max(1, syncChunkSize);
 		
-		// Check for new and modified users
-		List<LDAPUser> newLdapUserList = new ArrayList<>();
-		Map<IdentityRef, Map<String, String>> changedMapIdentityMap = new HashMap<>();
-		for (LDAPUser ldapUser: ldapUserList) {
-			String user = null;
-			try {
-				Attributes userAttrs = ldapUser.getAttributes();
-				String uidProp = syncConfiguration.getOlatPropertyToLdapAttribute(LDAPConstants.LDAP_USER_IDENTIFYER);
-				user = getAttributeValue(userAttrs.get(uidProp));
-				Identity identity = findIdentityByLdapAuthentication(userAttrs, errors);
-				if (identity != null) {
-					Map<String, String> changedAttrMap = prepareUserPropertyForSync(userAttrs, identity);
-					if (changedAttrMap != null) {
-						changedMapIdentityMap.put(identity, changedAttrMap);
-					}
-					if(StringHelper.containsNonWhitespace(ldapUser.getDn())) {
-						dnToIdentityKeyMap.put(ldapUser.getDn(), ldapUser);
-						ldapUser.setCachedIdentity(new IdentityRefImpl(identity.getKey()));
-					}
-				} else if (errors.isEmpty()) {
-					String[] reqAttrs = syncConfiguration.checkRequestAttributes(userAttrs);
-					if (reqAttrs == null) {
-						newLdapUserList.add(ldapUser);
-					} else {
-						log.warn("LDAP batch sync: can't create user with username::" + user + " : missing required attributes::"
-							+ ArrayUtils.toString(reqAttrs), null);
-					}
-				} else {
-					log.warn(errors.get(), null);
-				}
-			} catch (Exception e) {
-				// catch here to go on with other users on exeptions!
-				log.error("some error occured in looping over set of changed user-attributes, actual user " + user + ". Will still continue with others.", e);
-				errors.insert("Cannot sync user: " + user);
-			} finally {
-				dbInstance.commit();
-				if(count % 10 == 0) {
-					dbInstance.closeSession();
-				}
+		ThreadPoolExecutor executor = createSyncExecutor();
+		try {
+			long startTime = System.currentTimeMillis();
+			ldapDao.getUserAttributesModifiedSince(syncTime, ctx, chunkSize, chunk -> {
+				ldapUserList.addAll(chunk);
+				chunkFutures.add(executor.submit(() -> syncUsersChunk(chunk, dnToIdentityKeyMap, newLdapUserList, report, errors)));
+				log.info("Retrieve " + ldapUserList.size() + " users in LDAP server");
+			});
+			report.addDuration(Phase.search, System.currentTimeMillis() - startTime);
+			report.addCount(Phase.search, ldapUserList.size());
+			
+			for(Future<?> chunkFuture:chunkFutures) {
+				chunkFuture.get();
 			}
-			if(count % 1000 == 0) {
-				log.info("Retrieve " + count + "/" + ldapUserList.size() + " users in LDAP server");
+		} catch (InterruptedException e) {
+			log.error("LDAP batch sync interrupted", e);
+			insertError(errors, "Cannot sync users");
+			for(Future<?> chunkFuture:chunkFutures) {
+				chunkFuture.cancel(false);
 			}
-			count++;
-		}
-		
-		// sync existing users
-		if (changedMapIdentityMap == null || changedMapIdentityMap.isEmpty()) {
-			log.info("LDAP batch sync: no users to sync" + sinceSentence);
-		} else {
-			int syncCount = 0;
-			for (IdentityRef ident : changedMapIdentityMap.keySet()) {
-				// sync user is exception save, no try/catch needed
-				try {
-					syncCount++;
-					syncUser(changedMapIdentityMap.get(ident), ident);
-				} catch (Exception e) {
-					errors.insert("Cannot sync user: " + ident);
-				} finally {
-					dbInstance.commit();
-					if(syncCount % 20 == 0) {
-						dbInstance.closeSession();
-					}
-				}
-				if(syncCount % 1000 == 0) {
-					log.info("Update " + syncCount + "/" + changedMapIdentityMap.size() + " LDAP users");
-				}
-			}
-			log.info("LDAP batch sync: " + changedMapIdentityMap.size() + " users synced" + sinceSentence);
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			log.error("LDAP batch sync failed", e);
+			insertError(errors, "Cannot sync users");
+		} finally {
+			executor.shutdown();
 		}
+		log.info("LDAP batch sync: " + report.getCount(Phase.update) + " users synced" + sinceSentence);
 		
 		// create new users
 		if (newLdapUserList.isEmpty()) {
 			log.info("LDAP batch sync: no users to create" + sinceSentence);
-		} else {			
+		} else {
+			long startTime = System.currentTimeMillis();
 			int newCount = 0;
+			int createdCount = 0;
 			for (LDAPUser ldapUser: newLdapUserList) {
 				Attributes userAttrs = ldapUser.getAttributes();
 				try {
 					newCount++;
-					Identity identity = createAndPersistUser(userAttrs);
-					if(identity != null && StringHelper.containsNonWhitespace(ldapUser.getDn())) {
-						dnToIdentityKeyMap.put(ldapUser.getDn(), ldapUser);
-						ldapUser.setCachedIdentity(new IdentityRefImpl(identity.getKey()));
+					if(report.isDryRun()) {
+						String uid = getAttributeValue(userAttrs.get(syncConfiguration.getOlatPropertyToLdapAttribute(LDAPConstants.LDAP_USER_IDENTIFYER)));
+						report.addUserToCreate(uid);
+						createdCount++;
+					} else {
+						Identity identity = createAndPersistUser(userAttrs);
+						if(identity != null) {
+							createdCount++;
+							if(StringHelper.containsNonWhitespace(ldapUser.getDn())) {
+								dnToIdentityKeyMap.put(ldapUser.getDn(), ldapUser);
+								ldapUser.setCachedIdentity(new IdentityRefImpl(identity.getKey()));
+							}
+						}
 					}
 				} catch (Exception e) {
 					// catch here to go on with other users on exeptions!
 					log.error("some error occured while creating new users, actual userAttribs " + userAttrs + ". Will still continue with others.", e);
 				} finally {
-					dbInstance.commit();
-					if(newCount % 20 == 0) {
-						dbInstance.closeSession();
+					if(newCount % chunkSize == 0) {
+						dbInstance.commitAndCloseSession();
 					}
 				}
 				
 				if(newCount % 1000 == 0) {
-					log.info("Create " + count + "/" + newLdapUserList.size() + " LDAP users");
+					log.info("Create " + newCount + "/" + newLdapUserList.size() + " LDAP users");
 				}
 			}
-			log.info("LDAP batch sync: " + newLdapUserList.size() + " users created" + sinceSentence);
+			dbInstance.commitAndCloseSession();
+			report.addDuration(Phase.create, System.currentTimeMillis() - startTime);
+			report.addCount(Phase.create, createdCount);
+			log.info("LDAP batch sync: " + createdCount + " users created" + sinceSentence);
 		}
 
 		dbInstance.commitAndCloseSession();
 		return ldapUserList;
 	}
 	
+	/**
+	 * Sync a chunk of users in one transaction. If the transaction fails,
+	 * the users of the chunk are synchronized one by one. The chunk has its
+	 * own report which is added to the report of the sync only after the
+	 * commit, the users of a failed chunk are not counted twice.
+	 */
+	private void syncUsersChunk(List<LDAPUser> chunk, Map<String,LDAPUser> dnToIdentityKeyMap,
+			List<LDAPUser> newLdapUserList, LDAPSyncReport report, LDAPError errors) {
+		List<LDAPUser> newLdapUsers = new ArrayList<>();
+		LDAPSyncReport chunkReport = new LDAPSyncReport(report.isDryRun());
+		try {
+			syncUsersChunkInTransaction(chunk, dnToIdentityKeyMap, newLdapUsers, chunkReport);
+			if(report.isDryRun()) {
+				dbInstance.rollbackAndCloseSession();
+			} else {
+				dbInstance.commitAndCloseSession();
+			}
+			report.add(chunkReport);
+			newLdapUserList.addAll(newLdapUsers);
+		} catch (Exception e) {
+			dbInstance.rollbackAndCloseSession();
+			report.incrementFailedChunks();
+			if(chunk.size() > 1) {
+				log.warn("LDAP batch sync: a chunk of " + chunk.size() + " users failed, sync them one by one", e);
+				for(LDAPUser ldapUser:chunk) {
+					syncUsersChunk(Collections.singletonList(ldapUser), dnToIdentityKeyMap, newLdapUserList, report, errors);
+				}
+			} else {
+				log.error("some error occured in looping over set of changed user-attributes, actual user " + chunk.get(0).getDn() + ". Will still continue with others.", e);
+				insertError(errors, "Cannot sync user: " + chunk.get(0).getDn());
+			}
+		}
+	}
+	
+	private void syncUsersChunkInTransaction(List<LDAPUser> chunk, Map<String,LDAPUser> dnToIdentityKeyMap,
+			List<LDAPUser> newLdapUsers, LDAPSyncReport report) {
+		long startTime = System.currentTimeMillis();
+		String uidProp = syncConfiguration.getOlatPropertyToLdapAttribute(LDAPConstants.LDAP_USER_IDENTIFYER);
+		Map<String,LDAPUser> uidToLdapUsers = new HashMap<>();
+		for(LDAPUser ldapUser:chunk) {
+			String uid = getAttributeValue(ldapUser.getAttributes().get(uidProp));
+			if(StringHelper.containsNonWhitespace(uid)) {
+				uidToLdapUsers.put(uid.toLowerCase(), ldapUser);
+			} else {
+				log.warn("LDAP batch sync: user without identifier::" + ldapUser.getDn(), null);
+			}
+		}
+		
+		List<Identity> identities = securityManager.findIdentitiesByNameCaseInsensitive(uidToLdapUsers.keySet());
+		Map<String,Identity> uidToIdentities = new HashMap<>();
+		for(Identity identity:identities) {
+			uidToIdentities.put(identity.getName().toLowerCase(), identity);
+		}
+		List<Long> identityKeys = identities.stream()
+				.map(Identity::getKey).collect(Collectors.toList());
+		List<Authentication> authentications = authenticationDao.getAuthentications(identityKeys, LDAPAuthenticationController.PROVIDER_LDAP);
+		Map<Long,Authentication> identityKeyToAuthentications = new HashMap<>();
+		for(Authentication authentication:authentications) {
+			identityKeyToAuthentications.put(authentication.getIdentity().getKey(), authentication);
+		}
+		long resolvedTime = System.currentTimeMillis();
+		report.addDuration(Phase.resolve, resolvedTime - startTime);
+		report.addCount(Phase.resolve, identities.size());
+		
+		int updated = 0;
+		for(Map.Entry<String,LDAPUser> uidToLdapUser:uidToLdapUsers.entrySet()) {
+			LDAPUser ldapUser = uidToLdapUser.getValue();
+			Attributes userAttrs = ldapUser.getAttributes();
+			Identity identity = uidToIdentities.get(uidToLdapUser.getKey());
+			if(identity == null) {
+				String[] reqAttrs = syncConfiguration.checkRequestAttributes(userAttrs);
+				if (reqAttrs == null) {
+					newLdapUsers.add(ldapUser);
+				} else {
+					log.warn("LDAP batch sync: can't create user with username::" + uidToLdapUser.getKey() + " : missing required attributes::"
+						+ ArrayUtils.toString(reqAttrs), null);
+				}
+			} else if(syncLdapAuthentication(identity, userAttrs, identityKeyToAuthentications.get(identity.getKey()), report)) {
+				Map<String, String> changedAttrMap = prepareUserPropertyForSync(userAttrs, identity);
+				if (changedAttrMap != null) {
+					updated++;
+					if(report.isDryRun()) {
+						report.addUserToUpdate(identity.getName(), changedAttrMap.keySet());
+					} else {
+						syncUser(changedAttrMap, identity);
+					}
+				}
+				if(StringHelper.containsNonWhitespace(ldapUser.getDn())) {
+					dnToIdentityKeyMap.put(ldapUser.getDn(), ldapUser);
+					ldapUser.setCachedIdentity(new IdentityRefImpl(identity.getKey()));
+				}
+			}
+		}
+		report.addDuration(Phase.update, System.currentTimeMillis() - resolvedTime);
+		report.addCount(Phase.update, updated);
+	}
+	
+	/**
+	 * Same as findIdentityByLdapAuthentication with the authentication already loaded.
+	 * 
+	 * @return true if the identity is (or will be converted to) an LDAP user
+	 */
+	private boolean syncLdapAuthentication(Identity identity, Attributes userAttrs, Authentication ldapAuth, LDAPSyncReport report) {
+		String token = getAttributeValue(userAttrs.get(syncConfiguration.getLdapUserLoginAttribute()));
+		if(ldapAuth != null) {
+			if(StringHelper.containsNonWhitespace(token) && !token.equals(ldapAuth.getAuthusername()) && !report.isDryRun()) {
+				ldapAuth.setAuthusername(token);
+				securityManager.updateAuthentication(ldapAuth);
+			}
+			return true;
+		}
+		if (ldapLoginModule.isConvertExistingLocalUsersToLDAPUsers()) {
+			if(report.isDryRun()) {
+				report.addUserToConvert(identity.getName());
+			} else {
+				securityManager.createAndPersistAuthentication(identity, LDAPAuthenticationController.PROVIDER_LDAP, token, null, null);
+				log.info("Found identity by LDAP username that was not yet in LDAP security group. Converted user::" + identity.getName()
+						+ " to be an LDAP managed user");
+			}
+			return true;
+		}
+		log.warn("findIdentyByLdapAuthentication: User with username::" + identity.getName() + " exist but not Managed by LDAP", null);
+		return false;
+	}
+	
+	private void insertError(LDAPError errors, String error) {
+		synchronized(errors) {
+			errors.insert(error);
+		}
+	}
+	
+	private ThreadPoolExecutor createSyncExecutor() {
+		int workers = Math.max(1, syncWorkers);
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		ThreadFactory threadFactory = r -> {
+			Thread t = new Thread(r, "ldap-sync-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		};
+		// the thread which reads LDAP processes the chunk itself if the queue is full
+		return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(workers), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+	
 	private void doBatchSyncGroups(LdapContext ctx, List<LDAPUser> ldapUsers, Map<String,LDAPUser> dnToIdentityKeyMap, LDAPError errors)
 	throws NamingException {
 		ctx.close();
@@ -0,0 +1,76 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ldap.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.naming.NamingException;
+import javax.naming.directory.SearchResult;
+
+import org.olat.ldap.LDAPSyncConfiguration;
+import org.olat.ldap.model.LDAPUser;
+
+/**
+ * A visitor which doesn't collect all the users but gives them chunk
+ * by chunk to a consumer while the paged search is running. Call
+ * flush() at the end of the search to consume the last chunk.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class LDAPUserChunkVisitor extends LDAPUserVisitor {
+	
+	private final int chunkSize;
+	private final Consumer<List<LDAPUser>> consumer;
+	private int count = 0;
+	
+	public LDAPUserChunkVisitor(LDAPSyncConfiguration syncConfiguration, int chunkSize, Consumer<List<LDAPUser>> consumer) {
+		super(syncConfiguration);
+		this.chunkSize = Math.max(1, chunkSize);
+		this.consumer = consumer;
+	}
+	
+	/**
+	 * @return The number of users visited
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	@Override
+	public void visit(SearchResult searchResult) throws NamingException {
+		super.visit(searchResult);
+		count++;
+		if(getLdapUserList().size() >= chunkSize) {
+			flush();
+		}
+	}
+	
+	public void flush() {
+		List<LDAPUser> ldapUsers = getLdapUserList();
+		if(!ldapUsers.isEmpty()) {
+			List<LDAPUser> chunk = new ArrayList<>(ldapUsers);
+			ldapUsers.clear();
+			consumer.accept(chunk);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ldap.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of every phase of a batch synchronisation of the LDAP users
+ * (duration and number of processed users). In dry-run mode, the report
+ * holds the changes which would be done: the users to create, to update
+ * with their changed properties, to convert to LDAP users and to delete.
+ * 
+ * The phases are run partially in parallel, the report is thread-safe.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class LDAPSyncReport {
+	
+	private final boolean dryRun;
+	private final Map<Phase,AtomicLong> durations = new EnumMap<>(Phase.class);
+	private final Map<Phase,AtomicLong> counts = new EnumMap<>(Phase.class);
+	private final AtomicLong failedChunks = new AtomicLong();
+	
+	private final List<String> usersToCreate = new ArrayList<>();
+	private final Map<String,Set<String>> usersToUpdate = new TreeMap<>();
+	private final List<String> usersToConvert = new ArrayList<>();
+	private final List<String> usersToDelete = new ArrayList<>();
+	
+	public LDAPSyncReport(boolean dryRun) {
+		this.dryRun = dryRun;
+		for(Phase phase:Phase.values()) {
+			durations.put(phase, new AtomicLong());
+			counts.put(phase, new AtomicLong());
+		}
+	}
+	
+	public boolean isDryRun() {
+		return dryRun;
+	}
+	
+	/**
+	 * @param phase The phase
+	 * @return The cumulated duration of the phase in milliseconds. The
+	 * 		durations of the workers are added together.
+	 */
+	public long getDuration(Phase phase) {
+		return durations.get(phase).get();
+	}
+	
+	public void addDuration(Phase phase, long durationInMillis) {
+		durations.get(phase).addAndGet(durationInMillis);
+	}
+	
+	/**
+	 * @param phase The phase
+	 * @return The number of users processed by the phase
+	 */
+	public long getCount(Phase phase) {
+		return counts.get(phase).get();
+	}
+	
+	public void addCount(Phase phase, long count) {
+		counts.get(phase).addAndGet(count);
+	}
+	
+	public long getFailedChunks() {
+		return failedChunks.get();
+	}
+	
+	public void incrementFailedChunks() {
+		failedChunks.incrementAndGet();
+	}
+	
+	public synchronized List<String> getUsersToCreate() {
+		return new ArrayList<>(usersToCreate);
+	}
+	
+	public synchronized void addUserToCreate(String username) {
+		usersToCreate.add(username);
+	}
+	
+	/**
+	 * @return The names of the users to update with the names of their changed properties
+	 */
+	public synchronized Map<String,Set<String>> getUsersToUpdate() {
+		return new TreeMap<>(usersToUpdate);
+	}
+	
+	public synchronized void addUserToUpdate(String username, Set<String> properties) {
+		usersToUpdate.put(username, Collections.unmodifiableSet(new TreeSet<>(properties)));
+	}
+	
+	/**
+	 * @return The names of the local users which will be converted to LDAP users
+	 */
+	public synchronized List<String> getUsersToConvert() {
+		return new ArrayList<>(usersToConvert);
+	}
+	
+	public synchronized void addUserToConvert(String username) {
+		usersToConvert.add(username);
+	}
+	
+	public synchronized List<String> getUsersToDelete() {
+		return new ArrayList<>(usersToDelete);
+	}
+	
+	public synchronized void addUserToDelete(String username) {
+		usersToDelete.add(username);
+	}
+	
+	/**
+	 * Add the durations, the counts and the changes of an other report,
+	 * for example the report of a chunk after its commit.
+	 * 
+	 * @param report The report to add to this one
+	 */
+	public void add(LDAPSyncReport report) {
+		for(Phase phase:Phase.values()) {
+			addDuration(phase, report.getDuration(phase));
+			addCount(phase, report.getCount(phase));
+		}
+		failedChunks.addAndGet(report.getFailedChunks());
+		
+		List<String> toCreate = report.getUsersToCreate();
+		Map<String,Set<String>> toUpdate = report.getUsersToUpdate();
+		List<String> toConvert = report.getUsersToConvert();
+		List<String> toDelete = report.getUsersToDelete();
+		synchronized(this) {
+			usersToCreate.addAll(toCreate);
+			usersToUpdate.putAll(toUpdate);
+			usersToConvert.addAll(toConvert);
+			usersToDelete.addAll(toDelete);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append(dryRun ? "ldapSyncReport[dryRun=true" : "ldapSyncReport[dryRun=false");
+		for(Phase phase:Phase.values()) {
+			sb.append(";").append(phase.name()).append("=")
+			  .append(getCount(phase)).append(" in ").append(getDuration(phase)).append("ms");
+		}
+		sb.append(";failedChunks=").append(getFailedChunks()).append("]");
+		return sb.toString();
+	}
+	
+	public enum Phase {
+		/** detection of the users deleted in LDAP **/
+		deletedUsers,
+		/** paged search of the new and modified users in LDAP **/
+		search,
+		/** bulk lookup of the identities and their LDAP authentications **/
+		resolve,
+		/** comparison of the attributes and update of the users **/
+		update,
+		/** creation of the new users **/
+		create,
+		groups,
+		roles
+	}
+}
@@ -31,6 +31,7 @@ import org.apache.log4j.Level;
 import org.olat.admin.user.UserSearchController;
 import org.olat.basesecurity.events.SingleIdentityChosenEvent;
 import org.olat.core.CoreSpringFactory;
+import org.olat.core.commons.services.taskexecutor.TaskExecutorManager;
 import org.olat.core.gui.UserRequest;
 import org.olat.core.gui.components.Component;
 import org.olat.core.gui.components.link.Link;
@@ -69,6 +70,7 @@ public class LDAPAdminController extends BasicController implements GenericEvent
 	private VelocityContainer ldapAdminVC;
 	private DateFormat dateFormatter;
 	private Link syncStartLink;
+	private Link syncDryRunLink;
 	private Link deletStartLink;
 	private StepsMainRunController deleteStepController;
 	private boolean hasIdentitiesToDelete;
@@ -84,6 +86,8 @@ public class LDAPAdminController extends BasicController implements GenericEvent
 	
 	@Autowired
 	private LDAPLoginModule ldapLoginModule;
+	@Autowired
+	private TaskExecutorManager taskExecutorManager;
 
 	public LDAPAdminController(UserRequest ureq, WindowControl control) {
 		super(ureq, control);
@@ -94,6 +98,7 @@ public class LDAPAdminController extends BasicController implements GenericEvent
 		updateLastSyncDateInVC();
 		// Create start LDAP sync link
 		syncStartLink = LinkFactory.createButton("sync.button.start", ldapAdminVC, this);
+		syncDryRunLink = LinkFactory.createButton("sync.dryrun.button.start", ldapAdminVC, this);
 		// sync one user only
 //		syncOneUserLink = LinkFactory.createButton("one.user.sync.button.start", ldapAdminVC, this);
 		
@@ -147,6 +152,10 @@ public class LDAPAdminController extends BasicController implements GenericEvent
 			LDAPEvent ldapEvent = new LDAPEvent(LDAPEvent.DO_SYNCHING);
 			CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(ldapEvent, LDAPLoginManager.ldapSyncLockOres);
 			showInfo("admin.synchronize.started");
+		} else if (source == syncDryRunLink) {
+			// the report is written in the log
+			taskExecutorManager.execute(() -> ldapLoginManager.doBatchSyncDryRun(new LDAPError()));
+			showInfo("admin.synchronize.dryrun.started");
 		} else if (source == syncOneUserLink){
 			userSearchCtrl = new UserSearchController(ureq, getWindowControl(), false);
 			listenTo(userSearchCtrl);
@@ -204,6 +204,31 @@ public class AssessmentEntryDAO {
 		return dbInstance.getCurrentEntityManager().merge(nodeAssessment);
 	}
 	
+	/**
+	 * Load all assessment entries of the identities for the specific
+	 * repository entry. The anonym users are excluded by the query.
+	 * 
+	 * @param entry The entry (mandatory)
+	 * @param identityKeys Restrict the entries to these identities (optional)
+	 * @return A list of assessment entries
+	 */
+	public List<AssessmentEntry> loadAssessmentEntriesByRepositoryEntry(RepositoryEntryRef entry, List<Long> identityKeys) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select data from assessmententry data")
+		  .append(" where data.repositoryEntry.key=:repositoryEntryKey and data.identity.key is not null");
+		if(identityKeys != null && !identityKeys.isEmpty()) {
+			sb.append(" and data.identity.key in (:identityKeys)");
+		}
+
+		TypedQuery<AssessmentEntry> query = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), AssessmentEntry.class)
+				.setParameter("repositoryEntryKey", entry.getKey());
+		if(identityKeys != null && !identityKeys.isEmpty()) {
+			query.setParameter("identityKeys", identityKeys);
+		}
+		return query.getResultList();
+	}
+	
 	/**
 	 * Load all assessment entries for the specific assessed repository entry with
 	 * the specific sub identifier (it is mandatory). The anonym users are excluded
@@ -36,7 +36,9 @@ import org.olat.core.commons.services.notifications.Subscriber;
 import org.olat.core.commons.services.notifications.SubscriptionContext;
 import org.olat.core.commons.services.vfs.VFSMetadata;
 import org.olat.core.commons.services.vfs.VFSRepositoryService;
+import org.olat.core.commons.services.vfs.manager.VFSDownloadCounter;
 import org.olat.core.commons.services.vfs.manager.VFSMetadataDAO;
+import org.olat.core.commons.services.vfs.model.VFSMetadataDownloads;
 import org.olat.core.gui.control.Event;
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
@@ -106,6 +108,8 @@ public class LibraryManagerImpl implements LibraryManager, InitializingBean, Gen
 	@Autowired
 	private VFSMetadataDAO metadataDao;
 	@Autowired
+	private VFSDownloadCounter downloadCounter;
+	@Autowired
 	private LibraryModule libraryModule;
 	@Autowired
 	private CoordinatorManager coordinator;
@@ -255,13 +259,15 @@ public class LibraryManagerImpl implements LibraryManager, InitializingBean, Gen
 	@Override
 	public List<CatalogItem> getMostViewedCatalogItems(Locale locale, int maxResult) {
 		VFSContainer container = getSharedFolder();
-		List<VFSMetadata> mostDownloadedData = metadataDao.getMostDownloaded(toMetadataRelativePath(container), maxResult);
+		List<VFSMetadataDownloads> mostDownloadedData = downloadCounter.getMostDownloaded(toMetadataRelativePath(container), maxResult);
 		
 		List<CatalogItem> items = new ArrayList<>(maxResult);
-		for(VFSMetadata metadata:mostDownloadedData) {
-			VFSItem item = vfsRepositoryService.getItemFor(metadata);
+		for(VFSMetadataDownloads downloads:mostDownloadedData) {
+			VFSItem item = vfsRepositoryService.getItemFor(downloads.getMetadata());
 			if(item instanceof VFSLeaf) {
-				items.add(new CatalogItem((VFSLeaf)item, metadata, false, locale));
+				CatalogItem catalogItem = new CatalogItem((VFSLeaf)item, downloads.getMetadata(), false, locale);
+				catalogItem.setDownloadCount(downloads.getDownloadCount());
+				items.add(catalogItem);
 			}
 		}
 		return items;
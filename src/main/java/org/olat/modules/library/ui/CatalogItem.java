@@ -56,6 +56,7 @@ public class CatalogItem {
 	private String localizedLastModifiedShort;
 	private String cssClass;
 	private boolean selected;
+	private int downloadCount;
 	private Boolean thumbnailAvailable;
 	
 	private Link sendMailLink;
@@ -75,6 +76,7 @@ public class CatalogItem {
 			localizedLastModifiedShort = DateFormat.getDateInstance(DateFormat.SHORT, locale).format(metadata.getLastModified());
 			relativePath = file.getRelPath();
 			cssClass = metadata.getIconCssClass();
+			downloadCount = metadata.getDownloadCount();
 			publicationDate = calculateDateFromPublicationDateArray(metadata.getPublicationDate());
 		} else {
 			log.warn("Unable to create meta information for file \"" + metadata + "\".");
@@ -102,6 +104,17 @@ public class CatalogItem {
 		}
 	}
 	
+	/**
+	 * @return The number of downloads, by default the one of the metadata
+	 */
+	public int getDownloadCount() {
+		return downloadCount;
+	}
+
+	public void setDownloadCount(int downloadCount) {
+		this.downloadCount = downloadCount;
+	}
+	
 	public String getId() {
 		return metadata == null ? "" : metadata.getUuid();
 	}
@@ -27,6 +27,7 @@ import org.olat.core.dispatcher.mapper.Mapper;
 import org.olat.core.gui.media.ForbiddenMediaResource;
 import org.olat.core.gui.media.MediaResource;
 import org.olat.core.gui.media.NotFoundMediaResource;
+import org.olat.core.gui.media.ThumbnailPlaceholderMediaResource;
 import org.olat.core.util.vfs.VFSLeaf;
 import org.olat.core.util.vfs.VFSManager;
 import org.olat.core.util.vfs.VFSMediaResource;
@@ -54,10 +55,14 @@ public class LibraryThumbnailMapper implements Mapper {
 	public MediaResource handle(String relPath, HttpServletRequest request) {
 		if (relPath.startsWith(basePath)) {
 			VFSLeaf file = VFSManager.olatRootLeaf(relPath);
-			VFSLeaf thumbnail = vfsRepositoryService.getThumbnail(file, 200, 200, false);
+			VFSLeaf thumbnail = vfsRepositoryService.getThumbnailAsync(file, 200, 200, false);
 			if(thumbnail != null) {
 				return new VFSMediaResource(thumbnail);
 			}
+			if(vfsRepositoryService.isThumbnailAvailable(file)) {
+				// generated in background
+				return new ThumbnailPlaceholderMediaResource();
+			}
 			return new NotFoundMediaResource(false);
 		}
 		return new ForbiddenMediaResource();
@@ -96,7 +96,7 @@ public class MostViewedFilesController extends BasicController {
 				Link link = links.get(i);
 				CatalogItem item = items.get(i);
 				link.setUserObject(item);
-				link.setCustomDisplayText(item.getDisplayName() + " (" + item.getMetaInfo().getDownloadCount() + ")");
+				link.setCustomDisplayText(item.getDisplayName() + " (" + item.getDownloadCount() + ")");
 				link.setIconLeftCSS("o_icon ".concat(item.getCssClass()));
 			}
 		} else {
@@ -104,7 +104,7 @@ public class MostViewedFilesController extends BasicController {
 			for (CatalogItem item : items) {
 				Link link = LinkFactory.createCustomLink("link" + links.size(), "cmd", "", Link.LINK_CUSTOM_CSS, mainVC, this);
 				link.setUserObject(item);
-				link.setCustomDisplayText(item.getDisplayName() + " (" + item.getMetaInfo().getDownloadCount() + ")");
+				link.setCustomDisplayText(item.getDisplayName() + " (" + item.getDownloadCount() + ")");
 				link.setIconLeftCSS("o_icon ".concat(item.getCssClass()));
 				mainVC.put(link.getComponentName(), link);
 				links.add(link);
@@ -22,6 +22,7 @@ package org.olat.modules.reminder;
 import java.util.List;
 
 import org.olat.core.id.Identity;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.repository.RepositoryEntry;
 
 /**
@@ -35,5 +36,19 @@ import org.olat.repository.RepositoryEntry;
 public interface FilterRuleSPI extends RuleSPI {
 	
 	public void filter(RepositoryEntry entry, List<Identity> identities, ReminderRule rule);
+	
+	/**
+	 * Filter the candidates only with their keys, without loading the
+	 * identities. The rule can return null if it needs the identities,
+	 * the engine will use the method above.
+	 * 
+	 * @param entry The repository entry
+	 * @param candidates The keys of the candidates
+	 * @param rule The rule
+	 * @return The keys of the candidates which match the rule or null
+	 */
+	public default IdentityKeySet filterKeys(RepositoryEntry entry, IdentityKeySet candidates, ReminderRule rule) {
+		return null;
+	}
 
 }
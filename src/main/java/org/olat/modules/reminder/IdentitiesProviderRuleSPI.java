@@ -22,6 +22,7 @@ package org.olat.modules.reminder;
 import java.util.List;
 
 import org.olat.core.id.Identity;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.repository.RepositoryEntry;
 
 /**
@@ -35,5 +36,18 @@ import org.olat.repository.RepositoryEntry;
 public interface IdentitiesProviderRuleSPI extends RuleSPI {
 	
 	public List<Identity> evaluate(RepositoryEntry entry, ReminderRule rule);
+	
+	/**
+	 * The keys of the identities to remind. Implement it with a query
+	 * which only select the keys, the default implementation loads
+	 * the identities.
+	 * 
+	 * @param entry The repository entry
+	 * @param rule The rule
+	 * @return A set of identity keys
+	 */
+	public default IdentityKeySet evaluateKeys(RepositoryEntry entry, ReminderRule rule) {
+		return IdentityKeySet.valueOfIdentities(evaluate(entry, rule));
+	}
 
 }
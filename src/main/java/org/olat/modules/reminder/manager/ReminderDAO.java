@@ -22,19 +22,17 @@ package org.olat.modules.reminder.manager;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.persistence.TypedQuery;
 
 import org.olat.core.commons.persistence.DB;
-import org.olat.core.commons.persistence.PersistenceHelper;
 import org.olat.core.commons.persistence.QueryBuilder;
 import org.olat.core.id.Identity;
 import org.olat.modules.reminder.Reminder;
 import org.olat.modules.reminder.SentReminder;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderImpl;
 import org.olat.modules.reminder.model.ReminderInfos;
 import org.olat.modules.reminder.model.SentReminderImpl;
@@ -240,12 +238,14 @@ public class ReminderDAO {
 	 * @return
 	 */
 	public Map<Long,Date> getCourseEnrollmentDates(RepositoryEntryRef entry, List<Identity> identities) {
-		if(identities == null || identities.isEmpty()) {
+		return getCourseEnrollmentDates(entry, IdentityKeySet.valueOfIdentities(identities));
+	}
+	
+	public Map<Long,Date> getCourseEnrollmentDates(RepositoryEntryRef entry, IdentityKeySet identityKeys) {
+		if(identityKeys == null || identityKeys.isEmpty()) {
 			return new HashMap<>();
 		}
 
-		List<Long> identityKeys = PersistenceHelper.toKeys(identities);
-
 		StringBuilder sb = new StringBuilder(512);
 		sb.append("select membership.identity.key, membership.creationDate from repositoryentry as v ")
 		  .append(" inner join v.groups as relGroup")
@@ -254,25 +254,23 @@ public class ReminderDAO {
 		  .append(" left join businessgroup as businessGroup on (businessGroup.baseGroup.key=baseGroup.key)")
 		  .append(" where v.key=:repoKey and (relGroup.defaultGroup=true or businessGroup.key is not null)");
 
-		Set<Long> identityKeySet = null;
-		if(identityKeys.size() < 100) {
+		boolean restricted = identityKeys.size() < 100;
+		if(restricted) {
 			sb.append(" and membership.identity.key in (:identityKeys)");
-		} else {
-			identityKeySet = new HashSet<>(identityKeys);
 		}
 
 		TypedQuery<Object[]> query = dbInstance.getCurrentEntityManager()
 				.createQuery(sb.toString(), Object[].class)
 				.setParameter("repoKey", entry.getKey());
-		if(identityKeys.size() < 100) {
-			query.setParameter("identityKeys", identityKeys);
+		if(restricted) {
+			query.setParameter("identityKeys", identityKeys.toList());
 		}
 
 		List<Object[]> infoList = query.getResultList();
 		Map<Long,Date> dateMap = new HashMap<>();
 		for(Object[] infos:infoList) {
 			Long identityKey = (Long)infos[0];
-			if(identityKeySet == null || identityKeySet.contains(identityKey)) {
+			if(identityKeys.contains(identityKey)) {
 				Date enrollmantDate = (Date)infos[1];
 				dateMap.put(identityKey, enrollmantDate);
 			}
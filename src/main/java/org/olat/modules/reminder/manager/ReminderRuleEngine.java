@@ -21,11 +21,11 @@ package org.olat.modules.reminder.manager;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.olat.basesecurity.BaseSecurity;
 import org.olat.basesecurity.GroupRoles;
 import org.olat.core.id.Identity;
 import org.olat.core.logging.OLog;
@@ -38,6 +38,7 @@ import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.ReminderService;
 import org.olat.modules.reminder.RepositoryEntryRuleSPI;
 import org.olat.modules.reminder.RuleSPI;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRules;
 import org.olat.modules.reminder.rule.BusinessGroupRoleRuleSPI;
 import org.olat.modules.reminder.rule.DateRuleSPI;
@@ -51,6 +52,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
+ * The candidates are evaluated as sets of identity keys: every rule which
+ * delivers identities or filters them contributes a set computed with one
+ * query, and the sets are intersected. The identities are only loaded at the
+ * end, for the rules which need them (user properties, score and passed of
+ * the structure elements).
  * 
  * Initial date: 08.04.2015<br>
  * @author srosse, stephane.rosse@frentix.com, http://www.frentix.com
@@ -66,6 +72,8 @@ public class ReminderRuleEngine {
 	public static final String USER_PROP_RULE_TYPE = UserPropertyRuleSPI.class.getSimpleName();
 	public static final String REPO_ROLE_RULE_TYPE = RepositoryEntryRoleRuleSPI.class.getSimpleName();
 	public static final String BUSINESSGROUP_ROLE_RULE_TYPE = BusinessGroupRoleRuleSPI.class.getSimpleName();
+	
+	private static final int LOAD_BATCH_SIZE = 1000;
 
 	@Autowired
 	private DateRuleSPI dateRuleSpi;
@@ -77,6 +85,8 @@ public class ReminderRuleEngine {
 	@Autowired
 	private ReminderDAO reminderDao;
 	@Autowired
+	private BaseSecurity securityManager;
+	@Autowired
 	private ReminderModule reminderModule;
 	@Autowired
 	private ReminderService reminderManager;
@@ -91,20 +101,28 @@ public class ReminderRuleEngine {
 			return Collections.emptyList();	
 		}
 		
+		EvaluationTimings timings = new EvaluationTimings();
 		List<ReminderRule> ruleList = new ArrayList<>(rules.getRules());
+		long start = System.nanoTime();
 		boolean allOk = evaluate(reminder, ruleList);
+		timings.add("Date and course rules", start, -1);
 		
 		List<Identity> identities;
 		if(allOk) {
-			identities = getIdentities(reminder.getEntry(), reminder, ruleList, resend);
+			identities = getIdentities(reminder.getEntry(), reminder, ruleList, resend, timings);
 			
 			if(identities.size() > 0 && ruleList.size() > 0) {
-				filterByRules(reminder.getEntry(),  identities, ruleList);
+				filterByRules(reminder.getEntry(), identities, ruleList, timings);
 			}
 
 		} else {
 			identities = Collections.emptyList();	
 		}
+		
+		if(log.isDebug()) {
+			log.debug("Reminder " + reminder.getKey() + " of " + reminder.getEntry().getKey() + " evaluated in "
+					+ timings.getTotalTime() + "ms, " + identities.size() + " identities to remind: " + timings);
+		}
 		return identities;
 	}
 
@@ -164,7 +182,39 @@ public class ReminderRuleEngine {
 		return allOk;
 	}
 	
-	protected List<Identity> getIdentities(RepositoryEntry entry, Reminder reminder, List<ReminderRule> ruleList, boolean resend) {	
+	protected List<Identity> getIdentities(RepositoryEntry entry, Reminder reminder, List<ReminderRule> ruleList, boolean resend) {
+		return getIdentities(entry, reminder, ruleList, resend, new EvaluationTimings());
+	}
+	
+	private List<Identity> getIdentities(RepositoryEntry entry, Reminder reminder, List<ReminderRule> ruleList,
+			boolean resend, EvaluationTimings timings) {
+		IdentityKeySet candidates = getIdentityKeys(entry, ruleList, timings);
+		if(!resend && !candidates.isEmpty()) {
+			long start = System.nanoTime();
+			List<Long> alreadySendKeys = reminderDao.getReminderRecipientKeys(reminder);
+			candidates = candidates.andNot(IdentityKeySet.valueOf(alreadySendKeys));
+			timings.add("Already sent", start, candidates.size());
+		}
+		
+		candidates = filterKeysByRules(entry, candidates, ruleList, timings);
+		
+		long start = System.nanoTime();
+		List<Identity> identities = loadIdentities(candidates);
+		timings.add("Load identities", start, identities.size());
+		
+		//filter by user property
+		start = System.nanoTime();
+		if(filterIdentitiesByProperty(identities, ruleList)) {
+			timings.add(USER_PROP_RULE_TYPE, start, identities.size());
+		}
+		return identities;
+	}
+	
+	/**
+	 * Intersect the keys delivered by the rules which provide identities, or
+	 * all the members of the course if there isn't any of these rules.
+	 */
+	protected IdentityKeySet getIdentityKeys(RepositoryEntry entry, List<ReminderRule> ruleList, EvaluationTimings timings) {
 		List<ReminderRule> identitiesProviderRules = new ArrayList<>();
 
 		for(Iterator<ReminderRule> ruleIt=ruleList.iterator(); ruleIt.hasNext(); ) {
@@ -176,39 +226,25 @@ public class ReminderRuleEngine {
 			}
 		}
 		
-		List<Identity> identities;
+		IdentityKeySet candidates;
 		if(identitiesProviderRules.isEmpty()) {
 			//all members of repository entry
-			List<Identity> duplicatedIdentities = repositoryEntryRelationDao.getMembers(entry, RepositoryEntryRelationType.all,
+			long start = System.nanoTime();
+			List<Long> memberKeys = repositoryEntryRelationDao.getMemberKeys(entry, RepositoryEntryRelationType.all,
 					GroupRoles.owner.name(), GroupRoles.coach.name(), GroupRoles.participant.name());
-			identities = new ArrayList<>(new HashSet<>(duplicatedIdentities));
+			candidates = IdentityKeySet.valueOf(memberKeys);
+			timings.add("Members", start, candidates.size());
 		} else {
-			identities = null;
+			candidates = null;
 			
 			for(ReminderRule rule:identitiesProviderRules) {
-				List<Identity> members = getMembers(entry, rule);
-				if(identities == null) {
-					identities = members;
-				} else {
-					identities.retainAll(members);
-				}
-			}
-		}
-		
-		//filter by user property
-		filterIdentitiesByProperty(identities, ruleList);
-		// deduplicated the list
-		identities = new ArrayList<>(new HashSet<>(identities));
-		if(!resend) {
-			List<Long> alreadySendKeys = reminderDao.getReminderRecipientKeys(reminder);
-			Set<Long> alreadySendKeySet = new HashSet<>(alreadySendKeys);
-			for(Iterator<Identity> identityIt=identities.iterator(); identityIt.hasNext(); ) {
-				if(alreadySendKeySet.contains(identityIt.next().getKey())) {
-					identityIt.remove();
-				}
+				long start = System.nanoTime();
+				IdentityKeySet memberKeys = getMemberKeys(entry, rule);
+				candidates = candidates == null ? memberKeys : candidates.and(memberKeys);
+				timings.add(rule.getType(), start, candidates.size());
 			}
 		}
-		return identities;
+		return candidates;
 	}
 
 	public List<Identity> getMembers(RepositoryEntry entry, ReminderRule rule) {
@@ -223,13 +259,77 @@ public class ReminderRuleEngine {
 		return members;
 	}
 	
+	public IdentityKeySet getMemberKeys(RepositoryEntry entry, ReminderRule rule) {
+		IdentityKeySet memberKeys = IdentityKeySet.EMPTY;
+		try {
+			RuleSPI ruleSpi = reminderModule.getRuleSPIByType(rule.getType());
+			IdentitiesProviderRuleSPI identitiesProviderRuleSpi = (IdentitiesProviderRuleSPI)ruleSpi;
+			memberKeys = identitiesProviderRuleSpi.evaluateKeys(entry, rule);
+		} catch (Exception e) {
+			log.error("", e);
+		}
+		return memberKeys;
+	}
+	
+	/**
+	 * Filter the candidates with the rules which can work only with the keys of
+	 * the identities. These rules are removed from the list, the others stay.
+	 * 
+	 * @return The keys of the candidates which match all the rules
+	 */
+	protected IdentityKeySet filterKeysByRules(RepositoryEntry entry, IdentityKeySet candidates, List<ReminderRule> ruleList, EvaluationTimings timings) {
+		for(Iterator<ReminderRule> ruleIt=ruleList.iterator(); ruleIt.hasNext(); ) {
+			ReminderRule rule = ruleIt.next();
+			RuleSPI ruleSpi = reminderModule.getRuleSPIByType(rule.getType());
+			if(ruleSpi instanceof FilterRuleSPI) {
+				if(candidates.isEmpty()) {
+					ruleIt.remove();
+					continue;
+				}
+				
+				long start = System.nanoTime();
+				IdentityKeySet accepted = filterKeysByRule(entry, candidates, rule);
+				if(accepted != null) {
+					candidates = candidates.and(accepted);
+					timings.add(rule.getType(), start, candidates.size());
+					ruleIt.remove();
+				}
+			}
+		}
+		return candidates;
+	}
+	
+	/**
+	 * @return The keys which match the rule or null if the rule needs the identities
+	 */
+	public IdentityKeySet filterKeysByRule(RepositoryEntry entry, IdentityKeySet candidates, ReminderRule rule) {
+		try {
+			RuleSPI ruleSpi = reminderModule.getRuleSPIByType(rule.getType());
+			if(ruleSpi instanceof FilterRuleSPI) {
+				return ((FilterRuleSPI)ruleSpi).filterKeys(entry, candidates, rule);
+			}
+		} catch (Exception e) {
+			log.error("", e);
+		}
+		return null;
+	}
+	
+	private List<Identity> loadIdentities(IdentityKeySet identityKeys) {
+		List<Identity> identities = new ArrayList<>(identityKeys.size());
+		for(List<Long> chunk:identityKeys.toChunks(LOAD_BATCH_SIZE)) {
+			identities.addAll(securityManager.loadIdentityByKeys(chunk));
+		}
+		return identities;
+	}
+	
 	/**
 	 * Remove identities of the list which not match the user properties rules if any.
 	 * 
 	 * @param identities
 	 * @param ruleList
+	 * @return true if the list has some user properties rules
 	 */
-	protected void filterIdentitiesByProperty(List<Identity> identities, List<ReminderRule> ruleList) {
+	protected boolean filterIdentitiesByProperty(List<Identity> identities, List<ReminderRule> ruleList) {
 		List<ReminderRule> userPropRules = new ArrayList<>(3);
 		
 		for(Iterator<ReminderRule> ruleIt=ruleList.iterator(); ruleIt.hasNext(); ) {
@@ -257,9 +357,14 @@ public class ReminderRuleEngine {
 				}
 			}
 		}
+		return !userPropRules.isEmpty();
 	}
 	
 	protected void filterByRules(RepositoryEntry entry, List<Identity> identities, List<ReminderRule> ruleList) {
+		filterByRules(entry, identities, ruleList, new EvaluationTimings());
+	}
+	
+	private void filterByRules(RepositoryEntry entry, List<Identity> identities, List<ReminderRule> ruleList, EvaluationTimings timings) {
 		List<ReminderRule> filterRules = new ArrayList<>(3);
 		
 		for(Iterator<ReminderRule> ruleIt=ruleList.iterator(); ruleIt.hasNext(); ) {
@@ -272,7 +377,9 @@ public class ReminderRuleEngine {
 		}
 		
 		for(ReminderRule rule:filterRules) {
-			filterByRule(entry, identities, rule);	
+			long start = System.nanoTime();
+			filterByRule(entry, identities, rule);
+			timings.add(rule.getType(), start, identities.size());
 		}
 	}
 
@@ -287,4 +394,37 @@ public class ReminderRuleEngine {
 			log.error("", e);
 		}
 	}
+	
+	/**
+	 * Collect the time used by every step of the evaluation of a reminder
+	 * and the number of candidates after the step.
+	 */
+	protected static class EvaluationTimings {
+		
+		private final long start = System.nanoTime();
+		private final StringBuilder steps = new StringBuilder(128);
+		
+		public void add(String step, long stepStart, int candidates) {
+			if(steps.length() > 0) {
+				steps.append(", ");
+			}
+			steps.append(step).append(" ").append(toMillis(System.nanoTime() - stepStart)).append("ms");
+			if(candidates >= 0) {
+				steps.append(" (").append(candidates).append(")");
+			}
+		}
+		
+		public long getTotalTime() {
+			return toMillis(System.nanoTime() - start);
+		}
+		
+		private static long toMillis(long nanos) {
+			return TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+
+		@Override
+		public String toString() {
+			return steps.toString();
+		}
+	}
 }
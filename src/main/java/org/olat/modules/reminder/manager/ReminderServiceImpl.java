@@ -30,6 +30,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.velocity.VelocityContext;
 import org.olat.core.gui.translator.Translator;
@@ -215,10 +216,13 @@ public class ReminderServiceImpl implements ReminderService {
 	@Override
 	public void remindAll() {
 		Date now = new Date();
+		long start = System.nanoTime();
 		List<Reminder> reminders = reminderDao.getReminders(now);
 		for(Reminder reminder:reminders) {
 			sendReminder(reminder);
 		}
+		log.info(reminders.size() + " reminders evaluated and sent in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
 	}
 
 	@Override
@@ -0,0 +1,238 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.reminder.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+import org.olat.basesecurity.IdentityRef;
+
+/**
+ * An immutable set of identity keys, saved as a sorted array of primitive
+ * longs without duplicates. The intersection and the difference of two
+ * sets are a single merge of the arrays, O(n + m), and a lookup is a
+ * binary search.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public final class IdentityKeySet {
+	
+	public static final IdentityKeySet EMPTY = new IdentityKeySet(new long[0]);
+	
+	private final long[] keys;
+	
+	private IdentityKeySet(long[] keys) {
+		this.keys = keys;
+	}
+	
+	public static IdentityKeySet valueOf(Collection<Long> identityKeys) {
+		if(identityKeys == null || identityKeys.isEmpty()) {
+			return EMPTY;
+		}
+		
+		int count = 0;
+		long[] array = new long[identityKeys.size()];
+		for(Long identityKey:identityKeys) {
+			if(identityKey != null) {
+				array[count++] = identityKey.longValue();
+			}
+		}
+		return sortedUnique(array, count);
+	}
+	
+	public static IdentityKeySet valueOfIdentities(Collection<? extends IdentityRef> identities) {
+		if(identities == null || identities.isEmpty()) {
+			return EMPTY;
+		}
+		
+		int count = 0;
+		long[] array = new long[identities.size()];
+		for(IdentityRef identity:identities) {
+			if(identity != null && identity.getKey() != null) {
+				array[count++] = identity.getKey().longValue();
+			}
+		}
+		return sortedUnique(array, count);
+	}
+	
+	private static IdentityKeySet sortedUnique(long[] array, int count) {
+		if(count == 0) {
+			return EMPTY;
+		}
+		
+		Arrays.sort(array, 0, count);
+		int size = 1;
+		for(int i=1; i<count; i++) {
+			if(array[i] != array[size - 1]) {
+				array[size++] = array[i];
+			}
+		}
+		return new IdentityKeySet(size == array.length ? array : Arrays.copyOf(array, size));
+	}
+	
+	public int size() {
+		return keys.length;
+	}
+	
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+	
+	public boolean contains(Long identityKey) {
+		return identityKey != null && contains(identityKey.longValue());
+	}
+	
+	public boolean contains(long identityKey) {
+		return Arrays.binarySearch(keys, identityKey) >= 0;
+	}
+	
+	/**
+	 * @param other A set of keys
+	 * @return The keys which are in this set and in the other one
+	 */
+	public IdentityKeySet and(IdentityKeySet other) {
+		if(isEmpty() || other == null || other.isEmpty()) {
+			return EMPTY;
+		}
+		
+		long[] a = keys;
+		long[] b = other.keys;
+		long[] result = new long[Math.min(a.length, b.length)];
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		while(i < a.length && j < b.length) {
+			if(a[i] < b[j]) {
+				i++;
+			} else if(a[i] > b[j]) {
+				j++;
+			} else {
+				result[size++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return trim(result, size);
+	}
+	
+	/**
+	 * @param other A set of keys
+	 * @return The keys of this set which are not in the other one
+	 */
+	public IdentityKeySet andNot(IdentityKeySet other) {
+		if(isEmpty() || other == null || other.isEmpty()) {
+			return this;
+		}
+		
+		long[] a = keys;
+		long[] b = other.keys;
+		long[] result = new long[a.length];
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		while(i < a.length) {
+			if(j == b.length || a[i] < b[j]) {
+				result[size++] = a[i++];
+			} else if(a[i] > b[j]) {
+				j++;
+			} else {
+				i++;
+				j++;
+			}
+		}
+		return trim(result, size);
+	}
+	
+	/**
+	 * @param predicate The condition
+	 * @return The keys of this set which match the condition
+	 */
+	public IdentityKeySet filter(LongPredicate predicate) {
+		long[] result = new long[keys.length];
+		int size = 0;
+		for(long key:keys) {
+			if(predicate.test(key)) {
+				result[size++] = key;
+			}
+		}
+		return trim(result, size);
+	}
+	
+	private static IdentityKeySet trim(long[] result, int size) {
+		if(size == 0) {
+			return EMPTY;
+		}
+		return new IdentityKeySet(size == result.length ? result : Arrays.copyOf(result, size));
+	}
+	
+	/**
+	 * @return The keys sorted in ascending order
+	 */
+	public List<Long> toList() {
+		List<Long> list = new ArrayList<>(keys.length);
+		for(long key:keys) {
+			list.add(Long.valueOf(key));
+		}
+		return list;
+	}
+	
+	/**
+	 * @param chunkSize The maximum size of a chunk
+	 * @return The keys sorted in ascending order, split in lists of maximum chunkSize keys
+	 */
+	public List<List<Long>> toChunks(int chunkSize) {
+		int size = Math.max(1, chunkSize);
+		List<List<Long>> chunks = new ArrayList<>(keys.length / size + 1);
+		for(int i=0; i<keys.length; i+=size) {
+			int end = Math.min(keys.length, i + size);
+			List<Long> chunk = new ArrayList<>(end - i);
+			for(int j=i; j<end; j++) {
+				chunk.add(Long.valueOf(keys[j]));
+			}
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(keys);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) {
+			return true;
+		}
+		if(obj instanceof IdentityKeySet) {
+			return Arrays.equals(keys, ((IdentityKeySet)obj).keys);
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "identityKeySet[size=" + keys.length + "]";
+	}
+}
@@ -28,6 +28,7 @@ import org.olat.core.id.Identity;
 import org.olat.modules.reminder.FilterRuleSPI;
 import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.RuleEditorFragment;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.modules.reminder.ui.CourseLaunchRuleEditor;
 import org.olat.repository.RepositoryEntry;
@@ -51,6 +52,11 @@ public abstract class AbstractLaunchDateRuleSPI  implements FilterRuleSPI {
 	}
 	
 	protected abstract Map<Long,Date> getLaunchDates(ReminderRule rule, RepositoryEntry entry, List<Identity> identities);
+	
+	/**
+	 * @return The dates of the identities of the set, or more, in one query
+	 */
+	protected abstract Map<Long,Date> getLaunchDates(ReminderRule rule, RepositoryEntry entry, IdentityKeySet identityKeys);
 
 	@Override
 	public void filter(RepositoryEntry entry, List<Identity> identities, ReminderRule rule) {
@@ -75,6 +81,24 @@ public abstract class AbstractLaunchDateRuleSPI  implements FilterRuleSPI {
 		}
 	}
 	
+	@Override
+	public IdentityKeySet filterKeys(RepositoryEntry entry, IdentityKeySet candidates, ReminderRule rule) {
+		if(rule instanceof ReminderRuleImpl) {
+			ReminderRuleImpl r = (ReminderRuleImpl)rule;
+			
+			Date now = new Date();
+			int distance = Integer.parseInt(r.getRightOperand());
+			LaunchUnit unit = LaunchUnit.valueOf(r.getRightUnit());
+
+			Map<Long,Date> launchDates = getLaunchDates(rule, entry, candidates);
+			return candidates.filter(identityKey -> {
+				Date launchDate = launchDates.get(Long.valueOf(identityKey));
+				return launchDate != null && after(launchDate, now, distance, unit);
+			});
+		}
+		return candidates;
+	}
+	
 	private boolean after(Date date, Date now, int distance, LaunchUnit unit) {
 		double between = -1;
 		switch(unit) {
@@ -33,6 +33,7 @@ import org.olat.group.model.BusinessGroupReference;
 import org.olat.modules.reminder.IdentitiesProviderRuleSPI;
 import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.RuleEditorFragment;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.modules.reminder.ui.BusinessGroupRoleEditor;
 import org.olat.repository.RepositoryEntry;
@@ -101,4 +102,21 @@ public class BusinessGroupRoleRuleSPI implements IdentitiesProviderRuleSPI {
 		
 		return identities == null ? Collections.<Identity>emptyList() : identities;
 	}
+
+	@Override
+	public IdentityKeySet evaluateKeys(RepositoryEntry entry, ReminderRule rule) {
+		IdentityKeySet identityKeys = IdentityKeySet.EMPTY;
+		if(rule instanceof ReminderRuleImpl) {
+			ReminderRuleImpl r = (ReminderRuleImpl)rule;
+			String groupKey = r.getRightOperand();
+			if(StringHelper.isLong(groupKey)) {
+				Long key = Long.parseLong(groupKey);
+				BusinessGroupRef groupRef = new BusinessGroupRefImpl(key);
+				List<Long> memberKeys = businessGroupRelationDao.getMemberKeys(Collections.singletonList(groupRef),
+						GroupRoles.coach.name(), GroupRoles.participant.name());
+				identityKeys = IdentityKeySet.valueOf(memberKeys);
+			}
+		}
+		return identityKeys;
+	}
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ import org.olat.core.id.Identity;
 import org.olat.course.assessment.manager.UserCourseInformationsManager;
 import org.olat.course.export.CourseEnvironmentMapper;
 import org.olat.modules.reminder.ReminderRule;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.repository.RepositoryEntry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -57,4 +58,9 @@ public class InitialCourseLaunchRuleSPI extends AbstractLaunchDateRuleSPI {
 	protected Map<Long, Date> getLaunchDates(ReminderRule rule, RepositoryEntry entry, List<Identity> identities) {
 		return userCourseInformationsManager.getInitialLaunchDates(entry.getOlatResource(), identities);
 	}
-}
\ No newline at end of file
+
+	@Override
+	protected Map<Long, Date> getLaunchDates(ReminderRule rule, RepositoryEntry entry, IdentityKeySet identityKeys) {
+		return userCourseInformationsManager.getInitialLaunchDates(entry.getOlatResource());
+	}
+}
@@ -29,6 +29,7 @@ import org.olat.course.export.CourseEnvironmentMapper;
 import org.olat.modules.reminder.IdentitiesProviderRuleSPI;
 import org.olat.modules.reminder.ReminderRule;
 import org.olat.modules.reminder.RuleEditorFragment;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.modules.reminder.ui.RepositoryEntryRoleEditor;
 import org.olat.repository.RepositoryEntry;
@@ -72,40 +73,46 @@ public class RepositoryEntryRoleRuleSPI implements IdentitiesProviderRuleSPI  {
 	@Override
 	public List<Identity> evaluate(RepositoryEntry entry, ReminderRule rule) {
 		List<Identity> identities = null;
+		Roles roles = getRoles(rule);
+		if(roles != null) {
+			identities = repositoryEntryRelationDao.getMembers(entry, getRelationType(roles), getGroupRoles(roles));
+		}
+		return identities == null ? Collections.<Identity>emptyList() : identities;
+	}
+
+	@Override
+	public IdentityKeySet evaluateKeys(RepositoryEntry entry, ReminderRule rule) {
+		Roles roles = getRoles(rule);
+		if(roles == null) {
+			return IdentityKeySet.EMPTY;
+		}
+		List<Long> identityKeys = repositoryEntryRelationDao.getMemberKeys(entry, getRelationType(roles), getGroupRoles(roles));
+		return IdentityKeySet.valueOf(identityKeys);
+	}
+	
+	private Roles getRoles(ReminderRule rule) {
 		if(rule instanceof ReminderRuleImpl) {
-			ReminderRuleImpl r = (ReminderRuleImpl)rule;
-			String roles = r.getRightOperand();
+			String roles = ((ReminderRuleImpl)rule).getRightOperand();
 			if(StringHelper.containsNonWhitespace(roles)) {
-				switch(Roles.valueOf(roles)) {
-					case owner:
-						identities = repositoryEntryRelationDao.getMembers(entry, RepositoryEntryRelationType.entryAndCurriculums,
-								GroupRoles.owner.name());
-						break;
-					case coach:
-						identities = repositoryEntryRelationDao.getMembers(entry, RepositoryEntryRelationType.all,
-								GroupRoles.coach.name());
-						break;
-					case participant:
-						identities = repositoryEntryRelationDao.getMembers(entry, RepositoryEntryRelationType.all,
-								GroupRoles.participant.name());
-						break;
-					case participantAndCoach:
-						identities = repositoryEntryRelationDao.getMembers(entry, RepositoryEntryRelationType.all,
-								GroupRoles.coach.name(), GroupRoles.participant.name());
-						break;
-					case ownerAndCoach:
-						identities = repositoryEntryRelationDao.getMembers(entry, RepositoryEntryRelationType.all,
-								GroupRoles.coach.name(), GroupRoles.owner.name());
-						break;
-					case all:
-						identities = repositoryEntryRelationDao.getMembers(entry, RepositoryEntryRelationType.all,
-								GroupRoles.owner.name(), GroupRoles.coach.name(), GroupRoles.participant.name());
-						break;
-				}
+				return Roles.valueOf(roles);
 			}
 		}
-
-		return identities == null ? Collections.<Identity>emptyList() : identities;
+		return null;
+	}
+	
+	private RepositoryEntryRelationType getRelationType(Roles roles) {
+		return roles == Roles.owner ? RepositoryEntryRelationType.entryAndCurriculums : RepositoryEntryRelationType.all;
+	}
+	
+	private String[] getGroupRoles(Roles roles) {
+		switch(roles) {
+			case owner: return new String[] { GroupRoles.owner.name() };
+			case coach: return new String[] { GroupRoles.coach.name() };
+			case participant: return new String[] { GroupRoles.participant.name() };
+			case participantAndCoach: return new String[] { GroupRoles.coach.name(), GroupRoles.participant.name() };
+			case ownerAndCoach: return new String[] { GroupRoles.coach.name(), GroupRoles.owner.name() };
+			default: return new String[] { GroupRoles.owner.name(), GroupRoles.coach.name(), GroupRoles.participant.name() };
+		}
 	}
 	
 	public enum Roles {
@@ -21,6 +21,7 @@ package org.olat.modules.webFeed;
 
 import java.util.List;
 
+import org.olat.modules.webFeed.manager.ExternalFeedResponse;
 import org.olat.modules.webFeed.manager.ValidatedURL;
 
 /**
@@ -50,6 +51,17 @@ public interface ExternalFeedFetcher {
 	 */
 	public List<Item> fetchItems(Feed feed);
 
+	/**
+	 * Fetches the feed and its items with a single conditional GET. If the
+	 * external web site answers "not modified", the items are not fetched.
+	 *
+	 * @param feed
+	 * @param etag The ETag of the last response or null
+	 * @param lastModified The Last-Modified header of the last response or null
+	 * @return The response, never null
+	 */
+	public ExternalFeedResponse fetchFeed(Feed feed, String etag, String lastModified);
+
 	/**
 	 * Validates if it is a valid feed URL and if the feed can be fetch from
 	 * this URL.
@@ -0,0 +1,463 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.webFeed.manager;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.persistence.PersistenceHelper;
+import org.olat.core.commons.services.notifications.NotificationsManager;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.StringHelper;
+import org.olat.modules.webFeed.Enclosure;
+import org.olat.modules.webFeed.ExternalFeedFetcher;
+import org.olat.modules.webFeed.Feed;
+import org.olat.modules.webFeed.Item;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Refresh the external blogs and podcasts in background. The scheduler
+ * queues the feeds which were not synchronized since the refresh interval
+ * and a small pool of workers fetches them:
+ * <ul>
+ * 	<li>with a conditional GET (ETag and Last-Modified of the last response)</li>
+ * 	<li>with a limited number of concurrent requests per host</li>
+ * 	<li>with a circuit breaker per host: after some consecutive failures,
+ * 		the host is not requested for a while</li>
+ * </ul>
+ * Only the new and the changed items are written, in batches.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class ExternalFeedRefresher implements InitializingBean, DisposableBean {
+	
+	private static final OLog log = Tracing.createLoggerFor(ExternalFeedRefresher.class);
+	
+	@Value("${feed.external.refresh.enabled:true}")
+	private boolean enabled;
+	@Value("${feed.external.refresh.interval.minutes:10}")
+	private int intervalInMinutes;
+	@Value("${feed.external.refresh.workers:4}")
+	private int workers;
+	@Value("${feed.external.refresh.queue.size:1000}")
+	private int queueSize;
+	@Value("${feed.external.refresh.host.concurrency:2}")
+	private int hostConcurrency;
+	@Value("${feed.external.refresh.batch.size:50}")
+	private int batchSize;
+	@Value("${feed.external.refresh.circuit.failures:3}")
+	private int circuitFailures;
+	@Value("${feed.external.refresh.circuit.open.minutes:30}")
+	private int circuitOpenInMinutes;
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private FeedDAO feedDAO;
+	@Autowired
+	private ItemDAO itemDAO;
+	@Autowired
+	private ExternalFeedFetcher externalFeedFetcher;
+	@Autowired
+	private NotificationsManager notificationsManager;
+	
+	private ThreadPoolExecutor executor;
+	private final Set<Long> pendings = ConcurrentHashMap.newKeySet();
+	private final ConcurrentMap<String,Host> hosts = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long,Validators> validators = new ConcurrentHashMap<>();
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if(!enabled) return;
+		
+		int numOfWorkers = Math.max(1, workers);
+		executor = new ThreadPoolExecutor(numOfWorkers, numOfWorkers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(Math.max(1, queueSize)), new RefreshThreadFactory());
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(executor != null) {
+			executor.shutdownNow();
+		}
+	}
+	
+	public boolean isEnabled() {
+		return enabled && executor != null;
+	}
+	
+	/**
+	 * Queue all the external feeds which were not synchronized since the
+	 * refresh interval.
+	 * 
+	 * @return The number of queued feeds
+	 */
+	public int refreshStaleFeeds() {
+		if(!isEnabled()) return 0;
+		
+		Date before = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(intervalInMinutes));
+		List<Long> feedKeys = feedDAO.loadExternalFeedKeysToRefresh(before);
+		dbInstance.commitAndCloseSession();
+		
+		int queued = 0;
+		for(Long feedKey:feedKeys) {
+			if(submit(feedKey)) {
+				queued++;
+			}
+		}
+		if(queued > 0) {
+			log.info("External feeds queued for refresh: " + queued + " of " + feedKeys.size());
+		}
+		return queued;
+	}
+	
+	private boolean submit(Long feedKey) {
+		if(!pendings.add(feedKey)) {
+			return true;
+		}
+		
+		try {
+			executor.execute(() -> {
+				try {
+					refreshInBackground(feedKey);
+					dbInstance.commitAndCloseSession();
+				} catch (Exception e) {
+					log.error("Cannot refresh the external feed: " + feedKey, e);
+					dbInstance.rollbackAndCloseSession();
+				} finally {
+					pendings.remove(feedKey);
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			// the queue is full, the feed is queued again by the next run of the scheduler
+			pendings.remove(feedKey);
+			return false;
+		}
+	}
+	
+	protected void refreshInBackground(Long feedKey) {
+		Feed feed = feedDAO.loadFeed(feedKey);
+		if(feed == null || !feed.isExternal() || !StringHelper.containsNonWhitespace(feed.getExternalFeedUrl())) {
+			return;
+		}
+		
+		Host host = getHost(feed.getExternalFeedUrl());
+		if(host.isOpen()) {
+			log.debug("Circuit open, skip the external feed: " + feed.getExternalFeedUrl());
+			return;
+		}
+		// the feeds which are skipped are still stale and queued again by the next run
+		if(host.tryAcquire()) {
+			try {
+				refresh(feed, host, true);
+			} finally {
+				host.release();
+			}
+		}
+	}
+	
+	/**
+	 * Refresh the feed now, in the thread of the caller. The circuit breaker
+	 * and the limit of concurrent requests of the host are not applied. The
+	 * changes are not committed, the transaction belongs to the caller.
+	 * 
+	 * @param feed The feed
+	 * @return true if the feed was successfully fetched
+	 */
+	public boolean refresh(Feed feed) {
+		if(feed == null || !StringHelper.containsNonWhitespace(feed.getExternalFeedUrl())) {
+			return false;
+		}
+		return refresh(feed, getHost(feed.getExternalFeedUrl()), false);
+	}
+	
+	/**
+	 * @param feed The feed
+	 * @param host The host of the feed
+	 * @param inBackground If true, the changes are committed in batches and
+	 * 		the notifications are marked after the commit
+	 * @return true if the feed was successfully fetched
+	 */
+	private boolean refresh(Feed feed, Host host, boolean inBackground) {
+		String url = feed.getExternalFeedUrl();
+		Validators lastValidators = feed.getKey() == null ? null : validators.get(feed.getKey());
+		if(lastValidators != null && !lastValidators.getUrl().equals(url)) {
+			lastValidators = null;
+		}
+		
+		boolean hasItems = itemDAO.hasItems(feed);
+		String etag = null;
+		String lastModified = null;
+		if(lastValidators != null && hasItems) {
+			etag = lastValidators.getEtag();
+			lastModified = lastValidators.getLastModified();
+		}
+		
+		ExternalFeedResponse response = externalFeedFetcher.fetchFeed(feed, etag, lastModified);
+		switch(response.getState()) {
+			case FAILED:
+				host.failure(circuitFailures, TimeUnit.MINUTES.toMillis(circuitOpenInMinutes));
+				// wait the next interval before trying again
+				feedDAO.updateFeed(feed);
+				return false;
+			case NOT_MODIFIED:
+				host.success();
+				feedDAO.updateFeed(feed);
+				return true;
+			default:
+				host.success();
+				if(feed.getKey() != null) {
+					validators.put(feed.getKey(), new Validators(url, response.getEtag(), response.getLastModified()));
+				}
+				int changes = applyItems(feed, response.getItems(), inBackground);
+				feed.setExternalImageURL(response.getImageUrl());
+				feedDAO.updateFeed(feed);
+				if(inBackground) {
+					dbInstance.commit();
+				}
+				if(changes > 0) {
+					notificationsManager.markPublisherNews(feed.getResourceableTypeName(),
+							feed.getResourceableId().toString(), null, false);
+				}
+				return true;
+		}
+	}
+	
+	/**
+	 * Create the new items and update the changed ones. The items are
+	 * compared with the stored ones loaded in a single query.
+	 * 
+	 * @param feed The feed
+	 * @param externalItems The items of the external feed
+	 * @param commitInBatches Commit the changes in batches
+	 * @return The number of created or updated items
+	 */
+	protected int applyItems(Feed feed, List<Item> externalItems, boolean commitInBatches) {
+		if(externalItems.isEmpty()) return 0;
+		
+		List<Item> items = itemDAO.loadItems(feed, null);
+		Map<String,Item> guidToItems = new HashMap<>();
+		for(Item item:items) {
+			if(item.getGuid() != null) {
+				guidToItems.putIfAbsent(item.getGuid(), item);
+			}
+		}
+		
+		int changes = 0;
+		for(Item externalItem:externalItems) {
+			Item reloaded = externalItem.getGuid() == null ? null : guidToItems.get(externalItem.getGuid());
+			if(reloaded == null) {
+				Date now = new Date();
+				externalItem.setCreationDate(now);
+				// Init the last modified
+				if(externalItem.getLastModified() == null) {
+					externalItem.setLastModified(now);
+				}
+				// published date should never be null because it triggers notifications
+				if(externalItem.getPublishDate() == null) {
+					externalItem.setPublishDate(now);
+				}
+				if(dbInstance.isMySQL()) {
+					mysqlCleanUp(externalItem);
+				}
+				itemDAO.createItem(feed, externalItem);
+				if(externalItem.getGuid() != null) {
+					guidToItems.put(externalItem.getGuid(), externalItem);
+				}
+			} else if(isChanged(reloaded, externalItem)) {
+				// Do not overwrite initial values
+				if(externalItem.getLastModified() != null) {
+					reloaded.setLastModified(externalItem.getLastModified());
+				}
+				if(externalItem.getPublishDate() != null) {
+					reloaded.setPublishDate(externalItem.getPublishDate());
+				}
+				reloaded.setAuthor(externalItem.getAuthor());
+				reloaded.setExternalLink(externalItem.getExternalLink());
+				reloaded.setTitle(externalItem.getTitle());
+				reloaded.setDescription(externalItem.getDescription());
+				reloaded.setContent(externalItem.getContent());
+				reloaded.setEnclosure(externalItem.getEnclosure());
+				if(dbInstance.isMySQL()) {
+					mysqlCleanUp(reloaded);
+				}
+				itemDAO.updateItem(reloaded);
+			} else {
+				continue;
+			}
+			
+			if(++changes % Math.max(1, batchSize) == 0 && commitInBatches) {
+				dbInstance.commit();
+			}
+		}
+		return changes;
+	}
+	
+	private boolean isChanged(Item item, Item externalItem) {
+		return (externalItem.getLastModified() != null && !sameDate(item.getLastModified(), externalItem.getLastModified()))
+				|| (externalItem.getPublishDate() != null && !sameDate(item.getPublishDate(), externalItem.getPublishDate()))
+				|| !Objects.equals(item.getAuthor(), externalItem.getAuthor())
+				|| !Objects.equals(item.getExternalLink(), externalItem.getExternalLink())
+				|| !Objects.equals(item.getTitle(), cleanUp(externalItem.getTitle()))
+				|| !Objects.equals(item.getDescription(), cleanUp(externalItem.getDescription()))
+				|| !Objects.equals(item.getContent(), cleanUp(externalItem.getContent()))
+				|| !sameEnclosure(item.getEnclosure(), externalItem.getEnclosure());
+	}
+	
+	private boolean sameDate(Date date, Date externalDate) {
+		// the database can truncate the milliseconds
+		return date != null && Math.abs(date.getTime() - externalDate.getTime()) < 1000;
+	}
+	
+	private boolean sameEnclosure(Enclosure enclosure, Enclosure externalEnclosure) {
+		if(enclosure == null || externalEnclosure == null) {
+			return enclosure == null && externalEnclosure == null;
+		}
+		return Objects.equals(enclosure.getExternalUrl(), externalEnclosure.getExternalUrl())
+				&& Objects.equals(enclosure.getType(), externalEnclosure.getType())
+				&& Objects.equals(enclosure.getLength(), externalEnclosure.getLength());
+	}
+	
+	private String cleanUp(String value) {
+		return dbInstance.isMySQL() ? PersistenceHelper.convert(value) : value;
+	}
+	
+	private void mysqlCleanUp(Item item) {
+		item.setTitle(PersistenceHelper.convert(item.getTitle()));
+		item.setContent(PersistenceHelper.convert(item.getContent()));
+		item.setDescription(PersistenceHelper.convert(item.getDescription()));
+	}
+	
+	private Host getHost(String url) {
+		String hostname;
+		try {
+			hostname = URI.create(url.trim()).getHost();
+		} catch (IllegalArgumentException e) {
+			hostname = null;
+		}
+		if(hostname == null) {
+			hostname = url;
+		}
+		return hosts.computeIfAbsent(hostname.toLowerCase(), h -> new Host(Math.max(1, hostConcurrency)));
+	}
+	
+	/**
+	 * The limit of concurrent requests and the state of the
+	 * circuit breaker of a host.
+	 */
+	private static class Host {
+		
+		private final Semaphore permits;
+		private final AtomicInteger failures = new AtomicInteger();
+		private volatile long openUntil = 0l;
+		
+		public Host(int concurrency) {
+			permits = new Semaphore(concurrency);
+		}
+		
+		public boolean tryAcquire() {
+			return permits.tryAcquire();
+		}
+		
+		public void release() {
+			permits.release();
+		}
+		
+		/**
+		 * After the open period, the next request is a trial. A new
+		 * failure opens the circuit again.
+		 */
+		public boolean isOpen() {
+			return openUntil > System.currentTimeMillis();
+		}
+		
+		public void success() {
+			failures.set(0);
+			openUntil = 0l;
+		}
+		
+		public void failure(int maxFailures, long openDuration) {
+			if(failures.incrementAndGet() >= maxFailures) {
+				openUntil = System.currentTimeMillis() + openDuration;
+			}
+		}
+	}
+	
+	private static class Validators {
+		
+		private final String url;
+		private final String etag;
+		private final String lastModified;
+		
+		public Validators(String url, String etag, String lastModified) {
+			this.url = url;
+			this.etag = etag;
+			this.lastModified = lastModified;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+	}
+	
+	private static class RefreshThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "external-feeds-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.webFeed.manager;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.olat.modules.webFeed.Item;
+
+/**
+ * The response of a conditional GET of an external feed. The
+ * validators (ETag and Last-Modified) are sent back with the
+ * next request.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ExternalFeedResponse {
+	
+	private final State state;
+	private final String etag;
+	private final String lastModified;
+	private final String imageUrl;
+	private final List<Item> items;
+	
+	public ExternalFeedResponse(State state, String etag, String lastModified, String imageUrl, List<Item> items) {
+		this.state = state;
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.imageUrl = imageUrl;
+		this.items = items == null ? Collections.emptyList() : items;
+	}
+	
+	public static ExternalFeedResponse notModified(String etag, String lastModified) {
+		return new ExternalFeedResponse(State.NOT_MODIFIED, etag, lastModified, null, null);
+	}
+	
+	public static ExternalFeedResponse failed() {
+		return new ExternalFeedResponse(State.FAILED, null, null, null, null);
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return The ETag header of the response or null
+	 */
+	public String getEtag() {
+		return etag;
+	}
+
+	/**
+	 * @return The Last-Modified header of the response or null
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public String getImageUrl() {
+		return imageUrl;
+	}
+
+	/**
+	 * @return The items of the feed, only if modified
+	 */
+	public List<Item> getItems() {
+		return items;
+	}
+
+	public enum State {
+		MODIFIED,
+		NOT_MODIFIED,
+		FAILED
+	}
+}
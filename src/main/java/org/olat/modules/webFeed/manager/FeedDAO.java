@@ -93,6 +93,25 @@ public class FeedDAO {
 		return feeds.isEmpty() ? null : feeds.get(0);
 	}
 	
+	/**
+	 * The last modification date of an external feed is the date of its
+	 * last synchronization.
+	 * 
+	 * @param lastModifiedBefore Only the feeds synchronized before this date
+	 * @return The keys of the external feeds, the oldest synchronized first
+	 */
+	public List<Long> loadExternalFeedKeysToRefresh(Date lastModifiedBefore) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select data.key from feed data")
+		  .append(" where data.isExternal=true and data.externalFeedURL is not null")
+		  .append(" and data.lastModified<:lastModifiedBefore")
+		  .append(" order by data.lastModified asc");
+		return dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Long.class)
+				.setParameter("lastModifiedBefore", lastModifiedBefore)
+				.getResultList();
+	}
+	
 	public Feed updateFeed(Feed feed) {
 		if (feed == null) return null;
 		
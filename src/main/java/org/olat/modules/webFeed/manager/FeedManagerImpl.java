@@ -99,7 +99,7 @@ public class FeedManagerImpl extends FeedManager {
 
 	private static final OLog log = Tracing.createLoggerFor(FeedManagerImpl.class);
 
-	// 10 minutes
+	// 10 minutes, if the background refresh is disabled
 	private static final int EXTERNAL_FEED_ACTUALIZATION_MILLIS = 10*60*1000;
 
 	private RepositoryManager repositoryManager;
@@ -122,6 +122,8 @@ public class FeedManagerImpl extends FeedManager {
 	@Autowired
 	private ExternalFeedFetcher externalFeedFetcher;
 	@Autowired
+	private ExternalFeedRefresher externalFeedRefresher;
+	@Autowired
 	private NotificationsManager notificationsManager;
 	@Autowired
 	private VFSRepositoryService vfsRepositoryService;
@@ -182,21 +184,24 @@ public class FeedManagerImpl extends FeedManager {
 	/**
 	 * Load the Feed from the database.
 	 *
-	 * Additionally this method triggers the actualization of the external feed
-	 * and his items. The download starts is the last modified time is
+	 * The external feeds are refreshed in background by the
+	 * ExternalFeedRefresher. If the background refresh is disabled, this
+	 * method triggers the actualization of the external feed and his items.
+	 * The download starts is the last modified time is
 	 */
 	@Override
 	public Feed loadFeed(OLATResourceable ores) {
 		Feed feed = feedDAO.loadFeed(ores);
 
 		// Update the external feed and the items
-		if (feed != null && feed.isExternal() && StringHelper.containsNonWhitespace(feed.getExternalFeedUrl())) {
+		if (feed != null && feed.isExternal() && StringHelper.containsNonWhitespace(feed.getExternalFeedUrl())
+				&& !externalFeedRefresher.isEnabled()) {
 			Calendar cal = Calendar.getInstance();
 			cal.setTime(feed.getLastModified());
 			long lastModifiedMillis = cal.getTimeInMillis();
 			Date nextUpdateDate = new Date(lastModifiedMillis + EXTERNAL_FEED_ACTUALIZATION_MILLIS);
 			Date now = new Date();
-			if (now.after(nextUpdateDate) || loadItems(feed).isEmpty()) {
+			if (now.after(nextUpdateDate) || !itemDAO.hasItems(feed)) {
 				// time to update or first load after creation of the feed
 				saveExternalFeedIAndtems(feed);
 			}
@@ -209,10 +214,7 @@ public class FeedManagerImpl extends FeedManager {
 	}
 
 	private void saveExternalFeedIAndtems(Feed feed) {
-		saveExternalItems(feed);
-		saveExternalFeed(feed);
-		notificationsManager.markPublisherNews(feed.getResourceableTypeName(),
-				feed.getResourceableId().toString(), null, false);
+		externalFeedRefresher.refresh(feed);
 	}
 
 	@Override
@@ -474,69 +476,6 @@ public class FeedManagerImpl extends FeedManager {
 		return reloadedFeed;
 	}
 
-	/**
-	 * Fetch the external feed and store it in the database.
-	 *
-	 * @param feed
-	 */
-	private void saveExternalFeed(Feed feed) {
-		feed = externalFeedFetcher.fetchFeed(feed);
-
-		if (feed != null) {
-			feed.setLastModified(new Date());
-			feedDAO.updateFeed(feed);
-		}
-	}
-
-	/**
-	 * Fetch all items of the external feed and store them in the database.
-	 *
-	 * @param feed
-	 */
-	private void saveExternalItems(Feed feed) {
-		List<Item> externalItems = externalFeedFetcher.fetchItems(feed);
-
-		for (Item externalItem : externalItems) {
-			Item reloaded = itemDAO.loadItemByGuid(feed.getKey(), externalItem.getGuid());
-			if (reloaded == null) {
-				Date now = new Date();
-				externalItem.setCreationDate(now);
-				// Init the last modified
-				if (externalItem.getLastModified() == null) {
-					externalItem.setLastModified(now);
-				}
-				// published date should never be null because it triggers notifications
-				if (externalItem.getPublishDate() == null) {
-					externalItem.setPublishDate(now);
-				}
-				
-				if(dbInstance.isMySQL()) {
-					mysqlCleanUp(externalItem);
-				}
-				itemDAO.createItem(feed, externalItem);
-			} else {
-				// Do not overwrite initial values
-				if (externalItem.getLastModified() != null) {
-					reloaded.setLastModified(externalItem.getLastModified());
-				}
-				if (externalItem.getPublishDate() != null) {
-					reloaded.setPublishDate(externalItem.getPublishDate());
-				}
-				reloaded.setAuthor(externalItem.getAuthor());
-				reloaded.setExternalLink(externalItem.getExternalLink());
-				reloaded.setTitle(externalItem.getTitle());
-				reloaded.setDescription(externalItem.getDescription());
-				reloaded.setContent(externalItem.getContent());
-				reloaded.setEnclosure(externalItem.getEnclosure());
-				
-				if(dbInstance.isMySQL()) {
-					mysqlCleanUp(reloaded);
-				}
-				itemDAO.updateItem(reloaded);
-			}
-		}
-	}
-	
 	private void mysqlCleanUp(Item item) {
 		item.setTitle(PersistenceHelper.convert(item.getTitle()));
 		item.setContent(PersistenceHelper.convert(item.getContent()));
@@ -911,8 +850,7 @@ public class FeedManagerImpl extends FeedManager {
 			}
 
 			if (feed.isExternal()) {
-				saveExternalItems(feed);
-				saveExternalFeed(feed);
+				externalFeedRefresher.refresh(feed);
 			}
 		}
 
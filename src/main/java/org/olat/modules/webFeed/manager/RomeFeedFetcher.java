@@ -20,15 +20,25 @@
 package org.olat.modules.webFeed.manager;
 
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.StringHelper;
+import org.olat.core.util.httpclient.HttpClientFactory;
 import org.olat.modules.webFeed.Enclosure;
 import org.olat.modules.webFeed.ExternalFeedFetcher;
 import org.olat.modules.webFeed.Feed;
@@ -57,6 +67,8 @@ import com.rometools.rome.io.XmlReader;
 public class RomeFeedFetcher implements ExternalFeedFetcher {
 
 	private static final OLog log = Tracing.createLoggerFor(RomeFeedFetcher.class);
+	
+	private static final int TIMEOUT_MILLIS = 10000;
 
 	private final SyndFeedInput syndFeedInput;
 
@@ -109,6 +121,67 @@ public class RomeFeedFetcher implements ExternalFeedFetcher {
 				.collect(Collectors.toList());
 	}
 
+	@Override
+	public ExternalFeedResponse fetchFeed(Feed feed, String etag, String lastModified) {
+		String feedURL = feed.getExternalFeedUrl();
+		HttpGet get;
+		try {
+			get = new HttpGet(feedURL);
+		} catch (IllegalArgumentException e) {
+			log.warn("Cannot read external feed: " + feedURL);
+			return ExternalFeedResponse.failed();
+		}
+		
+		get.setConfig(RequestConfig.custom()
+				.setConnectTimeout(TIMEOUT_MILLIS)
+				.setConnectionRequestTimeout(TIMEOUT_MILLIS)
+				.setSocketTimeout(TIMEOUT_MILLIS)
+				.build());
+		if (StringHelper.containsNonWhitespace(etag)) {
+			get.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+		}
+		if (StringHelper.containsNonWhitespace(lastModified)) {
+			get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+		}
+		
+		try(CloseableHttpClient httpClient = HttpClientFactory.getHttpClientInstance(true);
+				CloseableHttpResponse response = httpClient.execute(get)) {
+			int status = response.getStatusLine().getStatusCode();
+			if (status == HttpStatus.SC_NOT_MODIFIED) {
+				log.debug("External feed not modified: " + feedURL);
+				return ExternalFeedResponse.notModified(etag, lastModified);
+			}
+			HttpEntity entity = response.getEntity();
+			if (status != HttpStatus.SC_OK || entity == null) {
+				log.warn("Cannot read external feed: " + feedURL + " (status: " + status + ")");
+				return ExternalFeedResponse.failed();
+			}
+
+			String contentType = entity.getContentType() == null ? null : entity.getContentType().getValue();
+			SyndFeed syndFeed;
+			try(InputStream in = entity.getContent();
+					Reader xmlReader = new XmlReader(in, contentType, true)) {
+				syndFeed = syndFeedInput.build(xmlReader);
+			}
+			log.info("Read external feed: " + feedURL);
+			
+			String imageUrl = syndFeed.getImage() == null ? null : syndFeed.getImage().getUrl();
+			List<Item> items = syndFeed.getEntries().stream()
+					.map(entry -> convertEntry(feed, entry))
+					.collect(Collectors.toList());
+			return new ExternalFeedResponse(ExternalFeedResponse.State.MODIFIED,
+					getHeader(response, HttpHeaders.ETAG), getHeader(response, HttpHeaders.LAST_MODIFIED), imageUrl, items);
+		} catch (Exception e) {
+			log.warn("Cannot read external feed: " + feedURL + " (" + e.getMessage() + ")");
+			return ExternalFeedResponse.failed();
+		}
+	}
+	
+	private String getHeader(CloseableHttpResponse response, String name) {
+		Header header = response.getFirstHeader(name);
+		return header == null ? null : header.getValue();
+	}
+
 	/**
 	 * Fetches the SyndFeed of an URL.
 	 * @param feedURL
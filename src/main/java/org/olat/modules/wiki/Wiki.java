@@ -38,6 +38,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jamwiki.utils.Utilities;
 import org.olat.core.CoreSpringFactory;
@@ -81,6 +82,9 @@ public class Wiki implements WikiContainer, Serializable {
 	private String IMAGE_NAMESPACE = "Image:";
 	private String MEDIA_NAMESPACE = "Media:";
 	private static final OLog log = Tracing.createLoggerFor(Wiki.class);
+	// revisions are unique in the JVM, a wiki reloaded from the file system never reuses one
+	private static final AtomicLong revisions = new AtomicLong();
+	private volatile long revision = revisions.incrementAndGet();
 	
 	protected Wiki(VFSContainer wikiRootContainer) {
 		if(wikiRootContainer == null) throw new AssertException("null values are not allowed for the wiki constructor!");
@@ -168,6 +172,7 @@ public class Wiki implements WikiContainer, Serializable {
 		String pageId = page.getPageId();
 		if (!wikiPages.containsKey(pageId)) {
 			wikiPages.put(pageId, page);
+			newRevision();
 		}
 	}
 
@@ -211,6 +216,22 @@ public class Wiki implements WikiContainer, Serializable {
 		String name = page.getPageName();
 		if (name.equals(WikiPage.WIKI_INDEX_PAGE) || name.equals(WikiPage.WIKI_MENU_PAGE)) return;
 		wikiPages.remove(page.getPageId());
+		newRevision();
+	}
+	
+	/**
+	 * The revision changes with every change of the pages or of the media files
+	 * which can change the rendering of the pages (links to existing or missing
+	 * pages and medias).
+	 * 
+	 * @return The current revision of the wiki
+	 */
+	public long getRevision() {
+		return revision;
+	}
+	
+	protected void newRevision() {
+		revision = revisions.incrementAndGet();
 	}
 
 	protected int getNumberOfPages() {
@@ -575,7 +575,7 @@ public class WikiMainController extends BasicController implements CloneableCont
 			 * article container events
 			 ************************************************************************/
 			if (command.equals(ACTION_EDIT_MENU)) {
-				page = wiki.getPage(WikiPage.WIKI_MENU_PAGE);
+				page = wiki.getPage(WikiPage.WIKI_MENU_PAGE, true);
 				updateFileAndLinkList(wiki);
 				tryToSetEditLock(page, ureq, ores);
 				updatePageContext(ureq, page);
@@ -588,7 +588,7 @@ public class WikiMainController extends BasicController implements CloneableCont
 		} else if (source == changesLink) {
 			openLastChangesPage(ureq, wiki);
 		} else if (source == editMenuButton) {
-			page = wiki.getPage(WikiPage.WIKI_MENU_PAGE);
+			page = wiki.getPage(WikiPage.WIKI_MENU_PAGE, true);
 			updateFileAndLinkList(wiki);
 			tryToSetEditLock(page, ureq, ores);
 			updatePageContext(ureq, page);
@@ -906,7 +906,7 @@ public class WikiMainController extends BasicController implements CloneableCont
 				wiki.removePage(page);
 				breadcrumpDropdown.removeComponent(page.getPageName());
 				WikiManager.getInstance().deleteWikiPage(ores, page);
-				page = wiki.getPage(WikiPage.WIKI_INDEX_PAGE);
+				page = wiki.getPage(WikiPage.WIKI_INDEX_PAGE, true);
 				updatePageContext(ureq, page);
 				tabs.setSelectedPane(ureq, 0);
 			}
@@ -1081,6 +1081,7 @@ public class WikiMainController extends BasicController implements CloneableCont
 				throw new OLATRuntimeException(WikiManager.class, "failed to save media files properties for file: "
 						+ filename + " and olatresource: " + ores.getResourceableId(), e);
 			}
+			WikiManager.getInstance().resetRenderedPages(ores);
 		}
 	}
 
@@ -1112,6 +1113,7 @@ public class WikiMainController extends BasicController implements CloneableCont
 				}
 			}
 		}
+		WikiManager.getInstance().resetRenderedPages(ores);
 		getWindowControl().pop();
 	}
 
@@ -29,6 +29,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -40,6 +41,7 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.function.Function;
 
 import org.apache.commons.codec.binary.Base64;
 import org.olat.core.commons.services.notifications.SubscriptionContext;
@@ -111,6 +113,8 @@ public class WikiManager {
 	
   //o_clusterNOK cache : 08.04.08/cg Not tested in cluster-mode 
 	CacheWrapper<String,Wiki> wikiCache;
+	// rendered HTML of the pages, local to the node as the revision of the wiki
+	private CacheWrapper<String,RenderedPage> renderedCache;
 	
 	OLATResourceManager resourceManager;
 	FileResourceManager fileResourceManager;
@@ -447,11 +451,7 @@ public class WikiManager {
 					propertiesFile.delete();
 					continue;
 				}
-				// index and menu page are loaded by default
-				if (page.getPageName().equals(WikiPage.WIKI_INDEX_PAGE) || page.getPageName().equals(WikiPage.WIKI_MENU_PAGE)) {
-					VFSLeaf leaf = (VFSLeaf) folder.resolve(page.getPageId() + "." + WikiManager.WIKI_FILE_SUFFIX);
-					page.setContent(FileUtils.load(leaf.getInputStream(), "utf-8"));
-				}
+				// the content of the pages is loaded lazily, see Wiki.getPage(pageId, true)
 
 				// due to a bug we have to rename some pages that start with an non
 				// ASCII lowercase letter
@@ -555,6 +555,7 @@ public class WikiManager {
 			throw new OLATRuntimeException(WikiManager.class, "failed to save wiki page properties for page with id: " + page.getPageId() + " and olatresource: " + ores.getResourceableId(), e);
 		}
 		page.setViewCount(0); //reset view count of the page
+		wiki.newRevision();
 		
 		//update cache to inform all nodes about the change
 		if (cache && wikiCache != null) {
@@ -597,8 +598,10 @@ public class WikiManager {
 			}
 		}
 		log.audit("Deleted wiki page with name: " + page.getPageName() + " from resourcable id: "+ ores.getResourceableId());
+		Wiki wiki = getOrLoadWiki(ores);
+		wiki.newRevision();
 		if (wikiCache!=null) {
-			wikiCache.update(OresHelper.createStringRepresenting(ores), getOrLoadWiki(ores));
+			wikiCache.update(OresHelper.createStringRepresenting(ores), wiki);
 		}
 	}
 	
@@ -619,9 +622,52 @@ public class WikiManager {
 	 */
 	public void updateWikiPageProperties(OLATResourceable ores, WikiPage page) {
 		saveWikiPageProperties(ores, page);
+		Wiki wiki = getOrLoadWiki(ores);
+		wiki.newRevision();
 		if (wikiCache!=null) {
-			wikiCache.update(OresHelper.createStringRepresenting(ores), getOrLoadWiki(ores));
+			wikiCache.update(OresHelper.createStringRepresenting(ores), wiki);
+		}
+	}
+	
+	/**
+	 * The rendered pages of the wiki are not longer valid, the
+	 * media files of the wiki have changed for example.
+	 * 
+	 * @param ores The wiki
+	 */
+	public void resetRenderedPages(OLATResourceable ores) {
+		getOrLoadWiki(ores).newRevision();
+	}
+	
+	/**
+	 * Return the HTML of a wiki markup. The HTML is rendered once and shared
+	 * by all users as long as the wiki doesn't change. The context must hold
+	 * everything beside the markup and the wiki which changes the HTML.
+	 * 
+	 * @param ores The wiki
+	 * @param context The rendering context
+	 * @param content The wiki markup
+	 * @param renderer Render the markup to HTML if not cached
+	 * @return The HTML
+	 */
+	public String getOrRenderPage(OLATResourceable ores, String context, String content, Function<String,String> renderer) {
+		if (renderedCache == null) {
+			renderedCache = coordinator.getCoordinator().getCacher().getCache(WikiManager.class.getSimpleName(), "rendered");
 		}
+		
+		Wiki wiki = getOrLoadWiki(ores);
+		String renderedKey = OresHelper.createStringRepresenting(ores) + ":" + wiki.getRevision()
+				+ ":" + context + ":" + content.hashCode();
+		RenderedPage rendered = renderedCache.get(renderedKey);
+		if (rendered != null && rendered.getContent().equals(content)) {
+			return rendered.getHtml();
+		}
+		
+		String html = renderer.apply(content);
+		if (html != null) {
+			renderedCache.put(renderedKey, new RenderedPage(content, html));
+		}
+		return html;
 	}
 
 
@@ -784,4 +830,25 @@ public class WikiManager {
 		return fileResourceManager;
 	}
 	
-}
\ No newline at end of file
+	
+	private static class RenderedPage implements Serializable {
+
+		private static final long serialVersionUID = 4716373407383296318L;
+		
+		private final String content;
+		private final String html;
+		
+		public RenderedPage(String content, String html) {
+			this.content = content;
+			this.html = html;
+		}
+
+		public String getContent() {
+			return content;
+		}
+
+		public String getHtml() {
+			return html;
+		}
+	}
+}
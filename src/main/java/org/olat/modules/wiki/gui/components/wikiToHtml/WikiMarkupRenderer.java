@@ -45,6 +45,7 @@ import org.olat.core.helpers.Settings;
 import org.olat.core.logging.OLATRuntimeException;
 import org.olat.core.util.Formatter;
 import org.olat.core.util.filter.FilterFactory;
+import org.olat.modules.wiki.WikiManager;
 import org.olat.modules.wiki.WikiModule;
 
 /**
@@ -57,6 +58,13 @@ import org.olat.modules.wiki.WikiModule;
  * @author guido
  */
 public class WikiMarkupRenderer extends DefaultComponentRenderer {
+	
+	/**
+	 * The link base contains the timestamps of the window and of the component,
+	 * the pages are rendered with this placeholder which is replaced by the
+	 * link base of the user.
+	 */
+	private static final String LINK_BASE_PLACEHOLDER = "o_wiki_link_base_placeholder";
 
 	@Override
 	public void render(Renderer renderer, StringOutput sb, Component source, URLBuilder ubu, Translator translator,
@@ -65,52 +73,37 @@ public class WikiMarkupRenderer extends DefaultComponentRenderer {
 		
 		AJAXFlags flags = renderer.getGlobalSettings().getAjaxFlags();
 		boolean iframePostEnabled = flags.isIframePostEnabled();
-		
-		ParserInput input = new ParserInput();
-		input.setWikiUser(null);
-		input.setAllowSectionEdit(false);
-		input.setDepth(10);
-		input.setContext(Settings.createServerURI());
-		input.setLocale(new Locale("en"));
-		input.setTopicName("dummy");
-		input.setUserIpAddress("0.0.0.0");
-		OlatWikiDataHandler dataHandler = new OlatWikiDataHandler(wikiComp.getOres(), wikiComp.getImageBaseUri());
-		input.setDataHandler(dataHandler);
     
 		StringOutput out = new StringOutput(100);
 		ubu.buildURI(out, null , null, iframePostEnabled ? AJAXFlags.MODE_TOBGIFRAME : AJAXFlags.MODE_NORMAL);
 		String uri = out.toString();
 		
-		ParserDocument parsedDoc = null;
+		String content = null;
 		String uniqueId = "o_wiki".concat(wikiComp.getDispatchID());
 		try {
 			uri = URLDecoder.decode(uri, "utf-8");
 			uri = uri.substring(1, uri.length() - 1);
-			input.setVirtualWiki(uri);
-			if (iframePostEnabled) {
-				String targetUrl = " onclick=\"o_XHRWikiEvent(this);return(false);\"";
-				input.setURLTarget(targetUrl);
-			}
 			sb.append("<div style=\"min-height:").append(wikiComp.getMinHeight()).append("px\" id=\"")
 			  .append(uniqueId)
 			  .append("\">");
-		
-			JFlexParser parser = new JFlexParser(input);
-			parsedDoc = parser.parseHTML(wikiComp.getWikiContent());
-		} catch (UnsupportedEncodingException e) {
-			//encoding utf-8 should be ok
-		} catch (Exception e) {
-			throw new OLATRuntimeException(this.getClass(), "error while rendering wiki page with content:"+ wikiComp.getWikiContent(), e);
-		}
-		if(parsedDoc != null) {
-			// Use global js math formatter for latex formulas
-			String content = parsedDoc.getContent();
 			
 			boolean xssScan = CoreSpringFactory.getImpl(WikiModule.class).isXSScanEnabled();
-			if(xssScan) {
-				content = FilterFactory.getXSSFilterForWiki(-1).filter(content);
+			String wikiContent = wikiComp.getWikiContent();
+			if(wikiContent == null || wikiComp.getOres() == null || wikiContent.contains(LINK_BASE_PLACEHOLDER)) {
+				content = renderHtml(wikiComp, wikiContent, uri, iframePostEnabled, xssScan);
+			} else {
+				String context = iframePostEnabled + ":" + xssScan + ":" + wikiComp.getImageBaseUri();
+				content = WikiManager.getInstance().getOrRenderPage(wikiComp.getOres(), context, wikiContent,
+						markup -> renderHtml(wikiComp, markup, LINK_BASE_PLACEHOLDER, iframePostEnabled, xssScan));
+				if(content != null) {
+					content = content.replace(LINK_BASE_PLACEHOLDER, uri);
+				}
 			}
-			sb.append(Formatter.formatLatexFormulas(content));
+		} catch (UnsupportedEncodingException e) {
+			//encoding utf-8 should be ok
+		}
+		if(content != null) {
+			sb.append(content);
 		}
 		
 		sb.append("</div>");
@@ -119,4 +112,40 @@ public class WikiMarkupRenderer extends DefaultComponentRenderer {
 		  .append("changeAnchorTargets('").append(uniqueId).append("','").append(Settings.getServerContextPathURI()).append("');")
 		  .append("/* ]]> */</script>");
 	}
+	
+	private String renderHtml(WikiMarkupComponent wikiComp, String wikiContent, String virtualWiki, boolean iframePostEnabled, boolean xssScan) {
+		ParserInput input = new ParserInput();
+		input.setWikiUser(null);
+		input.setAllowSectionEdit(false);
+		input.setDepth(10);
+		input.setContext(Settings.createServerURI());
+		input.setLocale(new Locale("en"));
+		input.setTopicName("dummy");
+		input.setUserIpAddress("0.0.0.0");
+		OlatWikiDataHandler dataHandler = new OlatWikiDataHandler(wikiComp.getOres(), wikiComp.getImageBaseUri());
+		input.setDataHandler(dataHandler);
+		input.setVirtualWiki(virtualWiki);
+		if (iframePostEnabled) {
+			String targetUrl = " onclick=\"o_XHRWikiEvent(this);return(false);\"";
+			input.setURLTarget(targetUrl);
+		}
+		
+		ParserDocument parsedDoc;
+		try {
+			JFlexParser parser = new JFlexParser(input);
+			parsedDoc = parser.parseHTML(wikiContent);
+		} catch (Exception e) {
+			throw new OLATRuntimeException(this.getClass(), "error while rendering wiki page with content:"+ wikiContent, e);
+		}
+		if(parsedDoc == null) {
+			return null;
+		}
+
+		// Use global js math formatter for latex formulas
+		String content = parsedDoc.getContent();
+		if(xssScan) {
+			content = FilterFactory.getXSSFilterForWiki(-1).filter(content);
+		}
+		return Formatter.formatLatexFormulas(content);
+	}
 }
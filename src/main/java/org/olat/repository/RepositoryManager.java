@@ -79,6 +79,7 @@ import org.olat.fileresource.FileResourceManager;
 import org.olat.group.GroupLoggingAction;
 import org.olat.modules.taxonomy.TaxonomyLevel;
 import org.olat.repository.manager.RepositoryEntryDAO;
+import org.olat.repository.manager.RepositoryEntryMyCourseAccessCache;
 import org.olat.repository.manager.RepositoryEntryQueries;
 import org.olat.repository.manager.RepositoryEntryRelationDAO;
 import org.olat.repository.manager.RepositoryEntryToOrganisationDAO;
@@ -129,6 +130,8 @@ public class RepositoryManager {
 	@Autowired
 	private RepositoryEntryRelationDAO repositoryEntryRelationDao;
 	@Autowired
+	private RepositoryEntryMyCourseAccessCache myCourseAccessCache;
+	@Autowired
 	private RepositoryEntryToOrganisationDAO repositoryEntryToOrganisationDao;
 	@Autowired
 	private RepositoryEntryToTaxonomyLevelDAO repositoryEntryToTaxonomyLevelDAO;
@@ -650,6 +653,7 @@ public class RepositoryManager {
 		reloadedRe.setGuests(guests);
 		reloadedRe.setLastModified(new Date());
 		RepositoryEntry updatedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
+		myCourseAccessCache.invalidateEntry(updatedRe);
 		dbInstance.commit();
 		lifeIndexer.indexDocument(RepositoryEntryDocument.TYPE, updatedRe.getKey());
 		return updatedRe;
@@ -728,6 +732,7 @@ public class RepositoryManager {
 		}
 		
 		RepositoryEntry updatedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
+		myCourseAccessCache.invalidateEntry(updatedRe);
 		dbInstance.commit();
 		lifeIndexer.indexDocument(RepositoryEntryDocument.TYPE, updatedRe.getKey());
 		return updatedRe;
@@ -749,6 +754,7 @@ public class RepositoryManager {
 		reloadedRe.setCanReference(canReference);
 		reloadedRe.setCanDownload(canDownload);
 		RepositoryEntry updatedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
+		myCourseAccessCache.invalidateEntry(updatedRe);
 		//fetch the values
 		updatedRe.getStatistics().getLaunchCounter();
 		if(updatedRe.getLifecycle() != null) {
@@ -769,6 +775,7 @@ public class RepositoryManager {
 		reloadedRe.setLastModified(new Date());
 		//properties
 		RepositoryEntry updatedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
+		myCourseAccessCache.invalidateEntry(updatedRe);
 		//fetch the values
 		updatedRe.getStatistics().getLaunchCounter();
 		if(updatedRe.getLifecycle() != null) {
@@ -0,0 +1,633 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.repository.manager;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.olat.basesecurity.Group;
+import org.olat.basesecurity.GroupMembershipListener;
+import org.olat.basesecurity.GroupRoles;
+import org.olat.basesecurity.IdentityRef;
+import org.olat.basesecurity.OrganisationRoles;
+import org.olat.basesecurity.manager.GroupDAO;
+import org.olat.core.commons.persistence.AfterCommitBatch;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.StringHelper;
+import org.olat.core.util.cache.CacheWrapper;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.resource.OresHelper;
+import org.olat.repository.RepositoryEntryRef;
+import org.olat.repository.RepositoryEntryStatusEnum;
+import org.olat.repository.model.MyCourseAccessChangedEvent;
+import org.olat.repository.model.SearchMyRepositoryEntryViewParams;
+import org.olat.repository.model.SearchMyRepositoryEntryViewParams.Filter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * The materialized view of the repository entries accessible in "My courses".
+ * The view of an identity is calculated in memory from three local caches
+ * which are maintained incrementally:
+ * <ul>
+ * 	<li>the memberships of the identity: the groups and the roles</li>
+ * 	<li>the relations of the groups to the repository entries</li>
+ * 	<li>the status, the access and the type of the repository entries</li>
+ * </ul>
+ * A change of a membership only invalidates the memberships of the identity,
+ * a change of the relations of a group only the relations of the group and
+ * a change of the status or access of a repository entry only the entry.
+ * <p>
+ * The changes are invalidated after the commit of the transaction, with
+ * a single event sent to the whole cluster per transaction. The memberships
+ * are notified by the {@link GroupDAO}. A value is not cached if its load
+ * started before the last invalidation of its key, or if the transaction
+ * of the current thread changed it and is not committed yet.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+@Service
+public class RepositoryEntryMyCourseAccessCache implements GenericEventListener, GroupMembershipListener, InitializingBean {
+	
+	public static final OLATResourceable ACCESS_EVENT_CHANNEL = OresHelper.createOLATResourceableType("MyCourseAccess");
+	
+	private static final int BATCH_SIZE = 1000;
+	/** the invalidations are kept longer than a load of the values can take **/
+	private static final long MAX_LOAD_DURATION = 60000l;
+	
+	private static final int OWNER = 1;
+	private static final int COACH = 2;
+	private static final int PARTICIPANT = 4;
+	private static final int MEMBER = 8;
+	
+	private static final Set<RepositoryEntryStatusEnum> PREPARATION_TO_CLOSED = toSet(RepositoryEntryStatusEnum.preparationToClosed());
+	private static final Set<RepositoryEntryStatusEnum> PREPARATION_TO_PUBLISHED = toSet(RepositoryEntryStatusEnum.preparationToPublished());
+	private static final Set<RepositoryEntryStatusEnum> COACH_PUBLISHED_TO_CLOSED = toSet(RepositoryEntryStatusEnum.coachPublishedToClosed());
+	private static final Set<RepositoryEntryStatusEnum> PUBLISHED_AND_CLOSED = toSet(RepositoryEntryStatusEnum.publishedAndClosed());
+	
+	@Value("${repository.mycourses.cache.enabled:true}")
+	private boolean enabled;
+	@Value("${repository.mycourses.cache.check:false}")
+	private boolean consistencyCheck;
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private GroupDAO groupDao;
+	@Autowired
+	private CoordinatorManager coordinatorManager;
+	
+	private CacheWrapper<Long,Memberships> membershipsCache;
+	private CacheWrapper<Long,long[]> relationsCache;
+	private CacheWrapper<Long,EntryAccess> entriesCache;
+	
+	private final Invalidations identityInvalidations = new Invalidations();
+	private final Invalidations groupInvalidations = new Invalidations();
+	private final Invalidations entryInvalidations = new Invalidations();
+	private AfterCommitBatch<PendingInvalidations> pendingInvalidations;
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		membershipsCache = coordinatorManager.getCoordinator().getCacher().getCache("MyCourseAccess", "memberships");
+		relationsCache = coordinatorManager.getCoordinator().getCacher().getCache("MyCourseAccess", "relations");
+		entriesCache = coordinatorManager.getCoordinator().getCacher().getCache("MyCourseAccess", "entries");
+		coordinatorManager.getCoordinator().getEventBus().registerFor(this, null, ACCESS_EVENT_CHANNEL);
+		pendingInvalidations = new AfterCommitBatch<>(dbInstance, PendingInvalidations::new,
+				pending -> invalidate(pending.getIdentityKeys(), pending.getGroupKeys(), pending.getEntryKeys()));
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * @return true if every search served by the view must be compared to the query
+	 */
+	public boolean isConsistencyCheck() {
+		return consistencyCheck;
+	}
+	
+	/**
+	 * The view knows the memberships, the status, the access and the type of
+	 * the repository entries. The searches with other criteria (text, marks,
+	 * life cycle, efficiency statements...) are not served by the view.
+	 * 
+	 * @param params The search parameters
+	 * @return true if the accessible entries can be calculated by the view
+	 */
+	public boolean canServe(SearchMyRepositoryEntryViewParams params) {
+		if(!enabled || params.getIdentity() == null || params.getRoles() == null
+				|| params.getRoles().isGuestOnly()) {
+			return false;
+		}
+		return (params.getMarked() == null || !params.getMarked().booleanValue())
+				&& (params.getCurriculums() == null || params.getCurriculums().isEmpty())
+				&& params.getParentEntry() == null
+				&& !params.isLifecycleFilterDefined()
+				&& !params.isPassedFiltered()
+				&& !StringHelper.containsNonWhitespace(params.getAuthor())
+				&& !StringHelper.containsNonWhitespace(params.getText())
+				&& !StringHelper.containsNonWhitespace(params.getIdAndRefs())
+				&& !StringHelper.containsNonWhitespace(params.getIdRefsAndTitle());
+	}
+	
+	/**
+	 * The rules are the same as the one of the query in {@link RepositoryEntryMyCourseQueries}.
+	 * 
+	 * @param params The search parameters, they must be supported by the view
+	 * @return The keys of the accessible repository entries, sorted
+	 */
+	public List<Long> getAccessibleEntryKeys(SearchMyRepositoryEntryViewParams params) {
+		Set<GroupRoles> inRoles = EnumSet.noneOf(GroupRoles.class);
+		if(params.getFilters() != null) {
+			for(Filter filter:params.getFilters()) {
+				if(Filter.asAuthor.equals(filter)) {
+					inRoles.add(GroupRoles.owner);
+				} else if(Filter.asCoach.equals(filter)) {
+					inRoles.add(GroupRoles.coach);
+				} else if (Filter.asParticipant.equals(filter)) {
+					inRoles.add(GroupRoles.participant);
+				}
+			}
+		}
+		boolean openAccess = inRoles.isEmpty() && !params.isMembershipMandatory();
+		if(inRoles.isEmpty()) {
+			inRoles.add(GroupRoles.owner);
+			inRoles.add(GroupRoles.coach);
+			inRoles.add(GroupRoles.participant);
+		}
+		
+		Map<Long,Integer> entryToRoles = getEntryToRoles(params.getIdentity());
+		Map<Long,EntryAccess> entries = getEntries(entryToRoles.keySet());
+		Set<String> resourceTypes = params.isResourceTypesDefined() ? new HashSet<>(params.getResourceTypes()) : null;
+		
+		List<Long> entryKeys = new ArrayList<>();
+		for(Map.Entry<Long,Integer> entryToRole:entryToRoles.entrySet()) {
+			EntryAccess entry = entries.get(entryToRole.getKey());
+			if(entry != null && entry.getStatus() != null
+					&& (resourceTypes == null || resourceTypes.contains(entry.getResourceType()))
+					&& isClosedAccepted(entry.getStatus(), params.getClosed())
+					&& hasAccess(entry, entryToRole.getValue().intValue(), inRoles, openAccess)) {
+				entryKeys.add(entryToRole.getKey());
+			}
+		}
+		Collections.sort(entryKeys);
+		return entryKeys;
+	}
+	
+	private boolean isClosedAccepted(RepositoryEntryStatusEnum status, Boolean closed) {
+		if(closed == null) {
+			return true;
+		}
+		return closed.booleanValue() ? status == RepositoryEntryStatusEnum.closed : PREPARATION_TO_PUBLISHED.contains(status);
+	}
+	
+	private boolean hasAccess(EntryAccess entry, int roles, Set<GroupRoles> inRoles, boolean openAccess) {
+		RepositoryEntryStatusEnum status = entry.getStatus();
+		return ((roles & OWNER) != 0 && inRoles.contains(GroupRoles.owner) && PREPARATION_TO_CLOSED.contains(status))
+				|| ((roles & COACH) != 0 && inRoles.contains(GroupRoles.coach) && COACH_PUBLISHED_TO_CLOSED.contains(status))
+				|| ((roles & PARTICIPANT) != 0 && inRoles.contains(GroupRoles.participant) && PUBLISHED_AND_CLOSED.contains(status))
+				|| (openAccess && (roles & MEMBER) != 0 && entry.isOpen() && PUBLISHED_AND_CLOSED.contains(status));
+	}
+	
+	/**
+	 * @return A map with the keys of the repository entries related to the groups of
+	 * 		the identity and the roles of the identity in these groups
+	 */
+	private Map<Long,Integer> getEntryToRoles(IdentityRef identity) {
+		Memberships memberships = getMemberships(identity);
+		Map<Long,long[]> relations = getRelations(memberships.getGroupKeys());
+		
+		Map<Long,Integer> entryToRoles = new HashMap<>();
+		long[] groupKeys = memberships.getGroupKeys();
+		int[] groupRoles = memberships.getRoles();
+		for(int i=0; i<groupKeys.length; i++) {
+			long[] entryKeys = relations.get(Long.valueOf(groupKeys[i]));
+			if(entryKeys == null) continue;
+			
+			Integer roles = Integer.valueOf(groupRoles[i]);
+			for(long entryKey:entryKeys) {
+				entryToRoles.merge(Long.valueOf(entryKey), roles, (r1, r2) -> Integer.valueOf(r1.intValue() | r2.intValue()));
+			}
+		}
+		return entryToRoles;
+	}
+	
+	private Memberships getMemberships(IdentityRef identity) {
+		Long identityKey = identity.getKey();
+		Memberships memberships = membershipsCache.get(identityKey);
+		if(memberships == null) {
+			long start = System.currentTimeMillis();
+			memberships = loadMemberships(identityKey);
+			if(identityInvalidations.isStable(identityKey, start) && !groupDao.hasPendingMembershipChanges(identity)) {
+				membershipsCache.put(identityKey, memberships);
+				if(!identityInvalidations.isStable(identityKey, start)) {
+					membershipsCache.remove(identityKey);
+				}
+			}
+		}
+		return memberships;
+	}
+	
+	private Memberships loadMemberships(Long identityKey) {
+		String query = "select membership.group.key, membership.role from bgroupmember as membership where membership.identity.key=:identityKey";
+		List<Object[]> rawMemberships = dbInstance.getCurrentEntityManager()
+				.createQuery(query, Object[].class)
+				.setParameter("identityKey", identityKey)
+				.getResultList();
+		
+		Map<Long,Integer> groupToRoles = new HashMap<>();
+		for(Object[] rawMembership:rawMemberships) {
+			Long groupKey = (Long)rawMembership[0];
+			int roles = toRoles((String)rawMembership[1]);
+			groupToRoles.merge(groupKey, Integer.valueOf(roles), (r1, r2) -> Integer.valueOf(r1.intValue() | r2.intValue()));
+		}
+		
+		long[] groupKeys = new long[groupToRoles.size()];
+		int[] roles = new int[groupToRoles.size()];
+		int count = 0;
+		for(Map.Entry<Long,Integer> groupToRole:groupToRoles.entrySet()) {
+			groupKeys[count] = groupToRole.getKey().longValue();
+			roles[count++] = groupToRole.getValue().intValue();
+		}
+		return new Memberships(groupKeys, roles);
+	}
+	
+	private int toRoles(String role) {
+		if(OrganisationRoles.guest.name().equals(role) || GroupRoles.invitee.name().equals(role)
+				|| GroupRoles.waiting.name().equals(role)) {
+			return 0;
+		}
+		
+		int roles = MEMBER;
+		if(GroupRoles.owner.name().equals(role)) {
+			roles |= OWNER;
+		} else if(GroupRoles.coach.name().equals(role)) {
+			roles |= COACH;
+		} else if(GroupRoles.participant.name().equals(role)) {
+			roles |= PARTICIPANT;
+		}
+		return roles;
+	}
+	
+	private Map<Long,long[]> getRelations(long[] groupKeys) {
+		Map<Long,long[]> relations = new HashMap<>();
+		List<Long> groupKeysToLoad = new ArrayList<>();
+		for(long groupKey:groupKeys) {
+			Long key = Long.valueOf(groupKey);
+			long[] entryKeys = relationsCache.get(key);
+			if(entryKeys == null) {
+				groupKeysToLoad.add(key);
+			} else {
+				relations.put(key, entryKeys);
+			}
+		}
+		
+		PendingInvalidations pending = pendingInvalidations.getPending();
+		for(int i=0; i<groupKeysToLoad.size(); i+=BATCH_SIZE) {
+			long start = System.currentTimeMillis();
+			List<Long> batchKeys = groupKeysToLoad.subList(i, Math.min(i + BATCH_SIZE, groupKeysToLoad.size()));
+			Map<Long,long[]> loadedRelations = loadRelations(batchKeys);
+			for(Map.Entry<Long,long[]> loadedRelation:loadedRelations.entrySet()) {
+				Long groupKey = loadedRelation.getKey();
+				if(groupInvalidations.isStable(groupKey, start)
+						&& (pending == null || !pending.getGroupKeys().contains(groupKey))) {
+					relationsCache.put(groupKey, loadedRelation.getValue());
+					if(!groupInvalidations.isStable(groupKey, start)) {
+						relationsCache.remove(groupKey);
+					}
+				}
+			}
+			relations.putAll(loadedRelations);
+		}
+		return relations;
+	}
+	
+	/**
+	 * @return A map with an entry for every group, with an empty array
+	 * 		if the group is not related to a repository entry
+	 */
+	private Map<Long,long[]> loadRelations(List<Long> groupKeys) {
+		String query = "select rel.group.key, rel.entry.key from repoentrytogroup as rel where rel.group.key in (:groupKeys)";
+		List<Object[]> rawRelations = dbInstance.getCurrentEntityManager()
+				.createQuery(query, Object[].class)
+				.setParameter("groupKeys", groupKeys)
+				.getResultList();
+		
+		Map<Long,List<Long>> groupToEntries = new HashMap<>();
+		for(Object[] rawRelation:rawRelations) {
+			groupToEntries.computeIfAbsent((Long)rawRelation[0], key -> new ArrayList<>())
+				.add((Long)rawRelation[1]);
+		}
+		
+		Map<Long,long[]> relations = new HashMap<>();
+		for(Long groupKey:groupKeys) {
+			List<Long> entryKeys = groupToEntries.get(groupKey);
+			if(entryKeys == null) {
+				relations.put(groupKey, new long[0]);
+			} else {
+				relations.put(groupKey, entryKeys.stream().mapToLong(Long::longValue).toArray());
+			}
+		}
+		return relations;
+	}
+	
+	private Map<Long,EntryAccess> getEntries(Collection<Long> entryKeys) {
+		Map<Long,EntryAccess> entries = new HashMap<>();
+		List<Long> entryKeysToLoad = new ArrayList<>();
+		for(Long entryKey:entryKeys) {
+			EntryAccess entry = entriesCache.get(entryKey);
+			if(entry == null) {
+				entryKeysToLoad.add(entryKey);
+			} else {
+				entries.put(entryKey, entry);
+			}
+		}
+
+		PendingInvalidations pending = pendingInvalidations.getPending();
+		for(int i=0; i<entryKeysToLoad.size(); i+=BATCH_SIZE) {
+			long start = System.currentTimeMillis();
+			List<Long> batchKeys = entryKeysToLoad.subList(i, Math.min(i + BATCH_SIZE, entryKeysToLoad.size()));
+			Map<Long,EntryAccess> loadedEntries = loadEntries(batchKeys);
+			for(Map.Entry<Long,EntryAccess> loadedEntry:loadedEntries.entrySet()) {
+				Long entryKey = loadedEntry.getKey();
+				if(entryInvalidations.isStable(entryKey, start)
+						&& (pending == null || !pending.getEntryKeys().contains(entryKey))) {
+					entriesCache.put(entryKey, loadedEntry.getValue());
+					if(!entryInvalidations.isStable(entryKey, start)) {
+						entriesCache.remove(entryKey);
+					}
+				}
+			}
+			entries.putAll(loadedEntries);
+		}
+		return entries;
+	}
+	
+	/**
+	 * @return A map with an entry for every key, the deleted repository entries
+	 * 		have no status
+	 */
+	private Map<Long,EntryAccess> loadEntries(List<Long> entryKeys) {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("select v.key, v.status, v.allUsers, v.bookable, res.resName from repositoryentry as v")
+		  .append(" inner join v.olatResource as res")
+		  .append(" where v.key in (:entryKeys)");
+		List<Object[]> rawEntries = dbInstance.getCurrentEntityManager()
+				.createQuery(sb.toString(), Object[].class)
+				.setParameter("entryKeys", entryKeys)
+				.getResultList();
+		
+		Map<Long,EntryAccess> entries = new HashMap<>();
+		for(Object[] rawEntry:rawEntries) {
+			String status = (String)rawEntry[1];
+			boolean open = Boolean.TRUE.equals(rawEntry[2]) || Boolean.TRUE.equals(rawEntry[3]);
+			RepositoryEntryStatusEnum entryStatus = RepositoryEntryStatusEnum.isValid(status)
+					? RepositoryEntryStatusEnum.valueOf(status) : null;
+			entries.put((Long)rawEntry[0], new EntryAccess(entryStatus, open, (String)rawEntry[4]));
+		}
+		for(Long entryKey:entryKeys) {
+			if(!entries.containsKey(entryKey)) {
+				entries.put(entryKey, new EntryAccess(null, false, null));
+			}
+		}
+		return entries;
+	}
+	
+	/**
+	 * The memberships of the identities have changed, the transaction
+	 * is already committed.
+	 */
+	@Override
+	public void membershipsChanged(Collection<Long> identityKeys) {
+		invalidate(identityKeys, null, null);
+	}
+	
+	/**
+	 * The relations of the group to the repository entries have changed.
+	 * The group is invalidated after the commit of the current transaction.
+	 * 
+	 * @param group The group
+	 */
+	public void invalidateGroup(Group group) {
+		if(group == null || group.getKey() == null) return;
+		pendingInvalidations.add(pending -> pending.getGroupKeys().add(group.getKey()));
+	}
+	
+	/**
+	 * The status or the access of the repository entry have changed. The
+	 * entry is invalidated after the commit of the current transaction.
+	 * 
+	 * @param entry The repository entry
+	 */
+	public void invalidateEntry(RepositoryEntryRef entry) {
+		if(entry == null || entry.getKey() == null) return;
+		pendingInvalidations.add(pending -> pending.getEntryKeys().add(entry.getKey()));
+	}
+	
+	private void invalidate(Collection<Long> identityKeys, Collection<Long> groupKeys, Collection<Long> entryKeys) {
+		removeLocally(identityKeys, groupKeys, entryKeys);
+		MyCourseAccessChangedEvent event = new MyCourseAccessChangedEvent(identityKeys, groupKeys, entryKeys);
+		coordinatorManager.getCoordinator().getEventBus().fireEventToListenersOf(event, ACCESS_EVENT_CHANNEL);
+	}
+	
+	/**
+	 * Remove the memberships of the identity, the relations of its groups and
+	 * the specified repository entries in the whole cluster, after the commit
+	 * of the current transaction. It's used to repair the view of an identity
+	 * which doesn't match the query.
+	 * 
+	 * @param identity The identity
+	 * @param entryKeys The keys of the repository entries
+	 */
+	public void evict(IdentityRef identity, Collection<Long> entryKeys) {
+		List<Long> groupKeys = new ArrayList<>();
+		Memberships memberships = membershipsCache.get(identity.getKey());
+		if(memberships != null) {
+			for(long groupKey:memberships.getGroupKeys()) {
+				groupKeys.add(Long.valueOf(groupKey));
+			}
+		}
+		pendingInvalidations.add(pending -> {
+			pending.getIdentityKeys().add(identity.getKey());
+			pending.getGroupKeys().addAll(groupKeys);
+			if(entryKeys != null) {
+				pending.getEntryKeys().addAll(entryKeys);
+			}
+		});
+	}
+
+	@Override
+	public void event(Event event) {
+		if(event instanceof MyCourseAccessChangedEvent) {
+			MyCourseAccessChangedEvent mace = (MyCourseAccessChangedEvent)event;
+			removeLocally(mace.getIdentityKeys(), mace.getGroupKeys(), mace.getEntryKeys());
+		}
+	}
+	
+	private void removeLocally(Collection<Long> identityKeys, Collection<Long> groupKeys, Collection<Long> entryKeys) {
+		long now = System.currentTimeMillis();
+		if(identityKeys != null) {
+			for(Long identityKey:identityKeys) {
+				identityInvalidations.invalidate(identityKey, now);
+				membershipsCache.remove(identityKey);
+			}
+		}
+		if(groupKeys != null) {
+			for(Long groupKey:groupKeys) {
+				groupInvalidations.invalidate(groupKey, now);
+				relationsCache.remove(groupKey);
+			}
+		}
+		if(entryKeys != null) {
+			for(Long entryKey:entryKeys) {
+				entryInvalidations.invalidate(entryKey, now);
+				entriesCache.remove(entryKey);
+			}
+		}
+	}
+	
+	private static Set<RepositoryEntryStatusEnum> toSet(RepositoryEntryStatusEnum[] status) {
+		return EnumSet.copyOf(Arrays.asList(status));
+	}
+	
+	/**
+	 * The time of the last invalidations of the keys. They are kept at least
+	 * the maximum duration of a load.
+	 */
+	private static class Invalidations {
+		
+		private static final int MAX_SIZE = 1000;
+		
+		private final ConcurrentMap<Long,Long> times = new ConcurrentHashMap<>();
+		
+		public void invalidate(Long key, long now) {
+			times.put(key, Long.valueOf(now));
+			if(times.size() > MAX_SIZE) {
+				times.values().removeIf(time -> time.longValue() + MAX_LOAD_DURATION < now);
+			}
+		}
+		
+		/**
+		 * @param key The key
+		 * @param loadStart The time the value was begin to be loaded
+		 * @return true if the value was loaded after the last invalidation of its key
+		 */
+		public boolean isStable(Long key, long loadStart) {
+			Long time = times.get(key);
+			return time == null || time.longValue() < loadStart;
+		}
+	}
+	
+	/**
+	 * The invalidations of the transaction of the current thread, they are
+	 * sent after the commit.
+	 */
+	private static class PendingInvalidations {
+		
+		private final Set<Long> identityKeys = new HashSet<>();
+		private final Set<Long> groupKeys = new HashSet<>();
+		private final Set<Long> entryKeys = new HashSet<>();
+
+		public Set<Long> getIdentityKeys() {
+			return identityKeys;
+		}
+
+		public Set<Long> getGroupKeys() {
+			return groupKeys;
+		}
+
+		public Set<Long> getEntryKeys() {
+			return entryKeys;
+		}
+	}
+	
+	/**
+	 * The groups of an identity and the roles of the identity in these groups
+	 * (as a bit mask).
+	 */
+	private static final class Memberships implements Serializable {
+
+		private static final long serialVersionUID = -5327409584125368129L;
+		
+		private final long[] groupKeys;
+		private final int[] roles;
+		
+		public Memberships(long[] groupKeys, int[] roles) {
+			this.groupKeys = groupKeys;
+			this.roles = roles;
+		}
+
+		public long[] getGroupKeys() {
+			return groupKeys;
+		}
+
+		public int[] getRoles() {
+			return roles;
+		}
+	}
+	
+	private static final class EntryAccess implements Serializable {
+
+		private static final long serialVersionUID = 8103591578204823410L;
+		
+		private final RepositoryEntryStatusEnum status;
+		private final boolean open;
+		private final String resourceType;
+		
+		public EntryAccess(RepositoryEntryStatusEnum status, boolean open, String resourceType) {
+			this.status = status;
+			this.open = open;
+			this.resourceType = resourceType;
+		}
+
+		public RepositoryEntryStatusEnum getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return true if the entry is open to all users or bookable
+		 */
+		public boolean isOpen() {
+			return open;
+		}
+
+		public String getResourceType() {
+			return resourceType;
+		}
+	}
+}
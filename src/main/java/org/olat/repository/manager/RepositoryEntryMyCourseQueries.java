@@ -23,8 +23,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.persistence.FlushModeType;
@@ -77,12 +79,16 @@ public class RepositoryEntryMyCourseQueries {
 	
 	private static final OLog log = Tracing.createLoggerFor(RepositoryEntryMyCourseQueries.class);
 	
+	private static final int MAX_KEYS_PARAMETER = 1000;
+	
 	@Autowired
 	private DB dbInstance;
 	@Autowired
 	private RepositoryModule repositoryModule;
 	@Autowired
 	private EfficiencyStatementManager efficiencyStatementManager;
+	@Autowired
+	private RepositoryEntryMyCourseAccessCache myCourseAccessCache;
 	
 	public int countViews(SearchMyRepositoryEntryViewParams params) {
 		if(params.getIdentity() == null) {
@@ -90,6 +96,10 @@ public class RepositoryEntryMyCourseQueries {
 			return 0;
 		}
 		
+		if(myCourseAccessCache.canServe(params)) {
+			return getAccessibleEntryKeys(params).size();
+		}
+		
 		TypedQuery<Number> query = createMyViewQuery(params, Number.class);
 		Number count = query
 				.setFlushMode(FlushModeType.COMMIT)
@@ -102,6 +112,15 @@ public class RepositoryEntryMyCourseQueries {
 			log.error("No identity defined for query");
 			return Collections.emptyList();
 		}
+		
+		if(myCourseAccessCache.canServe(params)) {
+			List<Long> entryKeys = getAccessibleEntryKeys(params);
+			if(firstResult >= entryKeys.size()) {
+				return Collections.emptyList();
+			}
+			List<Long> pageKeys = searchViewKeys(params, entryKeys, firstResult, maxResults);
+			return loadViews(params, pageKeys);
+		}
 
 		TypedQuery<Object[]> query = createMyViewQuery(params, Object[].class);
 		query.setFlushMode(FlushModeType.COMMIT)
@@ -109,7 +128,144 @@ public class RepositoryEntryMyCourseQueries {
 		if(maxResults > 0) {
 			query.setMaxResults(maxResults);
 		}
-
+		return toViews(params, query.getResultList());
+	}
+	
+	private List<Long> getAccessibleEntryKeys(SearchMyRepositoryEntryViewParams params) {
+		List<Long> entryKeys = myCourseAccessCache.getAccessibleEntryKeys(params);
+		if(myCourseAccessCache.isConsistencyCheck()) {
+			checkConsistency(params, entryKeys);
+		}
+		return entryKeys;
+	}
+	
+	/**
+	 * Search the keys of the entries of the page. The entries accessible to the
+	 * identity are already known, the query only filters and sorts them.
+	 * 
+	 * @param params The search parameters
+	 * @param entryKeys The keys of the accessible entries, sorted
+	 * @param firstResult The first result
+	 * @param maxResults The maximum number of results or -1 for all
+	 * @return The keys of the page
+	 */
+	private List<Long> searchViewKeys(SearchMyRepositoryEntryViewParams params, List<Long> entryKeys,
+			int firstResult, int maxResults) {
+		int lastResult = maxResults > 0 ? Math.min(entryKeys.size(), firstResult + maxResults) : entryKeys.size();
+		if(params.getOrderBy() == OrderBy.key) {
+			List<Long> orderedKeys = new ArrayList<>(entryKeys);
+			if(!params.isOrderByAsc()) {
+				Collections.reverse(orderedKeys);
+			}
+			return orderedKeys.subList(firstResult, lastResult);
+		}
+		
+		// too many keys for a parameter, the query checks the access
+		List<Long> accessibleKeys = entryKeys.size() <= MAX_KEYS_PARAMETER ? entryKeys : null;
+		List<Long> pageKeys;
+		if(hasOrderByInSelect(params)) {
+			TypedQuery<Object[]> query = createMyViewQuery(params, accessibleKeys, Projection.orderedKeys, Object[].class);
+			List<Object[]> rawKeys = query
+					.setFlushMode(FlushModeType.COMMIT)
+					.setFirstResult(firstResult)
+					.setMaxResults(lastResult - firstResult)
+					.getResultList();
+			pageKeys = new ArrayList<>(rawKeys.size());
+			for(Object[] rawKey:rawKeys) {
+				pageKeys.add((Long)rawKey[0]);
+			}
+		} else {
+			TypedQuery<Long> query = createMyViewQuery(params, accessibleKeys, Projection.orderedKeys, Long.class);
+			pageKeys = query
+					.setFlushMode(FlushModeType.COMMIT)
+					.setFirstResult(firstResult)
+					.setMaxResults(lastResult - firstResult)
+					.getResultList();
+		}
+		return pageKeys;
+	}
+	
+	/**
+	 * Load the views of the entries with the marks, the offers, the rating
+	 * and the efficiency statements of the identity.
+	 * 
+	 * @param params The search parameters
+	 * @param entryKeys The keys of the entries
+	 * @return The views in the same order as the keys
+	 */
+	private List<RepositoryEntryMyView> loadViews(SearchMyRepositoryEntryViewParams params, List<Long> entryKeys) {
+		if(entryKeys.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		boolean oracle = "oracle".equals(dbInstance.getDbVendor());
+		QueryBuilder sb = new QueryBuilder(2048);
+		appendViewSelect(params, sb);
+		appendViewFrom(sb, oracle);
+		sb.append(" where v.key in (:entryKeys)");
+		
+		Map<Long,RepositoryEntryMyView> keyToViews = new HashMap<>();
+		for(int i=0; i<entryKeys.size(); i+=MAX_KEYS_PARAMETER) {
+			List<Long> batchKeys = entryKeys.subList(i, Math.min(i + MAX_KEYS_PARAMETER, entryKeys.size()));
+			List<Object[]> objects = dbInstance.getCurrentEntityManager()
+					.createQuery(sb.toString(), Object[].class)
+					.setParameter("entryKeys", batchKeys)
+					.setParameter("identityKey", params.getIdentity().getKey())
+					.setFlushMode(FlushModeType.COMMIT)
+					.getResultList();
+			for(RepositoryEntryMyView view:toViews(params, objects)) {
+				keyToViews.put(view.getKey(), view);
+			}
+		}
+		
+		List<RepositoryEntryMyView> views = new ArrayList<>(entryKeys.size());
+		for(Long entryKey:entryKeys) {
+			RepositoryEntryMyView view = keyToViews.get(entryKey);
+			if(view != null) {
+				views.add(view);
+			}
+		}
+		return views;
+	}
+	
+	/**
+	 * Compare the entries calculated by the view {@link RepositoryEntryMyCourseAccessCache}
+	 * with the entries found by the query. If they differ, the view of the identity
+	 * is invalidated.
+	 * 
+	 * @param params The search parameters
+	 * @return true if the view is consistent with the query or if the search is not
+	 * 		served by the view
+	 */
+	public boolean checkConsistency(SearchMyRepositoryEntryViewParams params) {
+		if(!myCourseAccessCache.canServe(params)) {
+			return true;
+		}
+		return checkConsistency(params, myCourseAccessCache.getAccessibleEntryKeys(params));
+	}
+	
+	private boolean checkConsistency(SearchMyRepositoryEntryViewParams params, List<Long> viewKeys) {
+		List<Long> queryKeys = createMyViewQuery(params, null, Projection.keys, Long.class)
+				.setFlushMode(FlushModeType.COMMIT)
+				.getResultList();
+		
+		Set<Long> missingKeys = new HashSet<>(queryKeys);
+		missingKeys.removeAll(viewKeys);
+		Set<Long> unexpectedKeys = new HashSet<>(viewKeys);
+		unexpectedKeys.removeAll(queryKeys);
+		if(missingKeys.isEmpty() && unexpectedKeys.isEmpty()) {
+			return true;
+		}
+		
+		log.warn("My courses of identity " + params.getIdentity().getKey() + " don't match the query, missing: "
+				+ missingKeys + ", unexpected: " + unexpectedKeys);
+		Set<Long> differentKeys = new HashSet<>(missingKeys);
+		differentKeys.addAll(unexpectedKeys);
+		myCourseAccessCache.evict(params.getIdentity(), differentKeys);
+		return false;
+	}
+	
+	private List<RepositoryEntryMyView> toViews(SearchMyRepositoryEntryViewParams params, List<Object[]> objects) {
 		// we don't need statistics when rating and comments are disabled unless
 		// were searching for videos, there we want to see the launch counter
 		// from the statistics
@@ -117,7 +273,6 @@ public class RepositoryEntryMyCourseQueries {
 				(params.getResourceTypes() != null && params.getResourceTypes().contains(VideoFileResource.TYPE_NAME));
 		
 		List<Long> effKeys = new ArrayList<>();
-		List<Object[]> objects = query.getResultList();
 		List<RepositoryEntryMyView> views = new ArrayList<>(objects.size());
 		Map<OLATResource,RepositoryEntryMyCourseImpl> viewsMap = new HashMap<>();
 		for(Object[] object:objects) {
@@ -158,54 +313,50 @@ public class RepositoryEntryMyCourseQueries {
 
 	protected <T> TypedQuery<T> createMyViewQuery(SearchMyRepositoryEntryViewParams params,
 			Class<T> type) {
+		Projection projection = Number.class.equals(type) ? Projection.count : Projection.views;
+		return createMyViewQuery(params, null, projection, type);
+	}
+
+	/**
+	 * @param params The search parameters
+	 * @param accessibleKeys The keys of the entries accessible to the identity or null
+	 * 		to check the access in the query
+	 * @param projection What the query returns
+	 * @param type The type of the results
+	 * @return The query
+	 */
+	private <T> TypedQuery<T> createMyViewQuery(SearchMyRepositoryEntryViewParams params,
+			List<Long> accessibleKeys, Projection projection, Class<T> type) {
 
 		Roles roles = params.getRoles();
 		Identity identity = params.getIdentity();
 		List<String> resourceTypes = params.getResourceTypes();
 
 		boolean needIdentityKey = false;
-		boolean count = Number.class.equals(type);
 		boolean oracle = "oracle".equals(dbInstance.getDbVendor());
 		QueryBuilder sb = new QueryBuilder(2048);
 		
-		if(count) {
+		if(projection == Projection.count) {
 			sb.append("select count(v.key) ")
 			  .append(" from repositoryentry as v")
 			  .append(" inner join v.olatResource as res")
 			  .append(" left join v.lifecycle as lifecycle ");
-		} else {
-			sb.append("select v, ");
-			if(params.getMarked() != null && params.getMarked().booleanValue()) {
-				sb.append(" 1 as marks,");
-			} else {
-				needIdentityKey = true;
-				sb.append(" (select count(mark.key) from ").append(MarkImpl.class.getName()).append(" as mark ")
-				  .append("   where mark.creator.key=:identityKey and mark.resId=v.key and mark.resName='RepositoryEntry'")
-				  .append(" ) as marks,");
-			}
-			sb.append(" (select count(offer.key) from acoffer as offer ")
-			  .append("   where offer.resource=res and offer.valid=true")
-			  //TODO validity
-			  .append(" ) as offers, ");
-			if(repositoryModule.isRatingEnabled()) {
-				needIdentityKey = true;
-				sb.append(" (select rating.rating from userrating as rating")
-				  .append("   where rating.resId=v.key and rating.creator.key=:identityKey and rating.resName='RepositoryEntry'")
-				  .append(" ) as myrating");
-			} else {
-				sb.append(" 0 as myrating");
+		} else if(projection == Projection.keys || projection == Projection.orderedKeys) {
+			sb.append("select v.key");
+			if(projection == Projection.orderedKeys) {
+				if(params.getOrderBy() == OrderBy.automatic || params.getOrderBy() == OrderBy.favorit) {
+					sb.append(",");
+					needIdentityKey |= appendMarksInSelect(params, sb);
+				}
+				needIdentityKey |= appendOrderByInSelect(params, sb);
 			}
-			needIdentityKey = true;
-			sb.append(" ,(select eff.key from ").append(UserEfficiencyStatementImpl.class.getName()).append(" as eff")
-			  .append("    where eff.resource=res and eff.identity.key=:identityKey")
-			  .append(" ) as effKey");
-			needIdentityKey |= appendOrderByInSelect(params, sb);
 			sb.append(" from repositoryentry as v")
-			  .append(" inner join ").append(oracle ? "" : "fetch").append(" v.olatResource as res");
-			if(repositoryModule.isRatingEnabled() || repositoryModule.isCommentEnabled()) {
-				sb.append(" inner join fetch v.statistics as stats");
-			}
-			sb.append(" left join fetch v.lifecycle as lifecycle ");
+			  .append(" inner join v.olatResource as res")
+			  .append(" left join v.lifecycle as lifecycle ");
+		} else {
+			needIdentityKey |= appendViewSelect(params, sb);
+			needIdentityKey |= appendOrderByInSelect(params, sb);
+			appendViewFrom(sb, oracle);
 		}
 		//user course informations
 		//efficiency statements
@@ -216,7 +367,11 @@ public class RepositoryEntryMyCourseQueries {
 		}
 
 		sb.append(" where ");
-		needIdentityKey |= appendMyViewAccessSubSelect(sb, roles, params.getFilters(), params.isMembershipMandatory());
+		if(accessibleKeys == null) {
+			needIdentityKey |= appendMyViewAccessSubSelect(sb, roles, params.getFilters(), params.isMembershipMandatory());
+		} else {
+			sb.append(" v.key in (:accessibleKeys)");
+		}
 
 		if(params.getClosed() != null) {
 			if(params.getClosed().booleanValue()) {
@@ -320,12 +475,15 @@ public class RepositoryEntryMyCourseQueries {
 			sb.append(")");	
 		}
 		
-		if(!count) {
+		if(projection == Projection.orderedKeys || projection == Projection.views) {
 			appendOrderBy(params.getOrderBy(), params.isOrderByAsc(), sb);
 		}
 
 		TypedQuery<T> dbQuery = dbInstance.getCurrentEntityManager()
 				.createQuery(sb.toString(), type);
+		if(accessibleKeys != null) {
+			dbQuery.setParameter("accessibleKeys", accessibleKeys);
+		}
 		if(params.getParentEntry() != null) {
 			dbQuery.setParameter("parentCeiKey", params.getParentEntry().getKey());
 		}
@@ -371,6 +529,55 @@ public class RepositoryEntryMyCourseQueries {
 		return dbQuery;
 	}
 	
+	/**
+	 * Append the entry, the marks, the offers, the rating and the key of the
+	 * efficiency statement to the select part of the query.
+	 * 
+	 * @param params The search parameters
+	 * @param sb The query
+	 * @return true if the query needs the identity key
+	 */
+	private boolean appendViewSelect(SearchMyRepositoryEntryViewParams params, QueryBuilder sb) {
+		sb.append("select v, ");
+		appendMarksInSelect(params, sb);
+		sb.append(",")
+		  .append(" (select count(offer.key) from acoffer as offer ")
+		  .append("   where offer.resource=res and offer.valid=true")
+		  //TODO validity
+		  .append(" ) as offers, ");
+		if(repositoryModule.isRatingEnabled()) {
+			sb.append(" (select rating.rating from userrating as rating")
+			  .append("   where rating.resId=v.key and rating.creator.key=:identityKey and rating.resName='RepositoryEntry'")
+			  .append(" ) as myrating");
+		} else {
+			sb.append(" 0 as myrating");
+		}
+		sb.append(" ,(select eff.key from ").append(UserEfficiencyStatementImpl.class.getName()).append(" as eff")
+		  .append("    where eff.resource=res and eff.identity.key=:identityKey")
+		  .append(" ) as effKey");
+		return true;
+	}
+	
+	private boolean appendMarksInSelect(SearchMyRepositoryEntryViewParams params, QueryBuilder sb) {
+		if(params.getMarked() != null && params.getMarked().booleanValue()) {
+			sb.append(" 1 as marks");
+			return false;
+		}
+		sb.append(" (select count(mark.key) from ").append(MarkImpl.class.getName()).append(" as mark ")
+		  .append("   where mark.creator.key=:identityKey and mark.resId=v.key and mark.resName='RepositoryEntry'")
+		  .append(" ) as marks");
+		return true;
+	}
+	
+	private void appendViewFrom(QueryBuilder sb, boolean oracle) {
+		sb.append(" from repositoryentry as v")
+		  .append(" inner join ").append(oracle ? "" : "fetch").append(" v.olatResource as res");
+		if(repositoryModule.isRatingEnabled() || repositoryModule.isCommentEnabled()) {
+			sb.append(" inner join fetch v.statistics as stats");
+		}
+		sb.append(" left join fetch v.lifecycle as lifecycle ");
+	}
+	
 	private boolean appendMyViewAccessSubSelect(QueryBuilder sb, Roles roles, List<Filter> filters, boolean membershipMandatory) {
 		if(roles.isGuestOnly()) {
 			sb.append(" v.guests=true and v.status ").in(RepositoryEntryStatusEnum.publishedAndClosed());
@@ -470,6 +677,12 @@ public class RepositoryEntryMyCourseQueries {
 		return needIdentityKey;
 	}
 	
+	private boolean hasOrderByInSelect(SearchMyRepositoryEntryViewParams params) {
+		OrderBy orderBy = params.getOrderBy();
+		return orderBy == OrderBy.automatic || orderBy == OrderBy.favorit || orderBy == OrderBy.lastVisited
+				|| orderBy == OrderBy.passed || orderBy == OrderBy.score;
+	}
+	
 	/**
 	 * Append additional informations and values to the select part of the query
 	 * needed by the order by.
@@ -634,4 +847,13 @@ public class RepositoryEntryMyCourseQueries {
 		}
 		return sb;
 	}
-}
\ No newline at end of file
+	
+	private enum Projection {
+		count,
+		/** the keys of the entries without order **/
+		keys,
+		/** the keys of the entries sorted **/
+		orderedKeys,
+		views
+	}
+}
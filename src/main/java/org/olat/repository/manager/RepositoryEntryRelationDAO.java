@@ -66,6 +66,8 @@ public class RepositoryEntryRelationDAO {
 	private DB dbInstance;
 	@Autowired
 	private GroupDAO groupDao;
+	@Autowired
+	private RepositoryEntryMyCourseAccessCache myCourseAccessCache;
 	
 	/**
 	 * Get roles in the repository entry, with business groups and curriculums
@@ -553,6 +555,7 @@ public class RepositoryEntryRelationDAO {
 		rel.setGroup(group);
 		rel.setEntry(re);
 		dbInstance.getCurrentEntityManager().persist(rel);
+		myCourseAccessCache.invalidateGroup(group);
 		return rel;
 	}
 	
@@ -566,6 +569,7 @@ public class RepositoryEntryRelationDAO {
 		for(RepositoryEntryToGroupRelation rel:rels) {
 			em.remove(rel);
 		}
+		myCourseAccessCache.invalidateGroup(group);
 		return rels.size();
 	}
 	
@@ -583,6 +587,7 @@ public class RepositoryEntryRelationDAO {
 			.getResultList();
 		for(RepositoryEntryToGroupRelation rel:rels) {
 			em.remove(rel);
+			myCourseAccessCache.invalidateGroup(rel.getGroup());
 		}
 		return rels.size();
 	}
@@ -600,11 +605,13 @@ public class RepositoryEntryRelationDAO {
 				count++;
 			}
 		}
+		myCourseAccessCache.invalidateGroup(group);
 		return count;
 	}
 	
 	public void removeRelation(RepositoryEntryToGroupRelation rel) {
 		dbInstance.getCurrentEntityManager().remove(rel);
+		myCourseAccessCache.invalidateGroup(rel.getGroup());
 	}
 	
 	/**
@@ -132,6 +132,8 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 	@Autowired
 	private AutoAccessManager autoAccessManager;
 	@Autowired
+	private RepositoryEntryMyCourseAccessCache myCourseAccessCache;
+	@Autowired
 	private ReferenceManager referenceManager;
 	@Autowired
 	private RepositoryEntryDAO repositoryEntryDAO;
@@ -240,6 +242,7 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 			relOrg.setGroup(organisation.getGroup());
 			relOrg.setEntry(re);
 			rels.add(relOrg);
+			myCourseAccessCache.invalidateGroup(organisation.getGroup());
 		}
 
 		re.setGroups(rels);
@@ -330,6 +333,7 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 	public RepositoryEntry update(RepositoryEntry re) {
 		re.setLastModified(new Date());
 		RepositoryEntry mergedRe = dbInstance.getCurrentEntityManager().merge(re);
+		myCourseAccessCache.invalidateEntry(mergedRe);
 		dbInstance.commit();
 		lifeIndexer.indexDocument(RepositoryEntryDocument.TYPE, mergedRe.getKey());
 		autoAccessManager.grantAccess(re);
@@ -437,6 +441,7 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 			reloadedRe.setDeletionDate(new Date());
 		}
 		reloadedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
+		myCourseAccessCache.invalidateEntry(reloadedRe);
 		List<Identity> ownerList = reToGroupDao.getMembers(reloadedRe, RepositoryEntryRelationType.entryAndCurriculums, GroupRoles.owner.name());
 		dbInstance.commit();
 		// first stop assessment mode if needed
@@ -487,6 +492,7 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 			reloadedRe.setEntryStatus(RepositoryEntryStatusEnum.preparation);
 		}
 		reloadedRe = dbInstance.getCurrentEntityManager().merge(reloadedRe);
+		myCourseAccessCache.invalidateEntry(reloadedRe);
 		dbInstance.commit();
 		return reloadedRe;
 	}
@@ -601,6 +607,7 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 			reloadedEntry.setExternalId(null);
 			reloadedEntry.setEntryStatus(RepositoryEntryStatusEnum.deleted);
 			dbInstance.getCurrentEntityManager().merge(reloadedEntry);
+			myCourseAccessCache.invalidateEntry(reloadedEntry);
 		}
 		dbInstance.commit();
 	}
@@ -610,6 +617,7 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 		RepositoryEntry reloadedEntry = repositoryEntryDAO.loadForUpdate(entry);
 		reloadedEntry.setEntryStatus(RepositoryEntryStatusEnum.closed);
 		reloadedEntry = dbInstance.getCurrentEntityManager().merge(reloadedEntry);
+		myCourseAccessCache.invalidateEntry(reloadedEntry);
 		List<Identity> ownerList = reToGroupDao.getMembers(reloadedEntry, RepositoryEntryRelationType.entryAndCurriculums, GroupRoles.owner.name());
 		dbInstance.commit();
 		if(sendNotifications && closedBy != null) {
@@ -626,6 +634,7 @@ public class RepositoryServiceImpl implements RepositoryService, OrganisationDat
 		RepositoryEntry reloadedEntry = repositoryEntryDAO.loadForUpdate(entry);
 		reloadedEntry.setEntryStatus(RepositoryEntryStatusEnum.published);
 		reloadedEntry = dbInstance.getCurrentEntityManager().merge(reloadedEntry);
+		myCourseAccessCache.invalidateEntry(reloadedEntry);
 		dbInstance.commit();
 		return reloadedEntry;
 	}
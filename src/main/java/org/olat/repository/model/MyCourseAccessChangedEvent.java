@@ -0,0 +1,63 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.repository.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * The event is fired in the whole cluster to invalidate the caches used to
+ * calculate the entries of "My courses": the memberships of some identities,
+ * the relations of some groups to the repository entries and the status and
+ * access of some repository entries.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class MyCourseAccessChangedEvent extends MultiUserEvent {
+
+	private static final long serialVersionUID = 4906583625210950216L;
+	
+	private final ArrayList<Long> identityKeys;
+	private final ArrayList<Long> groupKeys;
+	private final ArrayList<Long> entryKeys;
+	
+	public MyCourseAccessChangedEvent(Collection<Long> identityKeys, Collection<Long> groupKeys, Collection<Long> entryKeys) {
+		super("mycourse-access-changed");
+		this.identityKeys = identityKeys == null ? new ArrayList<>(1) : new ArrayList<>(identityKeys);
+		this.groupKeys = groupKeys == null ? new ArrayList<>(1) : new ArrayList<>(groupKeys);
+		this.entryKeys = entryKeys == null ? new ArrayList<>(1) : new ArrayList<>(entryKeys);
+	}
+
+	public List<Long> getIdentityKeys() {
+		return identityKeys;
+	}
+
+	public List<Long> getGroupKeys() {
+		return groupKeys;
+	}
+
+	public List<Long> getEntryKeys() {
+		return entryKeys;
+	}
+}
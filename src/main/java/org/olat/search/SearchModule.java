@@ -101,6 +101,8 @@ public class SearchModule extends AbstractSpringModule {
 	private int searchTimeout;
 	@Value("${search.folder.pool.size:3}")
 	private int folderPoolSize;
+	@Value("${search.indexing.incremental:false}")
+	private boolean incrementalIndexing;
 	@Value("${restart.window.start}")
 	private int restartWindowStart;
 	@Value("${restart.window.end}")
@@ -312,6 +314,14 @@ public class SearchModule extends AbstractSpringModule {
 	public int getFolderPoolSize() {
 		return folderPoolSize;
 	}
+	
+	/**
+	 * @return true if the indexer updates the live index and only rewrites
+	 * 		the documents which changed since the last run.
+	 */
+	public boolean isIncrementalIndexing() {
+		return incrementalIndexing;
+	}
 
 	/**
 	 * @return Start hour for restart-window.
@@ -87,6 +87,8 @@ public abstract class AbstractOlatDocument implements Serializable {
 
 	public static final String LICENSE_TYPE_FIELD_NAME = "licensetype";
 	
+	public static final String FINGERPRINT_FIELD_NAME = "fingerprint";
+	
 	public static final Set<String> getFields() {
 		Set<String> fields = new HashSet<>();
 		fields.add(DB_ID_NAME);
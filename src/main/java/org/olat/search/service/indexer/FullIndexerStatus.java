@@ -49,6 +49,9 @@ public class FullIndexerStatus {
 	private String status = STATUS_STOPPED;
 	
 	private int documentCount = 0;
+	private int changedDocumentCount = 0;
+	private int skippedDocumentCount = 0;
+	private int deletedDocumentCount = 0;
 	private int indexSize = 0;
 	private int indexPerMinute = 0;
 	private int[] partDocumentCounters;
@@ -130,6 +133,9 @@ public class FullIndexerStatus {
 		fullIndexStartedAt = System.currentTimeMillis();
 		setStatus(STATUS_RUNNING);
 		setDocumentCount(0);//Reset FullIndex-DocumentCounter
+		changedDocumentCount = 0;
+		skippedDocumentCount = 0;
+		deletedDocumentCount = 0;
 		resetAllDocumentCounters();
 	}
 
@@ -167,6 +173,42 @@ public class FullIndexerStatus {
 	public void incrementDocumentCount() {
 		documentCount++;
 	}
+	
+	/**
+	 * @return Number of documents written in the index because they are new
+	 * 		or changed since the last incremental run.
+	 */
+	public int getChangedDocumentCount() {
+		return changedDocumentCount;
+	}
+	
+	public void incrementChangedDocumentCount() {
+		changedDocumentCount++;
+	}
+	
+	/**
+	 * @return Number of documents not written because their fingerprint is
+	 * 		the same as in the last incremental run.
+	 */
+	public int getSkippedDocumentCount() {
+		return skippedDocumentCount;
+	}
+	
+	public void incrementSkippedDocumentCount() {
+		skippedDocumentCount++;
+	}
+	
+	/**
+	 * @return Number of documents deleted from the index because their
+	 * 		resources are gone.
+	 */
+	public int getDeletedDocumentCount() {
+		return deletedDocumentCount;
+	}
+	
+	public void setDeletedDocumentCount(int deletedDocumentCount) {
+		this.deletedDocumentCount = deletedDocumentCount;
+	}
 
 	public void setIndexSize(int indexSize) {
 		this.indexSize  = indexSize;
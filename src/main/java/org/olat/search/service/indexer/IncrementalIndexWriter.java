@@ -0,0 +1,170 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.search.service.indexer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.util.Bits;
+import org.olat.core.util.Encoder;
+import org.olat.search.model.AbstractOlatDocument;
+
+/**
+ * Update a live index in place. The fingerprints of the documents already
+ * in the index are loaded at the start, the documents with an unchanged
+ * fingerprint are not written, the changed ones replace the documents with
+ * the same resource URL and, at the end of a complete run, the documents
+ * of the resources which were not seen are deleted.<br>
+ * The instance is not thread-safe, it's used by the single writer thread
+ * of the full indexer.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+class IncrementalIndexWriter {
+	
+	private final IndexWriter indexWriter;
+	/** Fingerprints of the documents in the index at the start, by resource URL */
+	private final Map<String,String> previousFingerprints = new HashMap<>();
+	/** Number of documents in the index at the start, by resource URL */
+	private final Map<String,Integer> previousDocumentCounts = new HashMap<>();
+	/** Resource URLs seen during the run */
+	private final Set<String> indexedResourceUrls = new HashSet<>();
+	
+	IncrementalIndexWriter(IndexWriter indexWriter) throws IOException {
+		this.indexWriter = indexWriter;
+		loadFingerprints();
+	}
+	
+	/**
+	 * @return The number of resource URLs in the index at the start
+	 */
+	int getNumOfPreviousResources() {
+		return previousFingerprints.size();
+	}
+	
+	/**
+	 * Load the resource URLs and the fingerprints of all documents in the index.
+	 * A resource URL indexed more than once gets an empty fingerprint to force
+	 * the rewrite of its documents.
+	 */
+	private void loadFingerprints() throws IOException {
+		Set<String> fields = new HashSet<>();
+		fields.add(AbstractOlatDocument.RESOURCEURL_FIELD_NAME);
+		fields.add(AbstractOlatDocument.FINGERPRINT_FIELD_NAME);
+		
+		try(DirectoryReader reader = DirectoryReader.open(indexWriter)) {
+			Bits liveDocs = MultiFields.getLiveDocs(reader);
+			for(int i=0; i<reader.maxDoc(); i++) {
+				if(liveDocs != null && !liveDocs.get(i)) {
+					continue;
+				}
+				Document document = reader.document(i, fields);
+				String resourceUrl = document.get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME);
+				if(resourceUrl != null) {
+					String fingerprint = document.get(AbstractOlatDocument.FINGERPRINT_FIELD_NAME);
+					if(fingerprint == null || previousFingerprints.containsKey(resourceUrl)) {
+						fingerprint = "";
+					}
+					previousFingerprints.put(resourceUrl, fingerprint);
+					previousDocumentCounts.merge(resourceUrl, Integer.valueOf(1), Integer::sum);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The fingerprint is a hash of all stored fields of the document
+	 * without the time stamp of the indexation and without a previous
+	 * fingerprint (documents reused from the live index have one).
+	 * 
+	 * @param document The document
+	 * @return A hash
+	 */
+	static String getFingerprint(Document document) {
+		StringBuilder sb = new StringBuilder(4096);
+		for(IndexableField field:document.getFields()) {
+			String name = field.name();
+			if(AbstractOlatDocument.TIME_STAMP_NAME.equals(name)
+					|| AbstractOlatDocument.FINGERPRINT_FIELD_NAME.equals(name)) {
+				continue;
+			}
+			String value = field.stringValue();
+			sb.append(name).append('=').append(value == null ? "" : value).append('\n');
+		}
+		return Encoder.md5hash(sb.toString());
+	}
+	
+	/**
+	 * Write the document if it's new or changed since the last run.
+	 * 
+	 * @param document The document
+	 * @param fingerprint The fingerprint of the document
+	 * @return true if the document was written, false if it was unchanged
+	 * @throws IOException
+	 */
+	boolean addDocument(Document document, String fingerprint) throws IOException {
+		String resourceUrl = document.get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME);
+		boolean firstInRun = indexedResourceUrls.add(resourceUrl);
+		if(firstInRun && fingerprint.equals(previousFingerprints.get(resourceUrl))) {
+			return false;
+		}
+		
+		// a document reused from the live index has already a fingerprint
+		document.removeFields(AbstractOlatDocument.FINGERPRINT_FIELD_NAME);
+		document.add(new StringField(AbstractOlatDocument.FINGERPRINT_FIELD_NAME, fingerprint, Field.Store.YES));
+		if(firstInRun) {
+			indexWriter.updateDocument(new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl), document);
+		} else {
+			indexWriter.addDocument(document);
+		}
+		return true;
+	}
+	
+	/**
+	 * Delete the documents of the resources which were in the index
+	 * but not seen during the run. Call it only after a complete run.
+	 * 
+	 * @return The number of deleted documents
+	 * @throws IOException
+	 */
+	int deleteGoneDocuments() throws IOException {
+		int deleted = 0;
+		for(Map.Entry<String,Integer> entry:previousDocumentCounts.entrySet()) {
+			String resourceUrl = entry.getKey();
+			if(!indexedResourceUrls.contains(resourceUrl)) {
+				indexWriter.deleteDocuments(new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl));
+				deleted += entry.getValue().intValue();
+			}
+		}
+		return deleted;
+	}
+}
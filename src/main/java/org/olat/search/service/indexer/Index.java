@@ -118,9 +118,16 @@ public class Index {
 
 	/**
 	 * Check if indexing is complete done.
-	 * @return true : Indexing is done.
+	 * @param incremental true if the indexer has updated the live index
 	 */
-	public void indexingIsDone() {
+	public void indexingIsDone(boolean incremental) {
+		if(incremental) {
+			// the live index is already up-to-date
+			log.info("Incremental index ready to use." );
+			spellChecker.createSpellIndex();
+			return;
+		}
+		
 		// Full indexing is done => move tempIndex to index dir
 		File indexDir = new File(indexPath);
 		if (!indexDir.exists()) {
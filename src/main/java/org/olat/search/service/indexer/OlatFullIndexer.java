@@ -68,7 +68,11 @@ import org.olat.search.service.SearchResourceContext;
 
 /**
  * Controls the hole generation of a full-index. It run in its own thread the main index.
- * The sub-indexers can use a thread pool to parallelize the works.
+ * The sub-indexers can use a thread pool to parallelize the works.<br>
+ * In incremental mode, the indexer updates the live index. Every document
+ * has a fingerprint of its stored fields, the documents with the same fingerprint
+ * as in the last run are not written and the documents which were not seen
+ * during the run are deleted.
  * 
  * @author Christian Guretzki
  */
@@ -82,12 +86,15 @@ public class OlatFullIndexer {
 
 	private String indexPath;
 	private String tempIndexPath;
+	private final boolean incremental;
 
 	/**
 	 * Reference to indexer for done callback.
 	 */
 	private Index index;
 	private IndexWriter indexWriter;
+	/** Incremental mode: accessed by the writer thread only */
+	private IncrementalIndexWriter incrementalWriter;
 
 	/** Flag to stop indexing. */
 	private boolean stopIndexing;
@@ -143,6 +150,7 @@ public class OlatFullIndexer {
 		}
 		indexPath = searchModule.getFullIndexPath();
 		tempIndexPath = searchModule.getFullTempIndexPath();
+		incremental = searchModule.isIncrementalIndexing();
 		indexInterval = searchModule.getIndexInterval();
 		documentsPerInterval = searchModule.getDocumentsPerInterval();
 		ramBufferSizeMB = searchModule.getRAMBufferSizeMB();
@@ -239,10 +247,17 @@ public class OlatFullIndexer {
 			
 			searchService.refresh();// make sure all is up-to-date
 			
-			File tempIndexDir = new File(tempIndexPath);
-			Directory tmpIndexPath = FSDirectory.open(new File(tempIndexDir, "main").toPath());
-			indexWriter = new IndexWriter(tmpIndexPath, newIndexWriterConfig());// analyzer, true, IndexWriter.MAX_TERM_LENGTH.UNLIMITED);
-			indexWriter.deleteAll();
+			if(incremental) {
+				Directory liveIndexPath = FSDirectory.open(new File(indexPath).toPath());
+				indexWriter = new IndexWriter(liveIndexPath, newIndexWriterConfig());
+				incrementalWriter = new IncrementalIndexWriter(indexWriter);
+				log.info("Incremental indexing with " + incrementalWriter.getNumOfPreviousResources() + " resources in the index");
+			} else {
+				File tempIndexDir = new File(tempIndexPath);
+				Directory tmpIndexPath = FSDirectory.open(new File(tempIndexDir, "main").toPath());
+				indexWriter = new IndexWriter(tmpIndexPath, newIndexWriterConfig());// analyzer, true, IndexWriter.MAX_TERM_LENGTH.UNLIMITED);
+				indexWriter.deleteAll();
+			}
 			
 			SearchResourceContext searchResourceContext = new SearchResourceContext();
 			log.info("doIndex start. OlatFullIndexer with Debug output");
@@ -261,8 +276,12 @@ public class OlatFullIndexer {
 				Thread.sleep(1000);
 			}
 			
+			if(incremental && !stopIndexing) {
+				log.info("Delete the documents of removed resources");
+				indexerWriterExecutor.submit(new DeleteGoneDocumentsCallable());
+			}
+			
 			log.info("Close index writer executor");
-			fullIndexerStatus.setIndexSize(indexWriter.maxDoc());
 			//shutdown the index writer thread
 			indexerWriterExecutor.submit(new CloseIndexCallable());
 			indexerWriterExecutor.shutdown();
@@ -281,6 +300,7 @@ public class OlatFullIndexer {
 				indexerWriterExecutor.shutdownNow();
 				indexerWriterExecutor = null;
 			}
+			incrementalWriter = null;
 		}
 	}
 	
@@ -302,7 +322,7 @@ public class OlatFullIndexer {
 			log.info("full indexing starts... Lucene-version:" + LucenePackage.get().getImplementationVersion());
 			fullIndexerStatus.indexingStarted();
 			doIndex();
-			index.indexingIsDone();
+			index.indexingIsDone(incremental);
 			fullIndexerStatus.indexingFinished();
 			log.info("full indexing done in " + fullIndexerStatus.getIndexingTime() + "ms");
 			
@@ -322,6 +342,11 @@ public class OlatFullIndexer {
 			log.info("full indexing summary: document counters: "+status.getDocumentCounters());
 			log.info("full indexing summary: file type counters:"+status.getFileTypeCounters());
 			log.info("full indexing summary: excluded counter:  "+status.getExcludedDocumentCount());
+			if(incremental) {
+				log.info("full indexing summary: changed counter:   "+status.getChangedDocumentCount());
+				log.info("full indexing summary: skipped counter:   "+status.getSkippedDocumentCount());
+				log.info("full indexing summary: deleted counter:   "+status.getDeletedDocumentCount());
+			}
 
 		} catch(InterruptedException iex) {
 			log.info("FullIndexer was interrupted ;" + iex.getMessage());
@@ -356,8 +381,9 @@ public class OlatFullIndexer {
 		DBFactory.getInstance().commitAndCloseSession();
 		
 		if (!stopIndexing && indexerWriterExecutor != null && !indexerWriterExecutor.isShutdown()) {
+			String fingerprint = incremental ? IncrementalIndexWriter.getFingerprint(document) : null;
 			synchronized(indexerWriterBlock) {//once at a time please, wait, you have enough time
-				Future<Boolean> future = indexerWriterExecutor.submit(new AddDocumentCallable(document));
+				Future<Boolean> future = indexerWriterExecutor.submit(new AddDocumentCallable(document, fingerprint));
 				try {
 					future.get();
 				} catch (ExecutionException e) {
@@ -451,22 +477,44 @@ public class OlatFullIndexer {
 		@Override
 		public Boolean call() throws Exception {
 			indexWriter.commit();
+			fullIndexerStatus.setIndexSize(indexWriter.numDocs());
 			indexWriter.close();
 			indexWriter = null;
 			return Boolean.TRUE;
 		}
 	}
 	
+	/**
+	 * Delete the documents of the resources which were in the index
+	 * but not seen during the incremental run.
+	 */
+	private class DeleteGoneDocumentsCallable implements Callable<Boolean> {
+
+		@Override
+		public Boolean call() throws Exception {
+			fullIndexerStatus.setDeletedDocumentCount(incrementalWriter.deleteGoneDocuments());
+			return Boolean.TRUE;
+		}
+	}
+	
 	private class AddDocumentCallable implements Callable<Boolean> {
 		private final Document document;
+		private final String fingerprint;
 		
-		public AddDocumentCallable(Document document) {
+		public AddDocumentCallable(Document document, String fingerprint) {
 			this.document = document;
+			this.fingerprint = fingerprint;
 		}
 
 		@Override
 		public Boolean call() throws Exception {
-			indexWriter.addDocument(document);
+			if(fingerprint == null) {
+				indexWriter.addDocument(document);
+			} else if(incrementalWriter.addDocument(document, fingerprint)) {
+				fullIndexerStatus.incrementChangedDocumentCount();
+			} else {
+				fullIndexerStatus.incrementSkippedDocumentCount();
+			}
 			fullIndexerStatus.incrementDocumentCount();
 			if (indexInterval != 0 && sleepDocumentCounter++ >= documentsPerInterval) {
 				sleepDocumentCounter = 0;
@@ -45,6 +45,7 @@ import org.olat.basesecurity.IdentityNames;
 import org.olat.basesecurity.IdentityRef;
 import org.olat.basesecurity.IdentityShort;
 import org.olat.basesecurity.OrganisationRoles;
+import org.olat.basesecurity.manager.IdentityAutocompleteIndex;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.gui.translator.Translator;
 import org.olat.core.helpers.Settings;
@@ -105,6 +106,8 @@ public class UserManagerImpl extends UserManager implements UserDataDeletable, U
   private LoginModule loginModule;
   @Autowired
   private CoordinatorManager coordinatorManager;
+  @Autowired
+  private IdentityAutocompleteIndex identityAutocompleteIndex;
 
 	private CacheWrapper<Serializable,String> userToFullnameCache;
 	private CacheWrapper<Long,String> userToNameCache;
@@ -281,7 +284,9 @@ public class UserManagerImpl extends UserManager implements UserDataDeletable, U
 	@Override
 	public User updateUser(User usr) {
 		if (usr == null) throw new AssertException("User object is null!");
-		return dbInstance.getCurrentEntityManager().merge(usr);
+		User mergedUser = dbInstance.getCurrentEntityManager().merge(usr);
+		identityAutocompleteIndex.userChanged(mergedUser.getKey());
+		return mergedUser;
 	}
 
 	@Override
@@ -146,3 +146,8 @@ alter table o_aconnect_user ENGINE = InnoDB;
 
 alter table o_aconnect_user add constraint aconn_ident_idx foreign key (fk_identity_id) references o_bs_identity (id);
 
+
+-- lease of the pessimistic locks
+alter table o_plock add p_lease_node int;
+alter table o_plock add p_lease_expiration datetime;
+alter table o_plock add p_lease_waiting_node int;
@@ -552,6 +552,9 @@ create table if not exists o_plock (
 	version mediumint unsigned not null,
     creationdate datetime,
     asset varchar(255) not null unique,
+    p_lease_node int,
+    p_lease_expiration datetime,
+    p_lease_waiting_node int,
     primary key (plock_id)
 );
 
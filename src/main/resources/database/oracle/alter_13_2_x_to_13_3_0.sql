@@ -145,3 +145,9 @@ create table o_aconnect_user (
 
 alter table o_aconnect_user add constraint aconn_ident_idx foreign key (fk_identity_id) references o_bs_identity (id);
 create index idx_aconn_ident_idx on o_aconnect_user (fk_identity_id);
+
+
+-- lease of the pessimistic locks
+alter table o_plock add p_lease_node number(20);
+alter table o_plock add p_lease_expiration date;
+alter table o_plock add p_lease_waiting_node number(20);
@@ -609,6 +609,9 @@ CREATE TABLE o_plock (
   version number(20) NOT NULL,
   creationdate date,
   asset varchar2(255 char) NOT NULL,
+  p_lease_node number(20),
+  p_lease_expiration date,
+  p_lease_waiting_node number(20),
   CONSTRAINT u_o_plock UNIQUE (asset),
   PRIMARY KEY (plock_id)
 );
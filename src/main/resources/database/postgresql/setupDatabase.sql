@@ -547,6 +547,9 @@ create table o_plock (
     version int4 not null,
     creationdate timestamp,
     asset varchar(255) not null unique,
+    p_lease_node int4,
+    p_lease_expiration timestamp,
+    p_lease_waiting_node int4,
     primary key (plock_id)
 );
 
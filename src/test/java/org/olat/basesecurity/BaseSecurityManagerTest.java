@@ -366,6 +366,135 @@ public class BaseSecurityManagerTest extends OlatTestCase {
 		Assert.assertTrue(reloadRoles.isUserManager());
 	}
 	
+	@Test
+	public void getRoles_cachedAndInvalidated() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("roles-5");
+		dbInstance.commitAndCloseSession();
+		
+		Roles roles = securityManager.getRoles(id);
+		Assert.assertFalse(roles.isAuthor());
+		Roles cachedRoles = securityManager.getRoles(id);
+		Assert.assertEquals(roles, cachedRoles);
+		
+		// add a role directly with the organisation service
+		organisationService.addMember(id, OrganisationRoles.author);
+		dbInstance.commitAndCloseSession();
+		
+		Roles reloadedRoles = securityManager.getRoles(id);
+		Assert.assertTrue(reloadedRoles.isAuthor());
+		
+		organisationService.removeMember(id, OrganisationRoles.author);
+		dbInstance.commitAndCloseSession();
+		
+		Roles removedRoles = securityManager.getRoles(id);
+		Assert.assertFalse(removedRoles.isAuthor());
+		Assert.assertTrue(removedRoles.isUser());
+	}
+	
+	@Test
+	public void getRoles_notCachedBeforeCommit() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("roles-9");
+		dbInstance.commitAndCloseSession();
+		
+		// change the roles and read them in the same transaction
+		organisationService.addMember(id, OrganisationRoles.author);
+		Roles uncommittedRoles = securityManager.getRoles(id);
+		Assert.assertTrue(uncommittedRoles.isAuthor());
+		dbInstance.rollbackAndCloseSession();
+		
+		// the uncommitted roles were not cached
+		Roles roles = securityManager.getRoles(id);
+		Assert.assertFalse(roles.isAuthor());
+		Assert.assertTrue(roles.isUser());
+	}
+
+	@Test
+	public void getRoles_cachedAndUpdatedBeforeCommit() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("roles-10");
+		dbInstance.commitAndCloseSession();
+
+		Roles roles = securityManager.getRoles(id);
+		Assert.assertFalse(roles.isAuthor());
+		List<Identity> identities = Collections.singletonList(id);
+		Assert.assertFalse(securityManager.getRoles(identities).get(id.getKey()).isAuthor());
+
+		// update the roles and read them in the same transaction
+		Organisation defOrganisation = organisationService.getDefaultOrganisation();
+		RolesByOrganisation authorRoles = RolesByOrganisation.roles(defOrganisation, false, false, true,
+				true, false, false, false, false, false, false);
+		securityManager.updateRoles(null, id, authorRoles);
+
+		Roles updatedRoles = securityManager.getRoles(id);
+		Assert.assertTrue(updatedRoles.isAuthor());
+		Assert.assertTrue(securityManager.getRoles(identities).get(id.getKey()).isAuthor());
+		dbInstance.commitAndCloseSession();
+
+		Roles committedRoles = securityManager.getRoles(id);
+		Assert.assertTrue(committedRoles.isAuthor());
+	}
+
+	/**
+	 * The synchronization with LDAP updates the roles of a user one
+	 * after the other in the same transaction.
+	 */
+	@Test
+	public void updateRoles_twiceInTransaction() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("roles-11");
+		dbInstance.commitAndCloseSession();
+
+		Roles roles = securityManager.getRoles(id);
+		Assert.assertFalse(roles.isAuthor());
+
+		// add the author role
+		Organisation defOrganisation = organisationService.getDefaultOrganisation();
+		roles = securityManager.getRoles(id);
+		RolesByOrganisation authorRoles = RolesByOrganisation.roles(defOrganisation, false, false, true,
+				true, roles.isGroupManager(), roles.isPoolManager(), roles.isCurriculumManager(),
+				roles.isUserManager(), roles.isLearnResourceManager(), roles.isAdministrator());
+		securityManager.updateRoles(null, id, authorRoles);
+
+		// add the user manager role
+		roles = securityManager.getRoles(id);
+		RolesByOrganisation userManagerRoles = RolesByOrganisation.roles(defOrganisation, false, false, true,
+				roles.isAuthor(), roles.isGroupManager(), roles.isPoolManager(), roles.isCurriculumManager(),
+				true, roles.isLearnResourceManager(), roles.isAdministrator());
+		securityManager.updateRoles(null, id, userManagerRoles);
+		dbInstance.commitAndCloseSession();
+
+		Roles reloadedRoles = securityManager.getRoles(id);
+		Assert.assertTrue(reloadedRoles.isAuthor());
+		Assert.assertTrue(reloadedRoles.isUserManager());
+		Assert.assertTrue(reloadedRoles.isUser());
+	}
+
+	@Test
+	public void getRoles_bulk() {
+		Identity user = JunitTestHelper.createAndPersistIdentityAsRndUser("roles-6");
+		Identity author = JunitTestHelper.createAndPersistIdentityAsRndAuthor("roles-7");
+		Identity admin = JunitTestHelper.createAndPersistIdentityAsRndAdmin("roles-8");
+		dbInstance.commitAndCloseSession();
+		
+		// one cached
+		securityManager.getRoles(author);
+		
+		List<Identity> identities = new ArrayList<>();
+		identities.add(user);
+		identities.add(author);
+		identities.add(admin);
+		Map<Long,Roles> roles = securityManager.getRoles(identities);
+		Assert.assertEquals(3, roles.size());
+		Assert.assertTrue(roles.get(user.getKey()).isUser());
+		Assert.assertFalse(roles.get(user.getKey()).isAuthor());
+		Assert.assertTrue(roles.get(author.getKey()).isAuthor());
+		Assert.assertFalse(roles.get(author.getKey()).isAdministrator());
+		Assert.assertTrue(roles.get(admin.getKey()).isAdministrator());
+		
+		// same as the single read
+		for(Identity identity:identities) {
+			Assert.assertEquals(securityManager.getRoles(identity), roles.get(identity.getKey()));
+		}
+	}
+	
 	/**
 	 * Update roles, check that invitee don't become rights
 	 */
@@ -80,6 +80,27 @@ public class AuthenticationDAOTest extends OlatTestCase {
 		Assert.assertTrue(identities.contains(ident));
 	}
 
+	@Test
+	public void getAuthentications() {
+		String token = UUID.randomUUID().toString();
+		Identity ident1 = JunitTestHelper.createAndPersistIdentityAsRndUser("authdao-7-");
+		Identity ident2 = JunitTestHelper.createAndPersistIdentityAsRndUser("authdao-8-");
+		Identity ident3 = JunitTestHelper.createAndPersistIdentityAsRndUser("authdao-9-");
+		Authentication auth1 = securityManager.createAndPersistAuthentication(ident1, "BULKAUTH", ident1.getName(), token, null);
+		Authentication auth2 = securityManager.createAndPersistAuthentication(ident2, "BULKAUTH", ident2.getName(), token, null);
+		securityManager.createAndPersistAuthentication(ident3, "OTHERAUTH", ident3.getName(), token, null);
+		dbInstance.commitAndCloseSession();
+		
+		List<Long> identityKeys = new ArrayList<>();
+		identityKeys.add(ident1.getKey());
+		identityKeys.add(ident2.getKey());
+		identityKeys.add(ident3.getKey());
+		List<Authentication> authentications = authenticationDao.getAuthentications(identityKeys, "BULKAUTH");
+		Assert.assertEquals(2, authentications.size());
+		Assert.assertTrue(authentications.contains(auth1));
+		Assert.assertTrue(authentications.contains(auth2));
+	}
+
 	@Test
 	public void hasAuthentication() {
 		String token = UUID.randomUUID().toString();
@@ -0,0 +1,176 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.basesecurity.manager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class IdentityTrigramIndexTest {
+	
+	@Test
+	public void searchSubstring() {
+		IdentityTrigramIndex index = createIndex();
+		
+		assertSearch(index, "muller", 1l, 3l);
+		assertSearch(index, "MüLLer", 2l);
+		assertSearch(index, "john", 1l, 4l);
+		assertSearch(index, "example.com", 1l, 2l, 3l);
+		assertSearch(index, "nobody");
+		// a term cannot span two attributes
+		assertSearch(index, "hnmul");
+	}
+	
+	@Test
+	public void searchShortTerms() {
+		IdentityTrigramIndex index = createIndex();
+		
+		assertSearch(index, "mu", 1l, 3l);
+		assertSearch(index, "q");
+		assertSearch(index, "", 1l, 2l, 3l, 4l);
+	}
+	
+	@Test
+	public void searchOrTerms() {
+		IdentityTrigramIndex index = createIndex();
+		
+		assertSearch(index, "jane smith", 3l, 4l);
+		assertSearch(index, "xyz smith", 4l);
+	}
+	
+	@Test
+	public void searchPatterns() {
+		IdentityTrigramIndex index = createIndex();
+		
+		// begin with
+		assertSearch(index, "mul*", 1l, 3l);
+		assertSearch(index, "ller*");
+		// end with
+		assertSearch(index, "*smith", 4l);
+		assertSearch(index, "*smi");
+		// exact
+		assertSearch(index, "\"jane\"", 3l);
+		assertSearch(index, "\"jan\"");
+		assertSearch(index, "j*ith", 4l);
+		assertSearch(index, "jo*ith");
+	}
+	
+	@Test
+	public void searchMaxResults() {
+		IdentityTrigramIndex index = createIndex();
+		
+		List<Long> keys = index.search(new String[] { "example" }, null, 2);
+		Assert.assertEquals(Arrays.asList(1l, 2l), keys);
+	}
+	
+	@Test
+	public void searchOrganisations() {
+		IdentityTrigramIndex index = createIndex();
+		
+		List<Long> keys = index.search(new String[] { "example" }, Collections.singleton(20l), 10);
+		Assert.assertEquals(Arrays.asList(2l, 3l), keys);
+		
+		List<Long> shortKeys = index.search(new String[] { "e" }, new HashSet<>(Arrays.asList(30l, 40l)), 10);
+		Assert.assertEquals(Collections.singletonList(3l), shortKeys);
+	}
+	
+	@Test
+	public void updateAndRemove() {
+		IdentityTrigramIndex index = createIndex();
+		
+		index.put(1l, new String[] { "jdoe", "John", "Doe", "john@example.com" }, Collections.singletonList(10l));
+		assertSearch(index, "muller", 3l);
+		assertSearch(index, "doe", 1l);
+		
+		index.remove(3l);
+		Assert.assertFalse(index.contains(3l));
+		assertSearch(index, "muller");
+		assertSearch(index, "example", 1l, 2l);
+		Assert.assertEquals(3, index.size());
+	}
+	
+	@Test
+	public void insertUnordered() {
+		IdentityTrigramIndex index = createIndex();
+		
+		index.put(0l, new String[] { "first", null, null, null }, null);
+		index.put(10l, new String[] { "tenth", "Jane", null, null }, null);
+		index.put(5l, new String[] { "fifth", "Jane", null, null }, null);
+		assertSearch(index, "jane", 3l, 5l, 10l);
+		assertSearch(index, "first", 0l);
+		assertSearch(index, "fif", 5l);
+	}
+	
+	@Test
+	public void reuseFreedSlots() {
+		IdentityTrigramIndex index = createIndex();
+		
+		index.remove(2l);
+		index.remove(4l);
+		index.put(5l, new String[] { "jdoe", "John", "Doe", null }, null);
+		index.put(6l, new String[] { "mdoe", "Mary", "Doe", null }, null);
+		Assert.assertEquals(4, index.getNumOfSlots());
+		assertSearch(index, "doe", 5l, 6l);
+		assertSearch(index, "j", 1l, 3l, 5l);
+		assertSearch(index, "muller", 1l, 3l);
+	}
+	
+	@Test
+	public void compact() {
+		IdentityTrigramIndex index = new IdentityTrigramIndex();
+		for(long key=1; key<=4000; key++) {
+			index.put(key, new String[] { "user" + key, "First" + key, "Last", null }, null);
+		}
+		for(long key=1; key<=4000; key++) {
+			if(key % 4 != 0) {
+				index.remove(key);
+			}
+		}
+		Assert.assertEquals(1000, index.size());
+		Assert.assertTrue(index.getNumOfSlots() < 4000);
+		assertSearch(index, "user400", 400l, 4000l);
+		assertSearch(index, "first12", 12l, 120l, 124l, 128l, 1200l, 1204l, 1208l, 1212l, 1216l, 1220l, 1224l, 1228l,
+				1232l, 1236l, 1240l, 1244l, 1248l, 1252l, 1256l, 1260l, 1264l, 1268l, 1272l, 1276l, 1280l, 1284l, 1288l,
+				1292l, 1296l);
+	}
+	
+	private static IdentityTrigramIndex createIndex() {
+		IdentityTrigramIndex index = new IdentityTrigramIndex();
+		index.put(1l, new String[] { "jmuller", "John", "Muller", "john.muller@example.com" }, Collections.singletonList(10l));
+		index.put(2l, new String[] { "amüller", "Anna", "Müller", "anna@example.com" }, Arrays.asList(10l, 20l));
+		index.put(3l, new String[] { "jmuller2", "Jane", "Muller", "jane@example.com" }, Arrays.asList(20l, 30l));
+		index.put(4l, new String[] { "jsmith", "John", "Smith", null }, null);
+		return index;
+	}
+	
+	private static void assertSearch(IdentityTrigramIndex index, String search, Long... expectedKeys) {
+		List<Long> keys = index.search(search.split(" ", -1), null, 100);
+		Assert.assertEquals(search, Arrays.asList(expectedKeys), keys);
+	}
+}
@@ -33,6 +33,7 @@ import org.olat.basesecurity.OrganisationService;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.id.Identity;
 import org.olat.core.id.Organisation;
+import org.olat.core.id.Roles;
 import org.olat.core.id.User;
 import org.olat.test.JunitTestHelper;
 import org.olat.test.OlatTestCase;
@@ -165,6 +166,27 @@ public class OrganisationServiceTest extends OlatTestCase {
 		Assert.assertEquals(GroupMembershipInheritance.inherited, userManagerMembership.getInheritanceMode());
 	}
 	
+	@Test
+	public void createSubOrganisationWithInheritedsMembershipsRoles() {
+		Identity user = createRandomUser("Org. user");
+		
+		Organisation defOrganisation = organisationService.getDefaultOrganisation();
+		Organisation organisation = organisationService.createOrganisation("Inherit-organisation", "Top", "", defOrganisation, null);
+		organisationService.addMember(organisation, user, OrganisationRoles.usermanager);
+		dbInstance.commitAndCloseSession();
+		
+		// fill the cache
+		Roles roles = securityManager.getRoles(user);
+		Assert.assertTrue(roles.hasRole(organisation, OrganisationRoles.usermanager));
+
+		Organisation subOrganisation = organisationService.createOrganisation("Sub-organisation", "Sub", "", organisation, null);
+		dbInstance.commitAndCloseSession();
+		
+		// the inherited role in the new organisation is not hidden by the cache
+		Roles reloadedRoles = securityManager.getRoles(user);
+		Assert.assertTrue(reloadedRoles.hasRole(subOrganisation, OrganisationRoles.usermanager));
+	}
+	
 	/**
 	 * Move the organisation1_1 from organisation1 to organisation2 and
 	 * check the inheritance of membership.
@@ -60,6 +60,7 @@ import org.olat.commons.calendar.CalendarManager;
 import org.olat.commons.calendar.CalendarUtils;
 import org.olat.commons.calendar.model.Kalendar;
 import org.olat.commons.calendar.model.KalendarEvent;
+import org.olat.commons.calendar.model.KalendarRecurEvent;
 import org.olat.commons.calendar.ui.components.KalendarRenderWrapper;
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.persistence.DBFactory;
@@ -146,6 +147,96 @@ public class ICalFileCalendarManagerTest extends OlatTestCase {
 		assertNull("Found removed event", removedEvent);
 	}
 	
+	/**
+	 * Check the range queries of the events index with occurrences which
+	 * are calculated month by month, and the invalidation of the index
+	 * after an exclusion of an occurrence.
+	 */
+	@Test
+	public void getEvents_recurringAndSingleEvents() {
+		Identity test = JunitTestHelper.createAndPersistIdentityAsRndUser("ical-idx-");
+		Kalendar cal = calendarManager.getPersonalCalendar(test).getKalendar();
+		
+		Date start = createDate(2026, Calendar.JANUARY, 5, 12);
+		KalendarEvent dailyEvent = new KalendarEvent("id-daily-index", "Daily", start, 60 * 60 * 1000);
+		dailyEvent.setRecurrenceRule("FREQ=DAILY;COUNT=60");
+		KalendarEvent singleEvent = new KalendarEvent("id-single-index", "Single", createDate(2026, Calendar.FEBRUARY, 3, 9), 30 * 60 * 1000);
+		KalendarEvent outsideEvent = new KalendarEvent("id-outside-index", "Outside", createDate(2026, Calendar.APRIL, 3, 9), 30 * 60 * 1000);
+		List<KalendarEvent> newEvents = new ArrayList<>();
+		newEvents.add(dailyEvent);
+		newEvents.add(singleEvent);
+		newEvents.add(outsideEvent);
+		calendarManager.addEventTo(cal, newEvents);
+		
+		// from the 20 january until the 9 february, over 2 months
+		Date from = createDate(2026, Calendar.JANUARY, 20, 0);
+		Date to = createDate(2026, Calendar.FEBRUARY, 10, 0);
+		List<KalendarEvent> events = calendarManager.getEvents(cal, from, to, true);
+		Assert.assertEquals(22, events.size());
+		Assert.assertTrue(events.contains(singleEvent));
+		Assert.assertFalse(events.contains(outsideEvent));
+		// second time with the cached occurrences
+		Assert.assertEquals(22, calendarManager.getEvents(cal, from, to, true).size());
+		
+		// small window at the boundary of the months
+		List<KalendarEvent> boundaryEvents = calendarManager.getEvents(cal,
+				createDate(2026, Calendar.JANUARY, 31, 0), createDate(2026, Calendar.FEBRUARY, 2, 0), true);
+		Assert.assertEquals(2, boundaryEvents.size());
+		
+		// remove the occurrence of the 1 february
+		KalendarRecurEvent occurrence = null;
+		for(KalendarEvent event:boundaryEvents) {
+			if(event instanceof KalendarRecurEvent && event.getBegin().equals(createDate(2026, Calendar.FEBRUARY, 1, 12))) {
+				occurrence = (KalendarRecurEvent)event;
+			}
+		}
+		Assert.assertNotNull(occurrence);
+		calendarManager.removeOccurenceOfEvent(cal, occurrence);
+		
+		cal = calendarManager.getPersonalCalendar(test).getKalendar();
+		Assert.assertEquals(21, calendarManager.getEvents(cal, from, to, true).size());
+		
+		// same result after reloading the file
+		emptyCalendarCache();
+		cal = calendarManager.getPersonalCalendar(test).getKalendar();
+		Assert.assertEquals(21, calendarManager.getEvents(cal, from, to, true).size());
+	}
+
+	/**
+	 * The recurring checks of a single event use the occurrences of the
+	 * index of its calendar.
+	 */
+	@Test
+	public void isRecurringInPeriod() {
+		Identity test = JunitTestHelper.createAndPersistIdentityAsRndUser("ical-rec-");
+		Kalendar cal = calendarManager.getPersonalCalendar(test).getKalendar();
+
+		KalendarEvent weeklyEvent = new KalendarEvent("id-weekly-period", "Weekly", createDate(2026, Calendar.MARCH, 2, 10), 60 * 60 * 1000);
+		weeklyEvent.setRecurrenceRule("FREQ=WEEKLY;COUNT=10");
+		calendarManager.addEventTo(cal, weeklyEvent);
+		cal = calendarManager.getPersonalCalendar(test).getKalendar();
+		KalendarEvent event = cal.getEvent("id-weekly-period", null);
+
+		// the 9 march is a monday, the time of the period doesn't matter
+		Assert.assertTrue(calendarManager.isRecurringInPeriod(createDate(2026, Calendar.MARCH, 9, 0), createDate(2026, Calendar.MARCH, 9, 0), event));
+		Assert.assertFalse(calendarManager.isRecurringInPeriod(createDate(2026, Calendar.MARCH, 10, 0), createDate(2026, Calendar.MARCH, 15, 23), event));
+		// after the last occurrence
+		Assert.assertFalse(calendarManager.isRecurringInPeriod(createDate(2026, Calendar.JUNE, 1, 0), createDate(2026, Calendar.JUNE, 30, 0), event));
+
+		KalendarEvent recurEvent = calendarManager.getRecurringInPeriod(createDate(2026, Calendar.MARCH, 12, 0), createDate(2026, Calendar.MARCH, 18, 0), event);
+		Assert.assertNotNull(recurEvent);
+		Assert.assertEquals(createDate(2026, Calendar.MARCH, 16, 10), recurEvent.getBegin());
+		Assert.assertEquals(createDate(2026, Calendar.MARCH, 16, 11), recurEvent.getEnd());
+		Assert.assertNull(calendarManager.getRecurringInPeriod(createDate(2026, Calendar.MARCH, 10, 0), createDate(2026, Calendar.MARCH, 11, 0), event));
+	}
+
+	private Date createDate(int year, int month, int day, int hour) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(year, month, day, hour, 0, 0);
+		return calendar.getTime();
+	}
+	
 	@Test
 	public void testAddChangeEvent_v2() {
 		Identity test = JunitTestHelper.createAndPersistIdentityAsRndUser("ical-1-");	
@@ -0,0 +1,88 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.calendar.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.commons.calendar.model.KalendarIntervalTree.Interval;
+
+/**
+ * Compare the queries of the interval tree with a full scan.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class KalendarIntervalTreeTest {
+
+	@Test
+	public void emptyTree() {
+		KalendarIntervalTree<String> tree = new KalendarIntervalTree<>(Collections.emptyList());
+		Assert.assertEquals(0, tree.size());
+		Assert.assertTrue(tree.query(0l, Long.MAX_VALUE).isEmpty());
+	}
+
+	@Test
+	public void inclusiveBounds() {
+		List<Interval<String>> intervals = new ArrayList<>();
+		intervals.add(new Interval<>(10l, 20l, "a"));
+		intervals.add(new Interval<>(30l, 25l, "reversed"));
+		intervals.add(new Interval<>(40l, Long.MAX_VALUE, "open"));
+		KalendarIntervalTree<String> tree = new KalendarIntervalTree<>(intervals);
+
+		Assert.assertEquals(Collections.singletonList("a"), tree.query(0l, 10l));
+		Assert.assertEquals(Collections.singletonList("a"), tree.query(20l, 24l));
+		Assert.assertEquals(Collections.singletonList("reversed"), tree.query(26l, 27l));
+		Assert.assertEquals(Collections.singletonList("open"), tree.query(1000l, 2000l));
+		Assert.assertTrue(tree.query(21l, 24l).isEmpty());
+	}
+
+	@Test
+	public void compareWithFullScan() {
+		Random rnd = new Random(42l);
+		List<Interval<Integer>> intervals = new ArrayList<>();
+		for(int i=0; i<5000; i++) {
+			long begin = rnd.nextInt(1000000);
+			long end = begin + rnd.nextInt(rnd.nextBoolean() ? 100 : 50000);
+			intervals.add(new Interval<>(begin, end, Integer.valueOf(i)));
+		}
+		KalendarIntervalTree<Integer> tree = new KalendarIntervalTree<>(intervals);
+
+		for(int i=0; i<500; i++) {
+			long from = rnd.nextInt(1000000);
+			long to = from + rnd.nextInt(20000);
+
+			List<Integer> expected = new ArrayList<>();
+			for(Interval<Integer> interval:intervals) {
+				if(interval.getBegin() <= to && interval.getEnd() >= from) {
+					expected.add(interval.getValue());
+				}
+			}
+			List<Integer> found = new ArrayList<>(tree.query(from, to));
+			Collections.sort(expected);
+			Collections.sort(found);
+			Assert.assertEquals(expected, found);
+		}
+	}
+}
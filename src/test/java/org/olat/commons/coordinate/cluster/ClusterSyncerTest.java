@@ -0,0 +1,139 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.CoreSpringFactory;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.services.lock.pessimistic.PLock;
+import org.olat.core.commons.services.lock.pessimistic.PessimisticLockManager;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.resource.OresHelper;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ClusterSyncerTest extends OlatTestCase {
+	
+	private static final String ASSET_TYPE = "ClusterSyncerTest";
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private PessimisticLockManager pessimisticLockManager;
+	
+	private ClusterSyncer syncer;
+	
+	@Before
+	public void setLeaseMode() {
+		syncer = (ClusterSyncer)CoreSpringFactory.getBean("org.olat.commons.coordinate.cluster.ClusterSyncer");
+		syncer.setLockMode(ClusterSyncer.LockMode.lease.name());
+		syncer.setLeaseDuration(2000);
+	}
+	
+	@After
+	public void resetLockMode() {
+		syncer.setLockMode(ClusterSyncer.LockMode.plock.name());
+		syncer.setLeaseDuration(10000);
+	}
+	
+	@Test
+	public void leaseReusedByTheNode() {
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance(ASSET_TYPE, Long.valueOf(Math.abs(UUID.randomUUID().getMostSignificantBits())));
+		ClusterSyncerStatistics stats = syncer.getStatistics(ASSET_TYPE);
+		long acquisitions = stats.getLeaseAcquisitions();
+		long hits = stats.getLeaseHits();
+		
+		String first = syncer.doInSync(ores, () -> "first");
+		Assert.assertEquals("first", first);
+		Assert.assertEquals(acquisitions + 1, stats.getLeaseAcquisitions());
+		
+		String second = syncer.doInSync(ores, () -> "second");
+		Assert.assertEquals("second", second);
+		Assert.assertEquals(acquisitions + 1, stats.getLeaseAcquisitions());
+		Assert.assertEquals(hits + 1, stats.getLeaseHits());
+	}
+	
+	@Test
+	public void waitLeaseOfOtherNode() {
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance(ASSET_TYPE, Long.valueOf(Math.abs(UUID.randomUUID().getMostSignificantBits())));
+		String asset = OresHelper.createStringRepresenting(ores);
+		ClusterSyncerStatistics stats = syncer.getStatistics(ASSET_TYPE);
+		long contentions = stats.getContentions();
+		
+		// an other node holds the lease
+		PLock plock = pessimisticLockManager.findOrPersistPLock(asset);
+		long otherExpiration = System.currentTimeMillis() + 500;
+		pessimisticLockManager.updateLease(plock, Integer.valueOf(99), new Date(otherExpiration), null);
+		dbInstance.commitAndCloseSession();
+		
+		String result = syncer.doInSync(ores, () -> "synced");
+		Assert.assertEquals("synced", result);
+		Assert.assertTrue(System.currentTimeMillis() >= otherExpiration);
+		Assert.assertEquals(contentions + 1, stats.getContentions());
+		dbInstance.commitAndCloseSession();
+		
+		PLock leasedLock = pessimisticLockManager.findOrPersistPLock(asset);
+		Assert.assertNotEquals(Integer.valueOf(99), leasedLock.getLeaseNodeId());
+		Assert.assertNull(leasedLock.getLeaseWaitingNodeId());
+		dbInstance.commitAndCloseSession();
+	}
+	
+	@Test
+	public void pruneExpiredLeases() {
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance(ASSET_TYPE, Long.valueOf(Math.abs(UUID.randomUUID().getMostSignificantBits())));
+		String asset = OresHelper.createStringRepresenting(ores);
+		
+		syncer.doInSync(ores, () -> "leased");
+		Assert.assertTrue(syncer.hasLease(asset));
+		
+		// the lease is still valid
+		syncer.pruneExpiredLeases(System.currentTimeMillis());
+		Assert.assertTrue(syncer.hasLease(asset));
+		
+		// later than the end of the lease of 2 seconds
+		syncer.pruneExpiredLeases(System.currentTimeMillis() + 5000);
+		Assert.assertFalse(syncer.hasLease(asset));
+	}
+	
+	@Test
+	public void plockMode() {
+		syncer.setLockMode(ClusterSyncer.LockMode.plock.name());
+		
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance(ASSET_TYPE, Long.valueOf(Math.abs(UUID.randomUUID().getMostSignificantBits())));
+		ClusterSyncerStatistics stats = syncer.getStatistics(ASSET_TYPE);
+		long syncs = stats.getSyncs();
+		long acquisitions = stats.getLeaseAcquisitions();
+		
+		syncer.doInSync(ores, () -> "plock");
+		Assert.assertEquals(syncs + 1, stats.getSyncs());
+		Assert.assertEquals(acquisitions, stats.getLeaseAcquisitions());
+	}
+}
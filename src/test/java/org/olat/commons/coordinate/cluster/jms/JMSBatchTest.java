@@ -0,0 +1,119 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.event.CoalescableEvent;
+import org.olat.core.util.event.MultiUserEvent;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class JMSBatchTest {
+	
+	@Test
+	public void writeReadBatch() throws Exception {
+		OLATResourceable course = OresHelper.createOLATResourceableInstance("CourseModule", Long.valueOf(23l));
+		OLATResourceable group = OresHelper.createOLATResourceableInstance("BusinessGroup", Long.valueOf(24l));
+		OLATResourceable type = OresHelper.createOLATResourceableType("Calendars");
+
+		List<JMSWrapper> wrappers = new ArrayList<>();
+		wrappers.add(new JMSWrapper(2, 10l, course, new MultiUserEvent("changed")));
+		wrappers.add(new JMSWrapper(2, 11l, group, new MultiUserEvent("deleted")));
+		wrappers.add(new JMSWrapper(2, 12l, type, new ChangedEvent("calendar-1")));
+		wrappers.add(new JMSWrapper(2, 13l, course, new MultiUserEvent("changed")));
+		
+		byte[] bytes = JMSBatch.toBytes(2, wrappers);
+		List<JMSWrapper> readWrappers = JMSBatch.fromBytes(bytes);
+		Assert.assertEquals(4, readWrappers.size());
+		for(int i=0; i<wrappers.size(); i++) {
+			JMSWrapper wrapper = wrappers.get(i);
+			JMSWrapper readWrapper = readWrappers.get(i);
+			Assert.assertEquals(Integer.valueOf(2), readWrapper.getNodeId());
+			Assert.assertEquals(wrapper.getMsgId(), readWrapper.getMsgId());
+			Assert.assertEquals(wrapper.getOres().getResourceableTypeName(), readWrapper.getOres().getResourceableTypeName());
+			Assert.assertEquals(wrapper.getOres().getResourceableId(), readWrapper.getOres().getResourceableId());
+			Assert.assertEquals(wrapper.getMultiUserEvent(), readWrapper.getMultiUserEvent());
+		}
+		
+		ChangedEvent readEvent = (ChangedEvent)readWrappers.get(2).getMultiUserEvent();
+		Assert.assertEquals("calendar-1", readEvent.getCalendarId());
+	}
+	
+	@Test
+	public void coalesceEvents() {
+		OLATResourceable course = OresHelper.createOLATResourceableInstance("CourseModule", Long.valueOf(25l));
+		OLATResourceable otherCourse = OresHelper.createOLATResourceableInstance("CourseModule", Long.valueOf(26l));
+		
+		List<JMSWrapper> wrappers = new ArrayList<>();
+		wrappers.add(new JMSWrapper(1, 1l, course, new ChangedEvent("calendar-1")));
+		wrappers.add(new JMSWrapper(1, 2l, course, new ChangedEvent("calendar-1")));
+		wrappers.add(new JMSWrapper(1, 3l, course, new MultiUserEvent("changed")));
+		wrappers.add(new JMSWrapper(1, 4l, course, new MultiUserEvent("changed")));
+		wrappers.add(new JMSWrapper(1, 5l, course, new ChangedEvent("calendar-2")));
+		wrappers.add(new JMSWrapper(1, 6l, course, new ChangedEvent("calendar-1")));
+		wrappers.add(new JMSWrapper(1, 7l, course, new ChangedEvent("calendar-1")));
+		wrappers.add(new JMSWrapper(1, 8l, otherCourse, new ChangedEvent("calendar-1")));
+		wrappers.add(new JMSWrapper(1, 9l, course, new ChangedEvent("calendar-1")));
+		
+		List<JMSWrapper> coalesced = JMSBatch.coalesce(wrappers);
+		Assert.assertEquals(7, coalesced.size());
+		// adjacent run, the latest event wins
+		Assert.assertEquals(2l, coalesced.get(0).getMsgId());
+		// not coalescable
+		Assert.assertEquals(3l, coalesced.get(1).getMsgId());
+		Assert.assertEquals(4l, coalesced.get(2).getMsgId());
+		// other coalescing key
+		Assert.assertEquals(5l, coalesced.get(3).getMsgId());
+		Assert.assertEquals(7l, coalesced.get(4).getMsgId());
+		// an event of an other resource breaks the run, the order is kept
+		Assert.assertEquals(8l, coalesced.get(5).getMsgId());
+		Assert.assertEquals(9l, coalesced.get(6).getMsgId());
+	}
+	
+	private static class ChangedEvent extends MultiUserEvent implements CoalescableEvent {
+
+		private static final long serialVersionUID = -2396219735612862458L;
+		
+		private final String calendarId;
+		
+		public ChangedEvent(String calendarId) {
+			super("calendar-changed");
+			this.calendarId = calendarId;
+		}
+		
+		public String getCalendarId() {
+			return calendarId;
+		}
+
+		@Override
+		public Object getCoalescingKey() {
+			return calendarId;
+		}
+	}
+}
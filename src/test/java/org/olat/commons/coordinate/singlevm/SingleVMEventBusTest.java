@@ -0,0 +1,187 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.commons.coordinate.singlevm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.gui.control.Event;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.event.MultiUserEvent;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * Test the registry of the event bus, the registration, the fire outs and
+ * the deregistration, alone and with concurrent threads.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class SingleVMEventBusTest {
+
+	@Test
+	public void registerFireDeregister() {
+		SingleVMEventBus bus = new SingleVMEventBus();
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance("bus-test", 1l);
+		OLATResourceable typeOres = OresHelper.createOLATResourceableType("bus-test");
+
+		CountingListener listener = new CountingListener();
+		CountingListener typeListener = new CountingListener();
+		bus.registerFor(listener, null, ores);
+		bus.registerFor(typeListener, null, typeOres);
+		Assert.assertEquals(1, bus.getListeningIdentityCntFor(ores));
+		Assert.assertEquals(1, bus.getListeningIdentityCntFor(typeOres));
+
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+		Assert.assertEquals(1, listener.getCount());
+		Assert.assertEquals(1, typeListener.getCount());
+
+		bus.deregisterFor(listener, ores);
+		Assert.assertEquals(0, bus.getListeningIdentityCntFor(ores));
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+		Assert.assertEquals(1, listener.getCount());
+		Assert.assertEquals(2, typeListener.getCount());
+
+		bus.deregisterFor(typeListener, typeOres);
+		Assert.assertEquals(0, bus.getListeningIdentityCntFor(typeOres));
+	}
+
+	@Test
+	public void registerTwice() {
+		SingleVMEventBus bus = new SingleVMEventBus();
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance("bus-test", 2l);
+
+		CountingListener listener = new CountingListener();
+		bus.registerFor(listener, null, ores);
+		bus.registerFor(listener, null, ores);
+		Assert.assertEquals(1, bus.getListeningIdentityCntFor(ores));
+
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+		Assert.assertEquals(1, listener.getCount());
+	}
+
+	/**
+	 * The listeners are weakly referenced. The test waits until the garbage
+	 * collector enqueues the listener, then until the agency drops it.
+	 */
+	@Test
+	public void weakListeners() throws InterruptedException {
+		SingleVMEventBus bus = new SingleVMEventBus();
+		OLATResourceable ores = OresHelper.createOLATResourceableInstance("bus-test", 3l);
+
+		ReferenceQueue<GenericEventListener> queue = new ReferenceQueue<>();
+		WeakReference<GenericEventListener> listenerRef = registerListener(bus, ores, queue);
+		Assert.assertEquals(1, bus.getListeningIdentityCntFor(ores));
+		// fire once to build the snapshot of the listeners
+		bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+
+		Reference<? extends GenericEventListener> cleared = null;
+		for(int i=0; i<50 && cleared == null; i++) {
+			System.gc();
+			cleared = queue.remove(100);
+		}
+		Assert.assertSame("The bus holds a strong reference to the listener", listenerRef, cleared);
+		
+		// the weak map of the agency expunges its entry with its own queue
+		for(int i=0; i<100 && bus.getListeningIdentityCntFor(ores) > 0; i++) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(0, bus.getListeningIdentityCntFor(ores));
+	}
+	
+	private WeakReference<GenericEventListener> registerListener(SingleVMEventBus bus, OLATResourceable ores,
+			ReferenceQueue<GenericEventListener> queue) {
+		CountingListener listener = new CountingListener();
+		bus.registerFor(listener, null, ores);
+		return new WeakReference<>(listener, queue);
+	}
+
+	/**
+	 * No event lost and no listener left with concurrent registrations,
+	 * fire outs and deregistrations.
+	 */
+	@Test
+	public void concurrentRegisterFireDeregister() throws InterruptedException {
+		concurrentRegisterFireDeregister(8, 500);
+	}
+	
+	private void concurrentRegisterFireDeregister(int numOfThreads, int numOfOperations) throws InterruptedException {
+		SingleVMEventBus bus = new SingleVMEventBus();
+		OLATResourceable[] resources = new OLATResourceable[16];
+		for(int i=0; i<resources.length; i++) {
+			resources[i] = OresHelper.createOLATResourceableInstance("bus-concurrent", Long.valueOf(i));
+		}
+
+		List<Throwable> exceptions = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch finish = new CountDownLatch(numOfThreads);
+		for(int i=0; i<numOfThreads; i++) {
+			final int threadIndex = i;
+			new Thread(() -> {
+				try {
+					CountingListener listener = new CountingListener();
+					for(int j=0; j<numOfOperations; j++) {
+						OLATResourceable ores = resources[(threadIndex + j) % resources.length];
+						bus.registerFor(listener, null, ores);
+						bus.fireEventToListenersOf(new MultiUserEvent("test"), ores);
+						bus.deregisterFor(listener, ores);
+					}
+					// the listener is registered during every fire out
+					if(listener.getCount() < numOfOperations) {
+						exceptions.add(new AssertionError("Missing events: " + listener.getCount()));
+					}
+				} catch(Throwable e) {
+					exceptions.add(e);
+				} finally {
+					finish.countDown();
+				}
+			}).start();
+		}
+
+		Assert.assertTrue(finish.await(60, TimeUnit.SECONDS));
+		Assert.assertTrue(exceptions.toString(), exceptions.isEmpty());
+		for(OLATResourceable ores:resources) {
+			Assert.assertEquals(0, bus.getListeningIdentityCntFor(ores));
+		}
+	}
+
+	private static class CountingListener implements GenericEventListener {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public int getCount() {
+			return count.get();
+		}
+
+		@Override
+		public void event(Event event) {
+			count.incrementAndGet();
+		}
+	}
+}
@@ -32,10 +32,15 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -121,6 +126,83 @@ public class DBTest extends OlatTestCase {
 		assertNull("Property.save is NOT rollbacked", p);
 	}
 	
+	@Test
+	public void afterCommit() {
+		AtomicInteger committed = new AtomicInteger();
+		AtomicInteger rolledBack = new AtomicInteger();
+		
+		PropertyManager pm = PropertyManager.getInstance();
+		Property p = pm.createPropertyInstance(null, null, null, null, "testAfterCommit-1", null, null, "testAfterCommit-1", null);
+		pm.saveProperty(p);
+		dbInstance.afterCommit(committed::incrementAndGet);
+		dbInstance.afterRollback(rolledBack::incrementAndGet);
+		Assert.assertEquals(0, committed.get());
+		
+		dbInstance.commit();
+		Assert.assertEquals(1, committed.get());
+		Assert.assertEquals(0, rolledBack.get());
+		
+		// the callbacks run only once
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(1, committed.get());
+		
+		// no transaction, run immediately
+		dbInstance.afterCommit(committed::incrementAndGet);
+		Assert.assertEquals(2, committed.get());
+	}
+	
+	@Test
+	public void afterRollback() {
+		AtomicInteger committed = new AtomicInteger();
+		AtomicInteger rolledBack = new AtomicInteger();
+		
+		PropertyManager pm = PropertyManager.getInstance();
+		Property p = pm.createPropertyInstance(null, null, null, null, "testAfterRollback-1", null, null, "testAfterRollback-1", null);
+		pm.saveProperty(p);
+		dbInstance.afterCommit(committed::incrementAndGet);
+		dbInstance.afterRollback(rolledBack::incrementAndGet);
+		
+		dbInstance.rollbackAndCloseSession();
+		Assert.assertEquals(0, committed.get());
+		Assert.assertEquals(1, rolledBack.get());
+		
+		// discarded with the rollback
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(0, committed.get());
+	}
+	
+	@Test
+	public void afterCommitBatch() {
+		List<Set<String>> published = new ArrayList<>();
+		AfterCommitBatch<Set<String>> batch = new AfterCommitBatch<>(dbInstance, HashSet::new, published::add);
+		
+		PropertyManager pm = PropertyManager.getInstance();
+		Property p = pm.createPropertyInstance(null, null, null, null, "testAfterCommitBatch-1", null, null, "testAfterCommitBatch-1", null);
+		pm.saveProperty(p);
+		batch.add(keys -> keys.add("a"));
+		batch.add(keys -> keys.add("b"));
+		Assert.assertTrue(published.isEmpty());
+		Assert.assertTrue(batch.getPending().contains("a"));
+		
+		// one publication per transaction
+		dbInstance.commit();
+		Assert.assertEquals(1, published.size());
+		Assert.assertEquals(2, published.get(0).size());
+		Assert.assertNull(batch.getPending());
+		
+		// discarded with the rollback
+		pm.saveProperty(pm.createPropertyInstance(null, null, null, null, "testAfterCommitBatch-2", null, null, "testAfterCommitBatch-2", null));
+		batch.add(keys -> keys.add("c"));
+		dbInstance.rollbackAndCloseSession();
+		Assert.assertEquals(1, published.size());
+		Assert.assertNull(batch.getPending());
+		
+		// no transaction, published immediately
+		batch.add(keys -> keys.add("d"));
+		Assert.assertEquals(2, published.size());
+		Assert.assertTrue(published.get(1).contains("d"));
+	}
+	
 	@Test
 	public void testMixedNonTransactional_Transactional() {
 		String propertyKey1 = "testMixed-1";
@@ -34,13 +34,17 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang.time.DateUtils;
 import org.junit.Assert;
 import org.junit.Test;
+import org.olat.basesecurity.BaseSecurity;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.services.notifications.NotificationsManager;
 import org.olat.core.commons.services.notifications.Publisher;
@@ -74,6 +78,8 @@ public class NotificationsManagerTest extends OlatTestCase {
 	private NotificationsManager notificationManager;
 	@Autowired
 	private DB dbInstance;
+	@Autowired
+	private BaseSecurity securityManager;
 
 	@Test
 	public void getUserIntervalOrDefault() {
@@ -299,6 +305,107 @@ public class NotificationsManagerTest extends OlatTestCase {
 		Assert.assertEquals(id1, subscribers.get(0).getIdentity());
 	}
 	
+	@Test
+	public void getIdentityKeysWithPendingNews() {
+		Identity id1 = JunitTestHelper.createAndPersistIdentityAsUser("pending-" + UUID.randomUUID().toString());
+		Identity id2 = JunitTestHelper.createAndPersistIdentityAsUser("pending-" + UUID.randomUUID().toString());
+		//create a publisher
+		String identifier = UUID.randomUUID().toString().replace("-", "");
+		SubscriptionContext context = new SubscriptionContext("Pending", new Long(123), identifier);
+		PublisherData publisherData = new PublisherData("testPendingNews", "e.g. forumdata=keyofforum", null);
+		Publisher publisher = notificationManager.getOrCreatePublisher(context, publisherData);
+		notificationManager.subscribe(id1, context, publisherData);
+		dbInstance.commitAndCloseSession();
+		Assert.assertNotNull(publisher);
+		
+		//no news since the subscription
+		Date defaultCompareDate = DateUtils.addDays(new Date(), -30);
+		NotificationsManagerImpl notificationManagerImpl = (NotificationsManagerImpl)notificationManager;
+		List<Long> identityKeys = notificationManagerImpl.getIdentityKeysWithPendingNews(defaultCompareDate);
+		Assert.assertFalse(identityKeys.contains(id1.getKey()));
+		
+		//news
+		markNewsUntilPending(context, id1, defaultCompareDate);
+		
+		List<Long> pendingKeys = notificationManagerImpl.getIdentityKeysWithPendingNews(defaultCompareDate);
+		Assert.assertTrue(pendingKeys.contains(id1.getKey()));
+		Assert.assertFalse(pendingKeys.contains(id2.getKey()));
+	}
+	
+	/**
+	 * More users than a partition of the email job (500), two workers and
+	 * some guests subscribed to the same publisher.
+	 */
+	@Test
+	public void notifyAllSubscribersByEmailPartitioned() {
+		List<Identity> users = new ArrayList<>();
+		for(int i=0; i<510; i++) {
+			users.add(JunitTestHelper.createAndPersistIdentityAsUser("part-" + i + "-" + UUID.randomUUID().toString()));
+			if(i % 50 == 0) {
+				dbInstance.commitAndCloseSession();
+			}
+		}
+		List<Identity> guests = new ArrayList<>();
+		guests.add(securityManager.getAndUpdateAnonymousUserForLanguage(Locale.ENGLISH));
+		guests.add(securityManager.getAndUpdateAnonymousUserForLanguage(Locale.GERMAN));
+		dbInstance.commitAndCloseSession();
+		
+		String identifier = UUID.randomUUID().toString().replace("-", "");
+		SubscriptionContext context = new SubscriptionContext("Partition", new Long(123), identifier);
+		PublisherData publisherData = new PublisherData("testPartition", "e.g. forumdata=keyofforum", null);
+		List<Identity> subscribers = new ArrayList<>(users);
+		subscribers.addAll(guests);
+		notificationManager.subscribe(subscribers, context, publisherData);
+		dbInstance.commitAndCloseSession();
+		
+		Date defaultCompareDate = DateUtils.addDays(new Date(), -30);
+		markNewsUntilPending(context, users.get(users.size() - 1), defaultCompareDate);
+		
+		//the guests have news but are filtered
+		NotificationsManagerImpl notificationManagerImpl = (NotificationsManagerImpl)notificationManager;
+		List<Long> pendingKeys = notificationManagerImpl.getIdentityKeysWithPendingNews(defaultCompareDate);
+		for(Identity guest:guests) {
+			Assert.assertTrue(pendingKeys.contains(guest.getKey()));
+		}
+		List<Long> filteredKeys = notificationManagerImpl.filterGuests(pendingKeys);
+		for(Identity guest:guests) {
+			Assert.assertFalse(filteredKeys.contains(guest.getKey()));
+		}
+		for(Identity user:users) {
+			Assert.assertTrue(filteredKeys.contains(user.getKey()));
+		}
+		dbInstance.commitAndCloseSession();
+		
+		//every partition is processed
+		int emailWorkers = notificationManagerImpl.getEmailWorkers();
+		try {
+			notificationManagerImpl.setEmailWorkers(2);
+			int processed = notificationManagerImpl.notifyAllSubscribersByEmailPartitioned();
+			Assert.assertTrue(processed >= users.size());
+		} finally {
+			notificationManagerImpl.setEmailWorkers(emailWorkers);
+		}
+	}
+	
+	/**
+	 * Mark the publisher with news until the news are strictly after
+	 * the subscription of the specified identity, the dates in the database
+	 * can be truncated to the second.
+	 */
+	private void markNewsUntilPending(SubscriptionContext context, Identity identity, Date defaultCompareDate) {
+		NotificationsManagerImpl notificationManagerImpl = (NotificationsManagerImpl)notificationManager;
+		boolean pending = false;
+		for(int i=0; i<100 && !pending; i++) {
+			notificationManager.markPublisherNews(context, null, false);
+			dbInstance.commitAndCloseSession();
+			pending = notificationManagerImpl.getIdentityKeysWithPendingNews(defaultCompareDate).contains(identity.getKey());
+			if(!pending) {
+				sleep(50);
+			}
+		}
+		Assert.assertTrue(pending);
+	}
+	
 	@Test
 	public void testValidSubscribersOf() {
 		Identity id1 = JunitTestHelper.createAndPersistIdentityAsUser("valid1b-" + UUID.randomUUID().toString());
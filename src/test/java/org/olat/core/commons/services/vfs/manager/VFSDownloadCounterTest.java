@@ -0,0 +1,104 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.commons.services.vfs.manager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.services.vfs.VFSMetadata;
+import org.olat.core.commons.services.vfs.model.VFSMetadataDownloads;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class VFSDownloadCounterTest extends OlatTestCase {
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private VFSMetadataDAO vfsMetadataDao;
+	@Autowired
+	private VFSDownloadCounter downloadCounter;
+	
+	@Test
+	public void increaseAndFlush() {
+		String relativePath = "/bcroot/counter/" + UUID.randomUUID().toString() + "/";
+		VFSMetadata metadata = createMetadata(relativePath);
+		
+		downloadCounter.increaseDownloadCount(relativePath, metadata.getFilename());
+		downloadCounter.increaseDownloadCount(relativePath, metadata.getFilename());
+		downloadCounter.increaseDownloadCount(relativePath, metadata.getFilename());
+		Assert.assertTrue(downloadCounter.isDeferred());
+		Assert.assertEquals(3, downloadCounter.getPendingDownloadCount(relativePath, metadata.getFilename()));
+		
+		VFSMetadata reloadedMetadata = vfsMetadataDao.loadMetadata(metadata.getKey());
+		Assert.assertEquals(0, reloadedMetadata.getDownloadCount());
+		dbInstance.commitAndCloseSession();
+		
+		Assert.assertTrue(downloadCounter.flush() >= 1);
+		Assert.assertEquals(0, downloadCounter.getPendingDownloadCount(relativePath, metadata.getFilename()));
+		
+		VFSMetadata flushedMetadata = vfsMetadataDao.loadMetadata(metadata.getKey());
+		Assert.assertEquals(3, flushedMetadata.getDownloadCount());
+	}
+	
+	@Test
+	public void mostDownloadedWithPendingDownloads() {
+		String relativePath = "/bcroot/counter/" + UUID.randomUUID().toString() + "/";
+		VFSMetadata metadata1 = createMetadata(relativePath);
+		VFSMetadata metadata2 = createMetadata(relativePath);
+		vfsMetadataDao.increaseDownloadCount(relativePath, metadata1.getFilename(), 2);
+		dbInstance.commitAndCloseSession();
+		
+		for(int i=0; i<5; i++) {
+			downloadCounter.increaseDownloadCount(relativePath, metadata2.getFilename());
+		}
+		
+		List<VFSMetadataDownloads> mostDownloaded = downloadCounter.getMostDownloaded(relativePath, 1);
+		Assert.assertEquals(1, mostDownloaded.size());
+		Assert.assertEquals(metadata2, mostDownloaded.get(0).getMetadata());
+		Assert.assertEquals(5, mostDownloaded.get(0).getDownloadCount());
+		// the metadata are not touched
+		Assert.assertEquals(0, mostDownloaded.get(0).getMetadata().getDownloadCount());
+		dbInstance.commitAndCloseSession();
+		
+		// the view doesn't write the counter
+		downloadCounter.flush();
+		VFSMetadata flushedMetadata = vfsMetadataDao.loadMetadata(metadata2.getKey());
+		Assert.assertEquals(5, flushedMetadata.getDownloadCount());
+	}
+	
+	private VFSMetadata createMetadata(String relativePath) {
+		String uuid = UUID.randomUUID().toString();
+		String filename = uuid + ".pdf";
+		String uri = "file:///Users/frentix/Documents" + relativePath + filename;
+		VFSMetadata metadata = vfsMetadataDao.createMetadata(uuid, relativePath, filename, new Date(), 18l, false, uri, "file", null);
+		dbInstance.commitAndCloseSession();
+		return metadata;
+	}
+}
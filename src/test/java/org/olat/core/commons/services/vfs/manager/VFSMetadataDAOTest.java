@@ -19,7 +19,13 @@
  */
 package org.olat.core.commons.services.vfs.manager;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.Assert;
@@ -110,6 +116,34 @@ public class VFSMetadataDAOTest extends OlatTestCase {
 		Assert.assertEquals(uriProtocol, metadata.getProtocol());
 	}
 
+	@Test
+	public void getFilesMetadata() {
+		String uuid = UUID.randomUUID().toString();
+		String relativePath1 = "/bcroot/hello/" + uuid + "/one/";
+		String relativePath2 = "/bcroot/hello/" + uuid + "/two/";
+		String uri = "file:///Users/frentix/Documents/bcroot/hello/world/image.jpg";
+		VFSMetadata metadata1 = vfsMetadataDao.createMetadata(UUID.randomUUID().toString(), relativePath1, "image.jpg", new Date(), 18l, false, uri, "file", null);
+		VFSMetadata metadata2 = vfsMetadataDao.createMetadata(UUID.randomUUID().toString(), relativePath2, "document.pdf", new Date(), 18l, false, uri, "file", null);
+		VFSMetadata metadata3 = vfsMetadataDao.createMetadata(UUID.randomUUID().toString(), relativePath2, "image.jpg", new Date(), 18l, false, uri, "file", null);
+		dbInstance.commitAndCloseSession();
+		
+		// more names than in a batch
+		Set<String> filenames1 = new HashSet<>();
+		filenames1.add("image.jpg");
+		for(int i=0; i<600; i++) {
+			filenames1.add("missing_" + i + ".txt");
+		}
+		Map<String,Set<String>> filenamesByPath = new HashMap<>();
+		filenamesByPath.put(relativePath1, filenames1);
+		filenamesByPath.put(relativePath2, Collections.singleton("document.pdf"));
+		
+		List<VFSMetadata> metadata = vfsMetadataDao.getFilesMetadata(filenamesByPath);
+		Assert.assertEquals(2, metadata.size());
+		Assert.assertTrue(metadata.contains(metadata1));
+		Assert.assertTrue(metadata.contains(metadata2));
+		Assert.assertFalse(metadata.contains(metadata3));
+	}
+
 	@Test
 	public void incrementDownloadCounter() {
 		String uuid = UUID.randomUUID().toString();
@@ -0,0 +1,93 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.commons.services.vfs.manager;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.commons.services.vfs.manager.VFSThumbnailQueue.Format;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class VFSThumbnailQueueTest extends OlatTestCase {
+	
+	@Autowired
+	private VFSThumbnailQueue thumbnailQueue;
+	
+	@Test
+	public void formatOfFilename() {
+		Assert.assertEquals(Format.image, Format.valueOfFilename("image.JPG"));
+		Assert.assertEquals(Format.image, Format.valueOfFilename("image.png"));
+		Assert.assertEquals(Format.pdf, Format.valueOfFilename("document.pdf"));
+		Assert.assertEquals(Format.other, Format.valueOfFilename("movie.mp4"));
+		Assert.assertEquals(Format.other, Format.valueOfFilename("noextension"));
+	}
+	
+	@Test
+	public void submitOnlyOnce() throws Exception {
+		Assert.assertTrue(thumbnailQueue.isEnabled());
+		
+		String key = UUID.randomUUID().toString();
+		long generated = thumbnailQueue.getGenerated();
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+		Runnable generator = () -> {
+			runs.incrementAndGet();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		
+		Assert.assertTrue(thumbnailQueue.submit(key, "document.pdf", generator));
+		Assert.assertTrue(thumbnailQueue.isPending(key));
+		// already queued
+		Assert.assertTrue(thumbnailQueue.submit(key, "document.pdf", generator));
+		release.countDown();
+		
+		boolean done = waitForCondition(() -> !thumbnailQueue.isPending(key), 10000);
+		Assert.assertTrue(done);
+		Assert.assertEquals(1, runs.get());
+		Assert.assertTrue(thumbnailQueue.getGenerated() > generated);
+	}
+	
+	@Test
+	public void failedGeneration() throws Exception {
+		String key = UUID.randomUUID().toString();
+		long failed = thumbnailQueue.getFailed();
+		Assert.assertTrue(thumbnailQueue.submit(key, "image.jpg", () -> {
+			throw new IllegalStateException("Generation failed");
+		}));
+		
+		boolean done = waitForCondition(() -> !thumbnailQueue.isPending(key), 10000);
+		Assert.assertTrue(done);
+		Assert.assertTrue(thumbnailQueue.getFailed() > failed);
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.media;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.util.FileUtils;
+import org.olat.test.OlatTestCase;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Test the delivery of the files with the file channel, the ranges
+ * and the ETags.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ServletUtilTest extends OlatTestCase {
+	
+	private File file;
+	private byte[] content;
+	
+	@Before
+	public void createFile() throws IOException {
+		content = new byte[256 * 1024];
+		new Random(42l).nextBytes(content);
+		file = File.createTempFile("servlet_util", ".mp4");
+		Files.write(file.toPath(), content);
+	}
+	
+	@After
+	public void deleteFile() {
+		FileUtils.deleteFile(file);
+	}
+	
+	@Test
+	public void serveFile() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ServletUtil.serveResource(request, response, new FileMediaResource(file));
+		
+		Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		Assert.assertEquals(content.length, response.getContentLengthLong());
+		Assert.assertArrayEquals(content, response.getContentAsByteArray());
+		Assert.assertNotNull(response.getHeader("ETag"));
+	}
+	
+	@Test
+	public void serveRange() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=1000-1999");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ServletUtil.serveResource(request, response, new FileMediaResource(file));
+		
+		Assert.assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		Assert.assertEquals("bytes 1000-1999/" + content.length, response.getHeader("Content-Range"));
+		Assert.assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), response.getContentAsByteArray());
+	}
+	
+	@Test
+	public void notModifiedWithETag() {
+		FileMediaResource resource = new FileMediaResource(file);
+		String eTag = resource.getETag();
+		Assert.assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+		
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "\"an-other-tag\", " + eTag);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ServletUtil.serveResource(request, response, resource);
+		
+		Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+		Assert.assertEquals(0, response.getContentAsByteArray().length);
+	}
+	
+	@Test
+	public void ifRangeWithOtherETag() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=1000-1999");
+		request.addHeader("If-Range", "\"an-other-tag\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ServletUtil.serveResource(request, response, new FileMediaResource(file));
+		
+		Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		Assert.assertArrayEquals(content, response.getContentAsByteArray());
+	}
+	
+	@Test
+	public void sendfile() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		request.addHeader("Range", "bytes=1000-");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ServletUtil.serveResource(request, response, new FileMediaResource(file));
+		
+		Assert.assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		Assert.assertEquals(file.getCanonicalPath(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		Assert.assertEquals(Long.valueOf(1000l), request.getAttribute("org.apache.tomcat.sendfile.start"));
+		Assert.assertEquals(Long.valueOf(content.length), request.getAttribute("org.apache.tomcat.sendfile.end"));
+		Assert.assertEquals(0, response.getContentAsByteArray().length);
+	}
+	
+	@Test
+	public void noSendfileIfDeletedAfterDelivery() throws IOException {
+		File copy = File.createTempFile("servlet_util", ".zip");
+		Files.write(copy.toPath(), content);
+		
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ServletUtil.serveResource(request, response, new CleanupAfterDeliveryFileMediaResource(copy));
+		
+		Assert.assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		Assert.assertArrayEquals(content, response.getContentAsByteArray());
+		Assert.assertFalse(copy.exists());
+	}
+	
+	@Test
+	public void noSendfileIfNamedFileDeletedAfterDelivery() throws IOException {
+		File copy = File.createTempFile("servlet_util", ".zip");
+		Files.write(copy.toPath(), content);
+		
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ServletUtil.serveResource(request, response, new NamedFileMediaResource(copy, "export.zip", "Export", true));
+		
+		Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		Assert.assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		Assert.assertArrayEquals(content, response.getContentAsByteArray());
+		Assert.assertFalse(copy.exists());
+	}
+}
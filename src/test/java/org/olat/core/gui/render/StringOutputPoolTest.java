@@ -0,0 +1,167 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.gui.render;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check the reuse of the buffers by the pool, alone and under
+ * concurrent rendering.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class StringOutputPoolTest {
+	
+	@Test
+	public void reuseBuffer() throws InterruptedException {
+		inNewThread(() -> {
+			StringOutput first = StringOutputPool.allocStringBuilder(2048);
+			first.append("Hello");
+			Assert.assertEquals("Hello", StringOutputPool.freePop(first));
+			
+			StringOutput second = StringOutputPool.allocStringBuilder(2048);
+			Assert.assertSame(first, second);
+			Assert.assertEquals(0, second.length());
+		});
+	}
+	
+	@Test
+	public void reuseBufferOfSameSizeClass() throws InterruptedException {
+		inNewThread(() -> {
+			StringOutput large = StringOutputPool.allocStringBuilder(100000);
+			StringOutputPool.free(large);
+			
+			// a small request doesn't take the large buffer
+			StringOutput small = StringOutputPool.allocStringBuilder(100);
+			Assert.assertNotSame(large, small);
+			
+			StringOutput render = StringOutputPool.allocStringBuilder(100000);
+			Assert.assertSame(large, render);
+		});
+	}
+	
+	@Test
+	public void discardOversizeBuffer() throws InterruptedException {
+		inNewThread(() -> {
+			long discarded = StringOutputPool.getDiscardedOversize();
+			
+			StringOutput huge = StringOutputPool.allocStringBuilder(300000);
+			StringOutputPool.free(huge);
+			Assert.assertTrue(StringOutputPool.getDiscardedOversize() > discarded);
+			
+			StringOutput render = StringOutputPool.allocStringBuilder(200000);
+			Assert.assertNotSame(huge, render);
+		});
+	}
+	
+	@Test
+	public void bufferFromAnOtherThread() throws InterruptedException {
+		final List<StringOutput> buffers = new ArrayList<>();
+		inNewThread(() -> buffers.add(StringOutputPool.allocStringBuilder(1024)));
+		inNewThread(() -> {
+			StringOutput buffer = buffers.get(0);
+			buffer.append("Freed by an other thread");
+			StringOutputPool.free(buffer);
+			Assert.assertSame(buffer, StringOutputPool.allocStringBuilder(1024));
+		});
+	}
+	
+	/**
+	 * Every buffer allocated by concurrent renderings is freed and the
+	 * buffers are reused.
+	 */
+	@Test
+	public void concurrentRendering() throws InterruptedException {
+		StringOutputPool.resetStatistics();
+		render(4, 500, StringOutputPool::allocStringBuilder, StringOutputPool::freePop);
+
+		Assert.assertEquals(StringOutputPool.getAllocations(), StringOutputPool.getFrees());
+		Assert.assertTrue(StringOutputPool.getHits() > 0);
+	}
+	
+	/**
+	 * Run the test in a new thread with an empty pool.
+	 */
+	private void inNewThread(Runnable test) throws InterruptedException {
+		final List<Throwable> errors = new ArrayList<>();
+		Thread thread = new Thread(() -> {
+			try {
+				test.run();
+			} catch (Throwable e) {
+				errors.add(e);
+			}
+		});
+		thread.start();
+		thread.join();
+		if(!errors.isEmpty()) {
+			throw new AssertionError(errors.get(0));
+		}
+	}
+	
+	/**
+	 * Every thread renders a window with some components in small buffers.
+	 */
+	private void render(int numOfThreads, int numOfRenders, IntFunction<StringOutput> alloc, Function<StringOutput,String> free)
+	throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch finish = new CountDownLatch(numOfThreads);
+		final List<Throwable> errors = new ArrayList<>();
+		for(int i=0; i<numOfThreads; i++) {
+			new Thread(() -> {
+				try {
+					start.await();
+					for(int j=0; j<numOfRenders; j++) {
+						StringOutput window = alloc.apply(100000);
+						for(int k=0; k<10; k++) {
+							StringOutput component = alloc.apply(2048);
+							for(int l=0; l<20; l++) {
+								component.append("<div class='o_component'>").append(l).append("</div>");
+							}
+							window.append(free.apply(component));
+						}
+						if(window.length() == 0) {
+							throw new AssertionError("Nothing rendered");
+						}
+						free.apply(window);
+					}
+				} catch (Throwable e) {
+					synchronized(errors) {
+						errors.add(e);
+					}
+				} finally {
+					finish.countDown();
+				}
+			}).start();
+		}
+		
+		start.countDown();
+		Assert.assertTrue(finish.await(5, TimeUnit.MINUTES));
+		Assert.assertTrue(errors.isEmpty());
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.logging.activity;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.id.Identity;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class UserActivityLogWriterTest extends OlatTestCase {
+	
+	@Autowired
+	private DB dbInstance;
+	
+	@Test
+	public void writeAsync() throws Exception {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("log-async-");
+		dbInstance.commitAndCloseSession();
+		
+		UserActivityLogWriter writer = new UserActivityLogWriter();
+		writer.setDbInstance(dbInstance);
+		writer.setAsyncEnabled(true);
+		writer.setQueueCapacity(100);
+		writer.setFlushSize(10);
+		writer.setFlushInterval(100);
+		writer.setBackPressure("block");
+		// start and stop the writer without replacing the instance of Spring
+		writer.start();
+		
+		String sessionId = UUID.randomUUID().toString();
+		for(int i=0; i<25; i++) {
+			LoggingObject logObj = new LoggingObject(sessionId, id.getKey(), "r", "launch", "async");
+			writer.write(logObj);
+		}
+		// drain the queue
+		writer.stop();
+		
+		Assert.assertEquals(25, writer.getWrittenCount());
+		Assert.assertEquals(0, writer.getQueueDepth());
+		Assert.assertEquals(0, writer.getFailedCount());
+		Assert.assertTrue(writer.getFlushCount() >= 3);
+		Assert.assertNotSame(writer, UserActivityLogWriter.getInstance());
+		
+		List<Long> keys = dbInstance.getCurrentEntityManager()
+				.createQuery("select log.key from loggingobject log where log.sessionId=:sessionId", Long.class)
+				.setParameter("sessionId", sessionId)
+				.getResultList();
+		Assert.assertEquals(25, keys.size());
+	}
+	
+	@Test
+	public void backPressurePolicy() {
+		UserActivityLogWriter writer = new UserActivityLogWriter();
+		writer.setDbInstance(dbInstance);
+		writer.setBackPressure("drop");
+		Assert.assertEquals("drop", writer.getBackPressurePolicy());
+		writer.setBackPressure("unknown");
+		Assert.assertEquals("sync", writer.getBackPressurePolicy());
+	}
+}
@@ -19,10 +19,15 @@
  */
 package org.olat.core.util.openxml;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
@@ -74,6 +79,55 @@ public class OpenXmlWorkbookTest {
 		file.delete();
 	}
 	
+	@Test
+	public void sharedStringsIndex() {
+		OpenXMLWorkbookSharedStrings sharedStrings = new OpenXMLWorkbookSharedStrings(4);
+		int hello = sharedStrings.add("Hello");
+		int world = sharedStrings.add("World");
+		Assert.assertEquals(hello, sharedStrings.add("Hello"));
+		Assert.assertEquals(world, sharedStrings.add("World"));
+		Assert.assertNotEquals(hello, world);
+		
+		Assert.assertTrue(sharedStrings.add("Bonjour") >= 0);
+		// the table is full
+		Assert.assertEquals(-1, sharedStrings.add("Monde"));
+		Assert.assertEquals(hello, sharedStrings.add("Hello"));
+		Assert.assertEquals(4, sharedStrings.size());
+	}
+	
+	@Test
+	public void inlineStrings() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(OpenXMLWorkbook workbook = new OpenXMLWorkbook(out, 1, 2)) {
+			OpenXMLWorksheet sheet = workbook.nextWorksheet();
+			Row row = sheet.newRow();
+			row.addCell(0, "Shared", null);
+			row.addCell(1, "Inline <b>", null);
+			row.addCell(2, "Shared", null);
+			row.addCell(3, 42, null);
+		}
+		
+		String sheetXml = null;
+		String sharedStringsXml = null;
+		try(ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			ZipEntry entry;
+			while((entry = zin.getNextEntry()) != null) {
+				if("xl/worksheets/sheet1.xml".equals(entry.getName())) {
+					sheetXml = IOUtils.toString(zin, StandardCharsets.UTF_8);
+				} else if("xl/sharedStrings.xml".equals(entry.getName())) {
+					sharedStringsXml = IOUtils.toString(zin, StandardCharsets.UTF_8);
+				}
+			}
+		}
+		
+		Assert.assertNotNull(sheetXml);
+		Assert.assertNotNull(sharedStringsXml);
+		Assert.assertTrue(sheetXml.contains("t=\"inlineStr\""));
+		Assert.assertTrue(sheetXml.contains("<![CDATA[Inline <b>]]>"));
+		Assert.assertTrue(sharedStringsXml.contains("Shared"));
+		Assert.assertFalse(sharedStringsXml.contains("Inline"));
+	}
+	
 	/**
 	 * Don't forget that the argument of getColumn is zero based
 	 * @throws IOException
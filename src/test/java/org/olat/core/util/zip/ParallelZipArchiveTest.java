@@ -0,0 +1,284 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.core.util.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.olat.core.util.FileUtils;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ParallelZipArchiveTest {
+	
+	private static final int CHUNK_SIZE = 64 * 1024;
+	// an extra field: header id, length and data
+	private static final byte[] EXTRA = new byte[] { 0x4F, 0x4C, 0x04, 0x00, 0x01, 0x02, 0x03, 0x04 };
+	
+	private static ExecutorService executor;
+	
+	@BeforeClass
+	public static void startExecutor() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+	
+	@AfterClass
+	public static void stopExecutor() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void isCompressed() {
+		Assert.assertTrue(ParallelZipArchive.isCompressed("image.JPG"));
+		Assert.assertTrue(ParallelZipArchive.isCompressed("movie.mp4"));
+		Assert.assertTrue(ParallelZipArchive.isCompressed("archive.zip"));
+		Assert.assertFalse(ParallelZipArchive.isCompressed("text.txt"));
+		Assert.assertFalse(ParallelZipArchive.isCompressed("noextension"));
+	}
+	
+	@Test
+	public void zipFilesAndStreams() throws IOException {
+		Map<String,byte[]> contents = new HashMap<>();
+		contents.put("text.txt", text(1000));
+		contents.put("dir/large.xml", text(10 * CHUNK_SIZE + 123));
+		contents.put("dir/exact.txt", text(2 * CHUNK_SIZE));
+		contents.put("dir/photo.jpg", random(3 * CHUNK_SIZE + 7));
+		contents.put("empty.txt", new byte[0]);
+		contents.put("stream.txt", text(5 * CHUNK_SIZE + 11));
+		contents.put("exact_stream.txt", text(CHUNK_SIZE));
+		contents.put("\u00E9t\u00E9.txt", text(10));
+		
+		File dir = Files.createTempDirectory("zip").toFile();
+		File zipFile = new File(dir, "test.zip");
+		try {
+			// small memory cap to test the back pressure
+			try(ParallelZipArchive archive = new ParallelZipArchive(Files.newOutputStream(zipFile.toPath()),
+					executor, Deflater.DEFAULT_COMPRESSION, CHUNK_SIZE, 3 * CHUNK_SIZE, 8)) {
+				archive.addDirectory("dir", System.currentTimeMillis());
+				for(Map.Entry<String,byte[]> content:contents.entrySet()) {
+					String name = content.getKey();
+					if(name.startsWith("stream") || name.startsWith("exact_stream")) {
+						archive.addStream(name, new ByteArrayInputStream(content.getValue()), System.currentTimeMillis(), null);
+					} else {
+						File file = new File(dir, "f_" + Math.abs(name.hashCode()));
+						Files.write(file.toPath(), content.getValue());
+						archive.addFile(name, file, file.lastModified(), EXTRA);
+					}
+				}
+			}
+			
+			// the streamed reader checks the data descriptors and the CRC
+			int numOfFiles = 0;
+			try(ZipInputStream in = new ZipInputStream(Files.newInputStream(zipFile.toPath()))) {
+				for(ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+					if(entry.isDirectory()) {
+						Assert.assertEquals("dir/", entry.getName());
+					} else {
+						byte[] expected = contents.get(entry.getName());
+						Assert.assertNotNull(entry.getName(), expected);
+						Assert.assertTrue(entry.getName(), Arrays.equals(expected, IOUtils.toByteArray(in)));
+						numOfFiles++;
+					}
+				}
+			}
+			Assert.assertEquals(contents.size(), numOfFiles);
+			
+			// the central directory
+			try(ZipFile zip = new ZipFile(zipFile)) {
+				Assert.assertEquals(contents.size() + 1, zip.size());
+				for(Map.Entry<String,byte[]> content:contents.entrySet()) {
+					ZipEntry entry = zip.getEntry(content.getKey());
+					Assert.assertNotNull(entry);
+					Assert.assertEquals(content.getValue().length, entry.getSize());
+					try(InputStream in = zip.getInputStream(entry)) {
+						Assert.assertTrue(Arrays.equals(content.getValue(), IOUtils.toByteArray(in)));
+					}
+				}
+				
+				// text is deflated, the photo only stored in a deflate stream
+				ZipEntry large = zip.getEntry("dir/large.xml");
+				Assert.assertTrue(large.getCompressedSize() < large.getSize() / 4);
+				ZipEntry photo = zip.getEntry("dir/photo.jpg");
+				Assert.assertTrue(photo.getCompressedSize() >= photo.getSize());
+			}
+		} finally {
+			FileUtils.deleteDirsAndFiles(dir, true, true);
+		}
+	}
+	
+	@Test
+	public void unreadableStream() throws IOException {
+		byte[] readable = text(2 * CHUNK_SIZE);
+		// the disk fails after 2 chunks, the entry is already started
+		InputStream failingIn = new FilterInputStream(new ByteArrayInputStream(readable)) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int read = super.read(b, off, len);
+				if(read < 0) {
+					throw new IOException("Disk error");
+				}
+				return read;
+			}
+		};
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(ParallelZipArchive archive = new ParallelZipArchive(out,
+				executor, Deflater.DEFAULT_COMPRESSION, CHUNK_SIZE, 3 * CHUNK_SIZE, 8)) {
+			archive.addStream("ok.txt", new ByteArrayInputStream(text(10)), 0l, null);
+			try {
+				archive.addStream("broken.txt", failingIn, 0l, null);
+				Assert.fail("The stream cannot be read");
+			} catch(IOException e) {
+				// the archive is aborted
+			}
+			Assert.assertTrue(archive.isFailed());
+			try {
+				archive.addStream("after.txt", new ByteArrayInputStream(text(10)), 0l, null);
+				Assert.fail("An aborted archive cannot be extended");
+			} catch(IOException e) {
+				// expected
+			}
+		}
+		
+		// no central directory, the truncated entry cannot pass as a valid file
+		File zipFile = File.createTempFile("broken", ".zip");
+		try {
+			Files.write(zipFile.toPath(), out.toByteArray());
+			try(ZipFile zip = new ZipFile(zipFile)) {
+				Assert.assertNull(zip.getEntry("broken.txt"));
+			} catch(ZipException e) {
+				// expected
+			}
+		} finally {
+			Files.deleteIfExists(zipFile.toPath());
+		}
+	}
+	
+	@Test
+	public void unopenableStream() throws IOException {
+		// the disk fails at the first read, nothing is written
+		InputStream failingIn = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("Disk error");
+			}
+		};
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(ParallelZipArchive archive = new ParallelZipArchive(out,
+				executor, Deflater.DEFAULT_COMPRESSION, CHUNK_SIZE, 3 * CHUNK_SIZE, 8)) {
+			try {
+				archive.addStream("broken.txt", failingIn, 0l, null);
+				Assert.fail("The stream cannot be read");
+			} catch(IOException e) {
+				// the file is skipped, the archive goes on
+			}
+			Assert.assertFalse(archive.isFailed());
+			archive.addStream("ok.txt", new ByteArrayInputStream(text(10)), 0l, null);
+		}
+		
+		Map<String,byte[]> entries = new HashMap<>();
+		try(ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for(ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+				entries.put(entry.getName(), IOUtils.toByteArray(in));
+			}
+		}
+		Assert.assertEquals(1, entries.size());
+		Assert.assertTrue(Arrays.equals(text(10), entries.get("ok.txt")));
+	}
+	
+	@Test
+	public void unopenableFile() throws IOException {
+		File dir = Files.createTempDirectory("zip").toFile();
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try(ParallelZipArchive archive = new ParallelZipArchive(out,
+					executor, Deflater.DEFAULT_COMPRESSION, CHUNK_SIZE, 3 * CHUNK_SIZE, 8)) {
+				try {
+					archive.addFile("missing.txt", new File(dir, "missing.txt"), 0l, null);
+					Assert.fail("The file doesn't exist");
+				} catch(IOException e) {
+					// the file is skipped, the archive goes on
+				}
+				Assert.assertFalse(archive.isFailed());
+				archive.addStream("ok.txt", new ByteArrayInputStream(text(10)), 0l, null);
+			}
+			
+			try(ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+				ZipEntry entry = in.getNextEntry();
+				Assert.assertEquals("ok.txt", entry.getName());
+				Assert.assertTrue(Arrays.equals(text(10), IOUtils.toByteArray(in)));
+				Assert.assertNull(in.getNextEntry());
+			}
+		} finally {
+			FileUtils.deleteDirsAndFiles(dir, true, true);
+		}
+	}
+	
+	@Test(expected = IOException.class)
+	public void duplicateEntry() throws IOException {
+		try(ParallelZipArchive archive = new ParallelZipArchive(new ByteArrayOutputStream(),
+				executor, Deflater.DEFAULT_COMPRESSION, CHUNK_SIZE, 3 * CHUNK_SIZE, 8)) {
+			archive.addStream("a.txt", new ByteArrayInputStream(text(10)), 0l, null);
+			archive.addStream("a.txt", new ByteArrayInputStream(text(10)), 0l, null);
+		}
+	}
+	
+	private static byte[] text(int length) {
+		byte[] text = new byte[length];
+		byte[] pattern = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".getBytes(StandardCharsets.UTF_8);
+		Random rnd = new Random(length);
+		for(int i=0; i<length; i++) {
+			text[i] = (i % 97 == 0) ? (byte)('a' + rnd.nextInt(26)) : pattern[i % pattern.length];
+		}
+		return text;
+	}
+	
+	private static byte[] random(int length) {
+		byte[] data = new byte[length];
+		new Random(length).nextBytes(data);
+		return data;
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.util.nodes.INode;
+import org.olat.core.util.xml.XStreamHelper;
+import org.olat.course.config.CourseConfig;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Check the validation of the binary snapshots of the course structures against
+ * the XML files and that a snapshot gives back the structure of the XML file.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class CourseBinarySnapshotTest {
+
+	private static final String RUNSTRUCTURE_XML = "runstructure.xml";
+
+	private File courseDir;
+
+	@Before
+	public void createCourseDir() throws IOException {
+		courseDir = Files.createTempDirectory("course-snapshot").toFile();
+	}
+
+	@After
+	public void deleteCourseDir() {
+		FileUtils.deleteQuietly(courseDir);
+	}
+
+	@Test
+	public void writeReadSnapshot() throws IOException {
+		File xmlFile = copyRunStructure("runstructure_allinone.xml");
+		Structure structure = readXml(xmlFile);
+
+		CourseBinarySnapshot snapshot = new CourseBinarySnapshot(courseDir, RUNSTRUCTURE_XML);
+		Assert.assertNull(snapshot.read());
+		Assert.assertTrue(snapshot.write(structure));
+		Assert.assertTrue(snapshot.getSnapshotFile().exists());
+		Assert.assertEquals("runstructure.bin", snapshot.getSnapshotFile().getName());
+
+		Object reloaded = snapshot.read();
+		Assert.assertTrue(reloaded instanceof Structure);
+		Structure reloadedStructure = (Structure)reloaded;
+		Assert.assertEquals(countNodes(structure.getRootNode()), countNodes(reloadedStructure.getRootNode()));
+		Assert.assertEquals(structure.getRootNode().getIdent(), reloadedStructure.getRootNode().getIdent());
+		Assert.assertEquals(structure.getRootNode().getShortTitle(), reloadedStructure.getRootNode().getShortTitle());
+	}
+
+	@Test
+	public void snapshotInvalidatedByXml() throws IOException {
+		File xmlFile = copyRunStructure("runstructure_checklist.xml");
+		CourseBinarySnapshot snapshot = new CourseBinarySnapshot(courseDir, RUNSTRUCTURE_XML);
+		Assert.assertTrue(snapshot.write(readXml(xmlFile)));
+		Assert.assertNotNull(snapshot.read());
+
+		// the XML was changed without the snapshot
+		Files.write(xmlFile.toPath(), "\n".getBytes(), StandardOpenOption.APPEND);
+		Assert.assertNull(snapshot.read());
+
+		// a corrupted snapshot is ignored
+		Files.write(snapshot.getSnapshotFile().toPath(), new byte[] { 1, 2, 3 });
+		Assert.assertNull(snapshot.read());
+	}
+
+	@Test
+	public void snapshotRejectNotAllowedClasses() throws IOException {
+		copyRunStructure("runstructure_checklist.xml");
+		CourseBinarySnapshot snapshot = new CourseBinarySnapshot(courseDir, RUNSTRUCTURE_XML);
+		// a valid header but an object which is not part of a course structure
+		Assert.assertTrue(snapshot.write(new File(courseDir, "passwd")));
+		Assert.assertTrue(snapshot.getSnapshotFile().exists());
+		Assert.assertNull(snapshot.read());
+	}
+
+	@Test
+	public void snapshotRejectCourseClassesOutsideStructure() throws IOException {
+		copyRunStructure("runstructure_checklist.xml");
+		CourseBinarySnapshot snapshot = new CourseBinarySnapshot(courseDir, RUNSTRUCTURE_XML);
+		// a class of the course but not of its structure
+		Assert.assertTrue(snapshot.write(new CourseConfig()));
+		Assert.assertNull(snapshot.read());
+	}
+
+	@Test
+	public void deleteSnapshots() throws IOException {
+		File xmlFile = copyRunStructure("runstructure_checklist.xml");
+		CourseBinarySnapshot snapshot = new CourseBinarySnapshot(courseDir, RUNSTRUCTURE_XML);
+		Assert.assertTrue(snapshot.write(readXml(xmlFile)));
+		Assert.assertTrue(snapshot.getSnapshotFile().exists());
+
+		CourseBinarySnapshot.deleteSnapshots(courseDir);
+		Assert.assertFalse(snapshot.getSnapshotFile().exists());
+		Assert.assertTrue(xmlFile.exists());
+	}
+
+	/**
+	 * The structure read from the snapshot is written by XStream exactly as
+	 * the structure read from the XML file, with every node and every
+	 * configuration.
+	 */
+	@Test
+	public void snapshotRoundTrip() throws IOException {
+		XStream xstream = CourseXStreamAliases.getWriteCourseXStream();
+		for(String course:new String[] { "runstructure_allinone.xml", "runstructure_checklist.xml" }) {
+			File xmlFile = copyRunStructure(course);
+			Structure structure = readXml(xmlFile);
+			CourseBinarySnapshot snapshot = new CourseBinarySnapshot(courseDir, RUNSTRUCTURE_XML);
+			Assert.assertTrue(snapshot.write(structure));
+
+			Object reloaded = snapshot.read();
+			Assert.assertTrue(course, reloaded instanceof Structure);
+			Assert.assertEquals(course, xstream.toXML(structure), xstream.toXML(reloaded));
+			CourseBinarySnapshot.deleteSnapshots(courseDir);
+		}
+	}
+
+	private int countNodes(INode node) {
+		int count = 1;
+		for(int i=node.getChildCount(); i-->0; ) {
+			count += countNodes(node.getChildAt(i));
+		}
+		return count;
+	}
+
+	private Structure readXml(File xmlFile) {
+		XStream xstream = CourseXStreamAliases.getReadCourseXStream();
+		return (Structure)XStreamHelper.readObject(xstream, xmlFile);
+	}
+
+	private File copyRunStructure(String resource) throws IOException {
+		File xmlFile = new File(courseDir, RUNSTRUCTURE_XML);
+		try(InputStream in = CourseBinarySnapshotTest.class.getResourceAsStream(resource)) {
+			Files.copy(in, xmlFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return xmlFile;
+	}
+}
@@ -21,6 +21,7 @@ package org.olat.course.assessment.manager;
 
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -36,6 +37,7 @@ import org.olat.course.assessment.EfficiencyStatement;
 import org.olat.course.assessment.UserEfficiencyStatement;
 import org.olat.course.assessment.model.UserEfficiencyStatementImpl;
 import org.olat.course.assessment.model.UserEfficiencyStatementLight;
+import org.olat.course.config.CourseConfig;
 import org.olat.modules.coach.CoachingLargeTest;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.RepositoryService;
@@ -466,6 +468,84 @@ public class EfficiencyStatementManagerTest extends OlatTestCase {
 		Assert.assertEquals(participant, assessedIdentities.get(0));
 	}
 	
+	/**
+	 * Enough users to trigger the recalculation in bulk.
+	 * 
+	 * @throws URISyntaxException
+	 */
+	@Test
+	public void updateEfficiencyStatements_bulk() throws URISyntaxException {
+		RepositoryEntry re = deployTestcourse();
+		
+		//add some members with statements
+		List<Identity> participants = new ArrayList<>();
+		for(int i=0; i<24; i++) {
+			Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("Eff-Bulk-" + i);
+			repositoryService.addRole(participant, re, GroupRoles.participant.name());
+			effManager.createUserEfficiencyStatement(new Date(), 102.3f, true, participant, re.getOlatResource());
+			participants.add(participant);
+		}
+		dbInstance.commitAndCloseSession();
+		
+		// this will reset score to 0 and passed to false
+		effManager.updateEfficiencyStatements(re, participants);
+		dbInstance.commitAndCloseSession();
+		
+		List<UserEfficiencyStatementImpl> statements = effManager.getUserEfficiencyStatementsFull(re, null);
+		Assert.assertEquals(participants.size(), statements.size());
+		for(UserEfficiencyStatementImpl statement:statements) {
+			Assert.assertTrue(participants.contains(statement.getIdentity()));
+			Assert.assertNotNull(statement.getStatementXml());
+			Assert.assertFalse(statement.getPassed());
+			Assert.assertEquals(0f, statement.getScore(), 0.00001);
+		}
+		
+		// nothing changed, the statements stay untouched
+		Date lastModified = statements.get(0).getLastModified();
+		effManager.updateEfficiencyStatements(re, participants);
+		dbInstance.commitAndCloseSession();
+		
+		UserEfficiencyStatementImpl reloadedStatement = effManager
+				.getUserEfficiencyStatementFull(re, statements.get(0).getIdentity());
+		Assert.assertEquals(lastModified, reloadedStatement.getLastModified());
+	}
+	
+	/**
+	 * The efficiency statements are disabled in the course: the bulk evaluates
+	 * the users like the one by one update but doesn't touch the statements.
+	 * 
+	 * @throws URISyntaxException
+	 */
+	@Test
+	public void updateEfficiencyStatements_bulkDisabled() throws URISyntaxException {
+		RepositoryEntry re = deployTestcourse();
+		ICourse course = CourseFactory.openCourseEditSession(re.getOlatResource().getResourceableId());
+		CourseConfig courseConfig = course.getCourseEnvironment().getCourseConfig();
+		courseConfig.setEfficencyStatementIsEnabled(false);
+		CourseFactory.setCourseConfig(course.getResourceableId(), courseConfig);
+		CourseFactory.saveCourse(course.getResourceableId());
+		CourseFactory.closeCourseEditSession(course.getResourceableId(), true);
+		
+		List<Identity> participants = new ArrayList<>();
+		for(int i=0; i<24; i++) {
+			Identity participant = JunitTestHelper.createAndPersistIdentityAsRndUser("Eff-Bulk-Off-" + i);
+			repositoryService.addRole(participant, re, GroupRoles.participant.name());
+			effManager.createUserEfficiencyStatement(new Date(), 102.3f, true, participant, re.getOlatResource());
+			participants.add(participant);
+		}
+		dbInstance.commitAndCloseSession();
+		
+		effManager.updateEfficiencyStatements(re, participants);
+		dbInstance.commitAndCloseSession();
+		
+		List<UserEfficiencyStatementImpl> statements = effManager.getUserEfficiencyStatementsFull(re, null);
+		Assert.assertEquals(participants.size(), statements.size());
+		for(UserEfficiencyStatementImpl statement:statements) {
+			Assert.assertTrue(statement.getPassed());
+			Assert.assertEquals(102.3f, statement.getScore(), 0.00001);
+		}
+	}
+	
 	@Test
 	public void deleteUserData() throws URISyntaxException {
 		RepositoryEntry re1 = deployTestcourse();
@@ -26,6 +26,7 @@ import org.olat.core.id.IdentityEnvironment;
 import org.olat.core.id.Roles;
 import org.olat.course.CourseFactory;
 import org.olat.course.ICourse;
+import org.olat.course.condition.interpreter.ConditionExpressionCache;
 import org.olat.course.condition.interpreter.ConditionInterpreter;
 import org.olat.course.run.userview.UserCourseEnvironment;
 import org.olat.course.run.userview.UserCourseEnvironmentImpl;
@@ -49,6 +50,38 @@ public class ConditionTest extends OlatTestCase {
 		Assert.assertFalse(result);
 	}
 	
+	/**
+	 * The compiled expressions are shared by the users of the course, but
+	 * evaluated with the user course environment of every user.
+	 */
+	@Test
+	public void compiledExpressions() {
+		Identity author = JunitTestHelper.createAndPersistIdentityAsRndUser("junit_auth");
+		RepositoryEntry re = JunitTestHelper.deployDemoCourse(author);
+		ICourse course = CourseFactory.loadCourse(re);
+		
+		Identity id1 = JunitTestHelper.createAndPersistIdentityAsRndUser("cond-1");
+		Identity id2 = JunitTestHelper.createAndPersistIdentityAsRndUser("cond-2");
+		UserCourseEnvironment uce1 = new UserCourseEnvironmentImpl(new IdentityEnvironment(id1, Roles.userRoles()), course.getCourseEnvironment());
+		UserCourseEnvironment uce2 = new UserCourseEnvironmentImpl(new IdentityEnvironment(id2, Roles.userRoles()), course.getCourseEnvironment());
+		
+		String condition1 = "hasUserProperty(\"firstName\", \"" + id1.getUser().getFirstName() + "\")";
+		String condition2 = "hasUserProperty(\"firstName\", \"" + id2.getUser().getFirstName() + "\")";
+		ConditionInterpreter interpreter1 = new ConditionInterpreter(uce1);
+		ConditionInterpreter interpreter2 = new ConditionInterpreter(uce2);
+		Assert.assertTrue(interpreter1.evaluateCondition(condition1));
+		Assert.assertFalse(interpreter2.evaluateCondition(condition1));
+		Assert.assertFalse(interpreter1.evaluateCondition(condition2));
+		Assert.assertTrue(interpreter2.evaluateCondition(condition2));
+		Assert.assertEquals(1.0f, interpreter1.evaluateCalculation("3 - 2"), 0.00001);
+		
+		ConditionExpressionCache expressionCache = course.getRunStructure().getExpressionCache();
+		Assert.assertEquals(3, expressionCache.size());
+		expressionCache.clear();
+		Assert.assertEquals(0, expressionCache.size());
+		Assert.assertTrue(interpreter2.evaluateCondition(condition2));
+	}
+	
 	@Test
 	public void testTrueFalse(){
 		UserCourseEnvironment uce = getUserDemoCourseEnvironment();
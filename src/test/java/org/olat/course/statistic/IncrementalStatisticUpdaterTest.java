@@ -0,0 +1,179 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.course.statistic;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.CoreSpringFactory;
+import org.olat.core.logging.activity.LoggingObject;
+import org.olat.core.util.CodeHelper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Check that the incremental updates of the statistics give the
+ * same results as a full recalculation, and that the logging actions
+ * committed late are counted once.
+ *
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class IncrementalStatisticUpdaterTest extends AbstractStatisticUpdateManagerTest {
+	
+	private static final long MINUTE = 60l * 1000l;
+	private static final long HOUR = 60l * MINUTE;
+
+	private JdbcTemplate jdbcTemplate;
+	private IncrementalStatisticUpdater updater;
+
+	@Before
+	public void initUpdater() {
+		Assume.assumeTrue(!isOracleConfigured());
+
+		String vendor = isPostgresqlConfigured() ? "postgresql" : "mysql";
+		updater = (IncrementalStatisticUpdater)CoreSpringFactory.getBean("incrementalStatisticUpdater_" + vendor);
+		updater.setOverlap(10l * MINUTE);
+		jdbcTemplate = (JdbcTemplate)CoreSpringFactory.getBean("statisticsJdbcTemplate");
+	}
+
+	@Test
+	public void incrementalUpdates() {
+		cleanUpLog();
+		Date start = startDate();
+		updater.update(true, start);
+		Assert.assertEquals(0, updater.verify(start));
+
+		for(int i=0; i<5; i++) {
+			addLog(1001l, "node-1", start, (i + 1) * HOUR);
+			addLog(1001l, "node-2", start, (i + 1) * HOUR + 1000l);
+			addLog(1002l, "node-1", start, 30 * HOUR + i * MINUTE);
+		}
+		dbInstance.commitAndCloseSession();
+
+		Date firstUpdate = new Date(start.getTime() + 48 * HOUR);
+		updater.update(false, firstUpdate);
+		Assert.assertEquals(0, updater.verify(firstUpdate));
+		Assert.assertEquals(15, sumOfDailyStatistics());
+
+		// a second run without new logging actions doesn't change anything
+		Date secondUpdate = new Date(firstUpdate.getTime() + HOUR);
+		updater.update(false, secondUpdate);
+		Assert.assertEquals(0, updater.verify(secondUpdate));
+		Assert.assertEquals(15, sumOfDailyStatistics());
+
+		// new actions in existing and new buckets
+		for(int i=0; i<3; i++) {
+			addLog(1001l, "node-1", secondUpdate, 2 * HOUR + i * MINUTE);
+			addLog(1003l, "node-1", secondUpdate, 26 * HOUR + i * MINUTE);
+		}
+		dbInstance.commitAndCloseSession();
+
+		Date thirdUpdate = new Date(secondUpdate.getTime() + 48 * HOUR);
+		updater.update(false, thirdUpdate);
+		Assert.assertEquals(0, updater.verify(thirdUpdate));
+		Assert.assertEquals(21, sumOfDailyStatistics());
+
+		// full recalculation gives the same result
+		updater.update(true, thirdUpdate);
+		Assert.assertEquals(0, updater.verify(thirdUpdate));
+		Assert.assertEquals(21, sumOfDailyStatistics());
+	}
+	
+	/**
+	 * An action created before the update but committed after it, with a
+	 * smaller creation date than the actions already counted in the overlap
+	 * window, is counted by the next update. The actions of the window are
+	 * not counted twice.
+	 */
+	@Test
+	public void lateCommittedActions() {
+		cleanUpLog();
+		Date start = startDate();
+		updater.update(true, start);
+		
+		Date firstUpdate = new Date(start.getTime() + 2 * HOUR);
+		addLog(1005l, "node-1", firstUpdate, -1 * HOUR);
+		addLog(1005l, "node-1", firstUpdate, -2 * MINUTE);
+		dbInstance.commitAndCloseSession();
+		
+		updater.update(false, firstUpdate);
+		Assert.assertEquals(2, sumOfDailyStatistics());
+		
+		// committed after the first update, but created before
+		addLog(1005l, "node-1", firstUpdate, -5 * MINUTE);
+		dbInstance.commitAndCloseSession();
+		
+		Date secondUpdate = new Date(firstUpdate.getTime() + HOUR);
+		updater.update(false, secondUpdate);
+		Assert.assertEquals(3, sumOfDailyStatistics());
+		Assert.assertEquals(0, updater.verify(secondUpdate));
+		
+		// nothing new
+		Date thirdUpdate = new Date(secondUpdate.getTime() + HOUR);
+		updater.update(false, thirdUpdate);
+		Assert.assertEquals(3, sumOfDailyStatistics());
+	}
+
+	@Test
+	public void verifyDetectsDifferences() {
+		cleanUpLog();
+		Date start = startDate();
+		addLog(1004l, "node-1", start, HOUR);
+		dbInstance.commitAndCloseSession();
+
+		Date update = new Date(start.getTime() + 2 * HOUR);
+		updater.update(true, update);
+		Assert.assertEquals(0, updater.verify(update));
+
+		jdbcTemplate.update("update o_stat_daily set value=value+1");
+		Assert.assertEquals(1, updater.verify(update));
+	}
+	
+	/**
+	 * @return Midnight, ten days ago
+	 */
+	private Date startDate() {
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.HOUR_OF_DAY, 0);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		cal.add(Calendar.DATE, -10);
+		return cal.getTime();
+	}
+	
+	private void addLog(Long repositoryEntryKey, String courseNodeIdent, Date reference, long offset) {
+		String sessionId = "session-" + CodeHelper.getGlobalForeverUniqueID();
+		LoggingObject logObj = new LoggingObject(sessionId, 123l, "u", "launch", "node");
+		logObj.setCreationDate(new Date(reference.getTime() + offset));
+		logObj.setResourceAdminAction(Boolean.FALSE);
+		logObj.setBusinessPath("[RepositoryEntry:" + repositoryEntryKey + "][CourseNode:" + courseNodeIdent + "]");
+		dbInstance.saveObject(logObj);
+	}
+
+	private long sumOfDailyStatistics() {
+		Long sum = jdbcTemplate.queryForObject("select sum(value) from o_stat_daily", Long.class);
+		return sum == null ? 0l : sum.longValue();
+	}
+}
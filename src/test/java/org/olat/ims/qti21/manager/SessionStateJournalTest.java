@@ -0,0 +1,193 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ims.qti21.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class SessionStateJournalTest {
+	
+	private File storage;
+	
+	@Before
+	public void createStorage() throws IOException {
+		storage = Files.createTempDirectory("qti21journal").toFile();
+	}
+	
+	@After
+	public void deleteStorage() {
+		FileUtils.deleteQuietly(storage);
+	}
+	
+	@Test
+	public void appendAndReadLatest() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		Assert.assertFalse(journal.exists());
+		Assert.assertNull(journal.readLatest());
+		
+		for(int i=0; i<10; i++) {
+			journal.append(state("state-" + i), false);
+		}
+		Assert.assertTrue(journal.exists());
+		Assert.assertTrue(journal.hasJournal());
+		Assert.assertEquals("<state>state-9</state>", toString(journal.readLatest()));
+	}
+	
+	@Test
+	public void recoverTornRecord() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		journal.append(state("first"), false);
+		journal.append(state("second"), false);
+		
+		// crash in the middle of the last append
+		long tornLength;
+		try(RandomAccessFile raf = new RandomAccessFile(journal.getJournalFile(), "rw")) {
+			tornLength = raf.length() - 3;
+			raf.setLength(tornLength);
+		}
+		Assert.assertEquals("<state>first</state>", toString(journal.readLatest()));
+		// the reader doesn't repair the journal
+		Assert.assertEquals(tornLength, journal.getJournalFile().length());
+		
+		// the writer cuts the torn record, the next appends are readable
+		journal.append(state("third"), false);
+		Assert.assertEquals("<state>third</state>", toString(journal.readLatest()));
+		journal.append(state("fourth"), false);
+		Assert.assertEquals("<state>fourth</state>", toString(journal.readLatest()));
+	}
+	
+	@Test
+	public void recoverCorruptedRecord() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		journal.append(state("first"), false);
+		journal.append(state("second"), false);
+		
+		try(RandomAccessFile raf = new RandomAccessFile(journal.getJournalFile(), "rw")) {
+			raf.seek(raf.length() - 2);
+			raf.write(new byte[] { 0x0F, 0x0F });
+		}
+		Assert.assertEquals("<state>first</state>", toString(journal.readLatest()));
+	}
+	
+	@Test
+	public void recoverCorruptedPayload() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		journal.append(state("first"), false);
+		journal.append(state("second"), false);
+		
+		// complete record but wrong checksum
+		try(RandomAccessFile raf = new RandomAccessFile(journal.getJournalFile(), "rw")) {
+			raf.seek(raf.length() - 10);
+			raf.write(new byte[] { 0x0F, 0x0F });
+		}
+		Assert.assertEquals("<state>first</state>", toString(journal.readLatest()));
+	}
+	
+	@Test
+	public void skipUnchangedState() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		Assert.assertTrue(journal.append(state("first"), false));
+		long length = journal.getJournalFile().length();
+		
+		Assert.assertFalse(journal.append(state("first"), false));
+		Assert.assertEquals(length, journal.getJournalFile().length());
+		
+		Assert.assertTrue(journal.append(state("second"), true));
+		Assert.assertTrue(journal.getJournalFile().length() > length);
+		Assert.assertEquals("<state>second</state>", toString(journal.readLatest()));
+	}
+	
+	@Test
+	public void compact() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "itemSessionState_1");
+		Assert.assertFalse(journal.compact());
+		
+		journal.append(state("first"), false);
+		journal.append(state("second"), false);
+		Assert.assertTrue(journal.compact());
+		
+		Assert.assertFalse(journal.hasJournal());
+		Assert.assertEquals("<state>second</state>", toString(Files.readAllBytes(journal.getSnapshotFile().toPath())));
+	}
+	
+	@Test
+	public void snapshot() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		journal.append(state("first"), false);
+		journal.append(state("second"), false);
+		journal.snapshot(state("second"));
+
+		Assert.assertFalse(journal.hasJournal());
+		Assert.assertTrue(journal.exists());
+		Assert.assertNull(journal.readLatest());
+		Assert.assertEquals("<state>second</state>", toString(Files.readAllBytes(journal.getSnapshotFile().toPath())));
+		Assert.assertArrayEquals(new String[] { "testSessionState.xml" }, storage.list());
+	}
+	
+	@Test
+	public void journalWinsOverSnapshot() throws IOException {
+		// state saved without journal
+		File xmlFile = new File(storage, "testSessionState.xml");
+		Files.write(xmlFile.toPath(), state("xml"));
+
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		Assert.assertTrue(journal.exists());
+		Assert.assertNull(journal.readLatest());
+		
+		journal.append(state("journal"), false);
+		Assert.assertEquals("<state>journal</state>", toString(journal.readLatest()));
+		
+		journal.delete();
+		Assert.assertFalse(journal.exists());
+	}
+	
+	@Test
+	public void snapshotDue() throws IOException {
+		SessionStateJournal journal = new SessionStateJournal(storage, "testSessionState");
+		Assert.assertFalse(journal.isSnapshotDue(64));
+		for(int i=0; i<10; i++) {
+			journal.append(state("state-" + i), false);
+		}
+		Assert.assertTrue(journal.isSnapshotDue(64));
+		Assert.assertFalse(journal.isSnapshotDue(1024 * 1024));
+	}
+	
+	private static byte[] state(String content) {
+		return ("<state>" + content + "</state>").getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static String toString(byte[] state) {
+		return new String(state, StandardCharsets.UTF_8);
+	}
+}
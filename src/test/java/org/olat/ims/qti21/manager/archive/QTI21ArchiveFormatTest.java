@@ -0,0 +1,174 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.ims.qti21.manager.archive;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.olat.ims.qti21.AssessmentResponse;
+import org.olat.ims.qti21.AssessmentTestSession;
+import org.olat.ims.qti21.model.jpa.AssessmentItemSessionImpl;
+import org.olat.ims.qti21.model.jpa.AssessmentResponseImpl;
+import org.olat.ims.qti21.model.jpa.AssessmentTestSessionImpl;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class QTI21ArchiveFormatTest {
+	
+	@Test
+	public void mergeResponses() {
+		AssessmentTestSession session1 = testSession(1l);
+		AssessmentTestSession session3 = testSession(3l);
+		AssessmentTestSession session5 = testSession(5l);
+		
+		List<AssessmentTestSession> sessions = new ArrayList<>();
+		sessions.add(session1);
+		sessions.add(session3);
+		sessions.add(session5);
+		
+		List<AssessmentResponse> responses = new ArrayList<>();
+		responses.add(response(10l, session1));
+		responses.add(response(11l, session1));
+		responses.add(response(12l, session5));
+		
+		Map<Long,List<AssessmentResponse>> merged = new LinkedHashMap<>();
+		List<AssessmentResponse> skipped = new ArrayList<>();
+		QTI21ArchiveFormat.mergeResponses(keys(sessions), sessions.iterator(), responses.iterator(),
+				(testSession, sessionResponses) -> merged.put(testSession.getKey(), sessionResponses), skipped::add);
+		
+		Assert.assertEquals(3, merged.size());
+		Assert.assertEquals(2, merged.get(1l).size());
+		// a session without responses has a row too
+		Assert.assertTrue(merged.get(3l).isEmpty());
+		Assert.assertEquals(1, merged.get(5l).size());
+		Assert.assertEquals(Long.valueOf(12l), merged.get(5l).get(0).getKey());
+		Assert.assertTrue(skipped.isEmpty());
+	}
+	
+	/**
+	 * The responses of a session which is not in the sessions don't
+	 * stop the merge, the next sessions get their responses.
+	 */
+	@Test
+	public void mergeResponsesWithOrphan() {
+		AssessmentTestSession session1 = testSession(1l);
+		AssessmentTestSession orphanSession = testSession(2l);
+		AssessmentTestSession session3 = testSession(3l);
+		
+		List<AssessmentTestSession> sessions = new ArrayList<>();
+		sessions.add(session1);
+		sessions.add(session3);
+		
+		List<AssessmentResponse> responses = new ArrayList<>();
+		responses.add(response(10l, session1));
+		responses.add(response(11l, orphanSession));
+		responses.add(response(12l, orphanSession));
+		responses.add(response(13l, session3));
+		responses.add(response(14l, session3));
+		// after the last session
+		responses.add(response(15l, testSession(4l)));
+		
+		Map<Long,List<AssessmentResponse>> merged = new LinkedHashMap<>();
+		List<AssessmentResponse> skipped = new ArrayList<>();
+		QTI21ArchiveFormat.mergeResponses(keys(sessions), sessions.iterator(), responses.iterator(),
+				(testSession, sessionResponses) -> merged.put(testSession.getKey(), sessionResponses), skipped::add);
+		
+		Assert.assertEquals(2, merged.size());
+		Assert.assertEquals(1, merged.get(1l).size());
+		Assert.assertEquals(2, merged.get(3l).size());
+		Assert.assertEquals(Long.valueOf(13l), merged.get(3l).get(0).getKey());
+		Assert.assertEquals(Long.valueOf(14l), merged.get(3l).get(1).getKey());
+		Assert.assertEquals(3, skipped.size());
+	}
+	
+	/**
+	 * The sessions are ordered by the names of the participants, not
+	 * by their keys. The responses follow the same order.
+	 */
+	@Test
+	public void mergeResponsesInNameOrder() {
+		AssessmentTestSession sessionAlbert = testSession(7l);
+		AssessmentTestSession sessionBerta = testSession(2l);
+		AssessmentTestSession orphanSession = testSession(4l);
+		AssessmentTestSession sessionCarl = testSession(5l);
+		AssessmentTestSession sessionDora = testSession(1l);
+		
+		List<AssessmentTestSession> sessions = new ArrayList<>();
+		sessions.add(sessionAlbert);
+		sessions.add(sessionBerta);
+		sessions.add(sessionCarl);
+		sessions.add(sessionDora);
+		
+		List<AssessmentResponse> responses = new ArrayList<>();
+		responses.add(response(10l, sessionAlbert));
+		responses.add(response(11l, orphanSession));
+		responses.add(response(12l, sessionCarl));
+		responses.add(response(13l, sessionCarl));
+		responses.add(response(14l, sessionDora));
+		
+		Map<Long,List<AssessmentResponse>> merged = new LinkedHashMap<>();
+		List<AssessmentResponse> skipped = new ArrayList<>();
+		QTI21ArchiveFormat.mergeResponses(keys(sessions), sessions.iterator(), responses.iterator(),
+				(testSession, sessionResponses) -> merged.put(testSession.getKey(), sessionResponses), skipped::add);
+		
+		// the rows keep the order of the names
+		Assert.assertEquals(keys(sessions), new ArrayList<>(merged.keySet()));
+		Assert.assertEquals(1, merged.get(7l).size());
+		Assert.assertTrue(merged.get(2l).isEmpty());
+		Assert.assertEquals(2, merged.get(5l).size());
+		Assert.assertEquals(1, merged.get(1l).size());
+		Assert.assertEquals(Long.valueOf(14l), merged.get(1l).get(0).getKey());
+		Assert.assertEquals(1, skipped.size());
+		Assert.assertEquals(Long.valueOf(11l), skipped.get(0).getKey());
+	}
+	
+	private static List<Long> keys(List<AssessmentTestSession> sessions) {
+		List<Long> keys = new ArrayList<>();
+		for(AssessmentTestSession session:sessions) {
+			keys.add(session.getKey());
+		}
+		return keys;
+	}
+	
+	private static AssessmentTestSession testSession(Long key) {
+		AssessmentTestSessionImpl testSession = new AssessmentTestSessionImpl();
+		testSession.setKey(key);
+		return testSession;
+	}
+	
+	private static AssessmentResponse response(Long key, AssessmentTestSession testSession) {
+		AssessmentItemSessionImpl itemSession = new AssessmentItemSessionImpl();
+		itemSession.setKey(key * 100);
+		itemSession.setAssessmentTestSession(testSession);
+		
+		AssessmentResponseImpl response = new AssessmentResponseImpl();
+		response.setKey(key);
+		response.setAssessmentItemSession(itemSession);
+		response.setAssessmentTestSession(testSession);
+		return response;
+	}
+}
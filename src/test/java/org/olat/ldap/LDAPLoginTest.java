@@ -27,6 +27,10 @@ import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Rule;
 import org.junit.Test;
+import org.olat.basesecurity.BaseSecurity;
+import org.olat.core.id.Identity;
+import org.olat.ldap.model.LDAPSyncReport;
+import org.olat.ldap.model.LDAPSyncReport.Phase;
 import org.olat.test.OlatTestCase;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.zapodot.junit.ldap.EmbeddedLdapRule;
@@ -48,6 +52,8 @@ public class LDAPLoginTest extends OlatTestCase {
 	@Autowired
 	private LDAPLoginManager ldapManager;
 	@Autowired
+	private BaseSecurity securityManager;
+	@Autowired
 	private LDAPLoginModule ldapLoginModule;
 	
 	@Rule
@@ -100,4 +106,40 @@ public class LDAPLoginTest extends OlatTestCase {
 		Assert.assertNull(attrs);
 		Assert.assertEquals("Username and password must be selected", errors.get());
 	}
+	
+	@Test
+	public void testBatchSyncDryRun() {
+		Assume.assumeTrue(ldapLoginModule.isLDAPEnabled());
+		
+		Identity identity = securityManager.findIdentityByNameCaseInsensitive("mrohrer");
+		
+		LDAPError errors = new LDAPError();
+		LDAPSyncReport report = ldapManager.doBatchSyncDryRun(errors);
+		Assert.assertNotNull(report);
+		Assert.assertTrue(report.isDryRun());
+		Assert.assertTrue(errors.isEmpty());
+		Assert.assertTrue(report.getCount(Phase.search) > 0);
+		
+		// nothing is changed
+		if(identity == null) {
+			Assert.assertTrue(report.getUsersToCreate().contains("mrohrer"));
+			Assert.assertNull(securityManager.findIdentityByNameCaseInsensitive("mrohrer"));
+		}
+	}
+	
+	@Test
+	public void testBatchSyncDryRunDuringSync() {
+		Assert.assertTrue(ldapManager.acquireSyncLock());
+		try {
+			LDAPError errors = new LDAPError();
+			LDAPSyncReport report = ldapManager.doBatchSyncDryRun(errors);
+			Assert.assertNotNull(report);
+			Assert.assertFalse(errors.isEmpty());
+			Assert.assertEquals(0, report.getCount(Phase.search));
+			// the dry run doesn't release the lock of the sync
+			Assert.assertFalse(ldapManager.acquireSyncLock());
+		} finally {
+			ldapManager.freeSyncLock();
+		}
+	}
 }
@@ -19,6 +19,7 @@
  */
 package org.olat.modules.assessment.manager;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -299,6 +300,42 @@ public class AssessmentEntryDAOTest extends OlatTestCase {
 		Assert.assertEquals(0, assessmentEntriesId3.size());
 	}
 	
+	@Test
+	public void loadAssessmentEntriesByRepositoryEntry() {
+		Identity assessedIdentity1 = JunitTestHelper.createAndPersistIdentityAsRndUser("as-node-30");
+		Identity assessedIdentity2 = JunitTestHelper.createAndPersistIdentityAsRndUser("as-node-31");
+		RepositoryEntry entry = JunitTestHelper.createAndPersistRepositoryEntry();
+		RepositoryEntry otherEntry = JunitTestHelper.createAndPersistRepositoryEntry();
+		String subIdent = UUID.randomUUID().toString();
+		AssessmentEntry nodeAssessment1 = assessmentEntryDao
+				.createAssessmentEntry(assessedIdentity1, null, entry, subIdent, entry);
+		AssessmentEntry nodeAssessment2 = assessmentEntryDao
+				.createAssessmentEntry(assessedIdentity2, null, entry, subIdent, entry, 3.0f, Boolean.FALSE, null, null);
+		AssessmentEntry nodeAssessment3 = assessmentEntryDao
+				.createAssessmentEntry(assessedIdentity2, null, entry, null, entry, 3.0f, Boolean.FALSE, null, null);
+		AssessmentEntry anonymousAssessment = assessmentEntryDao
+				.createAssessmentEntry(null, UUID.randomUUID().toString(), entry, subIdent, entry);
+		AssessmentEntry otherAssessment = assessmentEntryDao
+				.createAssessmentEntry(assessedIdentity1, null, otherEntry, subIdent, otherEntry);
+		dbInstance.commitAndCloseSession();
+		
+		List<AssessmentEntry> assessmentEntries = assessmentEntryDao.loadAssessmentEntriesByRepositoryEntry(entry, null);
+		Assert.assertNotNull(assessmentEntries);
+		Assert.assertEquals(3, assessmentEntries.size());
+		Assert.assertTrue(assessmentEntries.contains(nodeAssessment1));
+		Assert.assertTrue(assessmentEntries.contains(nodeAssessment2));
+		Assert.assertTrue(assessmentEntries.contains(nodeAssessment3));
+		Assert.assertFalse(assessmentEntries.contains(anonymousAssessment));
+		Assert.assertFalse(assessmentEntries.contains(otherAssessment));
+		
+		// restricted to some identities
+		List<AssessmentEntry> identity2Entries = assessmentEntryDao
+				.loadAssessmentEntriesByRepositoryEntry(entry, Collections.singletonList(assessedIdentity2.getKey()));
+		Assert.assertEquals(2, identity2Entries.size());
+		Assert.assertTrue(identity2Entries.contains(nodeAssessment2));
+		Assert.assertTrue(identity2Entries.contains(nodeAssessment3));
+	}
+	
 	@Test
 	public void loadAssessmentEntryByGroup() {
 		// a simulated course with 2 groups
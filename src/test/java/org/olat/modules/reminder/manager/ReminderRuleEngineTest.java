@@ -22,6 +22,7 @@ package org.olat.modules.reminder.manager;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -57,6 +58,7 @@ import org.olat.group.manager.BusinessGroupDAO;
 import org.olat.group.manager.BusinessGroupRelationDAO;
 import org.olat.modules.assessment.Role;
 import org.olat.modules.reminder.ReminderRule;
+import org.olat.modules.reminder.model.IdentityKeySet;
 import org.olat.modules.reminder.model.ReminderRuleImpl;
 import org.olat.modules.reminder.rule.BeforeDateRuleSPI;
 import org.olat.modules.reminder.rule.CourseEnrollmentDateRuleSPI;
@@ -437,6 +439,88 @@ public class ReminderRuleEngineTest extends OlatTestCase {
 		}
 	}
 	
+	@Test
+	public void initialLaunchDate_keys() {
+		//create a course with 3 members
+		Identity id1 = JunitTestHelper.createAndPersistIdentityAsRndUser("initial-launch-4");
+		Identity id2 = JunitTestHelper.createAndPersistIdentityAsRndUser("initial-launch-5");
+		Identity id3 = JunitTestHelper.createAndPersistIdentityAsRndUser("initial-launch-6");
+		
+		RepositoryEntry re = JunitTestHelper.deployBasicCourse(null);
+
+		repositoryEntryRelationDao.addRole(id1, re, GroupRoles.owner.name());
+		repositoryEntryRelationDao.addRole(id2, re, GroupRoles.coach.name());
+		repositoryEntryRelationDao.addRole(id3, re, GroupRoles.participant.name());
+		dbInstance.commit();
+		
+		//create user course infos
+		userCourseInformationsManager.updateUserCourseInformations(re.getOlatResource(), id1);
+		userCourseInformationsManager.updateUserCourseInformations(re.getOlatResource(), id2);
+		userCourseInformationsManager.updateUserCourseInformations(re.getOlatResource(), id3);
+		dbInstance.commit();
+		
+		//fake the date
+		updateInitialLaunchDate(re.getOlatResource(), id1, -5, Calendar.DATE);
+		updateInitialLaunchDate(re.getOlatResource(), id2, -35, Calendar.DATE);
+		updateInitialLaunchDate(re.getOlatResource(), id3, -75, Calendar.DATE);
+		dbInstance.commitAndCloseSession();
+		
+		IdentityKeySet candidates = IdentityKeySet.valueOfIdentities(Arrays.asList(id1, id2, id3));
+
+		{ // check after 7 days
+			ReminderRule rule = getInitialLaunchRules(7, LaunchUnit.day).get(0);
+			IdentityKeySet accepted = ruleEngine.filterKeysByRule(re, candidates, rule);
+			
+			Assert.assertNotNull(accepted);
+			Assert.assertEquals(2, accepted.size());
+			Assert.assertTrue(accepted.contains(id2.getKey()));
+			Assert.assertTrue(accepted.contains(id3.getKey()));
+		}
+
+		{ // check after 6 weeks, only with the candidates 1 and 3
+			ReminderRule rule = getInitialLaunchRules(6, LaunchUnit.week).get(0);
+			IdentityKeySet someCandidates = IdentityKeySet.valueOfIdentities(Arrays.asList(id1, id3));
+			IdentityKeySet accepted = ruleEngine.filterKeysByRule(re, someCandidates, rule);
+			
+			Assert.assertNotNull(accepted);
+			Assert.assertEquals(1, accepted.size());
+			Assert.assertTrue(accepted.contains(id3.getKey()));
+		}
+	}
+	
+	@Test
+	public void getIdentityKeys_intersection() {
+		Identity owner1 = JunitTestHelper.createAndPersistIdentityAsRndUser("rule-keys-1");
+		Identity coach2 = JunitTestHelper.createAndPersistIdentityAsRndUser("rule-keys-2");
+		Identity groupCoach3 = JunitTestHelper.createAndPersistIdentityAsRndUser("rule-keys-3");
+		Identity participant4 = JunitTestHelper.createAndPersistIdentityAsRndUser("rule-keys-4");
+		
+		RepositoryEntry re = JunitTestHelper.createAndPersistRepositoryEntry();
+		repositoryEntryRelationDao.addRole(owner1, re, GroupRoles.owner.name());
+		repositoryEntryRelationDao.addRole(coach2, re, GroupRoles.coach.name());
+		repositoryEntryRelationDao.addRole(participant4, re, GroupRoles.participant.name());
+		
+		BusinessGroup group = businessGroupDao.createAndPersist(groupCoach3, "grp-rule-keys", "grp-rule-keys-desc", 0, 5, true, false, true, false, false);
+		businessGroupRelationDao.addRelationToResource(group, re);
+		dbInstance.commitAndCloseSession();
+		
+		List<ReminderRule> rules = new ArrayList<>();
+		rules.addAll(getRules(RepositoryEntryRoleRuleSPI.Roles.participantAndCoach));
+		rules.addAll(getRules(RepositoryEntryRoleRuleSPI.Roles.ownerAndCoach));
+		IdentityKeySet keys = ruleEngine.getIdentityKeys(re, rules, new ReminderRuleEngine.EvaluationTimings());
+		
+		Assert.assertEquals(2, keys.size());
+		Assert.assertTrue(keys.contains(coach2.getKey()));
+		Assert.assertTrue(keys.contains(groupCoach3.getKey()));
+		Assert.assertTrue(rules.isEmpty());
+		
+		// the identities are loaded at the end
+		List<Identity> identities = ruleEngine.getIdentities(re, null, getRules(RepositoryEntryRoleRuleSPI.Roles.coach), true);
+		Assert.assertEquals(2, identities.size());
+		Assert.assertTrue(identities.contains(coach2));
+		Assert.assertTrue(identities.contains(groupCoach3));
+	}
+	
 	private void updateInitialLaunchDate(OLATResource courseRes, Identity id, int amount, int field) {
 		UserCourseInfosImpl userCourseInfos = (UserCourseInfosImpl)userCourseInformationsManager.getUserCourseInformations(courseRes, id);
 		Date initialLaunch = userCourseInfos.getInitialLaunch();
@@ -0,0 +1,94 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.reminder.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class IdentityKeySetTest {
+	
+	@Test
+	public void valueOf() {
+		IdentityKeySet keys = IdentityKeySet.valueOf(Arrays.asList(5l, 3l, 3l, 9l, 1l, null));
+		
+		Assert.assertEquals(4, keys.size());
+		Assert.assertEquals(Arrays.asList(1l, 3l, 5l, 9l), keys.toList());
+		Assert.assertTrue(keys.contains(9l));
+		Assert.assertFalse(keys.contains(4l));
+		Assert.assertFalse(keys.contains((Long)null));
+	}
+	
+	@Test
+	public void valueOf_empty() {
+		Assert.assertTrue(IdentityKeySet.valueOf(null).isEmpty());
+		Assert.assertTrue(IdentityKeySet.valueOf(Collections.emptyList()).isEmpty());
+		Assert.assertTrue(IdentityKeySet.valueOfIdentities(null).isEmpty());
+	}
+	
+	@Test
+	public void and() {
+		IdentityKeySet keys = IdentityKeySet.valueOf(Arrays.asList(1l, 3l, 5l, 9l));
+		IdentityKeySet others = IdentityKeySet.valueOf(Arrays.asList(3l, 9l, 10l));
+		
+		Assert.assertEquals(Arrays.asList(3l, 9l), keys.and(others).toList());
+		Assert.assertEquals(Arrays.asList(3l, 9l), others.and(keys).toList());
+		Assert.assertTrue(keys.and(IdentityKeySet.EMPTY).isEmpty());
+		Assert.assertTrue(keys.and(null).isEmpty());
+	}
+	
+	@Test
+	public void andNot() {
+		IdentityKeySet keys = IdentityKeySet.valueOf(Arrays.asList(1l, 3l, 5l, 9l));
+		IdentityKeySet others = IdentityKeySet.valueOf(Arrays.asList(0l, 3l, 9l, 10l));
+		
+		Assert.assertEquals(Arrays.asList(1l, 5l), keys.andNot(others).toList());
+		Assert.assertEquals(Arrays.asList(0l, 10l), others.andNot(keys).toList());
+		Assert.assertEquals(keys, keys.andNot(IdentityKeySet.EMPTY));
+	}
+	
+	@Test
+	public void filter() {
+		IdentityKeySet keys = IdentityKeySet.valueOf(Arrays.asList(1l, 3l, 5l, 9l));
+		
+		Assert.assertEquals(Arrays.asList(5l, 9l), keys.filter(key -> key > 3l).toList());
+		Assert.assertTrue(keys.filter(key -> false).isEmpty());
+	}
+	
+	@Test
+	public void toChunks() {
+		IdentityKeySet keys = IdentityKeySet.valueOf(Arrays.asList(1l, 3l, 5l, 9l, 11l));
+		
+		List<List<Long>> chunks = keys.toChunks(2);
+		Assert.assertEquals(3, chunks.size());
+		Assert.assertEquals(Arrays.asList(1l, 3l), chunks.get(0));
+		Assert.assertEquals(Arrays.asList(5l, 9l), chunks.get(1));
+		Assert.assertEquals(Arrays.asList(11l), chunks.get(2));
+		Assert.assertTrue(IdentityKeySet.EMPTY.toChunks(2).isEmpty());
+	}
+}
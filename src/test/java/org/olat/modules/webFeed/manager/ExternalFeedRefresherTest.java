@@ -0,0 +1,176 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.modules.webFeed.manager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.commons.persistence.DB;
+import org.olat.modules.webFeed.Feed;
+import org.olat.modules.webFeed.Item;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test the refresh of the external feeds against a local
+ * HTTP server.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class ExternalFeedRefresherTest extends OlatTestCase {
+	
+	@Autowired
+	private DB dbInstance;
+	@Autowired
+	private FeedDAO feedDao;
+	@Autowired
+	private ItemDAO itemDao;
+	@Autowired
+	private ExternalFeedRefresher externalFeedRefresher;
+	
+	private HttpServer server;
+	private volatile int status = 200;
+	private volatile String rss = rss("First", "Second");
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger notModified = new AtomicInteger();
+	
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/feed.xml", this::handle);
+		server.start();
+	}
+	
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		String content = rss;
+		String etag = "\"" + Integer.toHexString(content.hashCode()) + "\"";
+		if(status != 200) {
+			exchange.sendResponseHeaders(status, -1);
+		} else if(etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			notModified.incrementAndGet();
+			exchange.sendResponseHeaders(304, -1);
+		} else {
+			byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/rss+xml; charset=UTF-8");
+			exchange.getResponseHeaders().set("ETag", etag);
+			exchange.sendResponseHeaders(200, bytes.length);
+			try(OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+		exchange.close();
+	}
+	
+	@Test
+	public void refresh_conditionalGet() {
+		Feed feed = createExternalFeed("localhost");
+		
+		boolean refreshed = externalFeedRefresher.refresh(feed);
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(refreshed);
+		Assert.assertEquals(2, itemDao.loadItems(feed, null).size());
+		
+		// the feed doesn't change
+		refreshed = externalFeedRefresher.refresh(feed);
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(refreshed);
+		Assert.assertEquals(1, notModified.get());
+		Assert.assertEquals(2, itemDao.loadItems(feed, null).size());
+		
+		// a new item and a changed one
+		rss = rss("First changed", "Second", "Third");
+		refreshed = externalFeedRefresher.refresh(feed);
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(refreshed);
+		Assert.assertEquals(3, requests.get());
+		
+		List<Item> items = itemDao.loadItems(feed, null);
+		Assert.assertEquals(3, items.size());
+		Assert.assertTrue(items.stream().anyMatch(item -> "First changed".equals(item.getTitle())));
+	}
+	
+	@Test
+	public void refresh_circuitBreaker() {
+		Feed feed = createExternalFeed("127.0.0.1");
+		status = 500;
+		
+		// 3 failures (default) open the circuit
+		for(int i=0; i<3; i++) {
+			externalFeedRefresher.refreshInBackground(feed.getKey());
+			dbInstance.commitAndCloseSession();
+		}
+		Assert.assertEquals(3, requests.get());
+		
+		externalFeedRefresher.refreshInBackground(feed.getKey());
+		dbInstance.commitAndCloseSession();
+		Assert.assertEquals(3, requests.get());
+		Assert.assertTrue(itemDao.loadItems(feed, null).isEmpty());
+		
+		// an explicit refresh ignores and closes the circuit
+		status = 200;
+		boolean refreshed = externalFeedRefresher.refresh(feedDao.loadFeed(feed.getKey()));
+		dbInstance.commitAndCloseSession();
+		Assert.assertTrue(refreshed);
+		Assert.assertEquals(2, itemDao.loadItems(feed, null).size());
+	}
+	
+	private Feed createExternalFeed(String host) {
+		Feed feed = feedDao.createFeedForResourcable(JunitTestHelper.createRandomResource());
+		feed.setExternal(Boolean.TRUE);
+		feed.setExternalFeedUrl("http://" + host + ":" + server.getAddress().getPort() + "/feed.xml");
+		feed = feedDao.updateFeed(feed);
+		dbInstance.commitAndCloseSession();
+		return feed;
+	}
+	
+	private static String rss(String... titles) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+		  .append("<rss version=\"2.0\"><channel>")
+		  .append("<title>Local feed</title><link>http://localhost/</link><description>Local feed</description>");
+		for(int i=0; i<titles.length; i++) {
+			sb.append("<item><title>").append(titles[i]).append("</title>")
+			  .append("<guid isPermaLink=\"false\">item-").append(i).append("</guid>")
+			  .append("<link>http://localhost/").append(i).append("</link>")
+			  .append("<description>Item ").append(i).append("</description></item>");
+		}
+		sb.append("</channel></rss>");
+		return sb.toString();
+	}
+}
@@ -23,6 +23,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -242,6 +243,30 @@ public class FeedDAOTest extends OlatTestCase {
 		Assert.assertNull(updated);
 	}
 	
+	@Test
+	public void loadExternalFeedKeysToRefresh() {
+		Date modified = new GregorianCalendar(2000, 2, 2).getTime();
+		Feed externalFeed = new FeedImpl(JunitTestHelper.createRandomResource());
+		externalFeed.setExternal(Boolean.TRUE);
+		externalFeed.setExternalFeedUrl("http://localhost/feed.xml");
+		externalFeed.setLastModified(modified);
+		externalFeed = feedDao.createFeed(externalFeed);
+		Feed internalFeed = new FeedImpl(JunitTestHelper.createRandomResource());
+		internalFeed.setExternal(Boolean.FALSE);
+		internalFeed.setLastModified(modified);
+		internalFeed = feedDao.createFeed(internalFeed);
+		Feed freshFeed = new FeedImpl(JunitTestHelper.createRandomResource());
+		freshFeed.setExternal(Boolean.TRUE);
+		freshFeed.setExternalFeedUrl("http://localhost/fresh.xml");
+		freshFeed = feedDao.createFeed(freshFeed);
+		dbInstance.commitAndCloseSession();
+		
+		List<Long> feedKeys = feedDao.loadExternalFeedKeysToRefresh(new GregorianCalendar(2000, 3, 3).getTime());
+		assertThat(feedKeys)
+			.contains(externalFeed.getKey())
+			.doesNotContain(internalFeed.getKey(), freshFeed.getKey());
+	}
+	
 	@Test
 	public void removeFeed() {
 		// store 3 feeds
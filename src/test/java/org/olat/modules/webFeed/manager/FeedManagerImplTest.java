@@ -100,6 +100,8 @@ public class FeedManagerImplTest {
 	@Mock
 	private ExternalFeedFetcher  feedFetcherMock;
 	@Mock
+	private ExternalFeedRefresher feedRefresherMock;
+	@Mock
 	private OLATResourceManager resourceManagerMock;
 	@Mock
 	private FileResourceManager fileResourceManagerMock;
@@ -127,6 +129,7 @@ public class FeedManagerImplTest {
 		ReflectionTestUtils.setField(sut, "itemDAO", itemDAOMock);
 		ReflectionTestUtils.setField(sut, "feedFileStorage", feedFileStorageMock);
 		ReflectionTestUtils.setField(sut, "externalFeedFetcher", feedFetcherMock);
+		ReflectionTestUtils.setField(sut, "externalFeedRefresher", feedRefresherMock);
 		ReflectionTestUtils.setField(sut, "repositoryManager", repositoryManager);
 		ReflectionTestUtils.setField(sut, "notificationsManager", notificationsManagerMock);
 
@@ -195,8 +198,7 @@ public class FeedManagerImplTest {
 
 		sut.updateExternalFeedUrl(externalFeed, EXTERNAL_URL_NEW);
 
-		verify(feedFetcherMock).fetchFeed(externalFeed);
-		verify(feedFetcherMock).fetchItems(externalFeed);
+		verify(feedRefresherMock).refresh(externalFeed);
 	}
 
 	@Test
@@ -366,8 +368,7 @@ public class FeedManagerImplTest {
 
 		sut.importFeedFromXML(resourceDummy, true);
 
-		verify(feedFetcherMock).fetchFeed(internatFeedMock);
-		verify(feedFetcherMock).fetchItems(internatFeedMock);
+		verify(feedRefresherMock).refresh(internatFeedMock);
 	}
 
 	@Test
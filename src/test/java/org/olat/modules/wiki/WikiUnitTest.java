@@ -30,10 +30,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.resource.OresHelper;
 import org.olat.modules.wiki.versioning.ChangeInfo;
 import org.olat.test.OlatTestCase;
 
@@ -103,4 +105,58 @@ public class WikiUnitTest extends OlatTestCase {
 		//clean up
 		wikiMgr.deleteWiki(ores);
 	}
+	
+	@Test
+	public void renderedPages() {
+		WikiManager wikiMgr = WikiManager.getInstance();
+		OLATResourceable ores = wikiMgr.createWiki();
+		Wiki wiki = wikiMgr.getOrLoadWiki(ores);
+		
+		AtomicInteger renderings = new AtomicInteger();
+		String html = wikiMgr.getOrRenderPage(ores, "ctx", WIKI_CONTENT, markup -> "<p>" + renderings.incrementAndGet() + "</p>");
+		Assert.assertEquals("<p>1</p>", html);
+		// cached
+		html = wikiMgr.getOrRenderPage(ores, "ctx", WIKI_CONTENT, markup -> "<p>" + renderings.incrementAndGet() + "</p>");
+		Assert.assertEquals("<p>1</p>", html);
+		// other context
+		html = wikiMgr.getOrRenderPage(ores, "other", WIKI_CONTENT, markup -> "<p>" + renderings.incrementAndGet() + "</p>");
+		Assert.assertEquals("<p>2</p>", html);
+		
+		// a new page changes the revision of the wiki
+		long revision = wiki.getRevision();
+		WikiPage page = new WikiPage("rendered");
+		page.setContent(WIKI_CONTENT);
+		wiki.addPage(page);
+		wikiMgr.saveWikiPage(ores, page, true, wiki, true);
+		Assert.assertNotEquals(revision, wiki.getRevision());
+		html = wikiMgr.getOrRenderPage(ores, "ctx", WIKI_CONTENT, markup -> "<p>" + renderings.incrementAndGet() + "</p>");
+		Assert.assertEquals("<p>3</p>", html);
+		
+		// the properties too
+		wikiMgr.updateWikiPageProperties(ores, page);
+		html = wikiMgr.getOrRenderPage(ores, "ctx", WIKI_CONTENT, markup -> "<p>" + renderings.incrementAndGet() + "</p>");
+		Assert.assertEquals("<p>4</p>", html);
+		
+		//clean up
+		wikiMgr.deleteWiki(ores);
+	}
+	
+	@Test
+	public void lazyLoading() {
+		WikiManager wikiMgr = WikiManager.getInstance();
+		OLATResourceable ores = wikiMgr.createWiki();
+		Wiki wiki = wikiMgr.getOrLoadWiki(ores);
+		WikiPage menu = wiki.getPage(WikiPage.WIKI_MENU_PAGE, true);
+		String menuContent = menu.getContent();
+		Assert.assertNotEquals("", menuContent);
+		
+		// reload the wiki from the file system
+		wikiMgr.wikiCache.remove(OresHelper.createStringRepresenting(ores));
+		wiki = wikiMgr.getOrLoadWiki(ores);
+		Assert.assertEquals("", wiki.getPage(WikiPage.WIKI_MENU_PAGE).getContent());
+		Assert.assertEquals(menuContent, wiki.getPage(WikiPage.WIKI_MENU_PAGE, true).getContent());
+		
+		//clean up
+		wikiMgr.deleteWiki(ores);
+	}
 }
@@ -449,6 +449,89 @@ public class RepositoryEntryMyCourseQueriesTest extends OlatTestCase {
 		Assert.assertFalse(contains(reNotCoach, views));
 	}
 	
+	/**
+	 * Check that the view of the accessible entries follows the changes
+	 * of memberships and status and stays consistent with the database.
+	 */
+	@Test
+	public void searchViews_accessibleEntries() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("mycourses-view-11-");
+		RepositoryEntry reOwner = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		repositoryManager.setAccess(reOwner, RepositoryEntryStatusEnum.preparation, false, false);
+		repositoryEntryRelationDao.addRole(id, reOwner, GroupRoles.owner.name());
+		RepositoryEntry reParticipant = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		repositoryManager.setAccess(reParticipant, RepositoryEntryStatusEnum.published, false, false);
+		repositoryEntryRelationDao.addRole(id, reParticipant, GroupRoles.participant.name());
+		RepositoryEntry reOpen = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		repositoryManager.setAccess(reOpen, RepositoryEntryStatusEnum.published, true, false);
+		RepositoryEntry reNoAccess = JunitTestHelper.createAndPersistRepositoryEntry(true);
+		repositoryManager.setAccess(reNoAccess, RepositoryEntryStatusEnum.published, false, false);
+		dbInstance.commitAndCloseSession();
+		
+		SearchMyRepositoryEntryViewParams params = new SearchMyRepositoryEntryViewParams(id, Roles.userRoles());
+		assertAccessibleEntries(params, new RepositoryEntry[] { reOwner, reParticipant, reOpen }, new RepositoryEntry[] { reNoAccess });
+
+		// the participant leaves the course
+		repositoryEntryRelationDao.removeRole(id, reParticipant, GroupRoles.participant.name());
+		dbInstance.commitAndCloseSession();
+		assertAccessibleEntries(params, new RepositoryEntry[] { reOwner, reOpen }, new RepositoryEntry[] { reParticipant, reNoAccess });
+		
+		// the open course is deleted and the other one is opened
+		repositoryManager.setStatus(reOpen, RepositoryEntryStatusEnum.trash);
+		repositoryManager.setAccess(reNoAccess, RepositoryEntryStatusEnum.published, true, false);
+		dbInstance.commitAndCloseSession();
+		assertAccessibleEntries(params, new RepositoryEntry[] { reOwner, reNoAccess }, new RepositoryEntry[] { reParticipant, reOpen });
+	}
+	
+	/**
+	 * Check that the pages of the views are the same as the whole list.
+	 */
+	@Test
+	public void searchViews_paging() {
+		Identity id = JunitTestHelper.createAndPersistIdentityAsRndUser("mycourses-view-12-");
+		for(int i=0; i<5; i++) {
+			RepositoryEntry re = JunitTestHelper.createAndPersistRepositoryEntry(true);
+			repositoryManager.setAccess(re, RepositoryEntryStatusEnum.published, false, false);
+			repositoryEntryRelationDao.addRole(id, re, GroupRoles.participant.name());
+		}
+		dbInstance.commitAndCloseSession();
+		
+		for(OrderBy orderBy:new OrderBy[] { OrderBy.key, OrderBy.title, OrderBy.lastVisited }) {
+			SearchMyRepositoryEntryViewParams params = new SearchMyRepositoryEntryViewParams(id, Roles.userRoles());
+			params.setOrderBy(orderBy);
+			params.setOrderByAsc(true);
+			
+			List<RepositoryEntryMyView> allViews = repositoryEntryMyCourseViewQueries.searchViews(params, 0, -1);
+			List<RepositoryEntryMyView> pagedViews = new ArrayList<>();
+			for(int firstResult=0; firstResult<allViews.size(); firstResult += 2) {
+				List<RepositoryEntryMyView> page = repositoryEntryMyCourseViewQueries.searchViews(params, firstResult, 2);
+				Assert.assertTrue(page.size() <= 2);
+				pagedViews.addAll(page);
+			}
+			Assert.assertEquals(allViews.size(), pagedViews.size());
+			if(orderBy == OrderBy.key) {
+				for(int i=0; i<allViews.size(); i++) {
+					Assert.assertEquals(allViews.get(i).getKey(), pagedViews.get(i).getKey());
+				}
+			}
+			
+			List<RepositoryEntryMyView> outOfRange = repositoryEntryMyCourseViewQueries.searchViews(params, allViews.size() + 10, 2);
+			Assert.assertTrue(outOfRange.isEmpty());
+		}
+	}
+	
+	private void assertAccessibleEntries(SearchMyRepositoryEntryViewParams params, RepositoryEntry[] accessibles, RepositoryEntry[] notAccessibles) {
+		List<RepositoryEntryMyView> views = repositoryEntryMyCourseViewQueries.searchViews(params, 0, -1);
+		for(RepositoryEntry accessible:accessibles) {
+			Assert.assertTrue(contains(accessible, views));
+		}
+		for(RepositoryEntry notAccessible:notAccessibles) {
+			Assert.assertFalse(contains(notAccessible, views));
+		}
+		Assert.assertEquals(views.size(), repositoryEntryMyCourseViewQueries.countViews(params));
+		Assert.assertTrue(repositoryEntryMyCourseViewQueries.checkConsistency(params));
+	}
+	
 	private final boolean contains(RepositoryEntry re, List<RepositoryEntryMyView> views) {
 		for(RepositoryEntryMyView view:views) {
 			if(re.getKey().equals(view.getKey())) {
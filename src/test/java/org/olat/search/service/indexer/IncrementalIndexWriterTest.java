@@ -0,0 +1,183 @@
+/**
+ * <a href="http://www.openolat.org">
+ * OpenOLAT - Online Learning and Training</a><br>
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at the
+ * <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache homepage</a>
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Initial code contributed and copyrighted by<br>
+ * frentix GmbH, http://www.frentix.com
+ * <p>
+ */
+package org.olat.search.service.indexer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Bits;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.search.model.AbstractOlatDocument;
+
+/**
+ * Runs the incremental writer several times against the same in-memory
+ * index, like the full indexer does with the live index.
+ * 
+ * Initial date: 18 oct. 2026<br>
+ *
+ */
+public class IncrementalIndexWriterTest {
+	
+	private Directory directory;
+	private IndexWriter indexWriter;
+	private IncrementalIndexWriter incrementalWriter;
+	
+	@Before
+	public void createDirectory() {
+		directory = new RAMDirectory();
+	}
+	
+	@After
+	public void closeDirectory() throws IOException {
+		if(indexWriter != null) {
+			indexWriter.close();
+		}
+		directory.close();
+	}
+	
+	@Test
+	public void unchangedDocuments() throws IOException {
+		startRun();
+		Assert.assertTrue(add(document("[Repo:1]", "Hello", "1")));
+		Assert.assertTrue(add(document("[Repo:2]", "World", "1")));
+		Assert.assertEquals(0, endRun());
+		
+		startRun();
+		Assert.assertEquals(2, incrementalWriter.getNumOfPreviousResources());
+		// only the time stamp changed
+		Assert.assertFalse(add(document("[Repo:1]", "Hello", "2")));
+		Assert.assertFalse(add(document("[Repo:2]", "World", "2")));
+		Assert.assertEquals(0, endRun());
+		
+		List<Document> documents = loadDocuments();
+		Assert.assertEquals(2, documents.size());
+		assertOneFingerprint(documents);
+	}
+	
+	@Test
+	public void changedDocuments() throws IOException {
+		startRun();
+		add(document("[Repo:1]", "Hello", "1"));
+		add(document("[Repo:2]", "World", "1"));
+		endRun();
+		
+		startRun();
+		Assert.assertFalse(add(document("[Repo:1]", "Hello", "2")));
+		// the document comes from the live index and has already a fingerprint
+		Document changed = document("[Repo:2]", "Monde", "2");
+		changed.add(new StringField(AbstractOlatDocument.FINGERPRINT_FIELD_NAME, "stale", Field.Store.YES));
+		Assert.assertTrue(add(changed));
+		Assert.assertEquals(0, endRun());
+		
+		List<Document> documents = loadDocuments();
+		Assert.assertEquals(2, documents.size());
+		assertOneFingerprint(documents);
+		for(Document document:documents) {
+			if("[Repo:2]".equals(document.get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME))) {
+				Assert.assertEquals("Monde", document.get(AbstractOlatDocument.CONTENT_FIELD_NAME));
+			}
+		}
+		
+		// the rewritten fingerprint is stable
+		startRun();
+		Assert.assertFalse(add(document("[Repo:1]", "Hello", "3")));
+		Assert.assertFalse(add(document("[Repo:2]", "Monde", "3")));
+		endRun();
+	}
+	
+	@Test
+	public void removedResources() throws IOException {
+		startRun();
+		add(document("[Repo:1]", "Hello", "1"));
+		add(document("[Repo:2]", "World", "1"));
+		add(document("[Repo:2]", "Welt", "1"));
+		add(document("[Repo:3]", "Mundo", "1"));
+		endRun();
+		Assert.assertEquals(4, loadDocuments().size());
+		
+		startRun();
+		Assert.assertFalse(add(document("[Repo:1]", "Hello", "2")));
+		// two documents of resource 2 and the one of resource 3
+		Assert.assertEquals(3, endRun());
+		
+		List<Document> documents = loadDocuments();
+		Assert.assertEquals(1, documents.size());
+		Assert.assertEquals("[Repo:1]", documents.get(0).get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME));
+	}
+	
+	private void startRun() throws IOException {
+		indexWriter = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+		incrementalWriter = new IncrementalIndexWriter(indexWriter);
+	}
+	
+	private boolean add(Document document) throws IOException {
+		return incrementalWriter.addDocument(document, IncrementalIndexWriter.getFingerprint(document));
+	}
+	
+	private int endRun() throws IOException {
+		int deleted = incrementalWriter.deleteGoneDocuments();
+		indexWriter.commit();
+		indexWriter.close();
+		indexWriter = null;
+		return deleted;
+	}
+	
+	private List<Document> loadDocuments() throws IOException {
+		List<Document> documents = new ArrayList<>();
+		try(DirectoryReader reader = DirectoryReader.open(directory)) {
+			Bits liveDocs = MultiFields.getLiveDocs(reader);
+			for(int i=0; i<reader.maxDoc(); i++) {
+				if(liveDocs == null || liveDocs.get(i)) {
+					documents.add(reader.document(i));
+				}
+			}
+		}
+		return documents;
+	}
+	
+	private void assertOneFingerprint(List<Document> documents) {
+		for(Document document:documents) {
+			Assert.assertEquals(1, document.getValues(AbstractOlatDocument.FINGERPRINT_FIELD_NAME).length);
+		}
+	}
+	
+	private Document document(String resourceUrl, String content, String timestamp) {
+		Document document = new Document();
+		document.add(new StringField(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl, Field.Store.YES));
+		document.add(new TextField(AbstractOlatDocument.CONTENT_FIELD_NAME, content, Field.Store.YES));
+		document.add(new StringField(AbstractOlatDocument.TIME_STAMP_NAME, timestamp, Field.Store.YES));
+		return document;
+	}
+}
@@ -60,10 +60,12 @@ import org.junit.runners.Suite;
 	org.olat.core.util.filter.impl.XMLValidCharacterFilterTest.class,
 	org.olat.core.util.filter.impl.XMLValidEntityFilterTest.class,
 	org.olat.core.helpers.SettingsTest.class,
+	org.olat.core.logging.activity.UserActivityLogWriterTest.class,
 	org.olat.core.util.coordinate.LockEntryTest.class,
 	org.olat.core.util.coordinate.DBPersistentLockManagerTest.class,
 	org.olat.core.util.StringHelperTest.class,
 	org.olat.core.util.FileUtilsTest.class,
+	org.olat.core.util.zip.ParallelZipArchiveTest.class,
 	org.olat.core.util.FileNameSuffixFilterTest.class,
 	org.olat.core.util.FormatterTest.class,
 	org.olat.core.util.FormatLatexFormulasTest.class,
@@ -84,6 +86,8 @@ import org.junit.runners.Suite;
 	org.olat.core.id.context.HistoryManagerTest.class,
 	org.olat.core.id.IdentityEnvironmentTest.class,
 	org.olat.core.gui.render.VelocityTemplateTest.class,
+	org.olat.core.gui.render.StringOutputPoolTest.class,
+	org.olat.core.gui.media.ServletUtilTest.class,
 	org.olat.core.gui.control.generic.iframe.IFrameDeliveryMapperTest.class,
 	org.olat.note.NoteTest.class,
 	org.olat.user.UserTest.class,
@@ -93,15 +97,21 @@ import org.junit.runners.Suite;
 	org.olat.commons.calendar.manager.ImportedToCalendarDAOTest.class,
 	org.olat.commons.calendar.manager.ICalFileCalendarManagerTest.class,
 	org.olat.commons.calendar.manager.CalendarUserConfigurationDAOTest.class,
+	org.olat.commons.calendar.model.KalendarIntervalTreeTest.class,
 	org.olat.commons.lifecycle.LifeCycleManagerTest.class,
 	org.olat.commons.coordinate.cluster.jms.JMSTest.class,
+	org.olat.commons.coordinate.cluster.jms.JMSBatchTest.class,
 	org.olat.commons.coordinate.cluster.lock.LockTest.class,
+	org.olat.commons.coordinate.cluster.ClusterSyncerTest.class,
 	org.olat.commons.coordinate.CoordinatorTest.class,
+	org.olat.commons.coordinate.singlevm.SingleVMEventBusTest.class,
 	org.olat.core.commons.services.csp.manager.CSPManagerTest.class,
 	org.olat.core.commons.services.vfs.manager.VFSXStreamTest.class,
 	org.olat.core.commons.services.vfs.manager.VFSMetadataDAOTest.class,
+	org.olat.core.commons.services.vfs.manager.VFSDownloadCounterTest.class,
 	org.olat.core.commons.services.vfs.manager.VFSRevisionDAOTest.class,
 	org.olat.core.commons.services.vfs.manager.VFSThumbnailDAOTest.class,
+	org.olat.core.commons.services.vfs.manager.VFSThumbnailQueueTest.class,
 	org.olat.core.commons.services.vfs.manager.VFSRepositoryServiceTest.class,
 	org.olat.core.commons.services.vfs.manager.VFSLockManagerTest.class,
 	org.olat.core.commons.services.vfs.manager.VFSVersioningTest.class,
@@ -139,6 +149,7 @@ import org.junit.runners.Suite;
 	org.olat.basesecurity.manager.RelationRightDAOTest.class,
 	org.olat.basesecurity.manager.RelationRoleDAOTest.class,
 	org.olat.basesecurity.manager.IdentityToIdentityRelationDAOTest.class,
+	org.olat.basesecurity.manager.IdentityTrigramIndexTest.class,
 	org.olat.basesecurity.SecurityManagerTest.class,
 	org.olat.basesecurity.GetIdentitiesByPowerSearchTest.class,
 	org.olat.basesecurity.BaseSecurityManagerTest.class,
@@ -181,12 +192,14 @@ import org.junit.runners.Suite;
 	org.olat.course.statistic.DayOfWeekStatisticUpdateManagerTest.class,
 	org.olat.course.statistic.HourOfDayStatisticUpdateManagerTest.class,
 	org.olat.course.statistic.WeeklyStatisticUpdateManagerTest.class,
+	org.olat.course.statistic.IncrementalStatisticUpdaterTest.class,
 	org.olat.modules.assessment.manager.AssessmentEntryDAOTest.class,
 	org.olat.course.certificate.manager.CertificatesManagerTest.class,
 	org.olat.course.config.CourseConfigManagerImplTest.class,
 	org.olat.course.groupsandrights.CourseGroupManagementTest.class,
 	org.olat.course.editor.PublishProcessTest.class,
 	org.olat.course.CourseXStreamAliasesTest.class,
+	org.olat.course.CourseBinarySnapshotTest.class,
 	org.olat.modules.adobeconnect.manager.AdobeConnectProviderTest.class,
 	org.olat.modules.adobeconnect.manager.AdobeConnectUserDAOTest.class,
 	org.olat.modules.adobeconnect.manager.AdobeConnectMeetingDAOTest.class,
@@ -273,6 +286,7 @@ import org.junit.runners.Suite;
 	org.olat.modules.reminder.manager.ReminderDAOTest.class,
 	org.olat.modules.reminder.manager.ReminderRuleEngineTest.class,
 	org.olat.modules.reminder.manager.ReminderRulesXStreamTest.class,
+	org.olat.modules.reminder.model.IdentityKeySetTest.class,
 	org.olat.modules.taxonomy.manager.TaxonomyDAOTest.class,
 	org.olat.modules.taxonomy.manager.TaxonomyLevelDAOTest.class,
 	org.olat.modules.taxonomy.manager.TaxonomyLevelTypeDAOTest.class,
@@ -287,9 +301,11 @@ import org.junit.runners.Suite;
 	org.olat.modules.webFeed.manager.FeedDAOTest.class,
 	org.olat.modules.webFeed.manager.ItemDAOTest.class,
 	org.olat.modules.webFeed.manager.FeedFileStorgeTest.class,
+	org.olat.modules.webFeed.manager.ExternalFeedRefresherTest.class,
 	org.olat.properties.PropertyTest.class,
 	org.olat.search.service.document.file.FileDocumentFactoryTest.class,
 	org.olat.search.service.indexer.repository.course.SPCourseNodeIndexerTest.class,
+	org.olat.search.service.indexer.IncrementalIndexWriterTest.class,
 	org.olat.search.service.document.file.PDFDocumentTest.class,
 	org.olat.search.service.document.file.OfficeDocumentTest.class,
 	org.olat.core.commons.services.notifications.manager.NotificationsManagerTest.class,
@@ -310,6 +326,8 @@ import org.junit.runners.Suite;
 	org.olat.ims.qti21.manager.AssessmentItemSessionDAOTest.class,
 	org.olat.ims.qti21.manager.AssessmentResponseDAOTest.class,
 	org.olat.ims.qti21.manager.CorrectResponsesUtilTest.class,
+	org.olat.ims.qti21.manager.SessionStateJournalTest.class,
+	org.olat.ims.qti21.manager.archive.QTI21ArchiveFormatTest.class,
 	org.olat.ims.qti21.model.xml.AssessmentItemBuilderTest.class,
 	org.olat.ims.qti21.model.xml.MultipleChoiceAssessmentItemBuilderTest.class,
 	org.olat.ims.qti21.model.xml.SingleChoiceAssessmentItemBuilderTest.class,